@@ -1,11 +1,16 @@
 package me.mugon.lendit.api;
 
 import lombok.RequiredArgsConstructor;
+import me.mugon.lendit.api.balance.BalanceLedgerService;
+import me.mugon.lendit.api.cache.ProductCatalogVersion;
+import me.mugon.lendit.api.cache.ProductDetailCache;
+import me.mugon.lendit.api.summary.SalesSummaryService;
 import me.mugon.lendit.domain.common.BaseValidator;
 import me.mugon.lendit.domain.account.Account;
 import me.mugon.lendit.domain.account.AccountAdapter;
 import me.mugon.lendit.domain.account.AccountRepository;
 import me.mugon.lendit.domain.account.AccountResource;
+import me.mugon.lendit.domain.product.ProductRepository;
 import me.mugon.lendit.web.AccountController;
 import me.mugon.lendit.web.LoginController;
 import me.mugon.lendit.web.ProductController;
@@ -34,6 +39,16 @@ public class AccountService implements UserDetailsService {
 
     private final BaseValidator baseValidator;
 
+    private final BalanceLedgerService balanceLedgerService;
+
+    private final SalesSummaryService salesSummaryService;
+
+    private final ProductDetailCache productDetailCache;
+
+    private final ProductRepository productRepository;
+
+    private final ProductCatalogVersion productCatalogVersion;
+
     /**
      * 유저 생성
      * 1. 클라이언트에게 전달받은 Dto의 username으로 db를 검색
@@ -62,7 +77,9 @@ public class AccountService implements UserDetailsService {
      * 유저 수정
      * 1. url경로로 전달받은 유저의 id로 db를 검색
      * 2. db에 없다면 Body에 'message: 사용자를 찾을 수 없습니다.' 를 실어서 Bad Request와 함께 반환
-     * 3. db에 있다면 전달받은 dto의 값으로 데이터 변경
+     * 3. db에 있다면 전달받은 dto의 값으로 데이터 변경, 예치금은 현재 예치금과의 차이를 예치금 원장에 추가
+     *    개별 상품 조회 응답에 상품을 등록한 유저가 담기므로, 커밋되면 유저가 등록한 상품들을 캐시에서 지우고 상품 목록의 버전을 올림
+     *    이름이 바뀌면 개별 상품 조회의 ETag가 바뀌도록 유저가 등록한 상품들의 버전도 올림
      * 4. HATEOAS를 위해 delete-acoount, self, query-products 관계를 EntityModel에 더함
      * 5. Self Descriptive Message를 위해 API Guide의 주소를 profile 관계로 명시하여 더함
      * 6. Body에 위의 EntityModel을 실어 반환
@@ -74,7 +91,16 @@ public class AccountService implements UserDetailsService {
             return new ResponseEntity<>(baseValidator.returnErrorMessage(USERNOTFOUND), HttpStatus.BAD_REQUEST);
         }
         Account account = optionalAccount.get();
+        if (requestDto.getBalance() != null) { // 예치금을 보내지 않은 경우 예치금은 그대로 둠
+            balanceLedgerService.adjust(account, requestDto.getBalance());
+        }
+        boolean usernameChanged = !Objects.equals(account.getUsername(), requestDto.getUsername());
         account.update(requestDto);
+        if (usernameChanged) {
+            productRepository.increaseVersionByAccountId(account.getId());
+        }
+        productDetailCache.evictAll(productIdsOf(account));
+        productCatalogVersion.increment();
         AccountResponseDto accountResponseDto = new AccountResponseDto(account);
         AccountResource accountResource = new AccountResource(accountResponseDto);
         accountResource.add(linkTo(AccountController.class).slash(accountResponseDto.getId()).withRel("delete-account"));
@@ -87,7 +113,7 @@ public class AccountService implements UserDetailsService {
      * 유저 삭제
      * 1. url경로로 전달받은 유저의 id로 db를 검색
      * 2. db에 없다면 Body에 'message: 사용자를 찾을 수 없습니다.' 를 실어서 Bad Request와 함께 반환
-     * 3. db에 있다면 삭제
+     * 3. db에 있다면 삭제하고, 구매자, 판매자 요약과 개별 상품 조회 캐시의 유저가 등록한 상품들도 삭제하고 상품 목록의 버전을 올림
      * 4. HATEOAS를 위해 login, self 관계를 EntityModel에 더함
      * 5. Self Descriptive Message를 위해 API Guide의 주소를 profile 관계로 명시하여 더함
      * 6. Body에 위의 EntityModel을 실어 반환
@@ -99,6 +125,10 @@ public class AccountService implements UserDetailsService {
             return new ResponseEntity<>(baseValidator.returnErrorMessage(USERNOTFOUND), HttpStatus.BAD_REQUEST);
         }
         accountRepository.delete(optionalAccount.get());
+        balanceLedgerService.remove(accountId);
+        salesSummaryService.remove(accountId);
+        productDetailCache.evictAll(productIdsOf(optionalAccount.get()));
+        productCatalogVersion.increment();
         AccountResource accountResource = new AccountResource(new AccountResponseDto(optionalAccount.get()));
         accountResource.add(linkTo(LoginController.class).withRel("login"));
         accountResource.add(new Link("https://mkshin96.github.io/Coding-Task/#resources-accounts-delete").withRel("profile"));
@@ -133,6 +163,14 @@ public class AccountService implements UserDetailsService {
         return accountRepository.findById(accountId);
     }
 
+    private List<Long> productIdsOf(Account account) {
+        List<Long> productIds = new ArrayList<>();
+        if (account.getProductSet() != null) {
+            account.getProductSet().forEach(e -> productIds.add(e.getId()));
+        }
+        return productIds;
+    }
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         Account account = this.accountRepository.findByUsername(username).orElseThrow(() -> new UsernameNotFoundException(username + "을 찾을 수 없습니다."));
@@ -0,0 +1,147 @@
+package me.mugon.lendit.api;
+
+import lombok.extern.slf4j.Slf4j;
+import me.mugon.lendit.config.HalSerializer;
+import me.mugon.lendit.domain.idempotency.IdempotencyRecord;
+import me.mugon.lendit.domain.idempotency.IdempotencyRecordRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Idempotency-Key 헤더로 같은 요청이 여러 번 처리되는 것을 막기 위해 구현
+ * 처리된 결과는 db에 저장하고, 최근에 사용된 결과는 크기가 제한된 메모리 캐시에 두어 재요청 시 한 번의 조회로 응답함
+ * 캐시와 db 모두 lendit.idempotency.ttl이 지난 결과는 만료된 것으로 보고 사용하지 않음
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+
+    private final HalSerializer halSerializer;
+
+    private final Duration ttl;
+
+    /** 최근에 사용된 결과를 담는 LRU 캐시, 최대 개수를 넘으면 가장 오래 사용되지 않은 결과부터 제거 */
+    private final Map<String, IdempotencyRecord> cache;
+
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository, HalSerializer halSerializer,
+                              @Value("${lendit.idempotency.cache-size:10000}") int cacheSize,
+                              @Value("${lendit.idempotency.ttl:24h}") Duration ttl) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.halSerializer = halSerializer;
+        this.ttl = ttl;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<String, IdempotencyRecord>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, IdempotencyRecord> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    public boolean isValidKey(String idempotencyKey) {
+        return !idempotencyKey.trim().isEmpty() && idempotencyKey.length() <= MAX_KEY_LENGTH;
+    }
+
+    /**
+     * 요청 내용이 같은지 비교하기 위해 SHA-256 해시를 만듦
+     */
+    public String fingerprint(String content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 캐시를 먼저 확인하고, 없으면 db에서 조회하여 캐시에 담음
+     */
+    public Optional<IdempotencyRecord> find(Long accountId, String idempotencyKey) {
+        String cacheKey = cacheKey(accountId, idempotencyKey);
+        IdempotencyRecord cached = cache.get(cacheKey);
+        if (cached != null) {
+            if (!cached.isExpired(ttl)) {
+                return Optional.of(cached);
+            }
+            cache.remove(cacheKey);
+        }
+        Optional<IdempotencyRecord> optionalRecord = idempotencyRecordRepository.findByAccountIdAndIdempotencyKey(accountId, idempotencyKey)
+                .filter(e -> !e.isExpired(ttl));
+        optionalRecord.ifPresent(e -> cache.put(cacheKey, e));
+        return optionalRecord;
+    }
+
+    /**
+     * 처리 결과를 저장
+     * 요청을 처리한 트랜잭션 안에서 호출해야 하며, 같은 키로 동시에 들어온 요청이 먼저 저장한 경우
+     * unique 제약조건 위반으로 DataIntegrityViolationException이 발생하여 트랜잭션이 롤백됨
+     */
+    public void save(Long accountId, String idempotencyKey, String fingerprint, ResponseEntity<?> response) {
+        IdempotencyRecord record = idempotencyRecordRepository.save(IdempotencyRecord.builder()
+                .accountId(accountId)
+                .idempotencyKey(idempotencyKey)
+                .fingerprint(fingerprint)
+                .status(response.getStatusCodeValue())
+                .body(halSerializer.serialize(response.getBody()))
+                .createdAt(LocalDateTime.now())
+                .build());
+        String cacheKey = cacheKey(accountId, idempotencyKey);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.put(cacheKey, record);
+                }
+            });
+        } else {
+            cache.put(cacheKey, record);
+        }
+    }
+
+    /**
+     * 저장해 둔 결과를 처음 응답과 같은 상태 코드와 Body로 반환
+     */
+    public ResponseEntity<?> replay(IdempotencyRecord record) {
+        return ResponseEntity.status(HttpStatus.valueOf(record.getStatus()))
+                .contentType(halSerializer.getContentType())
+                .header(REPLAYED_HEADER, "true")
+                .body(record.getBody());
+    }
+
+    /**
+     * 만료된 결과를 db에서 삭제
+     */
+    @Transactional
+    @Scheduled(fixedDelayString = "${lendit.idempotency.purge-interval:600000}")
+    public void purgeExpired() {
+        int deleted = idempotencyRecordRepository.deleteByCreatedAtBefore(LocalDateTime.now().minus(ttl));
+        if (deleted > 0) {
+            log.info("purged {} expired idempotency records", deleted);
+        }
+    }
+
+    private String cacheKey(Long accountId, String idempotencyKey) {
+        return accountId + ":" + idempotencyKey;
+    }
+}
@@ -0,0 +1,273 @@
+package me.mugon.lendit.api;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import me.mugon.lendit.domain.account.Account;
+import me.mugon.lendit.domain.order.OrderImportStatus;
+import me.mugon.lendit.domain.order.OrderTicket;
+import me.mugon.lendit.domain.order.OrdersResource;
+import me.mugon.lendit.domain.order.OrdersValidator;
+import me.mugon.lendit.web.dto.order.OrderImportRequestDto;
+import me.mugon.lendit.web.dto.order.OrderImportResultDto;
+import me.mugon.lendit.web.dto.order.OrdersRequestDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.Errors;
+
+import javax.persistence.EntityManager;
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static me.mugon.lendit.api.error.ErrorMessageConstant.*;
+
+/**
+ * 제휴사가 보내는 대량의 주문 파일을 한 줄씩 읽어 등록하는 서비스
+ * 주문 전체를 하나의 List<OrdersRequestDto>로 받지 않고 NDJSON(application/x-ndjson)이나 CSV(text/csv)로 받아 스트리밍으로 처리함
+ *
+ * 동작 방식
+ * 1. 요청 Body를 한 줄씩 읽고, 한 줄을 하나의 상품을 주문하는 하나의 주문으로 만듦 (빈 줄은 건너뜀)
+ *    NDJSON은 줄마다 {"productId", "number", "total", "idempotencyKey"} 객체이며,
+ *    CSV는 첫 줄에 열 이름(productId, number, total, 선택적으로 idempotencyKey)이 있어야 하고 따옴표는 지원하지 않음
+ * 2. 읽을 수 없는 줄이나 주문 등록(POST /api/orders)과 같은 OrdersValidator 규칙을 만족하지 않는 줄은 INVALID로 처리
+ * 3. idempotencyKey가 있는 줄은 주문 등록과 같이 이미 처리한 결과가 있는지 확인하여, 있으면 다시 처리하지 않고 DUPLICATE로 처리
+ * 4. lendit.order.import.chunk-size 줄마다 모인 주문을 하나의 트랜잭션으로 처리하여 커밋 (OrderService.orderBatch)
+ *    트랜잭션이 예외로 롤백되면 그 chunk의 주문을 하나씩 다시 처리하여, 문제가 있는 줄만 FAILED로 처리하고 나머지는 등록함
+ * 5. chunk를 처리할 때마다 그 chunk의 줄별 결과를 NDJSON으로 응답에 쓰고 내보낸 뒤, 영속성 컨텍스트를 비움
+ *
+ * 요청과 응답을 모두 스트리밍하고 한 번에 chunk 하나만 메모리에 두기 때문에 파일의 크기와 관계없이 사용하는 메모리가 같음
+ * 앞선 chunk는 이미 커밋되었으므로 도중에 연결이 끊기면 보고서를 받은 줄까지 등록되며, idempotencyKey와 함께 파일을 다시 보내면 이어서 처리할 수 있음
+ */
+@Slf4j
+@Service
+public class OrderImportService {
+
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+
+    public static final String CSV_VALUE = "text/csv";
+
+    private static final List<String> CSV_REQUIRED_COLUMNS = Arrays.asList("productId", "number", "total");
+
+    private final OrderService orderService;
+
+    private final OrdersValidator ordersValidator;
+
+    private final ObjectMapper objectMapper;
+
+    private final EntityManager entityManager;
+
+    private final int chunkSize;
+
+    public OrderImportService(OrderService orderService, OrdersValidator ordersValidator, ObjectMapper objectMapper, EntityManager entityManager,
+                              @Value("${lendit.order.import.chunk-size:500}") int chunkSize) {
+        this.orderService = orderService;
+        this.ordersValidator = ordersValidator;
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * 주문 파일을 읽어 등록하고 줄별 결과를 out에 NDJSON으로 씀
+     */
+    public void importOrders(MediaType contentType, InputStream in, OutputStream out, Account currentUser) throws IOException {
+        Charset charset = contentType.getCharset() == null ? StandardCharsets.UTF_8 : contentType.getCharset();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, charset));
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        boolean csv = contentType.isCompatibleWith(MediaType.parseMediaType(CSV_VALUE));
+
+        Chunk chunk = new Chunk();
+        Map<String, Integer> columns = null;
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            if (csv && columns == null) {
+                columns = parseHeader(line);
+                if (columns == null) {
+                    write(writer, OrderImportResultDto.of(lineNumber, OrderImportStatus.INVALID, INVALIDIMPORTHEADER));
+                    break;
+                }
+                continue;
+            }
+            OrderImportRequestDto requestDto = csv ? parseCsv(line, columns) : parseJson(line);
+            chunk.add(lineNumber, requestDto, currentUser);
+            if (chunk.size() >= chunkSize) {
+                flush(chunk, writer);
+                chunk = new Chunk();
+            }
+        }
+        flush(chunk, writer);
+        writer.flush();
+    }
+
+    private void flush(Chunk chunk, Writer writer) throws IOException {
+        if (chunk.size() == 0) {
+            return;
+        }
+        List<ResponseEntity<?>> responses = process(chunk.tickets);
+        for (int i = 0; i < chunk.tickets.size(); i++) {
+            chunk.results.set(chunk.ticketIndexes.get(i), toResult(chunk.ticketLines.get(i), responses.get(i)));
+        }
+        for (OrderImportResultDto result : chunk.results) {
+            write(writer, result);
+        }
+        writer.flush();
+        entityManager.clear(); // 요청이 끝날 때까지 열려 있는 영속성 컨텍스트에 chunk마다 읽은 엔티티가 쌓이지 않도록 비움
+    }
+
+    private List<ResponseEntity<?>> process(List<OrderTicket> tickets) {
+        if (tickets.isEmpty()) {
+            return Collections.emptyList();
+        }
+        try {
+            return orderService.orderBatch(tickets);
+        } catch (RuntimeException e) {
+            log.warn("order import chunk of {} failed, retry one by one", tickets.size(), e);
+            List<ResponseEntity<?>> responses = new ArrayList<>(tickets.size());
+            for (OrderTicket ticket : tickets) {
+                try {
+                    responses.add(orderService.order(ticket.getOrdersRequestDtos(), ticket.getAccount(), ticket.getIdempotencyKey()));
+                } catch (RuntimeException exception) {
+                    log.error("order import line {} failed", ticket.getId(), exception);
+                    responses.add(null);
+                }
+            }
+            return responses;
+        }
+    }
+
+    private OrderImportResultDto toResult(long lineNumber, ResponseEntity<?> response) {
+        if (response == null) {
+            return OrderImportResultDto.of(lineNumber, OrderImportStatus.FAILED, ORDERFAILED);
+        }
+        if (response.getStatusCode() == HttpStatus.BAD_REQUEST) {
+            return OrderImportResultDto.of(lineNumber, OrderImportStatus.REJECTED, errorMessage(response));
+        }
+        if (response.getBody() instanceof OrdersResource) {
+            return OrderImportResultDto.created(lineNumber, ((OrdersResource) response.getBody()).getContent().iterator().next().getContent().getId());
+        }
+        return OrderImportResultDto.of(lineNumber, OrderImportStatus.DUPLICATE, null); // 같은 트랜잭션의 다른 줄이 같은 키로 먼저 등록하여 저장된 결과를 반환한 경우
+    }
+
+    @SuppressWarnings("unchecked")
+    private String errorMessage(ResponseEntity<?> response) {
+        Map<String, List<String>> body = (Map<String, List<String>>) response.getBody();
+        return String.join(" ", body.get(KEY));
+    }
+
+    /**
+     * CSV의 첫 줄에서 열 이름별 위치를 읽음, 필수 열이 없으면 null을 반환
+     */
+    private Map<String, Integer> parseHeader(String line) {
+        String[] names = line.split(",", -1);
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            columns.put(names[i].trim(), i);
+        }
+        return columns.keySet().containsAll(CSV_REQUIRED_COLUMNS) ? columns : null;
+    }
+
+    private OrderImportRequestDto parseCsv(String line, Map<String, Integer> columns) {
+        String[] values = line.split(",", -1);
+        try {
+            return OrderImportRequestDto.builder()
+                    .productId(parseLong(values, columns.get("productId")))
+                    .number(parseLong(values, columns.get("number")))
+                    .total(parseLong(values, columns.get("total")))
+                    .idempotencyKey(value(values, columns.get("idempotencyKey")))
+                    .build();
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private OrderImportRequestDto parseJson(String line) {
+        try {
+            return objectMapper.readValue(line, OrderImportRequestDto.class);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    private Long parseLong(String[] values, Integer index) {
+        String value = value(values, index);
+        return value == null ? null : Long.valueOf(value);
+    }
+
+    private String value(String[] values, Integer index) {
+        if (index == null || index >= values.length || values[index].trim().isEmpty()) {
+            return null;
+        }
+        return values[index].trim();
+    }
+
+    private void write(Writer writer, OrderImportResultDto result) throws IOException {
+        writer.write(objectMapper.writeValueAsString(result));
+        writer.write('\n');
+    }
+
+    /**
+     * 하나의 트랜잭션으로 처리할 줄들
+     * 결과를 줄 순서대로 쓰기 위해 처리할 필요가 없는 줄(INVALID, DUPLICATE)의 결과도 함께 담아둠
+     */
+    private class Chunk {
+
+        private final List<OrderImportResultDto> results = new ArrayList<>();
+
+        private final List<OrderTicket> tickets = new ArrayList<>();
+
+        /** tickets와 같은 순서로, 주문의 줄 번호와 results에서의 위치 */
+        private final List<Long> ticketLines = new ArrayList<>();
+
+        private final List<Integer> ticketIndexes = new ArrayList<>();
+
+        private int size() {
+            return results.size();
+        }
+
+        private void add(long lineNumber, OrderImportRequestDto requestDto, Account currentUser) {
+            if (requestDto == null) {
+                results.add(OrderImportResultDto.of(lineNumber, OrderImportStatus.INVALID, INVALIDIMPORTLINE));
+                return;
+            }
+            OrdersRequestDto ordersRequestDto = requestDto.toOrdersRequestDto();
+            Errors errors = new BeanPropertyBindingResult(ordersRequestDto, "ordersRequestDto");
+            ordersValidator.validate(ordersRequestDto, errors);
+            if (errors.hasErrors()) {
+                results.add(OrderImportResultDto.of(lineNumber, OrderImportStatus.INVALID, errorMessage(ordersValidator.returnErrors(errors))));
+                return;
+            }
+            List<OrdersRequestDto> ordersRequestDtos = Collections.singletonList(ordersRequestDto);
+            String idempotencyKey = requestDto.getIdempotencyKey();
+            if (idempotencyKey != null) {
+                Optional<ResponseEntity<?>> optionalResponse = orderService.checkIdempotency(ordersRequestDtos, currentUser, idempotencyKey);
+                if (optionalResponse.isPresent()) {
+                    ResponseEntity<?> response = optionalResponse.get();
+                    results.add(response.getStatusCode() == HttpStatus.BAD_REQUEST
+                            ? OrderImportResultDto.of(lineNumber, OrderImportStatus.REJECTED, errorMessage(response))
+                            : OrderImportResultDto.of(lineNumber, OrderImportStatus.DUPLICATE, null));
+                    return;
+                }
+            }
+            ticketIndexes.add(results.size());
+            ticketLines.add(lineNumber);
+            results.add(null);
+            tickets.add(OrderTicket.builder()
+                    .id(String.valueOf(lineNumber))
+                    .account(currentUser)
+                    .ordersRequestDtos(ordersRequestDtos)
+                    .idempotencyKey(idempotencyKey)
+                    .build());
+        }
+    }
+}
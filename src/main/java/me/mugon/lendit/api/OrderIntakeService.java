@@ -0,0 +1,330 @@
+package me.mugon.lendit.api;
+
+import lombok.extern.slf4j.Slf4j;
+import me.mugon.lendit.config.HalSerializer;
+import me.mugon.lendit.domain.account.Account;
+import me.mugon.lendit.domain.order.OrderTicket;
+import me.mugon.lendit.domain.order.OrderTicketResource;
+import me.mugon.lendit.domain.order.OrderTicketStatus;
+import me.mugon.lendit.domain.order.OrdersValidator;
+import me.mugon.lendit.web.dto.order.OrderTicketResponseDto;
+import me.mugon.lendit.web.dto.order.OrdersRequestDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static me.mugon.lendit.api.error.ErrorMessageConstant.*;
+
+/**
+ * 주문이 몰릴 때 요청 스레드가 db 트랜잭션을 기다리지 않도록 주문을 대기열에 접수하고 나중에 처리하는 서비스
+ * 'Prefer: respond-async' 헤더와 함께 들어온 주문에만 사용하며, 헤더가 없으면 기존처럼 주문을 바로 처리함
+ *
+ * 동작 방식
+ * 1. 주문을 크기가 제한된 대기열(lendit.order.intake.queue-capacity)에 넣고 접수 번호와 함께 Accepted를 반환
+ * 2. 대기열이 가득 찬 경우 Body에 'message: 주문이 많아 접수할 수 없습니다. 잠시 후 다시 시도해 주세요.'를 실어 Too Many Requests와 함께 반환
+ * 3. 작업 스레드(lendit.order.intake.workers)는 대기열에서 최대 lendit.order.intake.batch-size개의 주문을 꺼내 하나의 트랜잭션으로 처리 (OrderService.orderBatch)
+ * 4. 배치 트랜잭션이 예외로 롤백되면 배치에 담긴 주문을 하나씩 다시 처리하여, 문제가 있는 주문만 FAILED로 처리
+ * 5. 처리 결과는 접수 번호로 조회할 수 있고, Callback-Url 헤더를 보낸 경우 처리가 끝나면 결과를 해당 주소로 POST 함
+ *    서버가 내부망으로 요청을 보내는 데 악용되지 않도록(SSRF) Callback-Url의 host는 lendit.order.intake.callback-hosts에 등록된 host만 허용하며,
+ *    보내기 직전에 host를 DNS로 조회하여 loopback, link-local, site-local 등 공인 주소가 아닌 주소가 하나라도 있으면 보내지 않고 버림
+ * 6. 처리가 끝난 접수 내역은 lendit.order.intake.ticket-retention 동안 보관한 뒤 삭제
+ *
+ * 접수 내역과 대기열은 메모리에 있기 때문에 비정상 종료 시 처리되지 않은 주문은 유실됨, 정상 종료 시에는 대기열에 남은 주문을 모두 처리한 뒤 종료함
+ */
+@Slf4j
+@Service
+public class OrderIntakeService {
+
+    public static final String PREFER_HEADER = "Prefer";
+
+    public static final String CALLBACK_HEADER = "Callback-Url";
+
+    private static final String RESPOND_ASYNC = "respond-async";
+
+    private final OrderService orderService;
+
+    private final OrdersValidator ordersValidator;
+
+    private final HalSerializer halSerializer;
+
+    private final RestTemplate restTemplate;
+
+    private final BlockingQueue<OrderTicket> queue;
+
+    private final int workers;
+
+    private final int batchSize;
+
+    private final Duration ticketRetention;
+
+    /** Callback-Url로 허용하는 host (소문자) */
+    private final Set<String> callbackHosts;
+
+    /** 접수 번호별 접수 내역 */
+    private final Map<String, OrderTicket> tickets = new ConcurrentHashMap<>();
+
+    private final ExecutorService workerExecutor;
+
+    private final ExecutorService callbackExecutor;
+
+    private volatile boolean running = true;
+
+    public OrderIntakeService(OrderService orderService, OrdersValidator ordersValidator, HalSerializer halSerializer,
+                              RestTemplateBuilder restTemplateBuilder,
+                              @Value("${lendit.order.intake.queue-capacity:1000}") int queueCapacity,
+                              @Value("${lendit.order.intake.workers:2}") int workers,
+                              @Value("${lendit.order.intake.batch-size:50}") int batchSize,
+                              @Value("${lendit.order.intake.ticket-retention:10m}") Duration ticketRetention,
+                              @Value("${lendit.order.intake.callback-hosts:}") Set<String> callbackHosts) {
+        this.orderService = orderService;
+        this.ordersValidator = ordersValidator;
+        this.halSerializer = halSerializer;
+        this.restTemplate = restTemplateBuilder
+                .setConnectTimeout(Duration.ofSeconds(2))
+                .setReadTimeout(Duration.ofSeconds(5))
+                .build();
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.ticketRetention = ticketRetention;
+        this.callbackHosts = callbackHosts.stream()
+                .map(String::trim)
+                .filter(e -> !e.isEmpty())
+                .map(e -> e.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toSet());
+        this.workerExecutor = Executors.newFixedThreadPool(Math.max(workers, 1), threadFactory("order-intake-"));
+        this.callbackExecutor = Executors.newSingleThreadExecutor(threadFactory("order-callback-"));
+    }
+
+    /**
+     * Prefer 헤더에 respond-async가 있는지 확인
+     */
+    public static boolean isAsyncRequested(String prefer) {
+        return prefer != null && Arrays.stream(prefer.split("[,;]"))
+                .map(String::trim)
+                .anyMatch(RESPOND_ASYNC::equalsIgnoreCase);
+    }
+
+    @PostConstruct
+    public void start() {
+        for (int i = 0; i < workers; i++) {
+            workerExecutor.execute(this::work);
+        }
+    }
+
+    /**
+     * 새로운 주문을 받지 않고, 대기열에 남은 주문을 처리한 뒤 종료
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        workerExecutor.shutdown();
+        if (!workerExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("order intake stopped with {} orders left in queue", queue.size());
+        }
+        callbackExecutor.shutdown();
+    }
+
+    /**
+     * 1. Callback-Url이 http, https 주소가 아니거나 host가 lendit.order.intake.callback-hosts에 없으면 Body에 'message: Callback-Url이 유효하지 않습니다.'를 실어 Bad Request와 함께 반환
+     * 2. Idempotency-Key가 있으면 키를 확인하고, 같은 키로 처리한 결과가 있으면 접수하지 않고 저장된 결과를 반환
+     * 3. 주문을 대기열에 넣고, 대기열이 가득 찬 경우 Retry-After 헤더와 함께 Too Many Requests를 반환
+     * 4. 접수 내역을 조회할 수 있는 주소를 Location 헤더와 self 관계로 더해 Accepted와 함께 반환
+     */
+    public ResponseEntity<?> submit(List<OrdersRequestDto> ordersRequestDtos, Account currentUser, String idempotencyKey, String callbackUrl) {
+        if (callbackUrl != null && !isValidCallbackUrl(callbackUrl)) {
+            return new ResponseEntity<>(ordersValidator.returnErrorMessage(INVALIDCALLBACKURL), HttpStatus.BAD_REQUEST);
+        }
+        if (idempotencyKey != null) {
+            Optional<ResponseEntity<?>> optionalResponse = orderService.checkIdempotency(ordersRequestDtos, currentUser, idempotencyKey);
+            if (optionalResponse.isPresent()) {
+                return optionalResponse.get();
+            }
+        }
+
+        OrderTicket orderTicket = OrderTicket.builder()
+                .id(UUID.randomUUID().toString())
+                .account(currentUser)
+                .ordersRequestDtos(ordersRequestDtos)
+                .idempotencyKey(idempotencyKey)
+                .callbackUrl(callbackUrl)
+                .build();
+        tickets.put(orderTicket.getId(), orderTicket);
+        if (!running || !queue.offer(orderTicket)) { // 대기열이 가득 찼는지 확인
+            tickets.remove(orderTicket.getId());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(ordersValidator.returnErrorMessage(ORDERQUEUEFULL));
+        }
+
+        OrderTicketResource orderTicketResource = toResource(orderTicket);
+        return ResponseEntity.accepted()
+                .location(URI.create(orderTicketResource.getRequiredLink(IanaLinkRelations.SELF).getHref()))
+                .body(orderTicketResource);
+    }
+
+    /**
+     * 1. 접수 번호로 접수 내역을 찾고, 없거나 다른 유저의 주문인 경우 Body에 'message: 접수된 주문을 찾을 수 없습니다.'를 실어 Bad Request와 함께 반환
+     * 2. 처리 상태와, 처리가 끝난 경우 동기 주문과 같은 응답 Body를 result에 담아 반환
+     */
+    public ResponseEntity<?> getTicket(String ticketId, Account currentUser) {
+        OrderTicket orderTicket = tickets.get(ticketId);
+        if (orderTicket == null || !orderTicket.isOwnedBy(currentUser)) {
+            return new ResponseEntity<>(ordersValidator.returnErrorMessage(TICKETNOTFOUND), HttpStatus.BAD_REQUEST);
+        }
+        return new ResponseEntity<>(toResource(orderTicket), HttpStatus.OK);
+    }
+
+    /**
+     * 보관 기간이 지난 접수 내역을 삭제
+     */
+    @Scheduled(fixedDelayString = "${lendit.order.intake.purge-interval:60000}")
+    public void purgeExpired() {
+        tickets.values().removeIf(e -> e.isExpired(ticketRetention));
+    }
+
+    private void work() {
+        List<OrderTicket> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                OrderTicket first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("order intake worker failed", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void process(List<OrderTicket> batch) {
+        List<ResponseEntity<?>> responses;
+        try {
+            responses = orderService.orderBatch(batch);
+        } catch (RuntimeException e) {
+            log.warn("order batch of {} failed, retry one by one", batch.size(), e);
+            responses = batch.stream()
+                    .map(this::processOne)
+                    .collect(Collectors.toList());
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            complete(batch.get(i), responses.get(i));
+        }
+    }
+
+    private ResponseEntity<?> processOne(OrderTicket orderTicket) {
+        try {
+            return orderService.order(orderTicket.getOrdersRequestDtos(), orderTicket.getAccount(), orderTicket.getIdempotencyKey());
+        } catch (RuntimeException e) {
+            log.error("order ticket {} failed", orderTicket.getId(), e);
+            return null;
+        }
+    }
+
+    private void complete(OrderTicket orderTicket, ResponseEntity<?> response) {
+        if (response == null) {
+            orderTicket.complete(OrderTicketStatus.FAILED, null);
+        } else {
+            Object body = response.getBody();
+            byte[] result = body instanceof byte[] ? (byte[]) body : halSerializer.serialize(body); // 재요청으로 저장된 결과를 반환한 경우 이미 직렬화되어 있음
+            orderTicket.complete(response.getStatusCode() == HttpStatus.CREATED ? OrderTicketStatus.CREATED : OrderTicketStatus.REJECTED, result);
+        }
+        if (orderTicket.getCallbackUrl() != null) {
+            callbackExecutor.execute(() -> sendCallback(orderTicket));
+        }
+    }
+
+    /**
+     * 처리 결과를 Callback-Url로 POST 함
+     * 접수할 때 확인한 host라도 DNS의 응답은 바뀔 수 있으므로 보내기 직전에 다시 조회하여 공인 주소가 아니면 버림
+     * POST는 redirect를 따라가지 않으므로 허용한 host가 다른 주소로 redirect하여도 따라가지 않음
+     */
+    private void sendCallback(OrderTicket orderTicket) {
+        String host = URI.create(orderTicket.getCallbackUrl()).getHost();
+        if (!isPublicHost(host)) {
+            log.warn("callback for order ticket {} dropped, {} does not resolve to public addresses only", orderTicket.getId(), host);
+            return;
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(halSerializer.getContentType());
+        try {
+            restTemplate.postForEntity(orderTicket.getCallbackUrl(), new HttpEntity<>(halSerializer.serialize(toResource(orderTicket)), headers), Void.class);
+        } catch (RestClientException e) {
+            log.warn("callback for order ticket {} failed", orderTicket.getId(), e);
+        }
+    }
+
+    private OrderTicketResource toResource(OrderTicket orderTicket) {
+        OrderTicketResource orderTicketResource = new OrderTicketResource(new OrderTicketResponseDto(orderTicket));
+        orderTicketResource.add(new Link("https://mkshin96.github.io/Coding-Task/#resources-orders-ticket").withRel("profile"));
+        return orderTicketResource;
+    }
+
+    private boolean isValidCallbackUrl(String callbackUrl) {
+        try {
+            URI uri = URI.create(callbackUrl);
+            return ("http".equalsIgnoreCase(uri.getScheme()) || "https".equalsIgnoreCase(uri.getScheme())) && uri.getHost() != null
+                    && uri.getUserInfo() == null && callbackHosts.contains(uri.getHost().toLowerCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * host를 DNS로 조회한 모든 주소가 공인 주소인지 확인, 조회에 실패하면 false
+     * 0.0.0.0, loopback, link-local(169.254.0.0/16, fe80::/10), site-local(10/8, 172.16/12, 192.168/16, fec0::/10),
+     * IPv6 unique local(fc00::/7), multicast 주소는 공인 주소가 아님
+     */
+    private boolean isPublicHost(String host) {
+        try {
+            for (InetAddress address : InetAddress.getAllByName(host)) {
+                if (address.isAnyLocalAddress() || address.isLoopbackAddress() || address.isLinkLocalAddress()
+                        || address.isSiteLocalAddress() || address.isMulticastAddress()
+                        || (address instanceof Inet6Address && (address.getAddress()[0] & 0xfe) == 0xfc)) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (UnknownHostException e) {
+            return false;
+        }
+    }
+
+    private static ThreadFactory threadFactory(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
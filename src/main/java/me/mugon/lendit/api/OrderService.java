@@ -1,26 +1,51 @@
 package me.mugon.lendit.api;
 
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import me.mugon.lendit.api.balance.BalanceLedgerService;
+import me.mugon.lendit.api.hold.StockHoldService;
+import me.mugon.lendit.api.inventory.InventoryEngine;
+import me.mugon.lendit.api.inventory.StockCombiner;
+import me.mugon.lendit.api.inventory.StockReservation;
+import me.mugon.lendit.api.inventory.StockUpdater;
+import me.mugon.lendit.api.outbox.OrderOutboxService;
+import me.mugon.lendit.api.shard.OrderShardService;
+import me.mugon.lendit.api.summary.SalesSummaryService;
 import me.mugon.lendit.domain.account.Account;
+import me.mugon.lendit.domain.archive.OrderArchive;
+import me.mugon.lendit.domain.hold.StockHold;
+import me.mugon.lendit.domain.idempotency.IdempotencyRecord;
+import me.mugon.lendit.domain.order.OrderHistory;
+import me.mugon.lendit.domain.order.OrderHistoryResource;
+import me.mugon.lendit.domain.order.OrderTicket;
 import me.mugon.lendit.domain.order.Orders;
 import me.mugon.lendit.domain.order.OrdersRepository;
 import me.mugon.lendit.domain.order.OrdersResource;
+import me.mugon.lendit.domain.order.OrdersCursor;
 import me.mugon.lendit.domain.order.OrdersValidator;
 import me.mugon.lendit.domain.product.Product;
+import me.mugon.lendit.web.AccountController;
 import me.mugon.lendit.web.OrdersController;
 import me.mugon.lendit.web.ProductController;
+import me.mugon.lendit.web.dto.order.OrderHistoryResponseDto;
 import me.mugon.lendit.web.dto.order.OrdersRequestDto;
 import me.mugon.lendit.web.dto.order.OrdersResponseDto;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.Link;
+import org.springframework.hateoas.server.mvc.WebMvcLinkBuilder;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
 
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static me.mugon.lendit.api.error.ErrorMessageConstant.*;
@@ -30,67 +55,431 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
 @Service
 public class OrderService {
 
+    private static final int MAX_ORDER_PAGE_SIZE = 100;
+
     private final OrdersRepository ordersRepository;
 
     private final ProductService productService;
 
     private final AccountService accountService;
 
+    private final BalanceLedgerService balanceLedgerService;
+
     private final OrdersValidator ordersValidator;
 
+    private final InventoryEngine inventoryEngine;
+
+    private final StockCombiner stockCombiner;
+
+    private final StockUpdater stockUpdater;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final IdempotencyService idempotencyService;
+
+    private final SalesSummaryService salesSummaryService;
+
+    private final OrderOutboxService orderOutboxService;
+
+    private final StockHoldService stockHoldService;
+
+    private final OrderShardService orderShardService;
+
+    private final OrderArchive orderArchive;
+
     /**
-     * 1. 입력받은 List를 순회
-     * 2. 입력받은 주문의 상품 id로 db를 검색
-     * 3. 저장되어 있지 않은 상품인 경우 Body에 'message: 상품을 찾을 수 없습니다.'를 실어 Bad Request와 함께 반환
-     * 4. 저장되어 있는 상품인 경우 상품 재고가 0개인지, 주문한 상품의 개수가 재고 수량보다 많은지 검사, 그럴 경우 Body에 'message: 재고가 부족합니다.'를 실어 Bad Request와 함께 반환
-     * 5. 현재 로그인한 유저의 id를 통해 db에서 검색
-     * 6. db에 등록되어 있지 않은 경우 Body에 'message: 사용자를 찾을 수 없습니다.'를 실어 Bad Request와 함께 반환
-     * 7. 유저의 예치금이 상품의 총 가격보다 많은지 검사, 아닐 경우 Body에 'message: 예치금이 부족합니다.'를 실어 Bad Request와 함께 반환
-     * 8. 유저가 상품을 등록한 유저인지 검사, 그럴 경우 Body에 'message: 자신이 등록한 상품은 주문할 수 없습니다.'를 실어 Bad Request와 함께 반환
-     * 9. 유저의 예치금을 총 가격만큼 감소시킴
-     * 10. 상품의 재고 수량을 주문 개수만큼 감소시킴
+     * 1. 입력받은 List에서 같은 상품을 주문한 항목을 하나로 합침
+     * 2. 합쳐진 주문의 상품 id들로 db를 한 번에 검색
+     * 3. 현재 로그인한 유저의 id를 통해 db에서 한 번 검색
+     * 4. db에 등록되어 있지 않은 경우 Body에 'message: 사용자를 찾을 수 없습니다.'를 실어 Bad Request와 함께 반환
+     * 5. 저장되어 있지 않은 상품인 경우 Body에 'message: 상품을 찾을 수 없습니다.'를 실어 Bad Request와 함께 반환
+     * 6. 저장되어 있는 상품인 경우 상품 재고가 0개인지, 주문한 상품의 개수가 재고 수량보다 많은지 검사, 그럴 경우 Body에 'message: 재고가 부족합니다.'를 실어 Bad Request와 함께 반환
+     * 7. 유저가 상품을 등록한 유저인지 검사, 그럴 경우 Body에 'message: 자신이 등록한 상품은 주문할 수 없습니다.'를 실어 Bad Request와 함께 반환
+     * 8. 유저의 예치금이 주문 전체의 총 가격보다 많은지 검사, 아닐 경우 Body에 'message: 예치금이 부족합니다.'를 실어 Bad Request와 함께 반환
+     * 9. 유저의 예치금을 총 가격만큼 감소시킴, 동시 주문으로 예치금이 부족해진 경우 Body에 'message: 예치금이 부족합니다.'를 실어 Bad Request와 함께 반환
+     * 10. 상품의 재고 수량을 주문 개수만큼 감소시킴, 동시 주문으로 재고가 부족해진 경우 Body에 'message: 재고가 부족합니다.'를 실어 Bad Request와 함께 반환
+     *     (9, 10은 조건부 UPDATE로 처리하며 실패 시 앞서 감소시킨 예치금과 재고를 되돌리고 트랜잭션을 롤백함)
      * 11. 만약 상품의 재고 수량이 0개인 경우 checkAmount 필드를 true로 변경
-     * 12. Orders db에 저장
+     * 12. Orders db에 저장하고, 같은 트랜잭션에서 구매자와 판매자의 요약(SalesSummaryService)에 주문을 더하고 주문 이벤트를 outbox(OrderOutboxService)에 추가함
+     *     주문 shard(OrderShardService)가 켜져 있으면 트랜잭션이 커밋되기 직전에 구매자의 shard에도 저장함
      * 13. HATEOAS를 위해 create-product, self, query-product 관계를 EntityModel에 더함
      * 14. Self Descriptive Message를 위해 API Guide의 주소를 profile 관계로 명시하여 더함
      * 15. 반환
+     *
+     * 재고 엔진(InventoryEngine)이 켜져 있는 경우
+     * - 트랜잭션을 시작하기 전에 메모리 재고를 예약하고, 예약에 실패하면 Body에 'message: 재고가 부족합니다.'를 실어 Bad Request와 함께 반환
+     * - 트랜잭션 안에서는 상품 재고를 감소시키지 않고, 커밋되면 예약을 확정하여 재고 엔진이 모아서 db에 반영함
+     * - 주문이 실패하면 예약한 재고를 되돌림
+     *
+     * 그룹 커밋(StockCombiner)이 켜져 있는 경우
+     * - 트랜잭션을 시작하기 전에 같은 상품의 동시 주문과 함께 모아 한 번의 UPDATE로 재고를 감소시키고, 재고가 부족하면 Body에 'message: 재고가 부족합니다.'를 실어 Bad Request와 함께 반환
+     * - 다른 경로(재고 보류, 상품 수정 등)가 재고를 계속 바꾸어 다시 시도해도 UPDATE가 실패하면 Body에 'message: 다른 주문과 충돌하여 주문을 처리하지 못했습니다. 다시 시도해 주세요.'를 실어 Bad Request와 함께 반환
+     * - 트랜잭션 안에서는 상품 재고를 감소시키지 않고, 주문이 실패하면 감소시킨 재고를 되돌림
      */
-    @Transactional
     public ResponseEntity<?> order(List<OrdersRequestDto> ordersRequestDtos, Account currentUser) {
-        List<Orders> ordersList = new LinkedList<>();
+        return processOrder(mergeByProduct(ordersRequestDtos), currentUser, response -> {});
+    }
+
+    /**
+     * Idempotency-Key와 함께 들어온 주문
+     * 1. 같은 유저가 같은 키로 처리한 결과가 있으면 주문을 다시 처리하지 않고 저장된 결과를 그대로 반환
+     * 2. 같은 키로 다른 내용의 주문을 보낸 경우 Body에 'message: 같은 Idempotency-Key로 다른 요청을 보낼 수 없습니다.'를 실어 Bad Request와 함께 반환
+     * 3. 결과가 없으면 주문을 처리하고, 주문이 등록된 경우 같은 트랜잭션에서 결과를 저장
+     * 4. 같은 키로 동시에 들어온 다른 요청이 먼저 결과를 저장한 경우 unique 제약조건 위반으로 이 주문은 롤백되고, 먼저 저장된 결과를 반환
+     * 주문이 실패한 경우 재고와 예치금이 변하지 않기 때문에 결과를 저장하지 않음
+     */
+    public ResponseEntity<?> order(List<OrdersRequestDto> ordersRequestDtos, Account currentUser, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return order(ordersRequestDtos, currentUser);
+        }
+        Optional<ResponseEntity<?>> optionalResponse = checkIdempotency(ordersRequestDtos, currentUser, idempotencyKey);
+        if (optionalResponse.isPresent()) {
+            return optionalResponse.get();
+        }
+        Collection<OrdersRequestDto> mergedRequestDtos = mergeByProduct(ordersRequestDtos);
+        String fingerprint = fingerprint(mergedRequestDtos);
+        try {
+            return processOrder(mergedRequestDtos, currentUser,
+                    response -> idempotencyService.save(currentUser.getId(), idempotencyKey, fingerprint, response));
+        } catch (DataIntegrityViolationException e) {
+            return idempotencyService.find(currentUser.getId(), idempotencyKey)
+                    .map(record -> replay(record, fingerprint))
+                    .orElseThrow(() -> e);
+        }
+    }
+
+    /**
+     * 주문을 처리하기 전에 Idempotency-Key를 확인
+     * 키가 유효하지 않거나 같은 키로 처리한 결과가 있으면 바로 반환할 응답을, 주문을 처리해야 하면 Optional.empty()를 반환
+     */
+    public Optional<ResponseEntity<?>> checkIdempotency(List<OrdersRequestDto> ordersRequestDtos, Account currentUser, String idempotencyKey) {
+        if (!idempotencyService.isValidKey(idempotencyKey)) {
+            return Optional.of(new ResponseEntity<>(ordersValidator.returnErrorMessage(INVALIDIDEMPOTENCYKEY), HttpStatus.BAD_REQUEST));
+        }
+        return idempotencyService.find(currentUser.getId(), idempotencyKey)
+                .map(record -> replay(record, fingerprint(mergeByProduct(ordersRequestDtos))));
+    }
+
+    /**
+     * 비동기로 접수된 주문 여러 건을 하나의 트랜잭션에서 처리 (OrderIntakeService에서 호출)
+     * 1. 주문별로 같은 상품을 주문한 항목을 합치고, 재고 엔진이나 그룹 커밋이 켜져 있으면 트랜잭션을 시작하기 전에 주문별로 재고를 예약
+     * 2. 하나의 트랜잭션 안에서 주문별로 검증하고 예치금과 재고를 감소시킴
+     *    거절된 주문은 자신이 감소시킨 값을 되돌리기 때문에 같은 트랜잭션의 다른 주문에 영향을 주지 않음
+     * 3. 등록된 주문들의 Orders를 모아 saveAll로 한 번에 저장하고, 구매자와 판매자의 요약에 한 번에 더하고 outbox와 주문 shard에 한 번에 추가함
+     * 4. 주문별 응답을 만들고, Idempotency-Key와 함께 들어온 주문은 같은 트랜잭션에서 결과를 저장
+     * 5. 커밋되면 등록된 주문의 재고 예약을 확정하고 나머지는 되돌림
+     * 트랜잭션 도중 예외가 발생하면 배치 전체가 롤백되고 예외를 그대로 던지기 때문에, 호출한 쪽에서 주문을 하나씩 다시 처리해야 함
+     * 요청 스레드 밖에서 응답을 만들기 때문에 응답의 링크는 호스트 없이 경로만 담김
+     */
+    public List<ResponseEntity<?>> orderBatch(List<OrderTicket> orderTickets) {
+        List<Collection<OrdersRequestDto>> mergedRequestDtosList = orderTickets.stream()
+                .map(e -> mergeByProduct(e.getOrdersRequestDtos()))
+                .collect(Collectors.toList());
+        ResponseEntity<?>[] responses = new ResponseEntity<?>[orderTickets.size()];
+        List<StockReservation> reservations = new ArrayList<>(Collections.nCopies(orderTickets.size(), null));
+        if (reservesStock()) {
+            for (int i = 0; i < orderTickets.size(); i++) {
+                ReservedStock reservedStock = reserveStock(mergedRequestDtosList.get(i));
+                if (reservedStock.isRejected()) { // 예약할 재고가 부족하거나 다른 재고 변경과 충돌했는지 확인
+                    responses[i] = new ResponseEntity<>(ordersValidator.returnErrorMessage(reservedStock.getErrorMessage()), HttpStatus.BAD_REQUEST);
+                } else {
+                    reservations.set(i, reservedStock.getReservation());
+                }
+            }
+        }
+
+        try {
+            transactionTemplate.execute(status -> {
+                Map<Integer, List<Orders>> preparedMap = new LinkedHashMap<>();
+                for (int i = 0; i < orderTickets.size(); i++) {
+                    if (responses[i] != null) {
+                        continue;
+                    }
+                    PreparedOrder preparedOrder = prepareOrder(mergedRequestDtosList.get(i), orderTickets.get(i).getAccount(), !reservesStock());
+                    if (preparedOrder.isRejected()) {
+                        responses[i] = new ResponseEntity<>(ordersValidator.returnErrorMessage(preparedOrder.getErrorMessage()), HttpStatus.BAD_REQUEST);
+                    } else {
+                        preparedMap.put(i, preparedOrder.getOrdersList());
+                    }
+                }
+
+                List<Orders> savedOrdersList = ordersRepository.saveAll(preparedMap.values().stream()
+                        .flatMap(List::stream)
+                        .collect(Collectors.toList()));
+                salesSummaryService.record(savedOrdersList);
+                orderOutboxService.append(savedOrdersList);
+                orderShardService.append(savedOrdersList);
+                preparedMap.forEach((i, ordersList) -> {
+                    responses[i] = createdResponse(ordersList);
+                    OrderTicket orderTicket = orderTickets.get(i);
+                    if (orderTicket.getIdempotencyKey() != null) {
+                        idempotencyService.save(orderTicket.getAccount().getId(), orderTicket.getIdempotencyKey(),
+                                fingerprint(mergedRequestDtosList.get(i)), responses[i]);
+                    }
+                });
+                return null;
+            });
+        } catch (RuntimeException e) {
+            reservations.stream().filter(Objects::nonNull).forEach(StockReservation::release);
+            throw e;
+        }
+
+        for (int i = 0; i < orderTickets.size(); i++) {
+            StockReservation reservation = reservations.get(i);
+            if (reservation == null) {
+                continue;
+            }
+            if (responses[i].getStatusCode() == HttpStatus.CREATED) {
+                reservation.commit();
+            } else {
+                reservation.release();
+            }
+        }
+        return Arrays.asList(responses);
+    }
 
-        for (OrdersRequestDto ordersRequestDto : ordersRequestDtos) {
-            Long productId = ordersRequestDto.getProductId();
-            Optional<Product> optionalProduct = productService.findById(productId);
-            if (!optionalProduct.isPresent()) { // 상품이 있는지 확인
-                return new ResponseEntity<>(ordersValidator.returnErrorMessage(PRODUCTNOTFOUND), HttpStatus.BAD_REQUEST);
+    /**
+     * 보류한 재고(StockHold)를 주문으로 확정
+     * 1. 보류에 lock을 잡고 삭제하며, 없거나 만료되었거나 다른 유저의 보류인 경우 Body에 'message: 보류한 재고를 찾을 수 없습니다.'를 실어 Bad Request와 함께 반환
+     * 2. 보류할 때 이미 재고를 감소시켰으므로 재고를 다시 확인하거나 감소시키지 않고, 나머지는 주문 등록과 같은 순서로 처리함
+     * 3. 예치금이 부족하는 등 주문이 거절되면 트랜잭션을 롤백하여 보류는 만료될 때까지 그대로 남음
+     */
+    public ResponseEntity<?> confirmHold(Long holdId, Account currentUser) {
+        return transactionTemplate.execute(status -> {
+            Optional<StockHold> optionalHold = stockHoldService.claim(holdId, currentUser);
+            if (!optionalHold.isPresent()) {
+                return rejectOrder(status, HOLDNOTFOUND);
             }
+            return placeOrder(mergeByProduct(optionalHold.get().toOrdersRequestDtos()), currentUser, false, status);
+        });
+    }
 
-            Product savedProduct = optionalProduct.get();
-            if (savedProduct.amountEqualsZero() || ordersRequestDto.verifyAmount(savedProduct)) { //상품 재고가 0개가 아닌지, 주문한 상품 개수가 재고 수량보다 적은지 확인
-                return new ResponseEntity<>(ordersValidator.returnErrorMessage(SHORTAGEOFGOODS), HttpStatus.BAD_REQUEST);
+    /**
+     * 현재 로그인한 유저의 주문 목록을 최근 순으로 size개씩 조회
+     * 1. after가 있으면 cursor로 읽고, 형식이 맞지 않으면 Body에 'message: 주문 목록의 cursor가 유효하지 않습니다.'를 실어 Bad Request와 함께 반환
+     * 2. size는 1 ~ MAX_ORDER_PAGE_SIZE 사이로 맞춤
+     * 3. (account_id, created_at, id) 인덱스를 따라 cursor 이후의 주문을 size + 1개 조회하여 다음 목록이 있는지 확인
+     *    OFFSET을 사용하지 않기 때문에 주문이 많은 유저도 뒤쪽 목록을 조회하는 비용이 같음
+     *    주문 shard(OrderShardService)가 켜져 있으면 유저의 shard 하나에서 같은 방식으로 조회함
+     *    shard가 꺼져 있으면 segment 파일로 옮겨진 오래된 주문(OrderArchive)도 size + 1개 읽어 합침
+     * 4. 주문과 상품의 컬럼만 조회하여 상품의 주문 목록 등 EAGER 연관관계를 읽지 않음
+     * 5. HATEOAS를 위해 self, 다음 목록이 있으면 마지막 주문의 cursor를 담은 next 관계를 더함
+     * 6. Self Descriptive Message를 위해 API Guide의 주소를 profile 관계로 명시하여 더함
+     * 7. 반환
+     */
+    public ResponseEntity<?> getOrderList(String after, int size, Account currentUser) {
+        Optional<OrdersCursor> cursor = Optional.empty();
+        if (after != null) {
+            cursor = OrdersCursor.decode(after);
+            if (!cursor.isPresent()) {
+                return new ResponseEntity<>(ordersValidator.returnErrorMessage(INVALIDCURSOR), HttpStatus.BAD_REQUEST);
             }
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_ORDER_PAGE_SIZE));
+        List<OrderHistory> histories;
+        if (orderShardService.isEnabled()) {
+            histories = orderShardService.findHistory(currentUser.getId(), cursor.orElse(null), pageSize + 1);
+        } else {
+            Pageable pageable = PageRequest.of(0, pageSize + 1);
+            histories = cursor
+                    .map(e -> ordersRepository.findHistoryByAccountIdBefore(currentUser.getId(), e.getCreatedAt(), e.getId(), pageable))
+                    .orElseGet(() -> ordersRepository.findHistoryByAccountId(currentUser.getId(), pageable));
+            histories = orderArchive.merge(histories, currentUser.getId(), cursor.orElse(null), pageSize + 1);
+        }
+        return historyResponse(histories, after, pageSize, linkTo(OrdersController.class), false, "#resources-orders-list");
+    }
 
-            Optional<Account> optionalAccount = accountService.findById(currentUser.getId());
-            if (!optionalAccount.isPresent()) { // 현재유저가 저장되어 있는 유저인지 확인
-                return new ResponseEntity<>(ordersValidator.returnErrorMessage(USERNOTFOUND), HttpStatus.BAD_REQUEST);
+    /**
+     * 모든 유저의 주문 목록을 최근 순으로 size개씩 조회 (관리자용)
+     * 1. lendit.order.admins에 등록된 유저가 아닌 경우 Body에 'message: 모든 주문을 조회할 수 있는 사용자가 아닙니다.'를 실어 Bad Request와 함께 반환
+     * 2. cursor와 size는 주문 목록 조회와 같은 방식으로 처리함
+     * 3. 주문 shard가 켜져 있으면 모든 shard에서 동시에 size + 1개씩 조회하여 합치고, 꺼져 있으면 기본 db에서 (created_at, id) 인덱스를 따라 조회함
+     * 4. HATEOAS를 위해 주문마다 product, account 관계를, 목록에 self, next 관계를 더함
+     * 5. Self Descriptive Message를 위해 API Guide의 주소를 profile 관계로 명시하여 더함
+     * 6. 반환
+     */
+    public ResponseEntity<?> getAllOrderList(String after, int size, Account currentUser) {
+        if (!ordersValidator.isAdmin(currentUser)) {
+            return new ResponseEntity<>(ordersValidator.returnErrorMessage(NOTORDERADMIN), HttpStatus.BAD_REQUEST);
+        }
+        Optional<OrdersCursor> cursor = Optional.empty();
+        if (after != null) {
+            cursor = OrdersCursor.decode(after);
+            if (!cursor.isPresent()) {
+                return new ResponseEntity<>(ordersValidator.returnErrorMessage(INVALIDCURSOR), HttpStatus.BAD_REQUEST);
             }
-            Account savedAccount = optionalAccount.get();
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_ORDER_PAGE_SIZE));
+        List<OrderHistory> histories;
+        if (orderShardService.isEnabled()) {
+            histories = orderShardService.findAllHistory(cursor.orElse(null), pageSize + 1);
+        } else {
+            Pageable pageable = PageRequest.of(0, pageSize + 1);
+            histories = cursor
+                    .map(e -> ordersRepository.findHistoryBefore(e.getCreatedAt(), e.getId(), pageable))
+                    .orElseGet(() -> ordersRepository.findHistory(pageable));
+        }
+        return historyResponse(histories, after, pageSize, linkTo(OrdersController.class).slash("all"), true, "#resources-orders-list-all");
+    }
+
+    /**
+     * 재고 엔진이나 그룹 커밋이 켜져 있으면 트랜잭션 전에 재고를 예약한 뒤 주문 트랜잭션을 실행
+     * onCreated는 주문이 등록된 경우 같은 트랜잭션 안에서 호출됨
+     */
+    private ResponseEntity<?> processOrder(Collection<OrdersRequestDto> mergedRequestDtos, Account currentUser, Consumer<ResponseEntity<?>> onCreated) {
+        if (!reservesStock()) {
+            return executeOrder(mergedRequestDtos, currentUser, true, onCreated);
+        }
 
-            if (ordersRequestDto.verifyBalance(savedAccount)) { // 현재 유저의 예치금 확인
-                return new ResponseEntity<>(ordersValidator.returnErrorMessage(OVERTHELIMIT), HttpStatus.BAD_REQUEST);
+        ReservedStock reservedStock = reserveStock(mergedRequestDtos);
+        if (reservedStock.isRejected()) { // 예약할 재고가 부족하거나 다른 재고 변경과 충돌했는지 확인
+            return new ResponseEntity<>(ordersValidator.returnErrorMessage(reservedStock.getErrorMessage()), HttpStatus.BAD_REQUEST);
+        }
+        StockReservation reservation = reservedStock.getReservation();
+        ResponseEntity<?> response;
+        try {
+            response = executeOrder(mergedRequestDtos, currentUser, false, onCreated);
+        } catch (RuntimeException e) {
+            reservation.release();
+            throw e;
+        }
+        if (response.getStatusCode() == HttpStatus.CREATED) {
+            reservation.commit();
+        } else {
+            reservation.release();
+        }
+        return response;
+    }
+
+    /**
+     * 재고 엔진이나 그룹 커밋이 켜져 있으면 트랜잭션 전에 재고를 예약하고, 주문 트랜잭션에서는 재고를 감소시키지 않음
+     * 둘 다 켜져 있는 경우 재고 엔진을 사용
+     */
+    private boolean reservesStock() {
+        return inventoryEngine.isEnabled() || stockCombiner.isEnabled();
+    }
+
+    private ReservedStock reserveStock(Collection<OrdersRequestDto> mergedRequestDtos) {
+        Map<Long, Long> numbers = mergedRequestDtos.stream()
+                .collect(Collectors.toMap(OrdersRequestDto::getProductId, OrdersRequestDto::getNumber, Long::sum, LinkedHashMap::new));
+        if (inventoryEngine.isEnabled()) {
+            return inventoryEngine.reserve(numbers)
+                    .map(ReservedStock::reserved)
+                    .orElseGet(() -> ReservedStock.rejected(SHORTAGEOFGOODS));
+        }
+        StockCombiner.ReserveResult result = stockCombiner.reserve(numbers);
+        if (result.getFailure() == StockUpdater.Result.CONFLICT) { // 다시 시도해도 다른 경로의 재고 변경과 충돌한 경우
+            return ReservedStock.rejected(ORDERCONFLICT);
+        }
+        if (result.getFailure() == StockUpdater.Result.SHORTAGE) {
+            return ReservedStock.rejected(SHORTAGEOFGOODS);
+        }
+        return ReservedStock.reserved(result.getReservation());
+    }
+
+    private ResponseEntity<?> executeOrder(Collection<OrdersRequestDto> mergedRequestDtos, Account currentUser, boolean decreaseStock, Consumer<ResponseEntity<?>> onCreated) {
+        return transactionTemplate.execute(status -> {
+            ResponseEntity<?> response = placeOrder(mergedRequestDtos, currentUser, decreaseStock, status);
+            if (response.getStatusCode() == HttpStatus.CREATED) {
+                onCreated.accept(response);
+            }
+            return response;
+        });
+    }
+
+    private ResponseEntity<?> replay(IdempotencyRecord record, String fingerprint) {
+        if (!record.getFingerprint().equals(fingerprint)) {
+            return new ResponseEntity<>(ordersValidator.returnErrorMessage(IDEMPOTENCYKEYREUSED), HttpStatus.BAD_REQUEST);
+        }
+        return idempotencyService.replay(record);
+    }
+
+    /**
+     * 하나의 트랜잭션 안에서 주문을 검증하고 저장
+     * decreaseStock이 false인 경우 트랜잭션 전에 재고를 예약했으므로 상품 재고를 감소시키지 않음
+     */
+    private ResponseEntity<?> placeOrder(Collection<OrdersRequestDto> mergedRequestDtos, Account currentUser, boolean decreaseStock, TransactionStatus status) {
+        PreparedOrder preparedOrder = prepareOrder(mergedRequestDtos, currentUser, decreaseStock);
+        if (preparedOrder.isRejected()) {
+            return rejectOrder(status, preparedOrder.getErrorMessage());
+        }
+        List<Orders> savedOrdersList = ordersRepository.saveAll(preparedOrder.getOrdersList());
+        salesSummaryService.record(savedOrdersList);
+        orderOutboxService.append(savedOrdersList);
+        orderShardService.append(savedOrdersList);
+        return createdResponse(savedOrdersList);
+    }
+
+    /**
+     * 주문을 검증하고 재고를 감소시키고 예치금 원장에 사용 금액을 추가한 뒤, 저장할 Orders를 만들어 반환
+     * 재고는 lendit.order.concurrency에 설정한 방식으로 StockUpdater가 감소시킴
+     * 검증 이후 재고 감소나 예치금 사용이 실패하면 이 주문에서 앞서 감소시킨 재고를 되돌리고 거절함
+     * 예치금은 마지막에 사용하므로 거절된 주문은 예치금 원장에 기록을 남기지 않음
+     * 따라서 거절된 주문은 트랜잭션에 아무것도 남기지 않으며, 여러 주문이 하나의 트랜잭션을 함께 사용할 수 있음
+     */
+    private PreparedOrder prepareOrder(Collection<OrdersRequestDto> mergedRequestDtos, Account currentUser, boolean decreaseStock) {
+        Map<Long, Product> productMap = productService.findAllById(mergedRequestDtos.stream()
+                .map(OrdersRequestDto::getProductId)
+                .collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        Optional<Account> optionalAccount = accountService.findById(currentUser.getId());
+        if (!optionalAccount.isPresent()) { // 현재유저가 저장되어 있는 유저인지 확인
+            return PreparedOrder.rejected(USERNOTFOUND);
+        }
+        Account savedAccount = optionalAccount.get();
+
+        long total = 0L;
+        for (OrdersRequestDto ordersRequestDto : mergedRequestDtos) {
+            Product savedProduct = productMap.get(ordersRequestDto.getProductId());
+            if (savedProduct == null) { // 상품이 있는지 확인
+                return PreparedOrder.rejected(PRODUCTNOTFOUND);
+            }
+            if (decreaseStock && (savedProduct.amountEqualsZero() || ordersRequestDto.verifyAmount(savedProduct))) { //상품 재고가 0개가 아닌지, 주문한 상품 개수가 재고 수량보다 적은지 확인 (재고를 예약한 경우 이미 확인함)
+                return PreparedOrder.rejected(SHORTAGEOFGOODS);
             }
             if (ordersValidator.isValidUser(savedAccount, savedProduct)) { //현재 유저가 상품을 등록한 유저가 아닌지 확인
-                return new ResponseEntity<>(ordersValidator.returnErrorMessage(REGISTEREDBYONESELF), HttpStatus.BAD_REQUEST);
+                return PreparedOrder.rejected(REGISTEREDBYONESELF);
             }
-            savedAccount.reduceBalance(ordersRequestDto.getTotal());
-            savedProduct.reduceAmount(ordersRequestDto.getNumber());
+            total += ordersRequestDto.getTotal();
+        }
+        if (savedAccount.getBalance() < total) { // 조회한 예치금으로 먼저 확인, 실제로 사용할 수 있는지는 아래 예치금 원장의 withdraw만 판단함
+            return PreparedOrder.rejected(OVERTHELIMIT);
+        }
 
-            Orders orders = ordersRequestDto.toEntity(currentUser, savedProduct);
-            ordersList.add(orders);
+        Map<Long, Long> numbers = mergedRequestDtos.stream()
+                .collect(Collectors.toMap(OrdersRequestDto::getProductId, OrdersRequestDto::getNumber));
+        if (decreaseStock) {
+            StockUpdater.Result result = stockUpdater.decrease(numbers);
+            if (result == StockUpdater.Result.SHORTAGE) { // 검증 이후 다른 주문이 재고를 먼저 가져간 경우
+                return PreparedOrder.rejected(SHORTAGEOFGOODS);
+            }
+            if (result == StockUpdater.Result.CONFLICT) { // 낙관적 잠금이 정해진 횟수만큼 다시 시도해도 충돌한 경우
+                return PreparedOrder.rejected(ORDERCONFLICT);
+            }
+        }
+        if (!balanceLedgerService.withdraw(savedAccount, total)) { // 검증 이후 다른 주문이 예치금을 먼저 사용한 경우
+            if (decreaseStock) {
+                stockUpdater.increase(numbers);
+            }
+            return PreparedOrder.rejected(OVERTHELIMIT);
+        }
+        List<Orders> ordersList = new LinkedList<>();
+        for (OrdersRequestDto ordersRequestDto : mergedRequestDtos) {
+            Product savedProduct = productMap.get(ordersRequestDto.getProductId());
+            if (decreaseStock) {
+                // 상품은 영속성 컨텍스트에 없으므로 아래 변경은 응답에 담길 값에만 반영되고 db에는 쓰이지 않음
+                // 재고를 예약한 경우 조회한 재고는 재고 엔진의 재고가 아니므로 변경하지 않음
+                savedProduct.reduceAmount(ordersRequestDto.getNumber());
+            }
+            ordersList.add(ordersRequestDto.toEntity(currentUser, savedProduct));
         }
 
-        List<Orders> savedOrdersList = ordersRepository.saveAll(ordersList);
+        return PreparedOrder.prepared(ordersList);
+    }
+
+    private ResponseEntity<?> createdResponse(List<Orders> savedOrdersList) {
         List<EntityModel<OrdersResponseDto>> modelList = savedOrdersList.stream()
                 .map(e -> {
                     EntityModel<OrdersResponseDto> entityModel = new EntityModel<>(new OrdersResponseDto(e));
@@ -105,4 +494,122 @@ public class OrderService {
         entityModels.add(linkTo(ProductController.class).withRel("query-products"));
         return new ResponseEntity<>(entityModels, HttpStatus.CREATED);
     }
+
+    /**
+     * 같은 상품을 여러 번 주문한 경우 주문 개수와 총 금액을 더해 하나의 주문으로 합침
+     * 입력받은 순서를 유지하기 위해 LinkedHashMap 사용
+     */
+    private Collection<OrdersRequestDto> mergeByProduct(List<OrdersRequestDto> ordersRequestDtos) {
+        Map<Long, OrdersRequestDto> mergedMap = new LinkedHashMap<>();
+        ordersRequestDtos.forEach(e -> mergedMap.merge(e.getProductId(), e, OrdersRequestDto::merge));
+        return mergedMap.values();
+    }
+
+    /**
+     * size + 1개까지 조회한 주문 목록으로 응답을 만듦, size개보다 많으면 다음 목록이 있으므로 next 관계를 더함
+     */
+    private ResponseEntity<?> historyResponse(List<OrderHistory> histories, String after, int pageSize, WebMvcLinkBuilder listLink,
+                                              boolean withAccount, String profile) {
+        boolean hasNext = histories.size() > pageSize;
+        if (hasNext) {
+            histories = histories.subList(0, pageSize);
+        }
+
+        List<EntityModel<OrderHistoryResponseDto>> modelList = histories.stream()
+                .map(e -> {
+                    EntityModel<OrderHistoryResponseDto> entityModel = new EntityModel<>(new OrderHistoryResponseDto(e));
+                    entityModel.add(linkTo(ProductController.class).slash(e.getProductId()).withRel("product"));
+                    if (withAccount) {
+                        entityModel.add(linkTo(AccountController.class).slash(e.getAccountId()).withRel("account"));
+                    }
+                    return entityModel;
+                }).collect(Collectors.toList());
+
+        OrderHistoryResource orderHistoryResource = new OrderHistoryResource(modelList);
+        orderHistoryResource.add(orderListLink(listLink, after, pageSize).withSelfRel());
+        if (hasNext) {
+            OrderHistory last = histories.get(histories.size() - 1);
+            orderHistoryResource.add(orderListLink(listLink, new OrdersCursor(last.getCreatedAt(), last.getId()).encode(), pageSize).withRel("next"));
+        }
+        orderHistoryResource.add(new Link("https://mkshin96.github.io/Coding-Task/" + profile).withRel("profile"));
+        return ResponseEntity.ok(orderHistoryResource);
+    }
+
+    private Link orderListLink(WebMvcLinkBuilder listLink, String after, int size) {
+        UriComponentsBuilder builder = listLink.toUriComponentsBuilder().queryParam("size", size);
+        if (after != null) {
+            builder.queryParam("after", after);
+        }
+        return new Link(builder.toUriString());
+    }
+
+    private String fingerprint(Collection<OrdersRequestDto> mergedRequestDtos) {
+        return idempotencyService.fingerprint(mergedRequestDtos.stream()
+                .map(e -> e.getProductId() + ":" + e.getNumber() + ":" + e.getTotal())
+                .collect(Collectors.joining(",")));
+    }
+
+    /**
+     * 주문이 거절된 경우 트랜잭션에 다른 변경이 남지 않도록 롤백으로 표시하고 에러 메시지를 반환
+     */
+    private ResponseEntity<?> rejectOrder(TransactionStatus status, String message) {
+        status.setRollbackOnly();
+        return new ResponseEntity<>(ordersValidator.returnErrorMessage(message), HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * 검증을 마치고 저장만 남은 주문, 또는 거절된 이유
+     */
+    @Getter
+    private static class PreparedOrder {
+
+        private final List<Orders> ordersList;
+
+        private final String errorMessage;
+
+        private PreparedOrder(List<Orders> ordersList, String errorMessage) {
+            this.ordersList = ordersList;
+            this.errorMessage = errorMessage;
+        }
+
+        static PreparedOrder prepared(List<Orders> ordersList) {
+            return new PreparedOrder(ordersList, null);
+        }
+
+        static PreparedOrder rejected(String errorMessage) {
+            return new PreparedOrder(null, errorMessage);
+        }
+
+        boolean isRejected() {
+            return errorMessage != null;
+        }
+    }
+
+    /**
+     * 주문 트랜잭션 전에 예약한 재고, 또는 거절된 이유
+     */
+    @Getter
+    private static class ReservedStock {
+
+        private final StockReservation reservation;
+
+        private final String errorMessage;
+
+        private ReservedStock(StockReservation reservation, String errorMessage) {
+            this.reservation = reservation;
+            this.errorMessage = errorMessage;
+        }
+
+        static ReservedStock reserved(StockReservation reservation) {
+            return new ReservedStock(reservation, null);
+        }
+
+        static ReservedStock rejected(String errorMessage) {
+            return new ReservedStock(null, errorMessage);
+        }
+
+        boolean isRejected() {
+            return errorMessage != null;
+        }
+    }
 }
@@ -0,0 +1,190 @@
+package me.mugon.lendit.api;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import me.mugon.lendit.api.cache.ProductCatalogVersion;
+import me.mugon.lendit.api.inventory.InventoryEngine;
+import me.mugon.lendit.api.search.ProductSearchIndex;
+import me.mugon.lendit.api.search.ProductSortIndex;
+import me.mugon.lendit.domain.account.Account;
+import me.mugon.lendit.domain.common.BaseValidator;
+import me.mugon.lendit.domain.product.Product;
+import me.mugon.lendit.domain.product.ProductBulkResource;
+import me.mugon.lendit.web.ProductController;
+import me.mugon.lendit.web.dto.product.ProductBulkResultDto;
+import me.mugon.lendit.web.dto.product.ProductRequestDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.hateoas.Link;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+
+import static me.mugon.lendit.api.error.ErrorMessageConstant.*;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+
+/**
+ * 수천 개의 상품을 한 번에 등록하는 서비스
+ * 상품 생성(POST /api/products)을 상품마다 호출하면 요청, 트랜잭션, INSERT 쿼리와 HATEOAS 응답이 상품 수만큼 생기기 때문에 구현
+ *
+ * 동작 방식
+ * 1. 요청 Body를 JSON 배열이나 NDJSON(application/x-ndjson)으로 읽어 ProductRequestDto 목록을 만듦, 상품이 lendit.product.bulk.max-size보다 많으면 거절함
+ * 2. 모든 상품을 상품 생성과 같은 규칙으로 먼저 검사하고, 하나라도 유효하지 않으면 아무것도 등록하지 않고 'products[n].필드 가 유효하지 않습니다.'를 모두 반환
+ * 3. lendit.product.bulk.chunk-size개마다 하나의 트랜잭션으로 persist하고 flush하여 JDBC batch INSERT로 저장함 (hibernate.jdbc.batch_size)
+ *    식별자는 IdGenerator의 pooled sequence에서 미리 할당받으므로 상품마다 sequence를 조회하지 않음
+ * 4. chunk가 커밋되면 재고 엔진, 상품 이름 검색 색인, 가격, 등록 일시 정렬 색인에 반영하고 상품 목록의 버전을 올린 뒤, 영속성 컨텍스트를 비움
+ * 5. 상품마다 응답을 만들지 않고 등록된 상품 수와 식별자 구간만 반환
+ *
+ * 상품을 등록한 유저의 상품 목록(Account.productSet)에 상품을 담지 않음, 유저가 가진 상품을 모두 읽지 않도록 상품에만 유저를 매핑함
+ * 앞선 chunk는 이미 커밋되었으므로 도중에 실패하면 500과 함께 그때까지 등록된 상품의 식별자 구간을 반환함
+ */
+@Slf4j
+@Service
+public class ProductBulkService {
+
+    private final ObjectMapper objectMapper;
+
+    private final Validator validator;
+
+    private final BaseValidator baseValidator;
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final InventoryEngine inventoryEngine;
+
+    private final ProductSearchIndex productSearchIndex;
+
+    private final ProductSortIndex productSortIndex;
+
+    private final ProductCatalogVersion productCatalogVersion;
+
+    private final int chunkSize;
+
+    private final int maxSize;
+
+    public ProductBulkService(ObjectMapper objectMapper, Validator validator, BaseValidator baseValidator, EntityManager entityManager,
+                              TransactionTemplate transactionTemplate, InventoryEngine inventoryEngine,
+                              ProductSearchIndex productSearchIndex, ProductSortIndex productSortIndex, ProductCatalogVersion productCatalogVersion,
+                              @Value("${lendit.product.bulk.chunk-size:1000}") int chunkSize,
+                              @Value("${lendit.product.bulk.max-size:10000}") int maxSize) {
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.baseValidator = baseValidator;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.inventoryEngine = inventoryEngine;
+        this.productSearchIndex = productSearchIndex;
+        this.productSortIndex = productSortIndex;
+        this.productCatalogVersion = productCatalogVersion;
+        this.chunkSize = chunkSize;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * 상품 일괄 등록
+     * 1. 요청 Body를 읽을 수 없거나 상품이 없으면 Body에 'message: 등록할 상품 목록의 형식이 유효하지 않습니다.'를 실어서 Bad Request와 함께 반환
+     * 2. 상품이 최대 수보다 많으면 Body에 'message: 한 번에 등록할 수 있는 상품 수를 넘었습니다.'를 실어서 Bad Request와 함께 반환
+     * 3. 유효하지 않은 상품이 있으면 모든 상품의 오류를 Bad Request와 함께 반환
+     * 4. chunk마다 하나의 트랜잭션으로 등록
+     * 5. HATEOAS를 위해 query-products 관계와 Self Descriptive Message를 위한 profile 관계를 EntityModel에 더함
+     * 6. Body에 등록된 상품 수와 식별자 구간을 실어 Created와 함께 반환, 도중에 실패하면 그때까지의 결과를 Internal Server Error와 함께 반환
+     */
+    public ResponseEntity<?> registrationProducts(InputStream in, Account currentUser) throws IOException {
+        List<ProductRequestDto> requestDtos = new ArrayList<>();
+        try (MappingIterator<ProductRequestDto> iterator = objectMapper.readerFor(ProductRequestDto.class).readValues(in)) {
+            while (iterator.hasNextValue()) {
+                if (requestDtos.size() >= maxSize) {
+                    return new ResponseEntity<>(baseValidator.returnErrorMessage(TOOMANYBULKPRODUCTS), HttpStatus.BAD_REQUEST);
+                }
+                requestDtos.add(iterator.nextValue());
+            }
+        } catch (JsonProcessingException e) {
+            return new ResponseEntity<>(baseValidator.returnErrorMessage(INVALIDBULKPRODUCTS), HttpStatus.BAD_REQUEST);
+        }
+        if (requestDtos.isEmpty() || requestDtos.contains(null)) {
+            return new ResponseEntity<>(baseValidator.returnErrorMessage(INVALIDBULKPRODUCTS), HttpStatus.BAD_REQUEST);
+        }
+
+        List<String> errors = validate(requestDtos);
+        if (!errors.isEmpty()) {
+            Map<String, List<String>> errorMap = new HashMap<>();
+            errorMap.put(KEY, errors);
+            return new ResponseEntity<>(errorMap, HttpStatus.BAD_REQUEST);
+        }
+
+        List<Long> ids = new ArrayList<>(requestDtos.size());
+        String message = null;
+        for (int from = 0; from < requestDtos.size(); from += chunkSize) {
+            List<ProductRequestDto> chunk = requestDtos.subList(from, Math.min(from + chunkSize, requestDtos.size()));
+            try {
+                ids.addAll(insert(chunk, currentUser));
+            } catch (RuntimeException e) {
+                log.error("bulk product registration failed after {} of {} products", ids.size(), requestDtos.size(), e);
+                message = BULKPRODUCTSFAILED;
+                break;
+            } finally {
+                entityManager.clear(); // 요청이 끝날 때까지 열려 있는 영속성 컨텍스트에 chunk마다 저장한 상품이 쌓이지 않도록 비움
+            }
+        }
+
+        ProductBulkResource productBulkResource = new ProductBulkResource(ProductBulkResultDto.of(ids, message));
+        productBulkResource.add(linkTo(ProductController.class).withRel("query-products"));
+        productBulkResource.add(new Link("https://mkshin96.github.io/Coding-Task/#resources-products-bulk").withRel("profile"));
+        return new ResponseEntity<>(productBulkResource, message == null ? HttpStatus.CREATED : HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    /**
+     * 상품 생성의 @Valid와 같은 규칙으로 검사하여 요청의 순서대로 오류를 반환
+     */
+    private List<String> validate(List<ProductRequestDto> requestDtos) {
+        List<String> errors = new ArrayList<>();
+        for (int i = 0; i < requestDtos.size(); i++) {
+            List<String> fields = new ArrayList<>();
+            for (ConstraintViolation<ProductRequestDto> violation : validator.validate(requestDtos.get(i))) {
+                fields.add(violation.getPropertyPath().toString());
+            }
+            Collections.sort(fields);
+            for (String field : fields) {
+                errors.add("products[" + i + "]." + field + " 가 유효하지 않습니다.");
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * 하나의 트랜잭션으로 chunk의 상품을 저장하고 요청의 순서대로 식별자를 반환
+     */
+    private List<Long> insert(List<ProductRequestDto> chunk, Account currentUser) {
+        return transactionTemplate.execute(status -> {
+            Account account = entityManager.getReference(Account.class, currentUser.getId());
+            List<Product> products = new ArrayList<>(chunk.size());
+            for (ProductRequestDto requestDto : chunk) {
+                Product product = requestDto.toEntity(account);
+                entityManager.persist(product);
+                products.add(product);
+            }
+            entityManager.flush();
+
+            List<Long> ids = new ArrayList<>(products.size());
+            for (Product product : products) {
+                ids.add(product.getId());
+                inventoryEngine.register(product.getId(), product.getAmount());
+                productSearchIndex.index(product.getId(), product.getName());
+            }
+            productSortIndex.indexAll(products);
+            productCatalogVersion.increment();
+            return ids;
+        });
+    }
+}
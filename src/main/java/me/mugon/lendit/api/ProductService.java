@@ -1,17 +1,32 @@
 package me.mugon.lendit.api;
 
 import lombok.RequiredArgsConstructor;
+import me.mugon.lendit.api.balance.BalanceLedgerService;
+import me.mugon.lendit.api.cache.ProductCatalogVersion;
+import me.mugon.lendit.api.cache.ProductDetailCache;
+import me.mugon.lendit.api.cache.ProductResponseCache;
+import me.mugon.lendit.api.inventory.InventoryEngine;
+import me.mugon.lendit.api.search.ProductSearchIndex;
+import me.mugon.lendit.api.search.ProductSortIndex;
 import me.mugon.lendit.domain.account.Account;
 import me.mugon.lendit.domain.common.BaseValidator;
 import me.mugon.lendit.domain.product.Product;
+import me.mugon.lendit.domain.product.ProductCatalogResource;
+import me.mugon.lendit.domain.product.ProductCursor;
+import me.mugon.lendit.domain.product.ProductListResource;
 import me.mugon.lendit.domain.product.ProductRepository;
 import me.mugon.lendit.domain.product.ProductResource;
 import me.mugon.lendit.web.OrdersController;
 import me.mugon.lendit.web.ProductController;
+import me.mugon.lendit.web.dto.product.ProductCatalogResponseDto;
 import me.mugon.lendit.web.dto.product.ProductRequestDto;
 import me.mugon.lendit.web.dto.product.ProductResponseDto;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PagedResourcesAssembler;
 import org.springframework.hateoas.Link;
 import org.springframework.hateoas.PagedModel;
@@ -21,7 +36,9 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.servlet.http.HttpServletRequest;
 import java.util.*;
+import java.util.stream.Collectors;
 
 import static me.mugon.lendit.api.error.ErrorMessageConstant.*;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
@@ -30,15 +47,31 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
 @Service
 public class ProductService {
 
+    private static final int MAX_PRODUCT_PAGE_SIZE = 100;
+
     private final ProductRepository productRepository;
 
     private final BaseValidator baseValidator;
 
+    private final InventoryEngine inventoryEngine;
+
+    private final ProductDetailCache productDetailCache;
+
+    private final ProductSearchIndex productSearchIndex;
+
+    private final ProductSortIndex productSortIndex;
+
+    private final ProductCatalogVersion productCatalogVersion;
+
+    private final ProductResponseCache productResponseCache;
+
+    private final BalanceLedgerService balanceLedgerService;
+
     /**
      * 상품 생성
      * 1. 클라이언트에게 전달받은 Dto를 Entity Class로 매핑
      * 2. 상품을 등록한 유저와 Entity Class를 매핑
-     * 3. db에 저장
+     * 3. db에 저장하고, 커밋되면 상품 이름 검색 색인과 가격, 등록 일시 정렬 색인에 추가하고 상품 목록의 버전을 올림
      * 4. HATEOAS를 위해 query-products, self, update-product, delete-product, order 관계를 EntityModel에 더함
      * 5. Self Descriptive Message를 위해 API Guide의 주소를 profile 관계로 명시하여 더함
      * 6. Header의 Location옵션에 생성된 상품을 조회할 수 있는 링크를 담고, Body에 위의 EntityModel을 실어 반환
@@ -48,6 +81,10 @@ public class ProductService {
         Product product = productRequestDto.toEntity(currentUser);
         product.mapUser(currentUser);
         Product savedProduct = productRepository.save(product);
+        inventoryEngine.register(savedProduct.getId(), savedProduct.getAmount());
+        productSearchIndex.index(savedProduct.getId(), savedProduct.getName());
+        productSortIndex.index(savedProduct.getId(), savedProduct.getPrice(), savedProduct.getCreatedAt());
+        productCatalogVersion.increment();
         WebMvcLinkBuilder selfLinkBuilder = linkTo(ProductController.class).slash(savedProduct.getId());
         ProductResponseDto responseDto = new ProductResponseDto(savedProduct);
         ProductResource productResource = new ProductResource(responseDto);
@@ -63,7 +100,7 @@ public class ProductService {
      * 상품 수정
      * 1. url경로로 전달받은 상품의 id로 db를 검색
      * 2. db에 없다면 Body에 'message: 상품을 찾을 수 없습니다.' 를 실어서 Bad Request와 함께 반환
-     * 3. db에 있다면 전달받은 dto의 값으로 데이터 변경
+     * 3. db에 있다면 전달받은 dto의 값으로 데이터 변경하고(조회한 뒤 주문이 재고를 바꿔도 실패하지 않도록 UPDATE 쿼리로 씀), 커밋되면 개별 상품 조회 캐시에서 지우고 상품 이름 검색 색인과 가격, 등록 일시 정렬 색인에 반영하고 상품 목록의 버전을 올림
      * 4. HATEOAS를 위해 delete-product, self, query-products, create-product 관계를 EntityModel에 더함
      * 5. Self Descriptive Message를 위해 API Guide의 주소를 profile 관계로 명시하여 더함
      * 6. Body에 위의 EntityModel을 실어 반환
@@ -78,7 +115,16 @@ public class ProductService {
         if (!product.getAccount().getId().equals(currentUser.getId())) { //요청한 사용자가 상품을 등록한 사용자인지 확인
             return new ResponseEntity<>(baseValidator.returnErrorMessage(INVALIDUSER), HttpStatus.BAD_REQUEST);
         }
-        product.update(productRequestDto);
+        if (productRepository.updateDetails(product.getId(), productRequestDto.getName(), productRequestDto.getPrice(),
+                productRequestDto.getAmount()) == 0) { // 조회한 뒤 다른 요청이 상품을 삭제한 경우
+            return new ResponseEntity<>(baseValidator.returnErrorMessage(PRODUCTNOTFOUND), HttpStatus.BAD_REQUEST);
+        }
+        product.update(productRequestDto); // 상품은 영속성 컨텍스트에서 분리되었으므로 응답에 담길 값에만 반영됨
+        inventoryEngine.register(product.getId(), product.getAmount());
+        productDetailCache.evict(product.getId());
+        productSearchIndex.index(product.getId(), product.getName());
+        productSortIndex.index(product.getId(), product.getPrice(), product.getCreatedAt());
+        productCatalogVersion.increment();
         ProductResponseDto responseDto = new ProductResponseDto(product);
         ProductResource productResource = new ProductResource(responseDto);
         productResource.add(linkTo(ProductController.class).withRel("query-products"));
@@ -92,7 +138,7 @@ public class ProductService {
      * 상품 삭제
      * 1. url경로로 전달받은 상품의 id로 db를 검색
      * 2. db에 없다면 Body에 'message: 상품을 찾을 수 없습니다.' 를 실어서 Bad Request와 함께 반환
-     * 3. db에 있다면 삭제
+     * 3. db에 있다면 삭제하고, 커밋되면 개별 상품 조회 캐시, 상품 이름 검색 색인, 가격, 등록 일시 정렬 색인에서 지우고 상품 목록의 버전을 올림
      * 4. HATEOAS를 위해 create-product, self, query-products 관계를 EntityModel에 더함
      * 5. Self Descriptive Message를 위해 API Guide의 주소를 profile 관계로 명시하여 더함
      * 6. Body에 위의 EntityModel을 실어 반환
@@ -108,6 +154,11 @@ public class ProductService {
             return new ResponseEntity<>(baseValidator.returnErrorMessage(INVALIDUSER), HttpStatus.BAD_REQUEST);
         }
         productRepository.delete(product);
+        inventoryEngine.remove(product.getId());
+        productDetailCache.evict(product.getId());
+        productSearchIndex.remove(product.getId());
+        productSortIndex.remove(product.getId());
+        productCatalogVersion.increment();
         ProductResource productResource = new ProductResource(new ProductResponseDto(product));
         productResource.add(linkTo(ProductController.class).withRel("create-product"));
         productResource.add(linkTo(ProductController.class).withRel("query-products"));
@@ -117,33 +168,204 @@ public class ProductService {
 
     /**
      * 상품 리스트 조회
-     * 1. db의 모든 상품을 Paging을 거쳐 조회
-     * 2. HATEOAS를 위해 self 관계를 EntityModel에 더함
-     * 3. Self Descriptive Message를 위해 API Guide의 주소를 profile 관계로 명시하여 더함
-     * 4. Body에 위의 EntityModel을 실어 반환
+     * 전체 개수가 필요한 클라이언트를 위해 남겨 둔 page 번호 방식이며, 매번 COUNT 쿼리와 OFFSET만큼 건너뛰는 조회를 실행함
+     * 1. 가격 범위(minPrice, maxPrice)가 있다면 최소 가격이 최대 가격보다 크거나, price, createdAt 중 하나가 아닌 값으로 정렬하는 경우
+     *    Body에 'message: 가격 범위가 유효하지 않습니다.' 또는 'message: 가격 범위로 조회할 때는 price, createdAt으로만 정렬할 수 있습니다.'를 실어서 Bad Request와 함께 반환
+     * 2. 가격 범위가 있거나 price, createdAt 중 하나로 정렬하는 경우 가격, 등록 일시 정렬 색인(ProductSortIndex)에서 page에 담길 상품의 식별자와 전체 개수를 찾고,
+     *    찾은 상품만 하나의 IN 쿼리로 조회함 (db에서 정렬, COUNT 하지 않음), 가격 범위만 있으면 가격 순서로 정렬함
+     * 3. 상품 목록의 ETag를 만들고(gzip으로 압축한 응답을 받는 요청이면 -gzip을 붙임), If-None-Match에 있으면 조회하지 않고 Not Modified와 함께 반환
+     * 4. 상품 목록 응답 캐시(ProductResponseCache)에 같은 요청, 같은 ETag로 만든 응답이 있으면 조회하지 않고 담은 바이트를 반환
+     * 5. 그 외에는 db의 모든 상품을 Paging을 거쳐 조회
+     *    두 경우 모두 엔티티 대신 상품의 컬럼과 등록자의 식별자, 이름만 조회하여 주문리스트를 읽지 않음
+     * 6. HATEOAS를 위해 self 관계를 EntityModel에 더함
+     * 7. Self Descriptive Message를 위해 API Guide의 주소를 profile 관계로 명시하여 더함
+     * 8. 위의 EntityModel을 직렬화하여 응답 캐시에 담고, Header의 ETag옵션에 ETag를 담아 반환
      */
     @Transactional(readOnly = true)
-    public ResponseEntity<?> getProductList(Pageable pageable, PagedResourcesAssembler<Product> assembler) {
-        Page<Product> all = productRepository.findAll(pageable);
-        PagedModel<ProductResource> productResources = assembler.toModel(all, e -> new ProductResource(new ProductResponseDto(e)));
-        productResources.add(new Link("https://mkshin96.github.io/Coding-Task/#resources-products-list").withRel("profile"));
-        return ResponseEntity.ok(productResources);
+    public ResponseEntity<?> getProductList(Pageable pageable, PagedResourcesAssembler<ProductCatalogResponseDto> assembler, Long minPrice, Long maxPrice,
+                                            String ifNoneMatch, HttpServletRequest request) {
+        boolean priceRange = minPrice != null || maxPrice != null;
+        if (priceRange && minPrice != null && maxPrice != null && minPrice > maxPrice) {
+            return new ResponseEntity<>(baseValidator.returnErrorMessage(INVALIDPRICERANGE), HttpStatus.BAD_REQUEST);
+        }
+        if (priceRange && !ProductSortIndex.supports(pageable.getSort())) {
+            return new ResponseEntity<>(baseValidator.returnErrorMessage(INVALIDPRODUCTSORT), HttpStatus.BAD_REQUEST);
+        }
+        String etag = productCatalogVersion.catalogEtag(); // 조회하는 동안 커밋된 변경이 다음 요청에서 반영되도록 조회하기 전에 만듦
+        String responseEtag = productResponseCache.etag(request, etag);
+        if (ProductCatalogVersion.matches(ifNoneMatch, responseEtag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(responseEtag).build();
+        }
+        return productResponseCache.respond(request, etag, () -> {
+            Page<ProductCatalogResponseDto> all;
+            if (priceRange || (pageable.getSort().isSorted() && ProductSortIndex.supports(pageable.getSort()))) {
+                Page<Long> ids = productSortIndex.find(minPrice, maxPrice, pageable);
+                all = new PageImpl<>(findCatalogInOrder(ids.getContent()), pageable, ids.getTotalElements());
+            } else {
+                all = productRepository.findCatalogPage(pageable);
+            }
+            PagedModel<ProductCatalogResource> productResources = assembler.toModel(all, ProductCatalogResource::new);
+            productResources.add(new Link("https://mkshin96.github.io/Coding-Task/#resources-products-list").withRel("profile"));
+            return productResources;
+        });
     }
 
+    /**
+     * 상품 리스트를 cursor로 나누어 조회
+     * 1. cursor가 있으면 읽고, 형식이 맞지 않으면 Body에 'message: 상품 목록의 cursor가 유효하지 않습니다.'를 실어 Bad Request와 함께 반환
+     * 2. size는 1 ~ MAX_PRODUCT_PAGE_SIZE 사이로 맞춤
+     * 3. 식별자 순서로 cursor의 다음(next) 또는 이전(prev) 상품을 size + 1개 조회하여 그 방향에 목록이 더 있는지 확인 (Slice)
+     *    상품 목록 조회와 같이 상품의 컬럼과 등록자의 식별자, 이름만 조회함
+     *    COUNT 쿼리를 실행하지 않고, OFFSET 대신 기본 키 인덱스를 따라 읽기 때문에 뒤쪽 목록을 조회하는 비용이 같음
+     *    이전 목록은 식별자의 역순으로 조회한 뒤 뒤집어 항상 식별자 순서로 반환함
+     * 4. HATEOAS를 위해 self, 다음 목록이 있으면 마지막 상품의 cursor를 담은 next, 이전 목록이 있으면 첫 번째 상품의 cursor를 담은 prev 관계를 더함
+     *    cursor의 다음 목록을 조회한 경우 cursor 이전에 상품이 있다고 보고, 이전 목록을 조회한 경우 cursor 이후에 상품이 있다고 보아 각각 prev, next 관계를 더함
+     * 5. Self Descriptive Message를 위해 API Guide의 주소를 profile 관계로 명시하여 더함
+     * 6. 반환
+     */
     @Transactional(readOnly = true)
-    public ResponseEntity<?> getProduct(Long productId) {
-        Optional<Product> optionalProduct = productRepository.findById(productId);
-        if (!optionalProduct.isPresent()) {
+    public ResponseEntity<?> getProductSlice(String cursor, int size) {
+        Optional<ProductCursor> optionalCursor = Optional.empty();
+        if (!cursor.isEmpty()) {
+            optionalCursor = ProductCursor.decode(cursor);
+            if (!optionalCursor.isPresent()) {
+                return new ResponseEntity<>(baseValidator.returnErrorMessage(INVALIDPRODUCTCURSOR), HttpStatus.BAD_REQUEST);
+            }
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_PRODUCT_PAGE_SIZE));
+        List<ProductCatalogResponseDto> products;
+        boolean hasNext;
+        boolean hasPrev;
+        if (!optionalCursor.isPresent()) {
+            Slice<ProductCatalogResponseDto> slice = productRepository.findCatalogSlice(PageRequest.of(0, pageSize, Sort.by("id")));
+            products = slice.getContent();
+            hasNext = slice.hasNext();
+            hasPrev = false;
+        } else if (!optionalCursor.get().isBefore()) {
+            Slice<ProductCatalogResponseDto> slice = productRepository.findCatalogSliceByIdGreaterThan(optionalCursor.get().getId(), PageRequest.of(0, pageSize, Sort.by("id")));
+            products = slice.getContent();
+            hasNext = slice.hasNext();
+            hasPrev = true;
+        } else {
+            Slice<ProductCatalogResponseDto> slice = productRepository.findCatalogSliceByIdLessThan(optionalCursor.get().getId(), PageRequest.of(0, pageSize, Sort.by("id").descending()));
+            products = new ArrayList<>(slice.getContent());
+            Collections.reverse(products);
+            hasNext = true;
+            hasPrev = slice.hasNext();
+        }
+
+        ProductListResource productListResource = new ProductListResource(products.stream()
+                .map(ProductCatalogResource::new)
+                .collect(Collectors.toList()));
+        productListResource.add(productSliceLink(cursor, pageSize).withSelfRel());
+        if (hasNext) {
+            // 목록이 비어 있으면 cursor의 식별자를 기준으로 반대 방향을 조회함
+            Long lastId = products.isEmpty() ? optionalCursor.get().getId() - 1 : products.get(products.size() - 1).getId();
+            productListResource.add(productSliceLink(ProductCursor.after(lastId).encode(), pageSize).withRel("next"));
+        }
+        if (hasPrev) {
+            Long firstId = products.isEmpty() ? optionalCursor.get().getId() + 1 : products.get(0).getId();
+            productListResource.add(productSliceLink(ProductCursor.before(firstId).encode(), pageSize).withRel("prev"));
+        }
+        productListResource.add(new Link("https://mkshin96.github.io/Coding-Task/#resources-products-list-cursor").withRel("profile"));
+        return ResponseEntity.ok(productListResource);
+    }
+
+    /**
+     * 개별 상품 조회
+     * 1. 개별 상품 조회 캐시(ProductDetailCache)에서 찾고, 없으면 상품의 컬럼과 등록자의 식별자, 이름만 db에서 읽어 캐시에 담음
+     * 2. 상품이 없다면 Body에 'message: 상품을 찾을 수 없습니다.' 를 실어서 Bad Request와 함께 반환
+     * 3. 상품의 식별자와 버전으로 ETag를 만들고(gzip으로 압축한 응답을 받는 요청이면 -gzip을 붙임), If-None-Match에 있으면 Not Modified와 함께 반환
+     * 4. 상품 응답 캐시(ProductResponseCache)에 같은 요청, 같은 ETag로 만든 응답이 있으면 담은 바이트를 반환
+     * 5. 없으면 HATEOAS를 위해 self, order, query-products 관계를 EntityModel에 더함
+     * 6. Self Descriptive Message를 위해 API Guide의 주소를 profile 관계로 명시하여 더함
+     * 7. 위의 EntityModel을 직렬화하여 응답 캐시에 담고, Header의 ETag옵션에 ETag를 담아 반환
+     * 캐시에 담긴 상품을 반환할 때 db connection을 사용하지 않도록 트랜잭션을 시작하지 않음
+     */
+    public ResponseEntity<?> getProduct(Long productId, String ifNoneMatch, HttpServletRequest request) {
+        Optional<ProductCatalogResponseDto> optionalResponseDto = productDetailCache.find(productId);
+        if (!optionalResponseDto.isPresent()) {
             return new ResponseEntity<>(baseValidator.returnErrorMessage(PRODUCTNOTFOUND), HttpStatus.BAD_REQUEST);
         }
-        ProductResource productResource = new ProductResource(new ProductResponseDto(optionalProduct.get()));
-        productResource.add(linkTo(OrdersController.class).withRel("order"));
-        productResource.add(linkTo(ProductController.class).withRel("query-products"));
-        productResource.add(new Link("https://mkshin96.github.io/Coding-Task/#resources-get-product").withRel("profile"));
-        return new ResponseEntity<>(productResource, HttpStatus.OK);
+        String etag = ProductCatalogVersion.productEtag(optionalResponseDto.get());
+        String responseEtag = productResponseCache.etag(request, etag);
+        if (ProductCatalogVersion.matches(ifNoneMatch, responseEtag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(responseEtag).build();
+        }
+        return productResponseCache.respond(request, etag, () -> {
+            ProductCatalogResource productResource = new ProductCatalogResource(optionalResponseDto.get());
+            productResource.add(linkTo(OrdersController.class).withRel("order"));
+            productResource.add(linkTo(ProductController.class).withRel("query-products"));
+            productResource.add(new Link("https://mkshin96.github.io/Coding-Task/#resources-get-product").withRel("profile"));
+            return productResource;
+        });
+    }
+
+    /**
+     * 상품 이름 검색
+     * 1. 상품 이름 검색 색인(ProductSearchIndex)에서 검색어와 일치하는 상품의 식별자를 점수 순서로 size개 찾음, size는 1 ~ MAX_PRODUCT_PAGE_SIZE 사이로 맞춤
+     * 2. 검색어에 글자나 숫자가 없다면 Body에 'message: 검색어가 유효하지 않습니다.'를 실어서 Bad Request와 함께 반환
+     * 3. 찾은 상품을 하나의 IN 쿼리로 조회하여 점수 순서대로 담음, 색인에 반영되기 전에 삭제된 상품은 제외함
+     * 4. HATEOAS를 위해 self 관계를 더하고, Self Descriptive Message를 위해 API Guide의 주소를 profile 관계로 명시하여 더함
+     * 5. 반환
+     */
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> searchProducts(String query, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PRODUCT_PAGE_SIZE));
+        Optional<List<Long>> optionalIds = productSearchIndex.search(query, pageSize);
+        if (!optionalIds.isPresent()) {
+            return new ResponseEntity<>(baseValidator.returnErrorMessage(INVALIDSEARCHQUERY), HttpStatus.BAD_REQUEST);
+        }
+        ProductListResource productListResource = new ProductListResource(findCatalogInOrder(optionalIds.get()).stream()
+                .map(ProductCatalogResource::new)
+                .collect(Collectors.toList()));
+        productListResource.add(new Link(linkTo(ProductController.class).slash("search").toUriComponentsBuilder()
+                .queryParam("q", query)
+                .queryParam("size", pageSize)
+                .toUriString()).withSelfRel());
+        productListResource.add(new Link("https://mkshin96.github.io/Coding-Task/#resources-products-search").withRel("profile"));
+        return ResponseEntity.ok(productListResource);
+    }
+
+    /**
+     * 여러 상품을 하나의 IN 쿼리로 조회하여 전달받은 식별자 순서대로 반환, 색인에 반영되기 전에 삭제된 상품은 제외함
+     */
+    private List<ProductCatalogResponseDto> findCatalogInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, ProductCatalogResponseDto> found = new HashMap<>();
+        productRepository.findCatalogByIdIn(ids).forEach(e -> found.put(e.getId(), e));
+        return ids.stream()
+                .filter(found::containsKey)
+                .map(found::get)
+                .collect(Collectors.toList());
+    }
+
+    private Link productSliceLink(String cursor, int size) {
+        return new Link(linkTo(ProductController.class).toUriComponentsBuilder()
+                .queryParam("cursor", cursor)
+                .queryParam("size", size)
+                .toUriString());
     }
 
     Optional<Product> findById(Long productId) {
         return productRepository.findById(productId);
     }
+
+    /**
+     * 주문할 여러 상품을 주문리스트 없이 하나의 쿼리로 조회하여 영속성 컨텍스트에 없는 Product로 반환
+     * 응답에 담길 등록자의 예치금은 엔티티로 조회할 때와 같이 원장으로 계산한 현재 예치금을 담음
+     */
+    List<Product> findAllById(Collection<Long> productIds) {
+        return productRepository.findForOrderByIdIn(productIds).stream()
+                .map(e -> {
+                    Product product = e.toProduct();
+                    Account account = product.getAccount();
+                    if (account != null) {
+                        account.loadBalance(balanceLedgerService.getBalance(account.getId(), account.getOpeningBalance()));
+                    }
+                    return product;
+                }).collect(Collectors.toList());
+    }
 }
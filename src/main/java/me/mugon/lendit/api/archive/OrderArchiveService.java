@@ -0,0 +1,124 @@
+package me.mugon.lendit.api.archive;
+
+import lombok.extern.slf4j.Slf4j;
+import me.mugon.lendit.api.summary.SalesSummaryService;
+import me.mugon.lendit.domain.archive.ArchivedOrder;
+import me.mugon.lendit.domain.archive.OrderArchive;
+import me.mugon.lendit.domain.archive.OrderArchiveBatchRepository;
+import me.mugon.lendit.domain.archive.OrderArchiveSegment;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 보관 기간(lendit.order.archive.retention)이 지난 주문을 orders 테이블에서 압축된 segment 파일(OrderArchive)로 옮김
+ * lendit.order.archive.enabled가 true인 경우에만 lendit.order.archive.interval 주기로 실행함
+ * 오래된 주문이 orders 테이블에 남아 있으면 테이블과 인덱스가 커지고, 상품을 읽을 때마다 EAGER인 Product.ordersList로 함께 읽히기 때문에 구현
+ *
+ * 동작 방식
+ * 1. 주문 시간이 보관 기간 이전인 주문을 식별자 순서로 batch-size개씩 상품 이름, 가격, 판매자와 함께 읽음
+ * 2. 하나의 트랜잭션에서 읽은 주문을 새 segment 파일로 쓰고(임시 파일에 쓰고 fsync 한 뒤 이름을 바꿈), orders 테이블에서 지우고,
+ *    구매자, 판매자별 합계를 옮겨진 주문의 합계(ArchivedSalesSummary)에 더함
+ * 3. 커밋되면 segment를 조회 대상에 추가하고, 실패하면 segment 파일을 지움
+ * 4. 읽은 주문이 batch-size개보다 적을 때까지 반복함
+ * 5. 주문이 lendit.order.archive.compact-below개보다 적은 segment들을 하나로 합침 (OrderArchive.compact())
+ *
+ * 옮겨진 주문은 OrderArchive로 조회하며, 주문 목록 조회(GET /api/orders)는 orders 테이블과 segment 파일의 주문을 합쳐서 반환함
+ * 구매자, 판매자 요약(sales_summary)은 이미 옮겨진 주문을 포함하고 있으므로 바꾸지 않고, 요약을 다시 만들 때 옮겨진 주문의 합계를 더함
+ */
+@Slf4j
+@Service
+public class OrderArchiveService {
+
+    private final OrderArchiveBatchRepository orderArchiveBatchRepository;
+
+    private final OrderArchive orderArchive;
+
+    private final SalesSummaryService salesSummaryService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+
+    private final Duration retention;
+
+    private final int batchSize;
+
+    private final int compactBelow;
+
+    public OrderArchiveService(OrderArchiveBatchRepository orderArchiveBatchRepository, OrderArchive orderArchive,
+                               SalesSummaryService salesSummaryService, TransactionTemplate transactionTemplate,
+                               @Value("${lendit.order.archive.enabled:false}") boolean enabled,
+                               @Value("${lendit.order.archive.retention:365d}") Duration retention,
+                               @Value("${lendit.order.archive.batch-size:10000}") int batchSize,
+                               @Value("${lendit.order.archive.compact-below:10000}") int compactBelow) {
+        this.orderArchiveBatchRepository = orderArchiveBatchRepository;
+        this.orderArchive = orderArchive;
+        this.salesSummaryService = salesSummaryService;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.retention = retention;
+        this.batchSize = batchSize;
+        this.compactBelow = compactBelow;
+    }
+
+    @Scheduled(fixedDelayString = "${lendit.order.archive.interval:3600000}")
+    public void archive() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            archive(LocalDateTime.now());
+            orderArchive.compact(compactBelow);
+        } catch (RuntimeException e) {
+            log.warn("order archive failed, retry on next run", e);
+        }
+    }
+
+    /**
+     * now를 기준으로 보관 기간이 지난 주문을 모두 옮기고, 옮긴 주문의 수를 반환
+     */
+    public synchronized int archive(LocalDateTime now) {
+        LocalDateTime before = now.minus(retention);
+        int archived = 0;
+        int count;
+        do {
+            count = archiveBatch(before);
+            archived += count;
+        } while (count == batchSize);
+        if (archived > 0) {
+            log.info("archived {} orders created before {}", archived, before);
+        }
+        return archived;
+    }
+
+    private int archiveBatch(LocalDateTime before) {
+        OrderArchiveSegment[] written = new OrderArchiveSegment[1];
+        try {
+            Integer count = transactionTemplate.execute(status -> {
+                List<ArchivedOrder> archivedOrders = orderArchiveBatchRepository.findCreatedBefore(before, batchSize);
+                if (archivedOrders.isEmpty()) {
+                    return 0;
+                }
+                written[0] = orderArchive.write(archivedOrders);
+                orderArchiveBatchRepository.deleteAll(archivedOrders);
+                salesSummaryService.recordArchived(archivedOrders);
+                return archivedOrders.size();
+            });
+            if (written[0] != null) {
+                orderArchive.publish(written[0]);
+            }
+            return count == null ? 0 : count;
+        } catch (RuntimeException e) {
+            if (written[0] != null) {
+                orderArchive.discard(written[0]);
+            }
+            throw e;
+        }
+    }
+}
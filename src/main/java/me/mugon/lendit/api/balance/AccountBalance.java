@@ -0,0 +1,83 @@
+package me.mugon.lendit.api.balance;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 예치금 원장(BalanceLedgerService)이 관리하는 한 유저의 현재 예치금과, 주문 트랜잭션이 사용했지만 아직 커밋되지 않은 금액
+ *
+ * 두 값을 하나의 불변 객체로 묶어 CAS로 함께 바꾸기 때문에, 예치금을 지정할 때(adjust) 커밋되지 않은 주문의 사용 금액을 뺀 값이 아니라
+ * 커밋된 예치금(현재 예치금 + 커밋되지 않은 금액)과의 차이를 구함
+ * 따라서 지정한 뒤 주문이 롤백되어 사용 금액을 되돌려도 지정한 예치금보다 많아지지 않고, 주문이 커밋되면 지정한 예치금에서 사용 금액이 빠짐
+ */
+class AccountBalance {
+
+    private final AtomicReference<State> state;
+
+    AccountBalance(long balance) {
+        this.state = new AtomicReference<>(new State(balance, 0L));
+    }
+
+    /** 커밋되지 않은 주문의 사용 금액이 빠진 현재 예치금 */
+    long get() {
+        return state.get().available;
+    }
+
+    /**
+     * 현재 예치금이 total 이상인 경우에만 total만큼 감소시키고 커밋되지 않은 금액에 더함
+     */
+    boolean tryWithdraw(long total) {
+        State current;
+        do {
+            current = state.get();
+            if (current.available < total) {
+                return false;
+            }
+        } while (!state.compareAndSet(current, new State(current.available - total, current.pending + total)));
+        return true;
+    }
+
+    /**
+     * 사용한 금액을 커밋되지 않은 금액에서 빼고, 커밋되지 않았으면 현재 예치금에 되돌림
+     */
+    void completeWithdraw(long total, boolean committed) {
+        State current;
+        do {
+            current = state.get();
+        } while (!state.compareAndSet(current, new State(current.available + (committed ? 0L : total), current.pending - total)));
+    }
+
+    /**
+     * 커밋된 예치금이 newBalance가 되도록 현재 예치금에 차이를 더하고 그 차이를 반환
+     */
+    long adjustTo(long newBalance) {
+        State current;
+        long delta;
+        do {
+            current = state.get();
+            delta = newBalance - (current.available + current.pending);
+        } while (!state.compareAndSet(current, new State(current.available + delta, current.pending)));
+        return delta;
+    }
+
+    /**
+     * 현재 예치금에 amount를 더함, 롤백된 예치금 지정을 되돌릴 때 사용
+     */
+    void add(long amount) {
+        State current;
+        do {
+            current = state.get();
+        } while (!state.compareAndSet(current, new State(current.available + amount, current.pending)));
+    }
+
+    private static final class State {
+
+        private final long available;
+
+        private final long pending;
+
+        private State(long available, long pending) {
+            this.available = available;
+            this.pending = pending;
+        }
+    }
+}
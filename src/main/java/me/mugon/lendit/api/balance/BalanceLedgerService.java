@@ -0,0 +1,216 @@
+package me.mugon.lendit.api.balance;
+
+import lombok.extern.slf4j.Slf4j;
+import me.mugon.lendit.domain.account.Account;
+import me.mugon.lendit.domain.account.AccountLoadedEvent;
+import me.mugon.lendit.domain.account.AccountPersistedEvent;
+import me.mugon.lendit.domain.balance.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * 유저의 예치금을 account.balance를 수정하는 대신 예치금 원장(BalanceLedger)에 변동을 추가하는 방식으로 관리
+ * 주문마다 같은 account row를 UPDATE하며 lock을 기다리지 않고, 유저 수정과 주문이 같은 row를 두고 서로 덮어쓰지 않도록 하기 위해 구현
+ *
+ * 동작 방식
+ * 1. account.balance는 유저 생성 시의 예치금으로만 사용하고 이후에는 수정하지 않음
+ * 2. 현재 예치금은 가장 최근의 스냅샷(없으면 account.balance)에 그 이후의 원장을 더한 값이며, 애플리케이션이 시작될 때 모든 유저의 예치금을 계산하여 유저별 AccountBalance에 담아둠
+ *    이후 생성된 유저는 저장될 때(AccountPersistedEvent) account.balance를 담으므로, Account를 조회할 때(AccountLoadedEvent) db에 다시 접근하지 않음
+ * 3. 주문은 메모리의 현재 예치금을 CAS로 감소시켜 예치금을 확인하고, 주문 트랜잭션에 DEBIT 원장 한 줄을 추가함 (lock 없음)
+ * 4. 주문 트랜잭션이 끝날 때까지 사용 금액을 커밋되지 않은 금액으로 따로 담아두고, 롤백되면 감소시킨 예치금을 메모리에 되돌림
+ * 5. 유저 수정으로 예치금을 지정하면 지정한 값과 커밋된 예치금(현재 예치금 + 커밋되지 않은 금액)의 차이를 ADJUSTMENT 원장으로 추가함
+ *    지정한 뒤 롤백되는 주문이 사용 금액을 되돌려도 지정한 값보다 많아지지 않음
+ * 6. lendit.balance.snapshot-interval 주기로 원장이 기록된 유저의 스냅샷을 저장하여 예치금을 계산할 때 더할 원장의 개수를 줄임
+ *
+ * 일관성 규칙
+ * - 스냅샷은 (현재 - lendit.balance.snapshot-margin) 이전에 기록된 원장까지만 반영하므로, 원장을 추가한 트랜잭션은 그 시간 안에 커밋되어야 함
+ * - 메모리의 현재 예치금은 모든 예치금 변동이 이 서비스를 거친다는 전제로 유지되므로 하나의 인스턴스에서만 사용해야 함
+ */
+@Slf4j
+@Service
+public class BalanceLedgerService {
+
+    private final BalanceLedgerRepository balanceLedgerRepository;
+
+    private final BalanceSnapshotRepository balanceSnapshotRepository;
+
+    private final BalanceQueryRepository balanceQueryRepository;
+
+    private final Duration snapshotMargin;
+
+    /** 유저별 현재 예치금 (커밋되지 않은 주문의 사용 금액이 이미 빠져 있음) */
+    private final Map<Long, AccountBalance> balances = new ConcurrentHashMap<>();
+
+    public BalanceLedgerService(BalanceLedgerRepository balanceLedgerRepository, BalanceSnapshotRepository balanceSnapshotRepository,
+                                BalanceQueryRepository balanceQueryRepository,
+                                @Value("${lendit.balance.snapshot-margin:1m}") Duration snapshotMargin) {
+        this.balanceLedgerRepository = balanceLedgerRepository;
+        this.balanceSnapshotRepository = balanceSnapshotRepository;
+        this.balanceQueryRepository = balanceQueryRepository;
+        this.snapshotMargin = snapshotMargin;
+    }
+
+    /**
+     * 애플리케이션이 시작되면 모든 유저의 현재 예치금을 계산하여 메모리로 불러옴
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        balances.clear();
+        balanceQueryRepository.calculateAllBalances().forEach((accountId, balance) -> balances.put(accountId, new AccountBalance(balance)));
+        log.info("balance ledger loaded {} accounts", balances.size());
+    }
+
+    /**
+     * 유저가 저장되면 유저 생성 시의 예치금을 현재 예치금으로 담음
+     * 새로 저장된 유저의 식별자에 남아 있는 값(예: 스키마를 다시 만들어 식별자가 재사용된 경우)은 덮어씀
+     */
+    public void register(Long accountId, Long openingBalance) {
+        balances.put(accountId, new AccountBalance(openingBalance == null ? 0L : openingBalance));
+    }
+
+    @EventListener
+    public void onAccountPersisted(AccountPersistedEvent event) {
+        Account account = event.getAccount();
+        register(account.getId(), account.getOpeningBalance());
+    }
+
+    /**
+     * Account를 조회하면 account.balance(유저 생성 시의 예치금) 대신 원장으로 계산한 현재 예치금을 담음
+     */
+    @EventListener
+    public void onAccountLoaded(AccountLoadedEvent event) {
+        Account account = event.getAccount();
+        account.loadBalance(getBalance(account.getId(), account.getOpeningBalance()));
+    }
+
+    /**
+     * 현재 예치금을 반환
+     * 메모리에 없는 유저(다른 경로로 db에 추가된 유저 등)는 스냅샷과 원장으로 계산하며, openingBalance는 스냅샷이 없는 경우 사용할 유저 생성 시의 예치금
+     */
+    public long getBalance(Long accountId, Long openingBalance) {
+        return balanceOf(accountId, openingBalance).get();
+    }
+
+    /**
+     * 예치금이 총 금액 이상인 경우에만 예치금을 사용하고 DEBIT 원장을 추가
+     * 주문 트랜잭션 안에서 호출해야 하며, 트랜잭션이 끝날 때까지 사용한 금액을 커밋되지 않은 금액으로 담아두고 롤백되면 되돌림
+     * 예치금이 부족하면 아무것도 기록하지 않고 false를 반환
+     */
+    public boolean withdraw(Account account, long total) {
+        AccountBalance balance = balanceOf(account.getId(), account.getOpeningBalance());
+        if (!balance.tryWithdraw(total)) {
+            return false;
+        }
+        append(account.getId(), BalanceLedgerType.DEBIT, -total, committed -> balance.completeWithdraw(total, committed));
+        return true;
+    }
+
+    /**
+     * 커밋된 예치금을 지정한 값으로 맞추기 위해 그 차이를 ADJUSTMENT 원장으로 추가
+     * 커밋되지 않은 주문의 사용 금액은 차이에 포함하지 않으므로, 그 주문이 롤백되어도 지정한 값보다 많아지지 않음
+     */
+    public void adjust(Account account, long newBalance) {
+        AccountBalance balance = balanceOf(account.getId(), account.getOpeningBalance());
+        long delta = balance.adjustTo(newBalance);
+        if (delta != 0) {
+            append(account.getId(), BalanceLedgerType.ADJUSTMENT, delta, committed -> {
+                if (!committed) {
+                    balance.add(-delta);
+                }
+            });
+        }
+    }
+
+    /**
+     * 유저가 삭제되면 트랜잭션 커밋 이후 메모리의 예치금을 제거, 원장은 그대로 남겨둠
+     */
+    public void remove(Long accountId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            balances.remove(accountId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                balances.remove(accountId);
+            }
+        });
+    }
+
+    /**
+     * 마지막 스냅샷 이후 원장이 기록된 유저의 스냅샷을 저장
+     */
+    @Transactional
+    @Scheduled(fixedDelayString = "${lendit.balance.snapshot-interval:600000}")
+    public void takeSnapshots() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(snapshotMargin);
+        List<BalanceSnapshot> snapshots = balanceQueryRepository.findAccountIdsToSnapshot(cutoff).stream()
+                .map(accountId -> balanceQueryRepository.calculateSnapshot(accountId, cutoff))
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .collect(Collectors.toList());
+        if (!snapshots.isEmpty()) {
+            balanceSnapshotRepository.saveAll(snapshots);
+            log.info("took balance snapshots of {} accounts", snapshots.size());
+        }
+    }
+
+    private AccountBalance balanceOf(Long accountId, Long openingBalance) {
+        AccountBalance balance = balances.get(accountId);
+        if (balance != null) {
+            return balance;
+        }
+        // 계산하는 동안 다른 요청이 먼저 담은 경우 먼저 담긴 값을 사용
+        long calculated = balanceQueryRepository.calculateBalance(accountId, openingBalance == null ? 0L : openingBalance);
+        return balances.computeIfAbsent(accountId, id -> new AccountBalance(calculated));
+    }
+
+    /**
+     * 원장을 추가하고, 트랜잭션이 끝나면 커밋 여부를 completion에 전달함
+     * 트랜잭션 밖에서 호출하면 원장을 저장했는지를 바로 전달함
+     */
+    private void append(Long accountId, BalanceLedgerType type, long amount, Consumer<Boolean> completion) {
+        // 원장을 저장하는 도중 예외가 발생해도 되돌릴 수 있도록 먼저 등록함
+        boolean inTransaction = TransactionSynchronizationManager.isSynchronizationActive();
+        if (inTransaction) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    completion.accept(status == STATUS_COMMITTED);
+                }
+            });
+        }
+        try {
+            // 같은 트랜잭션에서 이어지는 재고의 조건부 UPDATE가 영속성 컨텍스트를 비우면 아직 insert되지 않은 원장이 사라지므로 바로 반영함
+            balanceLedgerRepository.saveAndFlush(BalanceLedger.builder()
+                    .accountId(accountId)
+                    .type(type)
+                    .amount(amount)
+                    .createdAt(LocalDateTime.now())
+                    .build());
+        } catch (RuntimeException e) {
+            if (!inTransaction) {
+                completion.accept(false);
+            }
+            throw e;
+        }
+        if (!inTransaction) {
+            completion.accept(true);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package me.mugon.lendit.api.cache;
+
+import me.mugon.lendit.web.dto.product.ProductCatalogResponseDto;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 상품 목록, 개별 상품 조회의 ETag를 만들고 If-None-Match와 비교
+ * 클라이언트가 바뀌지 않은 목록과 상품을 다시 받지 않도록, 다시 확인하는 요청은 목록이나 상품을 조회하고 HAL로 만들기 전에 304로 응답하기 위해 구현
+ *
+ * - 개별 상품의 ETag는 상품의 식별자와 버전(Product.version)으로 만듦, 상품 수정과 재고 변경은 모두 버전을 올리고 등록자의 이름이 바뀌면 등록한 상품의 버전을 올림
+ * - 상품 목록의 ETag는 상품 전체의 버전으로 만듦, 상품 등록, 수정, 삭제, 재고 변경, 등록자의 이름 변경이 트랜잭션 커밋 이후 increment()로 올림
+ *   애플리케이션이 시작될 때마다 다른 값을 함께 담아, 다시 시작하거나 다른 인스턴스에서 만든 ETag와 같아지지 않게 함
+ *
+ * 상품 전체의 버전은 메모리에 두기 때문에 다른 인스턴스에서 바꾼 상품은 상품 목록의 ETag에 반영되지 않음
+ */
+@Component
+public class ProductCatalogVersion {
+
+    private final String epoch = Long.toHexString(ThreadLocalRandom.current().nextLong());
+
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * 상품 전체의 버전을 올림
+     * 트랜잭션 안에서 호출하면 커밋된 뒤에 올리고, 롤백되면 값이 바뀌지 않았으므로 올리지 않음
+     * 커밋 전에 이전 버전으로 목록을 읽은 요청은 커밋된 값을 읽었더라도 이전 ETag를 받으므로 다음 요청에서 다시 받게 됨
+     */
+    public void increment() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    version.incrementAndGet();
+                }
+            });
+        } else {
+            version.incrementAndGet();
+        }
+    }
+
+    /**
+     * 상품 목록의 ETag, 목록을 조회하기 전에 만들어야 함
+     */
+    public String catalogEtag() {
+        return "\"catalog-" + epoch + "-" + version.get() + "\"";
+    }
+
+    /**
+     * 개별 상품의 ETag
+     */
+    public static String productEtag(ProductCatalogResponseDto responseDto) {
+        return "\"product-" + responseDto.getId() + "-" + responseDto.getVersion() + "\"";
+    }
+
+    /**
+     * If-None-Match 헤더에 etag가 있는지 확인, 조회 요청이므로 W/ 를 무시하고 비교함 (weak comparison)
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
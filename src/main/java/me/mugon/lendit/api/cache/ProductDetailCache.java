@@ -0,0 +1,220 @@
+package me.mugon.lendit.api.cache;
+
+import me.mugon.lendit.domain.product.ProductRepository;
+import me.mugon.lendit.web.dto.product.ProductCatalogResponseDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 개별 상품 조회(GET /api/products/{productId})의 응답 값을 담는 read-through 캐시
+ * 조회가 몰리는 상품을 매번 db에서 읽지 않도록 구현, 없는 상품은 상품의 컬럼과 등록자의 식별자, 이름만 조회하여 담음 (ProductRepository.findCatalogById)
+ *
+ * - 최대 lendit.product.cache.size개를 담으며, 넘으면 가장 오래 사용되지 않은 상품부터 제거 (LRU)
+ * - 담은 지 lendit.product.cache.ttl이 지난 상품은 다시 읽음, 유저 수정, 삭제 시에도 지우지만 트랜잭션 밖에서 바뀐 등록자의 이름은 이 시간만큼 늦게 반영될 수 있음
+ * - 같은 상품을 동시에 읽는 요청은 먼저 읽기 시작한 요청의 결과를 함께 사용하여 db를 한 번만 읽음
+ * - 상품 수정, 삭제, 재고 변경은 트랜잭션이 커밋된 뒤 evict()로 지워, 커밋 전의 값을 읽은 요청이 다시 담은 값도 함께 지움
+ * - 없는 상품은 담지 않음
+ * - 상품 목록 스냅샷(ProductCatalogSnapshotService)으로 시작하는 경우 스냅샷의 상품을 미리 담음
+ * - size가 0이면 캐시를 사용하지 않음
+ */
+@Component
+public class ProductDetailCache {
+
+    private final ProductRepository productRepository;
+
+    private final boolean enabled;
+
+    private final int maxSize;
+
+    private final long ttlNanos;
+
+    /** 담은 상품, 최대 개수를 넘으면 가장 오래 사용되지 않은 상품부터 제거 */
+    private final Map<Long, Entry> cache;
+
+    /** 상품별로 읽고 있는 요청의 결과, 같은 상품을 동시에 읽는 요청이 함께 기다림 */
+    private final Map<Long, CompletableFuture<Optional<ProductCatalogResponseDto>>> loadings = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    public ProductDetailCache(ProductRepository productRepository,
+                              @Value("${lendit.product.cache.size:10000}") int size,
+                              @Value("${lendit.product.cache.ttl:60s}") Duration ttl) {
+        this.productRepository = productRepository;
+        this.enabled = size > 0;
+        this.maxSize = size;
+        this.ttlNanos = ttl.toNanos();
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<Long, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                if (size() > size) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        });
+    }
+
+    /**
+     * 캐시에 담긴 상품을 반환하고, 없거나 만료되었으면 db에서 읽어 담은 뒤 반환
+     * 1. 담긴 상품이 만료되지 않았으면 그대로 반환
+     * 2. 같은 상품을 읽고 있는 요청이 있으면 그 결과를 기다려 반환
+     * 3. 없으면 db에서 읽고, 읽는 동안 evict()되지 않은 경우에만 담음
+     */
+    public Optional<ProductCatalogResponseDto> find(Long productId) {
+        if (!enabled) {
+            return load(productId);
+        }
+        Entry entry = cache.get(productId);
+        if (entry != null) {
+            if (!entry.isExpired()) {
+                hits.increment();
+                return Optional.of(entry.responseDto);
+            }
+            if (cache.remove(productId, entry)) {
+                evictions.increment();
+            }
+        }
+        misses.increment();
+
+        CompletableFuture<Optional<ProductCatalogResponseDto>> loading = new CompletableFuture<>();
+        CompletableFuture<Optional<ProductCatalogResponseDto>> existing = loadings.putIfAbsent(productId, loading);
+        if (existing != null) {
+            return join(existing);
+        }
+        Optional<ProductCatalogResponseDto> optionalResponseDto;
+        try {
+            optionalResponseDto = load(productId);
+        } catch (RuntimeException e) {
+            loadings.remove(productId, loading);
+            loading.completeExceptionally(e);
+            throw e;
+        }
+        synchronized (cache) { // evict()와 같은 lock으로 읽는 동안 지워지지 않았는지 확인하고 담음
+            if (loadings.remove(productId, loading) && optionalResponseDto.isPresent()) {
+                cache.put(productId, new Entry(optionalResponseDto.get(), System.nanoTime() + ttlNanos));
+            }
+        }
+        loading.complete(optionalResponseDto);
+        return optionalResponseDto;
+    }
+
+    /**
+     * 상품을 캐시에서 지움
+     * 트랜잭션 안에서 호출하면 커밋된 뒤에 지우고, 롤백되면 값이 바뀌지 않았으므로 지우지 않음
+     */
+    public void evict(Long productId) {
+        evictAll(Collections.singleton(productId));
+    }
+
+    public void evictAll(Collection<Long> productIds) {
+        if (!enabled || productIds.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            List<Long> ids = new ArrayList<>(productIds);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remove(ids);
+                }
+            });
+        } else {
+            remove(productIds);
+        }
+    }
+
+    /**
+     * 상품 목록 스냅샷에서 읽은 상품을 담음, 최대 개수보다 많으면 식별자가 큰(최근에 등록된) 상품만 담음
+     */
+    public void load(List<ProductCatalogResponseDto> responseDtos) {
+        if (!enabled) {
+            return;
+        }
+        long expiresAt = System.nanoTime() + ttlNanos;
+        synchronized (cache) {
+            for (ProductCatalogResponseDto responseDto : responseDtos.subList(Math.max(0, responseDtos.size() - maxSize), responseDtos.size())) {
+                cache.put(responseDto.getId(), new Entry(responseDto, expiresAt));
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (cache) {
+            loadings.clear();
+            cache.clear();
+        }
+    }
+
+    /** 캐시에 담긴 상품을 반환한 횟수 */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /** 캐시에 없거나 만료되어 db에서 읽은 횟수 (함께 기다린 요청 포함) */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /** 최대 개수를 넘거나 만료되어 제거된 횟수, evict()로 지운 횟수는 포함하지 않음 */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    private void remove(Collection<Long> productIds) {
+        synchronized (cache) {
+            for (Long productId : productIds) {
+                loadings.remove(productId); // 읽고 있는 요청은 결과를 반환만 하고 담지 않음
+                cache.remove(productId);
+            }
+        }
+    }
+
+    private Optional<ProductCatalogResponseDto> load(Long productId) {
+        return productRepository.findCatalogById(productId);
+    }
+
+    private Optional<ProductCatalogResponseDto> join(CompletableFuture<Optional<ProductCatalogResponseDto>> loading) {
+        try {
+            return loading.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static class Entry {
+
+        private final ProductCatalogResponseDto responseDto;
+
+        private final long expiresAt;
+
+        private Entry(ProductCatalogResponseDto responseDto, long expiresAt) {
+            this.responseDto = responseDto;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired() {
+            return System.nanoTime() - expiresAt > 0;
+        }
+    }
+}
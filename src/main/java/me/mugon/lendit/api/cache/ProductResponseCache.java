@@ -0,0 +1,191 @@
+package me.mugon.lendit.api.cache;
+
+import me.mugon.lendit.config.HalSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 상품 목록, 개별 상품 조회의 응답을 HAL+JSON 바이트와 gzip으로 압축한 바이트로 담는 캐시
+ * 개별 상품 조회 캐시에 상품이 있어도 요청마다 HATEOAS 링크를 만들고 Jackson으로 직렬화하기 때문에 구현
+ *
+ * - 요청의 주소(scheme, host, port, context path), 경로, 정렬한 query, Accept 헤더로 나누어 담음, 링크가 요청의 주소로 만들어지므로 주소도 함께 나눔
+ * - 응답의 ETag와 함께 담고, 같은 요청의 ETag가 담은 ETag와 같을 때만 담은 바이트를 반환함
+ *   ETag는 상품 등록, 수정, 삭제, 재고 변경 시 바뀌므로(ProductCatalogVersion) 상품이 바뀌면 담은 응답을 사용하지 않고 다시 만들어 바꿔 담음
+ * - Accept-Encoding에 gzip이 있으면 압축한 바이트를 Content-Encoding: gzip과 함께 반환함
+ *   압축한 응답은 바이트가 다른 표현이므로 ETag의 따옴표 안에 -gzip을 붙인 다른 강한 ETag를 사용함 (etag(request, etag))
+ *   압축한 바이트는 gzip을 받는 요청이 처음 왔을 때 만들어 담음, 여러 요청이 동시에 만들 수 있지만 같은 바이트이므로 먼저 담은 값을 사용함
+ * - 최대 lendit.product.response-cache.size개를 담으며, 넘으면 가장 오래 사용되지 않은 응답부터 제거 (LRU)
+ * - size가 0이면 캐시를 사용하지 않고 만든 응답을 그대로 반환함
+ */
+@Component
+public class ProductResponseCache {
+
+    private static final String GZIP = "gzip";
+
+    private static final String GZIP_ETAG_SUFFIX = "-gzip";
+
+    private final HalSerializer halSerializer;
+
+    private final boolean enabled;
+
+    /** 담은 응답, 최대 개수를 넘으면 가장 오래 사용되지 않은 응답부터 제거 */
+    private final Map<String, Entry> cache;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    public ProductResponseCache(HalSerializer halSerializer, @Value("${lendit.product.response-cache.size:1000}") int size) {
+        this.halSerializer = halSerializer;
+        this.enabled = size > 0;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > size;
+            }
+        });
+    }
+
+    /**
+     * 요청에 반환할 응답의 ETag, gzip으로 압축한 응답을 반환하는 요청이면 따옴표 안에 -gzip을 붙임
+     * If-None-Match와 비교하고 Not Modified와 함께 반환할 때 사용
+     */
+    public String etag(HttpServletRequest request, String etag) {
+        return enabled && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING)) ? gzipEtag(etag) : etag;
+    }
+
+    /**
+     * 요청과 ETag가 같은 응답이 담겨 있으면 담은 바이트를 반환하고, 없으면 body로 응답을 만들어 직렬화한 뒤 담고 반환
+     * etag는 압축하지 않은 응답의 ETag이며, body는 etag를 만든 뒤 조회한 값으로 만들어야 함
+     */
+    public ResponseEntity<?> respond(HttpServletRequest request, String etag, Supplier<Object> body) {
+        if (!enabled) {
+            return ResponseEntity.ok().eTag(etag).body(body.get());
+        }
+        String key = key(request);
+        Entry entry = cache.get(key);
+        if (entry != null && entry.etag.equals(etag)) {
+            hits.increment();
+        } else {
+            misses.increment();
+            byte[] serialized = halSerializer.serialize(body.get());
+            entry = new Entry(etag, serialized);
+            cache.put(key, entry);
+        }
+        boolean gzip = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .eTag(gzip ? gzipEtag(etag) : etag)
+                .contentType(halSerializer.getContentType())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, GZIP);
+        }
+        return builder.body(gzip ? entry.gzipBody() : entry.body);
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    /** 담은 응답을 반환한 횟수 */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /** 담은 응답이 없거나 ETag가 바뀌어 다시 만든 횟수 */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    private String key(HttpServletRequest request) {
+        StringBuilder key = new StringBuilder(ServletUriComponentsBuilder.fromContextPath(request).build().toUriString())
+                .append(request.getRequestURI().substring(request.getContextPath().length()))
+                .append('?');
+        new TreeMap<>(request.getParameterMap()).forEach((name, values) -> {
+            for (String value : values) {
+                key.append(UriUtils.encode(name, StandardCharsets.UTF_8)).append('=').append(UriUtils.encode(value, StandardCharsets.UTF_8)).append('&');
+            }
+        });
+        return key.append('\n').append(request.getHeader(HttpHeaders.ACCEPT)).toString();
+    }
+
+    /**
+     * Accept-Encoding에 q=0이 아닌 gzip이 있는지 확인
+     */
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase(GZIP)) {
+                for (int i = 1; i < parts.length; i++) {
+                    if (parts[i].replace(" ", "").matches("q=0(\\.0{0,3})?")) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * "..." 형식의 ETag의 닫는 따옴표 앞에 -gzip을 붙임
+     */
+    private static String gzipEtag(String etag) {
+        return etag.substring(0, etag.length() - 1) + GZIP_ETAG_SUFFIX + "\"";
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream)) {
+            gzipOutputStream.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return outputStream.toByteArray();
+    }
+
+    private static class Entry {
+
+        private final String etag;
+
+        private final byte[] body;
+
+        /** gzip을 받는 요청이 처음 왔을 때 만듦 */
+        private volatile byte[] gzipBody;
+
+        private Entry(String etag, byte[] body) {
+            this.etag = etag;
+            this.body = body;
+        }
+
+        private byte[] gzipBody() {
+            byte[] compressed = gzipBody;
+            if (compressed == null) {
+                compressed = gzip(body);
+                gzipBody = compressed;
+            }
+            return compressed;
+        }
+    }
+}
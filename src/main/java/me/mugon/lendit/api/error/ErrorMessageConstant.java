@@ -13,4 +13,27 @@ public class ErrorMessageConstant {
     public static String SHORTAGEOFGOODS = "재고가 부족합니다.";
     public static String REGISTEREDBYONESELF = "자신이 등록한 상품은 주문할 수 없습니다.";
     public static String INVALIDUSER = "상품을 등록한 사용자가 아닙니다.";
+    public static String INVALIDIDEMPOTENCYKEY = "Idempotency-Key가 유효하지 않습니다.";
+    public static String IDEMPOTENCYKEYREUSED = "같은 Idempotency-Key로 다른 요청을 보낼 수 없습니다.";
+    public static String ORDERQUEUEFULL = "주문이 많아 접수할 수 없습니다. 잠시 후 다시 시도해 주세요.";
+    public static String TICKETNOTFOUND = "접수된 주문을 찾을 수 없습니다.";
+    public static String INVALIDCALLBACKURL = "Callback-Url이 유효하지 않습니다.";
+    public static String INVALIDCURSOR = "주문 목록의 cursor가 유효하지 않습니다.";
+    public static String INVALIDIMPORTLINE = "주문 형식이 유효하지 않습니다.";
+    public static String INVALIDIMPORTHEADER = "CSV의 첫 줄에는 productId, number, total 열이 있어야 합니다.";
+    public static String ORDERFAILED = "주문을 처리하는 도중 오류가 발생했습니다.";
+    public static String ORDERCONFLICT = "다른 주문과 충돌하여 주문을 처리하지 못했습니다. 다시 시도해 주세요.";
+    public static String HOLDNOTFOUND = "보류한 재고를 찾을 수 없습니다.";
+    public static String INVALIDHOLDMINUTES = "재고를 보류할 시간이 유효하지 않습니다.";
+    public static String HOLDUNAVAILABLE = "재고 엔진을 사용하는 동안에는 재고를 보류할 수 없습니다.";
+    public static String TOOMANYHOLDS = "동시에 보류할 수 있는 보류의 개수를 넘었습니다.";
+    public static String TOOMANYHELDITEMS = "보류할 수 있는 상품 수량을 넘었습니다.";
+    public static String NOTORDERADMIN = "모든 주문을 조회할 수 있는 사용자가 아닙니다.";
+    public static String INVALIDPRODUCTCURSOR = "상품 목록의 cursor가 유효하지 않습니다.";
+    public static String INVALIDSEARCHQUERY = "검색어가 유효하지 않습니다.";
+    public static String INVALIDPRICERANGE = "가격 범위가 유효하지 않습니다.";
+    public static String INVALIDPRODUCTSORT = "가격 범위로 조회할 때는 price, createdAt으로만 정렬할 수 있습니다.";
+    public static String INVALIDBULKPRODUCTS = "등록할 상품 목록의 형식이 유효하지 않습니다.";
+    public static String TOOMANYBULKPRODUCTS = "한 번에 등록할 수 있는 상품 수를 넘었습니다.";
+    public static String BULKPRODUCTSFAILED = "상품을 등록하는 도중 오류가 발생하여 나머지 상품을 등록하지 못했습니다.";
 }
@@ -0,0 +1,142 @@
+package me.mugon.lendit.api.hold;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.LongConsumer;
+
+/**
+ * 식별자마다 예약 작업이나 db 조회를 두지 않고 많은 만료 시각을 관리하기 위한 hashed timing wheel
+ *
+ * 동작 방식
+ * 1. 시간을 tickMillis 단위의 tick으로 나누고, wheelSize개의 칸을 원형으로 돌며 tick % wheelSize 칸에 만료될 식별자를 담음
+ *    wheelSize보다 먼 tick은 같은 칸에 담긴 채 바퀴가 돌아올 때마다 남은 tick을 확인함
+ * 2. 칸은 식별자와 만료 tick을 long 배열 두 개에 담아, 식별자 하나에 16 byte 정도만 사용함
+ * 3. add()는 어느 스레드에서나 호출할 수 있으며 대기열에 넣기만 하고, advance()를 호출하는 하나의 스레드가 대기열을 칸으로 옮김
+ *    칸은 advance()를 호출하는 스레드만 다루기 때문에 칸에는 lock이 필요 없음
+ * 4. advance()는 지난 호출 이후 지나간 모든 tick의 칸을 차례로 확인하여 만료된 식별자를 넘겨줌
+ *    호출이 늦어져도 tick을 건너뛰지 않으며, 만료는 최대 tickMillis만큼 늦게 알려짐
+ *
+ * 중간에 취소하는 기능은 없으며, 이미 확정되거나 해제된 식별자도 만료 시각에 넘겨주므로 받는 쪽에서 걸러야 함
+ */
+public class HashedTimingWheel {
+
+    private final long tickMillis;
+
+    private final int mask;
+
+    private final Bucket[] buckets;
+
+    private final long startMillis;
+
+    /** 마지막으로 확인한 tick, advance()를 호출하는 스레드만 씀 */
+    private long processedTick;
+
+    private final Queue<long[]> pendings = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param wheelSize 칸의 개수, 2의 거듭제곱으로 올림
+     */
+    public HashedTimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("tickMillis and wheelSize must be positive");
+        }
+        int size = wheelSize == 1 ? 1 : Integer.highestOneBit(wheelSize - 1) << 1;
+        this.tickMillis = tickMillis;
+        this.mask = size - 1;
+        this.buckets = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new Bucket();
+        }
+        this.startMillis = startMillis;
+        this.processedTick = 0;
+    }
+
+    /**
+     * deadlineMillis에 만료될 식별자를 추가
+     */
+    public void add(long id, long deadlineMillis) {
+        pendings.add(new long[]{id, deadlineMillis});
+    }
+
+    /**
+     * nowMillis까지 지나간 tick의 칸을 확인하여 만료된 식별자를 expired로 넘겨줌
+     * 하나의 스레드에서만 호출해야 함
+     */
+    public void advance(long nowMillis, LongConsumer expired) {
+        long currentTick = (nowMillis - startMillis) / tickMillis;
+        transferPendings();
+        while (processedTick < currentTick) {
+            processedTick++;
+            buckets[(int) (processedTick & mask)].expire(processedTick, expired);
+        }
+    }
+
+    /** 칸에 담긴 식별자의 개수, advance()를 호출하는 스레드에서만 정확함 */
+    public int size() {
+        int size = 0;
+        for (Bucket bucket : buckets) {
+            size += bucket.size;
+        }
+        return size + pendings.size();
+    }
+
+    private void transferPendings() {
+        long[] pending;
+        while ((pending = pendings.poll()) != null) {
+            // 올림하여 만료 시각보다 일찍 알리지 않으며, 이미 지난 tick이면 다음 tick에 알림
+            long deadlineTick = Math.max(ceilDiv(pending[1] - startMillis, tickMillis), processedTick + 1);
+            buckets[(int) (deadlineTick & mask)].add(pending[0], deadlineTick);
+        }
+    }
+
+    private static long ceilDiv(long x, long y) {
+        return -Math.floorDiv(-x, y);
+    }
+
+    /**
+     * 하나의 칸, 식별자와 만료 tick을 같은 위치에 담음
+     */
+    private static class Bucket {
+
+        private static final int INITIAL_CAPACITY = 4;
+
+        private long[] ids = new long[0];
+
+        private long[] deadlineTicks = new long[0];
+
+        private int size;
+
+        private void add(long id, long deadlineTick) {
+            if (size == ids.length) {
+                int capacity = Math.max(INITIAL_CAPACITY, size * 2);
+                ids = Arrays.copyOf(ids, capacity);
+                deadlineTicks = Arrays.copyOf(deadlineTicks, capacity);
+            }
+            ids[size] = id;
+            deadlineTicks[size] = deadlineTick;
+            size++;
+        }
+
+        /**
+         * 만료 tick이 지난 식별자를 넘겨주고, 남은 식별자는 앞으로 당겨 담음
+         */
+        private void expire(long tick, LongConsumer expired) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (deadlineTicks[i] <= tick) {
+                    expired.accept(ids[i]);
+                } else {
+                    ids[kept] = ids[i];
+                    deadlineTicks[kept] = deadlineTicks[i];
+                    kept++;
+                }
+            }
+            size = kept;
+            if (size == 0 && ids.length > INITIAL_CAPACITY) { // 몰렸던 만료가 지나간 칸의 배열을 돌려줌
+                ids = new long[0];
+                deadlineTicks = new long[0];
+            }
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package me.mugon.lendit.api.hold;
+
+import lombok.extern.slf4j.Slf4j;
+import me.mugon.lendit.api.balance.BalanceLedgerService;
+import me.mugon.lendit.api.inventory.InventoryEngine;
+import me.mugon.lendit.api.inventory.StockUpdater;
+import me.mugon.lendit.domain.account.Account;
+import me.mugon.lendit.domain.hold.*;
+import me.mugon.lendit.domain.order.OrdersValidator;
+import me.mugon.lendit.domain.product.Product;
+import me.mugon.lendit.domain.product.ProductForOrder;
+import me.mugon.lendit.domain.product.ProductRepository;
+import me.mugon.lendit.web.OrdersController;
+import me.mugon.lendit.web.dto.hold.StockHoldResponseDto;
+import me.mugon.lendit.web.dto.order.OrdersRequestDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.hateoas.Link;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static me.mugon.lendit.api.error.ErrorMessageConstant.*;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+
+/**
+ * 구매자가 주문을 확정하기 전에 정해진 시간 동안 재고를 보류(StockHold)해 두는 기능
+ *
+ * 동작 방식
+ * 1. 보류하면 주문과 같은 방식(StockUpdater)으로 상품의 재고를 감소시키고 보류를 저장한 뒤, 커밋되면 만료 시각을 타이밍 휠에 추가함
+ * 2. 확정하면(OrderService.confirmHold) 보류를 삭제하고, 재고를 다시 확인하거나 감소시키지 않고 Orders로 바꿈
+ * 3. 해제하면 보류를 삭제하고 감소시킨 재고를 되돌림
+ * 4. lendit.hold.tick 주기로 타이밍 휠을 돌려 만료된 보류의 식별자를 모으고, 식별자로만 보류를 찾아 한 번에 삭제하고 재고를 되돌림
+ *    보류마다 예약 작업을 만들거나 보류 테이블을 주기적으로 훑지 않으며, 보류 하나가 메모리에서 차지하는 크기는 16 byte 정도임
+ *    이미 확정하거나 해제한 보류는 휠에서 따로 지우지 않고, 만료 시각에 db에서 찾지 못하면 넘어감
+ * 5. 애플리케이션이 시작되면 남아 있는 보류를 휠에 다시 추가하며, 그 사이 만료된 보류는 다음 tick에 해제함
+ *
+ * 확정, 해제, 만료는 모두 보류 row에 lock을 잡은 뒤 삭제하므로 하나의 보류는 그중 하나로만 처리됨
+ * 재고 엔진(InventoryEngine)을 사용하는 동안에는 재고가 메모리에 있어 db의 재고를 보류할 수 없으므로 보류를 거절함
+ */
+@Slf4j
+@Service
+public class StockHoldService {
+
+    private static final int EXPIRE_CHUNK_SIZE = 500;
+
+    private final StockHoldRepository stockHoldRepository;
+
+    private final StockHoldBatchRepository stockHoldBatchRepository;
+
+    private final ProductRepository productRepository;
+
+    private final OrdersValidator ordersValidator;
+
+    private final StockUpdater stockUpdater;
+
+    private final InventoryEngine inventoryEngine;
+
+    private final BalanceLedgerService balanceLedgerService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int maxMinutes;
+
+    private final int maxActivePerAccount;
+
+    private final long maxQuantityPerAccount;
+
+    private final HashedTimingWheel timingWheel;
+
+    public StockHoldService(StockHoldRepository stockHoldRepository, StockHoldBatchRepository stockHoldBatchRepository,
+                            ProductRepository productRepository, OrdersValidator ordersValidator, StockUpdater stockUpdater,
+                            InventoryEngine inventoryEngine, BalanceLedgerService balanceLedgerService, TransactionTemplate transactionTemplate,
+                            @Value("${lendit.hold.max-minutes:60}") int maxMinutes,
+                            @Value("${lendit.hold.max-active-per-account:5}") int maxActivePerAccount,
+                            @Value("${lendit.hold.max-quantity-per-account:100}") long maxQuantityPerAccount,
+                            @Value("${lendit.hold.tick:1000}") long tick,
+                            @Value("${lendit.hold.wheel-size:512}") int wheelSize) {
+        this.stockHoldRepository = stockHoldRepository;
+        this.stockHoldBatchRepository = stockHoldBatchRepository;
+        this.productRepository = productRepository;
+        this.ordersValidator = ordersValidator;
+        this.stockUpdater = stockUpdater;
+        this.inventoryEngine = inventoryEngine;
+        this.balanceLedgerService = balanceLedgerService;
+        this.transactionTemplate = transactionTemplate;
+        this.maxMinutes = maxMinutes;
+        this.maxActivePerAccount = maxActivePerAccount;
+        this.maxQuantityPerAccount = maxQuantityPerAccount;
+        this.timingWheel = new HashedTimingWheel(tick, wheelSize, System.currentTimeMillis());
+    }
+
+    /**
+     * 재고 보류
+     * 1. 보류 시간이 1 ~ lendit.hold.max-minutes분이 아니면 Body에 'message: 재고를 보류할 시간이 유효하지 않습니다.'를 실어 Bad Request와 함께 반환
+     * 2. 재고 엔진이 켜져 있으면 Body에 'message: 재고 엔진을 사용하는 동안에는 재고를 보류할 수 없습니다.'를 실어 Bad Request와 함께 반환
+     * 3. 입력받은 List에서 같은 상품을 보류한 항목을 하나로 합치고, 상품 id들로 db를 한 번에 검색
+     * 4. 저장되어 있지 않은 상품인 경우 Body에 'message: 상품을 찾을 수 없습니다.'를 실어 Bad Request와 함께 반환
+     * 5. 재고가 부족하면 Body에 'message: 재고가 부족합니다.'를, 자신이 등록한 상품이면 'message: 자신이 등록한 상품은 주문할 수 없습니다.'를 실어 Bad Request와 함께 반환
+     * 6. 같은 유저의 보류가 동시에 확인하지 않도록 유저 row에 lock을 잡고, 만료되지 않은 보류를 더해
+     *    보류의 개수가 lendit.hold.max-active-per-account를 넘으면 Body에 'message: 동시에 보류할 수 있는 보류의 개수를 넘었습니다.'를,
+     *    보류한 수량의 합이 lendit.hold.max-quantity-per-account를 넘으면 'message: 보류할 수 있는 상품 수량을 넘었습니다.'를 실어 Bad Request와 함께 반환
+     * 7. 현재 예치금이 만료되지 않은 보류와 이 보류를 확정할 때 사용할 금액의 합보다 적으면 Body에 'message: 예치금이 부족합니다.'를 실어 Bad Request와 함께 반환
+     * 8. 주문과 같은 방식으로 상품의 재고를 감소시키고, 동시 주문으로 재고가 부족해진 경우 Body에 'message: 재고가 부족합니다.'를 실어 Bad Request와 함께 반환
+     * 9. 보류를 저장하고, 커밋되면 만료 시각을 타이밍 휠에 추가
+     * 10. HATEOAS를 위해 self, confirm, release 관계를 더하고, Self Descriptive Message를 위해 API Guide의 주소를 profile 관계로 명시하여 더함
+     * 11. 반환
+     * 예치금은 확정할 때 사용하지만, 확정할 수 없는 보류로 재고를 잡아 두지 못하도록 보류할 때 보류한 금액의 합을 예치금으로 감당할 수 있는지 확인함
+     * 확정하기 전에 다른 주문으로 예치금을 사용하면 확정할 때 예치금이 부족하여 거절될 수 있음
+     */
+    public ResponseEntity<?> hold(List<OrdersRequestDto> ordersRequestDtos, int minutes, Account currentUser) {
+        if (minutes < 1 || minutes > maxMinutes) {
+            return new ResponseEntity<>(ordersValidator.returnErrorMessage(INVALIDHOLDMINUTES), HttpStatus.BAD_REQUEST);
+        }
+        if (inventoryEngine.isEnabled()) {
+            return new ResponseEntity<>(ordersValidator.returnErrorMessage(HOLDUNAVAILABLE), HttpStatus.BAD_REQUEST);
+        }
+        Map<Long, OrdersRequestDto> mergedMap = new LinkedHashMap<>();
+        ordersRequestDtos.forEach(e -> mergedMap.merge(e.getProductId(), e, OrdersRequestDto::merge));
+
+        long number = mergedMap.values().stream().mapToLong(OrdersRequestDto::getNumber).sum();
+        long total = mergedMap.values().stream().mapToLong(OrdersRequestDto::getTotal).sum();
+
+        return transactionTemplate.execute(status -> {
+            Map<Long, Product> productMap = productRepository.findForOrderByIdIn(mergedMap.keySet())
+                    .stream()
+                    .map(ProductForOrder::toProduct)
+                    .collect(Collectors.toMap(Product::getId, Function.identity()));
+            for (OrdersRequestDto ordersRequestDto : mergedMap.values()) {
+                Product savedProduct = productMap.get(ordersRequestDto.getProductId());
+                if (savedProduct == null) {
+                    return reject(status, PRODUCTNOTFOUND);
+                }
+                if (savedProduct.amountEqualsZero() || ordersRequestDto.verifyAmount(savedProduct)) {
+                    return reject(status, SHORTAGEOFGOODS);
+                }
+                if (ordersValidator.isValidUser(currentUser, savedProduct)) {
+                    return reject(status, REGISTEREDBYONESELF);
+                }
+            }
+
+            stockHoldBatchRepository.lockAccount(currentUser.getId());
+            long[] active = stockHoldBatchRepository.sumActiveByAccountId(currentUser.getId(), LocalDateTime.now());
+            if (active[0] + 1 > maxActivePerAccount) {
+                return reject(status, TOOMANYHOLDS);
+            }
+            if (active[1] + number > maxQuantityPerAccount) {
+                return reject(status, TOOMANYHELDITEMS);
+            }
+            if (balanceLedgerService.getBalance(currentUser.getId(), currentUser.getOpeningBalance()) < active[2] + total) {
+                return reject(status, OVERTHELIMIT);
+            }
+
+            StockUpdater.Result result = stockUpdater.decrease(mergedMap.values().stream()
+                    .collect(Collectors.toMap(OrdersRequestDto::getProductId, OrdersRequestDto::getNumber)));
+            if (result == StockUpdater.Result.SHORTAGE) {
+                return reject(status, SHORTAGEOFGOODS);
+            }
+            if (result == StockUpdater.Result.CONFLICT) {
+                return reject(status, ORDERCONFLICT);
+            }
+
+            LocalDateTime now = LocalDateTime.now();
+            StockHold stockHold = stockHoldRepository.save(StockHold.builder()
+                    .accountId(currentUser.getId())
+                    .items(mergedMap.values().stream()
+                            .map(e -> new StockHoldItem(e.getProductId(), e.getNumber(), e.getTotal()))
+                            .collect(Collectors.toList()))
+                    .expiresAt(now.plusMinutes(minutes))
+                    .createdAt(now)
+                    .build());
+            schedule(stockHold);
+
+            StockHoldResource stockHoldResource = heldResource(stockHold);
+            stockHoldResource.add(new Link("https://mkshin96.github.io/Coding-Task/#resources-holds-create").withRel("profile"));
+            return new ResponseEntity<>(stockHoldResource, HttpStatus.CREATED);
+        });
+    }
+
+    /**
+     * 보류 조회
+     * 보류가 없거나, 이미 확정 또는 해제되었거나, 다른 유저의 보류인 경우 Body에 'message: 보류한 재고를 찾을 수 없습니다.'를 실어 Bad Request와 함께 반환
+     * 만료 시각이 지났지만 아직 해제되지 않은 보류는 confirm, release 관계 없이 반환
+     */
+    public ResponseEntity<?> getHold(Long holdId, Account currentUser) {
+        Optional<StockHold> optionalHold = stockHoldRepository.findById(holdId)
+                .filter(e -> e.getAccountId().equals(currentUser.getId()));
+        if (!optionalHold.isPresent()) {
+            return new ResponseEntity<>(ordersValidator.returnErrorMessage(HOLDNOTFOUND), HttpStatus.BAD_REQUEST);
+        }
+        StockHold stockHold = optionalHold.get();
+        StockHoldResource stockHoldResource = stockHold.isExpired()
+                ? new StockHoldResource(new StockHoldResponseDto(stockHold))
+                : heldResource(stockHold);
+        stockHoldResource.add(new Link("https://mkshin96.github.io/Coding-Task/#resources-holds-get").withRel("profile"));
+        return ResponseEntity.ok(stockHoldResource);
+    }
+
+    /**
+     * 보류 해제
+     * 1. 보류에 lock을 잡고 조회하여, 없거나 만료되었거나 다른 유저의 보류인 경우 Body에 'message: 보류한 재고를 찾을 수 없습니다.'를 실어 Bad Request와 함께 반환
+     * 2. 보류를 삭제하고 감소시킨 재고를 되돌림
+     * 3. 해제한 보류를 반환
+     */
+    public ResponseEntity<?> release(Long holdId, Account currentUser) {
+        return transactionTemplate.execute(status -> {
+            Optional<StockHold> optionalHold = claim(holdId, currentUser);
+            if (!optionalHold.isPresent()) {
+                return reject(status, HOLDNOTFOUND);
+            }
+            StockHold stockHold = optionalHold.get();
+            stockUpdater.increase(stockHold.getItems().stream()
+                    .collect(Collectors.toMap(StockHoldItem::getProductId, StockHoldItem::getNumber)));
+            StockHoldResource stockHoldResource = new StockHoldResource(new StockHoldResponseDto(stockHold));
+            stockHoldResource.add(new Link("https://mkshin96.github.io/Coding-Task/#resources-holds-release").withRel("profile"));
+            return ResponseEntity.ok(stockHoldResource);
+        });
+    }
+
+    /**
+     * 확정하거나 해제하기 위해 보류에 lock을 잡고 삭제한 뒤 반환
+     * 없거나 만료되었거나 다른 유저의 보류인 경우 Optional.empty()를 반환하며, 트랜잭션 안에서 호출해야 함
+     */
+    public Optional<StockHold> claim(Long holdId, Account currentUser) {
+        Optional<StockHold> optionalHold = stockHoldRepository.findByIdForUpdate(holdId)
+                .filter(e -> e.getAccountId().equals(currentUser.getId()))
+                .filter(e -> !e.isExpired());
+        optionalHold.ifPresent(e -> {
+            e.getItems().size(); // 삭제하기 전에 보류한 항목을 읽어 둠
+            stockHoldRepository.delete(e);
+            stockHoldRepository.flush(); // 이후 재고를 바꾸는 UPDATE가 영속성 컨텍스트를 비워도 삭제가 남도록 바로 반영
+        });
+        return optionalHold;
+    }
+
+    /**
+     * 애플리케이션이 시작되면 남아 있는 보류의 만료 시각을 타이밍 휠에 다시 추가
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        stockHoldBatchRepository.forEachExpiresAt((holdId, expiresAt) -> timingWheel.add(holdId, toMillis(expiresAt)));
+    }
+
+    /**
+     * 타이밍 휠을 돌려 만료된 보류를 해제
+     */
+    @Scheduled(fixedDelayString = "${lendit.hold.tick:1000}")
+    public void expire() {
+        expire(System.currentTimeMillis());
+    }
+
+    /**
+     * nowMillis까지 만료된 보류를 EXPIRE_CHUNK_SIZE개씩 트랜잭션마다 해제하고, 해제한 보류의 개수를 반환
+     * 해제에 실패한 보류는 다음 tick에 다시 해제하기 위해 휠에 다시 추가함
+     */
+    public synchronized int expire(long nowMillis) {
+        List<Long> expiredIds = new ArrayList<>();
+        timingWheel.advance(nowMillis, expiredIds::add);
+        LocalDateTime now = LocalDateTime.ofInstant(Instant.ofEpochMilli(nowMillis), ZoneId.systemDefault());
+        int released = 0;
+        for (int from = 0; from < expiredIds.size(); from += EXPIRE_CHUNK_SIZE) {
+            List<Long> chunk = expiredIds.subList(from, Math.min(from + EXPIRE_CHUNK_SIZE, expiredIds.size()));
+            try {
+                released += transactionTemplate.execute(status -> {
+                    Map<Long, Long> numbers = new TreeMap<>();
+                    int count = stockHoldBatchRepository.deleteExpired(chunk, now, numbers);
+                    stockUpdater.increase(numbers);
+                    return count;
+                });
+            } catch (RuntimeException e) {
+                log.warn("failed to release {} expired stock holds, retry on next tick", chunk.size(), e);
+                chunk.forEach(holdId -> timingWheel.add(holdId, nowMillis));
+            }
+        }
+        return released;
+    }
+
+    private void schedule(StockHold stockHold) {
+        long holdId = stockHold.getId();
+        long deadline = toMillis(stockHold.getExpiresAt());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                timingWheel.add(holdId, deadline);
+            }
+        });
+    }
+
+    private StockHoldResource heldResource(StockHold stockHold) {
+        StockHoldResource stockHoldResource = new StockHoldResource(new StockHoldResponseDto(stockHold));
+        stockHoldResource.add(linkTo(OrdersController.class).slash("holds").slash(stockHold.getId()).slash("confirm").withRel("confirm"));
+        stockHoldResource.add(linkTo(OrdersController.class).slash("holds").slash(stockHold.getId()).withRel("release"));
+        return stockHoldResource;
+    }
+
+    private ResponseEntity<?> reject(TransactionStatus status, String message) {
+        status.setRollbackOnly();
+        return new ResponseEntity<>(ordersValidator.returnErrorMessage(message), HttpStatus.BAD_REQUEST);
+    }
+
+    private long toMillis(LocalDateTime localDateTime) {
+        return localDateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
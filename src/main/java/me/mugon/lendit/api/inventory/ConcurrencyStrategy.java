@@ -0,0 +1,20 @@
+package me.mugon.lendit.api.inventory;
+
+/**
+ * 주문 시 db의 재고를 감소시키는 방식 (lendit.order.concurrency)
+ * 재고 엔진이나 그룹 커밋으로 재고를 미리 예약한 주문에는 사용하지 않음
+ */
+public enum ConcurrencyStrategy {
+
+    /** 재고가 주문 수량 이상인 경우에만 감소시키는 조건부 UPDATE (기본값) */
+    CONDITIONAL,
+
+    /** 재고와 버전을 읽고, 버전이 그대로인 경우에만 감소시키며 충돌하면 정해진 횟수만큼 다시 시도 */
+    OPTIMISTIC,
+
+    /** 상품 식별자 순서로 SELECT ... FOR UPDATE로 잠근 뒤 재고를 확인하고 감소시킴 */
+    PESSIMISTIC,
+
+    /** 잠금 없이 재고를 읽고 계산한 값을 그대로 씀, 동시 주문 시 감소가 유실되므로 비교를 위해서만 사용 */
+    UNSAFE
+}
@@ -0,0 +1,265 @@
+package me.mugon.lendit.api.inventory;
+
+import lombok.extern.slf4j.Slf4j;
+import me.mugon.lendit.api.cache.ProductCatalogVersion;
+import me.mugon.lendit.api.cache.ProductDetailCache;
+import me.mugon.lendit.domain.product.ProductAmount;
+import me.mugon.lendit.domain.product.ProductBatchRepository;
+import me.mugon.lendit.domain.product.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 한정 수량 판매처럼 하나의 상품에 주문이 몰릴 때 상품 row가 병목이 되지 않도록 재고를 메모리에서 관리하는 엔진
+ * lendit.inventory.enabled가 true인 경우에만 동작하며, false인 경우 주문은 기존처럼 db의 조건부 UPDATE로 재고를 감소시킴
+ *
+ * 동작 방식
+ * 1. 주문 트랜잭션이 시작되기 전에 상품별 재고(StripedStock)를 CAS로 감소시켜 재고를 예약함
+ *    재고는 lendit.inventory.stripes개의 칸에 나누어 담고 스레드마다 다른 칸을 감소시키며, 자신의 칸이 부족할 때만 lock을 잡고 다른 칸에서 빌려옴
+ * 2. 주문 트랜잭션이 커밋되면 예약을 확정하고, 확정된 수량을 상품별 LongAdder(striped counter)에 누적함
+ * 3. 주문이 실패하면 예약한 수량을 메모리 재고에 되돌림
+ * 4. 누적된 확정 수량은 lendit.inventory.flush-interval 주기로 product 테이블에 JDBC batch로 반영하고, 반영한 상품을 개별 상품 조회 캐시에서 지움 (write-behind)
+ * 5. 애플리케이션이 시작되면 ProductRepository에서 모든 상품의 재고를 다시 읽어옴
+ *
+ * 일관성 규칙
+ * - 엔진이 켜져 있는 동안 주문 가능 여부는 메모리 재고가 결정하며, 메모리 재고는 음수가 되지 않으므로 재고보다 많이 팔리지 않음
+ * - db의 product.amount는 (메모리 재고 + 예약 중인 수량 + 아직 반영되지 않은 확정 수량)과 같고, 최대 flush 주기만큼 늦게 반영됨
+ * - 종료 시 남은 확정 수량을 반영하지만, 비정상 종료 시 반영되지 않은 확정 수량은 유실되어 재시작 후 그만큼 재고가 많게 읽힘
+ * - 상품 수정으로 재고를 직접 지정하면 그 값이 새로운 재고가 되며, 해당 상품의 반영되지 않은 확정 수량과 수정 이전에 예약하고 이후에 확정된 수량은 버림
+ *   재고의 교체와 반영되지 않은 수량을 버리는 것은 flush와 같은 상품별 lock(guard) 안에서 하며, 교체할 재고는 db에서 다시 읽음
+ *   수정이 커밋된 뒤 flush가 수정 이전의 확정 수량을 db에 반영했더라도 메모리 재고와 db의 재고가 같아짐
+ * - 재고를 메모리에 두기 때문에 하나의 인스턴스에서만 사용해야 함, 여러 인스턴스로 운영하는 경우 엔진을 끄고 db 경로를 사용
+ */
+@Slf4j
+@Component
+public class InventoryEngine {
+
+    private final ProductRepository productRepository;
+
+    private final ProductBatchRepository productBatchRepository;
+
+    private final ProductDetailCache productDetailCache;
+
+    private final ProductCatalogVersion productCatalogVersion;
+
+    private final boolean enabled;
+
+    /** 상품별 재고를 나누어 담을 칸의 개수, 2의 거듭제곱 */
+    private final int stripes;
+
+    /** 상품별 주문 가능한 재고와 커밋되었지만 아직 db에 반영되지 않은 수량 */
+    private final Map<Long, StripedStock> stocks = new ConcurrentHashMap<>();
+
+    public InventoryEngine(ProductRepository productRepository, ProductBatchRepository productBatchRepository, ProductDetailCache productDetailCache,
+                           ProductCatalogVersion productCatalogVersion, @Value("${lendit.inventory.enabled:false}") boolean enabled,
+                           @Value("${lendit.inventory.stripes:8}") int stripes) {
+        this.productRepository = productRepository;
+        this.productBatchRepository = productBatchRepository;
+        this.productDetailCache = productDetailCache;
+        this.productCatalogVersion = productCatalogVersion;
+        this.enabled = enabled;
+        this.stripes = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 애플리케이션이 시작되면 db의 재고를 메모리로 불러옴
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        if (!enabled) {
+            return;
+        }
+        stocks.clear();
+        for (ProductAmount productAmount : productRepository.findAllAmounts()) {
+            stocks.put(productAmount.getId(), new StripedStock(productAmount.getAmount(), stripes));
+        }
+        log.info("inventory engine loaded {} products", stocks.size());
+    }
+
+    /**
+     * 상품별 주문 수량만큼 재고를 예약
+     * 하나라도 재고가 부족하면 앞서 예약한 수량을 되돌리고 Optional.empty()를 반환
+     * db에도 없는 상품은 예약하지 않고 넘어가며, 주문 트랜잭션에서 '상품을 찾을 수 없습니다.'로 처리됨
+     */
+    public Optional<Reservation> reserve(Map<Long, Long> numbers) {
+        Map<StripedStock, Long> reserved = new LinkedHashMap<>();
+        for (Map.Entry<Long, Long> entry : numbers.entrySet()) {
+            StripedStock stock = findStock(entry.getKey());
+            if (stock == null) {
+                continue;
+            }
+            if (!stock.tryDecrease(entry.getValue())) {
+                reserved.forEach(StripedStock::increase);
+                return Optional.empty();
+            }
+            reserved.put(stock, entry.getValue());
+        }
+        return Optional.of(new Reservation(reserved));
+    }
+
+    /**
+     * 상품이 등록되거나 수정되면 트랜잭션 커밋 이후 재고를 추가하거나 교체
+     * 이미 재고가 있는 상품(수정)은 flush와 같은 guard 안에서 기존 재고를 교체된 것으로 표시하여 반영되지 않은 수량을 버리고,
+     * 그 사이 flush가 db에 반영했을 수 있으므로 db에서 다시 읽은 재고로 교체함
+     */
+    public void register(Long productId, Long amount) {
+        afterCommit(() -> {
+            StripedStock previous = stocks.putIfAbsent(productId, new StripedStock(amount, stripes));
+            if (previous != null) {
+                replace(productId, previous);
+            }
+        });
+    }
+
+    /**
+     * 상품이 삭제되면 트랜잭션 커밋 이후 flush와 같은 guard 안에서 재고를 제거
+     */
+    public void remove(Long productId) {
+        afterCommit(() -> {
+            StripedStock previous = stocks.get(productId);
+            if (previous == null) {
+                return;
+            }
+            previous.getGuard().lock();
+            try {
+                previous.replace();
+                stocks.remove(productId, previous);
+            } finally {
+                previous.getGuard().unlock();
+            }
+        });
+    }
+
+    /**
+     * 커밋된 주문 수량을 product 테이블에 반영
+     * 반영할 상품마다 guard를 잡고 수량을 가져온 뒤 db에 반영할 때까지 놓지 않으므로, 그동안 상품 수정, 삭제로 재고가 교체되지 않음
+     * 반영에 실패한 수량은 다음 주기에 다시 반영하기 위해 되돌려 놓음
+     * 여러 스레드가 동시에 호출해도 guard를 잡는 순서가 엇갈리지 않도록 synchronized로 한 번에 하나씩 실행함
+     */
+    @Scheduled(fixedDelayString = "${lendit.inventory.flush-interval:100}")
+    public synchronized void flush() {
+        if (!enabled) {
+            return;
+        }
+        Map<Long, Long> numbers = new HashMap<>();
+        Map<Long, StripedStock> locked = new HashMap<>();
+        try {
+            stocks.forEach((productId, stock) -> {
+                if (!stock.hasPending()) {
+                    return;
+                }
+                stock.getGuard().lock();
+                locked.put(productId, stock);
+                long number = stock.drain();
+                if (number > 0) {
+                    numbers.put(productId, number);
+                }
+            });
+            if (numbers.isEmpty()) {
+                return;
+            }
+            try {
+                productBatchRepository.decreaseAmounts(numbers);
+                productDetailCache.evictAll(numbers.keySet());
+                productCatalogVersion.increment();
+            } catch (RuntimeException e) {
+                log.warn("inventory flush failed, retry {} products on next flush", numbers.size(), e);
+                numbers.forEach((productId, number) -> locked.get(productId).addPending(number));
+            }
+        } finally {
+            locked.values().forEach(stock -> stock.getGuard().unlock());
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+
+    public Long getStock(Long productId) {
+        StripedStock stock = stocks.get(productId);
+        return stock == null ? null : stock.sum();
+    }
+
+    private StripedStock findStock(Long productId) {
+        StripedStock stock = stocks.get(productId);
+        if (stock != null) {
+            return stock;
+        }
+        // 엔진이 모르는 상품(예: 다른 경로로 등록된 상품)은 db에서 재고만 읽어와 등록
+        return productRepository.findAmountById(productId)
+                .map(e -> stocks.computeIfAbsent(e.getId(), id -> new StripedStock(e.getAmount(), stripes)))
+                .orElse(null);
+    }
+
+    /**
+     * guard 안에서 기존 재고를 교체된 것으로 표시하고 db에서 다시 읽은 재고로 교체
+     * guard를 잡은 동안에는 flush가 이 상품의 수량을 가져가거나 db에 반영하지 않으므로, 읽은 재고에는 이미 반영한 수량만 빠져 있음
+     */
+    private void replace(Long productId, StripedStock previous) {
+        previous.getGuard().lock();
+        try {
+            previous.replace();
+            Optional<ProductAmount> productAmount = productRepository.findAmountById(productId);
+            if (productAmount.isPresent()) {
+                stocks.replace(productId, previous, new StripedStock(productAmount.get().getAmount(), stripes));
+            } else {
+                stocks.remove(productId, previous);
+            }
+        } finally {
+            previous.getGuard().unlock();
+        }
+    }
+
+    private void afterCommit(Runnable runnable) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            runnable.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                runnable.run();
+            }
+        });
+    }
+
+    /**
+     * 주문 하나가 메모리 재고에서 예약한 수량
+     */
+    public static class Reservation implements StockReservation {
+
+        /** 예약한 상품별 재고와 수량, 예약한 뒤 상품이 수정되어 재고가 교체되면 교체된 재고에 확정하거나 되돌리므로 반영되지 않음 */
+        private final Map<StripedStock, Long> numbers;
+
+        private Reservation(Map<StripedStock, Long> numbers) {
+            this.numbers = numbers;
+        }
+
+        @Override
+        public void commit() {
+            numbers.forEach(StripedStock::addPending);
+        }
+
+        @Override
+        public void release() {
+            numbers.forEach(StripedStock::increase);
+        }
+    }
+}
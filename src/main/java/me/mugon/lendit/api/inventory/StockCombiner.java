@@ -0,0 +1,317 @@
+package me.mugon.lendit.api.inventory;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import me.mugon.lendit.api.cache.ProductCatalogVersion;
+import me.mugon.lendit.api.cache.ProductDetailCache;
+import me.mugon.lendit.domain.product.ProductAmount;
+import me.mugon.lendit.domain.product.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 하나의 상품에 주문이 몰릴 때 주문마다 상품 row에 UPDATE를 실행하여 lock을 기다리는 대신,
+ * 짧은 시간(lendit.inventory.group-commit.window) 동안 들어온 같은 상품의 재고 감소 요청을 모아 한 번의 UPDATE로 처리하는 그룹 커밋
+ * lendit.inventory.group-commit.enabled가 true이고 재고 엔진(InventoryEngine)이 꺼져 있는 경우에만 사용함
+ *
+ * 동작 방식
+ * 1. 주문 트랜잭션이 시작되기 전에 상품별 대기열에 재고 감소 요청을 넣음
+ * 2. 기다리는 요청 중 하나가 대표가 되어 window 동안 요청을 더 모은 뒤 대기열을 비우고, 나머지 요청은 결과를 기다림
+ *    대표는 상품별로 동시에 하나만 존재하며, 처리 도중 들어온 요청은 아직 결과를 받지 못한 요청 중 하나가 다음 대표가 됨
+ *    별도의 스레드 대신 요청 스레드가 처리하기 때문에, 요청 스레드가 가진 db connection으로 처리하여 connection pool을 기다리며 서로 막히지 않음
+ * 3. 대표는 현재 재고를 읽고 도착한 순서대로 재고가 허락하는 요청까지 받아들인 뒤, 받아들인 수량의 합을 조건부 UPDATE 한 번으로 감소시킴
+ * 4. 그 사이 다른 경로(상품 수정, 재고 보류 등)로 재고가 바뀌어 UPDATE가 실패하면 재고를 다시 읽어 재시도하고,
+ *    MAX_RETRY번 모두 실패하면 재고가 부족한 것이 아니므로 충돌(CONFLICT)로 돌려줌
+ * 5. 요청마다 성공 여부를 돌려주고, 성공한 요청은 주문 트랜잭션에서 재고를 감소시키지 않음
+ * 6. 주문이 실패하면 예약한 수량을 UPDATE로 되돌림
+ * 7. 대표가 처리를 마쳤을 때 대기열이 비어 있고 다른 대표가 없으면 상품의 대기열을 지움, 대기열에 요청을 넣는 것과 지우는 것은 같은 key의 compute 안에서 함
+ *
+ * 일관성 규칙
+ * - 재고는 주문 트랜잭션과 별도의 트랜잭션에서 먼저 감소하므로, 주문이 실패하여 되돌리기 전까지 잠시 재고가 적게 보일 수 있음
+ * - 재고를 감소시킨 UPDATE가 커밋된 뒤 주문 트랜잭션이 커밋되기 전에 프로세스가 비정상 종료되면 주문은 저장되지 않고 감소시킨 재고도 되돌리지 않으므로,
+ *   그 수량만큼 재고가 적게 남음 (팔리지 않은 재고가 사라질 뿐 재고보다 많이 팔리지는 않음)
+ *   예약을 따로 기록하지 않기 때문에 재시작할 때 자동으로 되돌리지 않으며, 비정상 종료 뒤에는 주문 수량의 합과 재고를 비교하여 상품 수정으로 재고를 바로잡아야 함
+ * - db에 바로 반영하기 때문에 재고 엔진과 달리 여러 인스턴스에서 함께 사용할 수 있음
+ */
+@Slf4j
+@Component
+public class StockCombiner {
+
+    private static final int MAX_RETRY = 3;
+
+    private final ProductRepository productRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ProductDetailCache productDetailCache;
+
+    private final ProductCatalogVersion productCatalogVersion;
+
+    private final boolean enabled;
+
+    private final long window;
+
+    /** 상품별 재고 감소 요청 대기열 */
+    private final Map<Long, Group> groups = new ConcurrentHashMap<>();
+
+    public StockCombiner(ProductRepository productRepository, TransactionTemplate transactionTemplate, ProductDetailCache productDetailCache,
+                         ProductCatalogVersion productCatalogVersion, @Value("${lendit.inventory.group-commit.enabled:false}") boolean enabled,
+                         @Value("${lendit.inventory.group-commit.window:2}") long window) {
+        this.productRepository = productRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.productDetailCache = productDetailCache;
+        this.productCatalogVersion = productCatalogVersion;
+        this.enabled = enabled;
+        this.window = window;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 상품별 주문 수량만큼 재고를 감소시키고 결과를 기다림
+     * 하나라도 재고가 부족하거나 충돌하면 앞서 감소시킨 수량을 되돌리고 실패한 이유를 반환, 둘 다 있으면 재고 부족을 반환
+     * db에 없는 상품은 감소시키지 않고 넘어가며, 주문 트랜잭션에서 '상품을 찾을 수 없습니다.'로 처리됨
+     */
+    public ReserveResult reserve(Map<Long, Long> numbers) {
+        Map<Long, Request> requests = new LinkedHashMap<>();
+        numbers.forEach((productId, number) -> requests.put(productId, submit(productId, number)));
+
+        Map<Long, Long> reserved = new LinkedHashMap<>();
+        StockUpdater.Result failure = null;
+        RuntimeException exception = null;
+        for (Map.Entry<Long, Request> entry : requests.entrySet()) {
+            try {
+                Result result = await(entry.getValue());
+                if (result == Result.RESERVED) {
+                    reserved.put(entry.getKey(), numbers.get(entry.getKey()));
+                } else if (result == Result.SHORTAGE) {
+                    failure = StockUpdater.Result.SHORTAGE;
+                } else if (result == Result.CONFLICT && failure == null) {
+                    failure = StockUpdater.Result.CONFLICT;
+                }
+            } catch (RuntimeException e) {
+                exception = e;
+            }
+        }
+
+        GroupReservation reservation = new GroupReservation(reserved);
+        if (exception != null) {
+            reservation.release();
+            throw exception;
+        }
+        if (failure != null) {
+            reservation.release();
+            return new ReserveResult(null, failure);
+        }
+        return new ReserveResult(reservation, null);
+    }
+
+    /**
+     * 상품의 대기열에 요청을 넣음, 대기열이 없으면 만듦
+     * 대표가 대기열을 지우는 것(removeIfIdle)과 같은 key의 compute 안에서 넣으므로, 지워진 대기열에 요청이 남지 않음
+     */
+    private Request submit(Long productId, Long number) {
+        Request request = new Request(number);
+        groups.compute(productId, (id, group) -> {
+            Group target = group == null ? new Group(id) : group;
+            target.requests.add(request);
+            request.group = target;
+            return target;
+        });
+        return request;
+    }
+
+    /**
+     * 결과가 나올 때까지 기다리며, 처리 중인 대표가 없으면 직접 대표가 되어 대기열을 처리함
+     */
+    private Result await(Request request) {
+        Group group = request.group;
+        try {
+            while (!request.future.isDone()) {
+                if (group.leading.compareAndSet(false, true)) {
+                    try {
+                        if (!request.future.isDone()) {
+                            Thread.sleep(window); // 같은 상품의 요청이 더 모이기를 기다림
+                            flush(group);
+                        }
+                    } finally {
+                        group.leading.set(false);
+                    }
+                    removeIfIdle(group);
+                } else {
+                    try {
+                        request.future.get(window, TimeUnit.MILLISECONDS);
+                    } catch (TimeoutException e) {
+                        // 대표가 처리하는 동안 들어온 요청이면 다음 대표가 될 수 있는지 다시 확인
+                    }
+                }
+            }
+            return request.future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * 대기열이 비어 있고 처리 중인 대표가 없으면 상품의 대기열을 지움
+     * 요청이 끝난 상품의 대기열이 groups에 계속 남지 않도록 대표가 처리를 마칠 때마다 확인함
+     */
+    private void removeIfIdle(Group group) {
+        groups.computeIfPresent(group.productId, (id, current) ->
+                current == group && current.requests.isEmpty() && !current.leading.get() ? null : current);
+    }
+
+    /**
+     * 대기열이 남아 있는 상품의 수
+     */
+    public int getGroupCount() {
+        return groups.size();
+    }
+
+    /**
+     * 대기열에 모인 요청을 처리
+     */
+    private void flush(Group group) {
+        List<Request> requests = new ArrayList<>();
+        Request request;
+        while ((request = group.requests.poll()) != null) {
+            requests.add(request);
+        }
+        if (requests.isEmpty()) {
+            return;
+        }
+        try {
+            decrease(group.productId, requests);
+        } catch (RuntimeException exception) {
+            log.warn("group commit for product {} failed", group.productId, exception);
+            requests.forEach(e -> e.future.completeExceptionally(exception));
+        }
+    }
+
+    private void decrease(Long productId, List<Request> requests) {
+        for (int retry = 0; retry < MAX_RETRY; retry++) {
+            Optional<ProductAmount> optionalAmount = productRepository.findAmountById(productId);
+            if (!optionalAmount.isPresent()) {
+                requests.forEach(e -> e.future.complete(Result.UNKNOWN));
+                return;
+            }
+            long stock = optionalAmount.get().getAmount();
+            long sum = 0;
+            List<Request> accepted = new ArrayList<>();
+            List<Request> rejected = new ArrayList<>();
+            for (Request request : requests) { // 도착한 순서대로 재고가 허락하는 요청까지 받아들임
+                if (sum + request.number <= stock) {
+                    sum += request.number;
+                    accepted.add(request);
+                } else {
+                    rejected.add(request);
+                }
+            }
+            long total = sum;
+            Integer updated = total == 0 ? 1 : transactionTemplate.execute(status -> {
+                productDetailCache.evict(productId);
+                productCatalogVersion.increment();
+                return productRepository.decreaseAmount(productId, total);
+            });
+            if (updated != null && updated > 0) {
+                accepted.forEach(e -> e.future.complete(Result.RESERVED));
+                rejected.forEach(e -> e.future.complete(Result.SHORTAGE));
+                return;
+            }
+        }
+        // 읽은 재고로는 받아들일 수 있었지만 UPDATE 전에 다른 경로가 재고를 계속 바꾼 경우
+        log.info("group commit for product {} conflicted {} times, reject {} requests", productId, MAX_RETRY, requests.size());
+        requests.forEach(e -> e.future.complete(Result.CONFLICT));
+    }
+
+    /**
+     * reserve()의 결과, 예약하면 reservation이 있고 실패하면 실패한 이유(SHORTAGE, CONFLICT)가 있음
+     */
+    @Getter
+    public static class ReserveResult {
+
+        private final StockReservation reservation;
+
+        private final StockUpdater.Result failure;
+
+        private ReserveResult(StockReservation reservation, StockUpdater.Result failure) {
+            this.reservation = reservation;
+            this.failure = failure;
+        }
+    }
+
+    private enum Result {
+        RESERVED, SHORTAGE, CONFLICT, UNKNOWN
+    }
+
+    private static class Request {
+
+        private final long number;
+
+        private final CompletableFuture<Result> future = new CompletableFuture<>();
+
+        /** 요청을 넣은 대기열, 대기열이 지워지기 전에 넣었으므로 처리가 끝날 때까지 이 대기열에서 기다림 */
+        private Group group;
+
+        private Request(long number) {
+            this.number = number;
+        }
+    }
+
+    /**
+     * 하나의 상품에 대한 재고 감소 요청 대기열
+     */
+    private class Group {
+
+        private final Long productId;
+
+        private final Queue<Request> requests = new ConcurrentLinkedQueue<>();
+
+        /** 대기열을 처리하는 대표가 있는지 */
+        private final AtomicBoolean leading = new AtomicBoolean();
+
+        private Group(Long productId) {
+            this.productId = productId;
+        }
+    }
+
+    /**
+     * 주문 하나가 그룹 커밋으로 감소시킨 재고
+     * 이미 db에 반영되어 있으므로 commit()은 할 일이 없고, release()는 감소시킨 수량을 되돌림
+     */
+    private class GroupReservation implements StockReservation {
+
+        private final Map<Long, Long> numbers;
+
+        private GroupReservation(Map<Long, Long> numbers) {
+            this.numbers = numbers;
+        }
+
+        @Override
+        public void commit() {
+        }
+
+        @Override
+        public void release() {
+            if (numbers.isEmpty()) {
+                return;
+            }
+            transactionTemplate.execute(status -> {
+                productDetailCache.evictAll(numbers.keySet());
+                productCatalogVersion.increment();
+                numbers.forEach(productRepository::increaseAmount);
+                return null;
+            });
+        }
+    }
+}
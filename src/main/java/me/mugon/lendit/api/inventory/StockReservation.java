@@ -0,0 +1,12 @@
+package me.mugon.lendit.api.inventory;
+
+/**
+ * 주문 트랜잭션을 시작하기 전에 예약한 재고
+ * 주문 트랜잭션이 커밋되면 commit(), 실패하면 release()를 호출해야 함
+ */
+public interface StockReservation {
+
+    void commit();
+
+    void release();
+}
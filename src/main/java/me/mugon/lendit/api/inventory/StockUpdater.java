@@ -0,0 +1,178 @@
+package me.mugon.lendit.api.inventory;
+
+import lombok.extern.slf4j.Slf4j;
+import me.mugon.lendit.api.cache.ProductCatalogVersion;
+import me.mugon.lendit.api.cache.ProductDetailCache;
+import me.mugon.lendit.domain.product.ProductBatchRepository;
+import me.mugon.lendit.domain.product.ProductRepository;
+import me.mugon.lendit.domain.product.ProductStock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 주문 트랜잭션 안에서 lendit.order.concurrency에 설정한 방식(ConcurrencyStrategy)으로 db의 재고를 감소시킴
+ * 모든 방식은 상품 식별자 순서로 재고를 바꾸기 때문에, 여러 상품을 주문한 트랜잭션끼리 서로 다른 순서로 row lock을 잡아 deadlock이 생기지 않음
+ * 재고가 부족하거나 충돌한 경우 이 호출에서 앞서 감소시킨 재고를 되돌리고 실패를 반환하므로, 여러 주문이 하나의 트랜잭션을 함께 사용할 수 있음
+ * 낙관적 잠금이 재시도한 횟수와 재시도 후에도 충돌하여 포기한 횟수를 집계함
+ */
+@Slf4j
+@Component
+public class StockUpdater {
+
+    private final ProductRepository productRepository;
+
+    private final ProductBatchRepository productBatchRepository;
+
+    private final ProductDetailCache productDetailCache;
+
+    private final ProductCatalogVersion productCatalogVersion;
+
+    private final ConcurrencyStrategy strategy;
+
+    private final int maxRetries;
+
+    private final LongAdder retries = new LongAdder();
+
+    private final LongAdder conflicts = new LongAdder();
+
+    public StockUpdater(ProductRepository productRepository, ProductBatchRepository productBatchRepository, ProductDetailCache productDetailCache,
+                        ProductCatalogVersion productCatalogVersion, @Value("${lendit.order.concurrency:conditional}") String strategy,
+                        @Value("${lendit.order.optimistic-retries:3}") int maxRetries) {
+        this.productRepository = productRepository;
+        this.productBatchRepository = productBatchRepository;
+        this.productDetailCache = productDetailCache;
+        this.productCatalogVersion = productCatalogVersion;
+        this.strategy = ConcurrencyStrategy.valueOf(strategy.trim().toUpperCase());
+        this.maxRetries = maxRetries;
+        if (this.strategy == ConcurrencyStrategy.UNSAFE) {
+            log.warn("lendit.order.concurrency=unsafe can sell more than the stock, use it only for comparison");
+        }
+    }
+
+    public ConcurrencyStrategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * 상품별 주문 수량만큼 재고를 감소시킴
+     * 트랜잭션이 커밋되면 개별 상품 조회 캐시에서 상품들을 지우고 상품 목록의 버전을 올림
+     */
+    public Result decrease(Map<Long, Long> numbers) {
+        productDetailCache.evictAll(numbers.keySet());
+        productCatalogVersion.increment();
+        SortedMap<Long, Long> sortedNumbers = new TreeMap<>(numbers);
+        switch (strategy) {
+            case OPTIMISTIC:
+                return decreaseOptimistically(sortedNumbers);
+            case PESSIMISTIC:
+                return decreasePessimistically(sortedNumbers);
+            case UNSAFE:
+                return decreaseUnsafely(sortedNumbers);
+            default:
+                return decreaseConditionally(sortedNumbers);
+        }
+    }
+
+    /**
+     * 감소시킨 재고를 되돌림
+     */
+    public void increase(Map<Long, Long> numbers) {
+        productDetailCache.evictAll(numbers.keySet());
+        productCatalogVersion.increment();
+        new TreeMap<>(numbers).forEach(productRepository::increaseAmount);
+    }
+
+    /** 낙관적 잠금이 충돌하여 다시 시도한 횟수 */
+    public long getRetryCount() {
+        return retries.sum();
+    }
+
+    /** 다시 시도해도 충돌하여 주문을 거절한 횟수 */
+    public long getConflictCount() {
+        return conflicts.sum();
+    }
+
+    private Result decreaseConditionally(SortedMap<Long, Long> numbers) {
+        Map<Long, Long> decreased = new LinkedHashMap<>();
+        for (Map.Entry<Long, Long> entry : numbers.entrySet()) {
+            if (productRepository.decreaseAmount(entry.getKey(), entry.getValue()) == 0) {
+                increase(decreased);
+                return Result.SHORTAGE;
+            }
+            decreased.put(entry.getKey(), entry.getValue());
+        }
+        return Result.DECREASED;
+    }
+
+    private Result decreaseOptimistically(SortedMap<Long, Long> numbers) {
+        for (int attempt = 0; attempt <= maxRetries; attempt++) {
+            if (attempt > 0) {
+                retries.increment();
+            }
+            Map<Long, ProductStock> stocks = findStocks(numbers.keySet());
+            if (isShort(numbers, stocks, ProductStock::getAmount)) {
+                return Result.SHORTAGE;
+            }
+            if (decreaseIfVersion(numbers, stocks)) {
+                return Result.DECREASED;
+            }
+        }
+        conflicts.increment();
+        return Result.CONFLICT;
+    }
+
+    /**
+     * 읽은 버전이 그대로인 상품만 감소시키고, 하나라도 다른 트랜잭션이 먼저 바꾼 경우 앞서 감소시킨 재고를 되돌리고 false를 반환
+     */
+    private boolean decreaseIfVersion(SortedMap<Long, Long> numbers, Map<Long, ProductStock> stocks) {
+        Map<Long, Long> decreased = new LinkedHashMap<>();
+        for (Map.Entry<Long, Long> entry : numbers.entrySet()) {
+            Long version = stocks.get(entry.getKey()).getVersion();
+            if (productRepository.decreaseAmountIfVersion(entry.getKey(), entry.getValue(), version) == 0) {
+                increase(decreased);
+                return false;
+            }
+            decreased.put(entry.getKey(), entry.getValue());
+        }
+        return true;
+    }
+
+    private Result decreasePessimistically(SortedMap<Long, Long> numbers) {
+        Map<Long, Long> amounts = productBatchRepository.findAmountsForUpdate(numbers.keySet());
+        if (isShort(numbers, amounts, Function.identity())) {
+            return Result.SHORTAGE;
+        }
+        numbers.forEach(productRepository::subtractAmount);
+        return Result.DECREASED;
+    }
+
+    private Result decreaseUnsafely(SortedMap<Long, Long> numbers) {
+        Map<Long, ProductStock> stocks = findStocks(numbers.keySet());
+        if (isShort(numbers, stocks, ProductStock::getAmount)) {
+            return Result.SHORTAGE;
+        }
+        numbers.forEach((productId, number) -> productRepository.updateAmount(productId, stocks.get(productId).getAmount() - number));
+        return Result.DECREASED;
+    }
+
+    private Map<Long, ProductStock> findStocks(Collection<Long> productIds) {
+        return productRepository.findStocksByIdIn(productIds).stream()
+                .collect(Collectors.toMap(ProductStock::getId, Function.identity()));
+    }
+
+    private <T> boolean isShort(Map<Long, Long> numbers, Map<Long, T> stocks, Function<T, Long> amountOf) {
+        return numbers.entrySet().stream().anyMatch(e -> {
+            T stock = stocks.get(e.getKey());
+            return stock == null || amountOf.apply(stock) < e.getValue();
+        });
+    }
+
+    public enum Result {
+        DECREASED, SHORTAGE, CONFLICT
+    }
+}
@@ -0,0 +1,127 @@
+package me.mugon.lendit.api.inventory;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 재고 엔진(InventoryEngine)이 관리하는 하나의 상품의 메모리 재고와, 커밋되었지만 아직 db에 반영되지 않은 수량
+ *
+ * 재고는 하나의 AtomicLong 대신 여러 개의 칸(cell)에 나누어 담고, 스레드마다 스레드 식별자의 hash로 정해진 칸에서 CAS로 감소시킴
+ * 같은 상품에 주문이 몰려도 스레드들이 서로 다른 칸에서 CAS를 하므로 하나의 값에서 CAS가 계속 실패하며 다시 시도하지 않음
+ * 자신의 칸이 부족하면 borrowLock을 잡고 모든 칸의 재고를 모아(다른 칸에서 빌려와) 감소시킨 뒤 남은 재고를 다시 나누어 담음
+ * 칸 사이에서 재고를 옮기는 것은 borrowLock을 잡은 경우뿐이므로, 모든 칸의 합이 주문 수량보다 많은데 부족하다고 판단하지 않음
+ */
+class StripedStock {
+
+    private final AtomicLong[] cells;
+
+    private final Object borrowLock = new Object();
+
+    /** 커밋되었지만 아직 db에 반영되지 않은 수량 */
+    private final LongAdder pending = new LongAdder();
+
+    /**
+     * db에 반영할 수량을 가져와 반영하는 동안(flush)과, 상품 수정, 삭제로 이 재고를 교체하는 동안 잡는 lock
+     * 교체된 재고에 뒤늦게 확정되는 예약은 db에 반영하지 않음
+     */
+    private final ReentrantLock guard = new ReentrantLock();
+
+    private volatile boolean replaced;
+
+    /**
+     * @param stripes 칸의 개수, 2의 거듭제곱
+     */
+    StripedStock(long amount, int stripes) {
+        this.cells = new AtomicLong[stripes];
+        for (int i = 0; i < stripes; i++) {
+            cells[i] = new AtomicLong();
+        }
+        spread(amount);
+    }
+
+    /**
+     * 재고가 number 이상인 경우에만 number만큼 감소시킴
+     */
+    boolean tryDecrease(long number) {
+        AtomicLong cell = cells[index()];
+        long current;
+        while ((current = cell.get()) >= number) {
+            if (cell.compareAndSet(current, current - number)) {
+                return true;
+            }
+        }
+        synchronized (borrowLock) {
+            long collected = 0L;
+            for (AtomicLong other : cells) {
+                collected += other.getAndSet(0L);
+            }
+            boolean decreased = collected >= number;
+            spread(decreased ? collected - number : collected);
+            return decreased;
+        }
+    }
+
+    void increase(long number) {
+        cells[index()].addAndGet(number);
+    }
+
+    /**
+     * 모든 칸의 합, 동시에 주문하는 동안에는 어느 한 시점의 값이 아닐 수 있음
+     */
+    long sum() {
+        long sum = 0L;
+        for (AtomicLong cell : cells) {
+            sum += cell.get();
+        }
+        return sum;
+    }
+
+    /**
+     * 예약을 확정한 수량이나 flush가 db에 반영하지 못한 수량을 누적, 이미 교체된 재고이면 버림
+     */
+    void addPending(long number) {
+        if (!replaced) {
+            pending.add(number);
+        }
+    }
+
+    /**
+     * db에 반영할 수량을 가져오고 0으로 만듦, guard를 잡은 상태에서 호출
+     */
+    long drain() {
+        return replaced ? 0L : pending.sumThenReset();
+    }
+
+    boolean hasPending() {
+        return !replaced && pending.sum() > 0;
+    }
+
+    /**
+     * 이 재고를 더 이상 사용하지 않도록 표시하고 반영되지 않은 수량을 버림, guard를 잡은 상태에서 호출
+     */
+    void replace() {
+        replaced = true;
+        pending.reset();
+    }
+
+    ReentrantLock getGuard() {
+        return guard;
+    }
+
+    /**
+     * amount를 모든 칸에 나누어 더함, 나누어 떨어지지 않는 나머지는 앞의 칸부터 하나씩 더함
+     */
+    private void spread(long amount) {
+        long share = amount / cells.length;
+        long remainder = amount % cells.length;
+        for (int i = 0; i < cells.length; i++) {
+            cells[i].addAndGet(share + (i < remainder ? 1 : 0));
+        }
+    }
+
+    private int index() {
+        int hash = (int) Thread.currentThread().getId() * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (cells.length - 1);
+    }
+}
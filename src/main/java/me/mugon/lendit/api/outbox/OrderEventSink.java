@@ -0,0 +1,19 @@
+package me.mugon.lendit.api.outbox;
+
+import me.mugon.lendit.domain.outbox.OrderEvent;
+
+import java.util.List;
+
+/**
+ * OrderOutboxService가 outbox에 쌓인 주문 이벤트를 전달하는 곳
+ * 기본으로 애플리케이션 안에서 Server-Sent Events로 내보내는 OrderEventStream을 사용하며,
+ * 메시지 브로커 등 다른 곳으로 전달하려면 이 interface를 구현한 bean을 @Primary로 등록함
+ *
+ * publish()는 outbox에 전달 순서를 기록하는 트랜잭션 안에서 호출됨
+ * 예외를 던지면 트랜잭션이 롤백되어 다음 relay에서 같은 이벤트를 다시 전달하고,
+ * 전달한 뒤 커밋에 실패해도 다시 전달하므로 같은 이벤트를 두 번 이상 받을 수 있음 (at-least-once)
+ */
+public interface OrderEventSink {
+
+    void publish(List<OrderEvent> events);
+}
@@ -0,0 +1,209 @@
+package me.mugon.lendit.api.outbox;
+
+import lombok.extern.slf4j.Slf4j;
+import me.mugon.lendit.domain.account.Account;
+import me.mugon.lendit.domain.outbox.OrderEvent;
+import me.mugon.lendit.domain.outbox.OrderOutboxBatchRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 애플리케이션 안에서 주문 이벤트를 Server-Sent Events로 내보내는 OrderEventSink
+ *
+ * 동작 방식
+ * 1. relay가 전달한 이벤트는 트랜잭션이 커밋된 뒤 최근 이벤트 버퍼(lendit.outbox.stream.buffer-size)에 담고 구독자들에게 알림
+ * 2. 구독자는 마지막으로 받은 순서를 기억하며, 알림을 받으면 그 다음 이벤트부터 버퍼에서 읽어 보냄
+ *    버퍼에 없는 이전 이벤트(재시작, 오래된 위치에서 이어 받는 경우 등)는 outbox에서 읽어 보냄
+ * 3. 구독자마다 동시에 하나의 스레드만 보내며, 보내는 일은 lendit.outbox.stream.threads개의 스레드가 나누어 맡기 때문에 느린 구독자가 relay를 막지 않음
+ * 4. 보내는 데 실패하거나 연결이 끊어진 구독자는 제거하며, 구독자는 마지막으로 받은 이벤트의 id(Last-Event-ID)로 다시 구독하여 이어 받음
+ *
+ * lendit.outbox.stream.consumers에 등록된 유저는 모든 주문을, 나머지 유저는 자신이 주문했거나 판매한 주문만 받음
+ */
+@Slf4j
+@Component
+public class OrderEventStream implements OrderEventSink {
+
+    private static final int READ_SIZE = 500;
+
+    private final OrderOutboxBatchRepository orderOutboxBatchRepository;
+
+    private final int bufferSize;
+
+    private final Duration timeout;
+
+    private final Set<String> consumers;
+
+    /** 전달 순서별 최근 이벤트 */
+    private final TreeMap<Long, OrderEvent> buffer = new TreeMap<>();
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    private final ExecutorService executorService;
+
+    public OrderEventStream(OrderOutboxBatchRepository orderOutboxBatchRepository,
+                            @Value("${lendit.outbox.stream.buffer-size:10000}") int bufferSize,
+                            @Value("${lendit.outbox.stream.timeout:30m}") Duration timeout,
+                            @Value("${lendit.outbox.stream.threads:2}") int threads,
+                            @Value("${lendit.outbox.stream.consumers:}") Set<String> consumers) {
+        this.orderOutboxBatchRepository = orderOutboxBatchRepository;
+        this.bufferSize = bufferSize;
+        this.timeout = timeout;
+        this.consumers = consumers;
+        this.executorService = Executors.newFixedThreadPool(threads);
+    }
+
+    @Override
+    public void publish(List<OrderEvent> events) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            append(events);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                append(events);
+            }
+        });
+    }
+
+    /**
+     * 전달 순서가 after 이후인 이벤트부터 받는 구독을 만듦
+     * after가 null이면 구독한 이후에 전달되는 이벤트부터 받음
+     */
+    public SseEmitter subscribe(Long after, Account currentUser) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscriber subscriber = new Subscriber(emitter, consumers.contains(currentUser.getUsername()) ? null : currentUser.getId(),
+                after == null ? lastOffset() : after);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        signal(subscriber);
+        return emitter;
+    }
+
+    @PreDestroy
+    public void close() {
+        executorService.shutdownNow();
+        subscribers.forEach(e -> e.emitter.complete());
+    }
+
+    private void append(List<OrderEvent> events) {
+        synchronized (buffer) {
+            events.forEach(e -> buffer.put(e.getOffset(), e));
+            while (buffer.size() > bufferSize) {
+                buffer.pollFirstEntry();
+            }
+        }
+        subscribers.forEach(this::signal);
+    }
+
+    private long lastOffset() {
+        synchronized (buffer) {
+            if (!buffer.isEmpty()) {
+                return buffer.lastKey();
+            }
+        }
+        return orderOutboxBatchRepository.findLastOffset();
+    }
+
+    /**
+     * 구독자에게 보낼 이벤트가 있음을 알림, 이미 보내는 중이면 그 스레드가 이어서 보냄
+     */
+    private void signal(Subscriber subscriber) {
+        subscriber.pending.set(true);
+        if (subscriber.sending.compareAndSet(false, true)) {
+            executorService.execute(() -> send(subscriber));
+        }
+    }
+
+    private void send(Subscriber subscriber) {
+        do {
+            subscriber.pending.set(false);
+            try {
+                List<OrderEvent> events;
+                while (!(events = read(subscriber.lastOffset)).isEmpty()) {
+                    for (OrderEvent event : events) {
+                        if (subscriber.accepts(event)) {
+                            subscriber.emitter.send(SseEmitter.event()
+                                    .id(String.valueOf(event.getOffset()))
+                                    .name("order")
+                                    .data(event));
+                        }
+                        subscriber.lastOffset = event.getOffset();
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                log.debug("order event subscriber removed", e);
+                subscribers.remove(subscriber);
+                subscriber.emitter.completeWithError(e);
+                return;
+            } finally {
+                subscriber.sending.set(false);
+            }
+        } while (subscriber.pending.get() && subscriber.sending.compareAndSet(false, true));
+    }
+
+    /**
+     * offset 다음 이벤트부터 읽음
+     * 버퍼가 offset 바로 다음 이벤트부터 가지고 있으면 버퍼에서, 아니면 outbox에서 읽음
+     */
+    private List<OrderEvent> read(long offset) {
+        synchronized (buffer) {
+            if (!buffer.isEmpty() && buffer.lastKey() <= offset) {
+                return Collections.emptyList();
+            }
+            Map.Entry<Long, OrderEvent> next = buffer.higherEntry(offset);
+            if (next != null && next.getKey() == offset + 1) {
+                List<OrderEvent> events = new ArrayList<>();
+                long expected = offset + 1;
+                for (OrderEvent event : buffer.tailMap(offset, false).values()) {
+                    if (event.getOffset() != expected || events.size() == READ_SIZE) {
+                        break;
+                    }
+                    events.add(event);
+                    expected++;
+                }
+                return events;
+            }
+        }
+        return orderOutboxBatchRepository.findPublishedAfter(offset, READ_SIZE);
+    }
+
+    private static class Subscriber {
+
+        private final SseEmitter emitter;
+
+        /** 받을 주문의 유저 식별자, null이면 모든 주문을 받음 */
+        private final Long accountId;
+
+        /** 보내는 스레드만 읽고 쓰며, sending으로 스레드 사이의 순서가 보장됨 */
+        private long lastOffset;
+
+        private final AtomicBoolean pending = new AtomicBoolean();
+
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        private Subscriber(SseEmitter emitter, Long accountId, long lastOffset) {
+            this.emitter = emitter;
+            this.accountId = accountId;
+            this.lastOffset = lastOffset;
+        }
+
+        private boolean accepts(OrderEvent event) {
+            return accountId == null || event.concerns(accountId);
+        }
+    }
+}
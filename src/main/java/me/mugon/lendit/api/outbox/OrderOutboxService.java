@@ -0,0 +1,123 @@
+package me.mugon.lendit.api.outbox;
+
+import lombok.extern.slf4j.Slf4j;
+import me.mugon.lendit.domain.order.Orders;
+import me.mugon.lendit.domain.outbox.OrderEvent;
+import me.mugon.lendit.domain.outbox.OrderOutbox;
+import me.mugon.lendit.domain.outbox.OrderOutboxBatchRepository;
+import me.mugon.lendit.domain.outbox.OrderOutboxRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 외부 시스템이 Orders를 주기적으로 조회하지 않고 주문을 받아볼 수 있도록 구현한 transactional outbox
+ *
+ * 동작 방식
+ * 1. 주문이 등록되면 같은 트랜잭션에서 주문마다 outbox를 추가함 (JDBC batch)
+ *    주문 트랜잭션은 outbox에 추가만 하므로 이벤트를 받는 쪽이 느리거나 멈춰도 주문을 기다리게 하지 않음
+ * 2. relay()는 lendit.outbox.relay-interval 주기로 전달되지 않은 outbox를 저장된 순서로 lendit.outbox.batch-size개씩 읽음
+ * 3. 마지막으로 전달된 순서 다음부터 순서(eventOffset)를 매겨 기록하고, 같은 트랜잭션에서 OrderEventSink로 한 번에 전달함
+ *    전달에 실패하면 트랜잭션을 롤백하여 다음 주기에 다시 전달하며, 커밋에 실패한 경우에도 다시 전달하므로 at-least-once로 전달됨
+ * 4. 여러 인스턴스의 relay가 같은 outbox를 읽은 경우 먼저 기록한 쪽만 커밋되고, 나머지는 롤백하여 다음 주기에 남은 outbox를 전달함
+ * 5. 전달된 지 lendit.outbox.retention이 지난 outbox는 삭제하며, 그 이전 위치부터 이어 받으려는 구독자는 삭제된 이벤트를 건너뜀
+ */
+@Slf4j
+@Service
+public class OrderOutboxService {
+
+    private final OrderOutboxRepository orderOutboxRepository;
+
+    private final OrderOutboxBatchRepository orderOutboxBatchRepository;
+
+    private final OrderEventSink orderEventSink;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int batchSize;
+
+    private final Duration retention;
+
+    public OrderOutboxService(OrderOutboxRepository orderOutboxRepository, OrderOutboxBatchRepository orderOutboxBatchRepository,
+                              OrderEventSink orderEventSink, TransactionTemplate transactionTemplate,
+                              @Value("${lendit.outbox.batch-size:500}") int batchSize,
+                              @Value("${lendit.outbox.retention:7d}") Duration retention) {
+        this.orderOutboxRepository = orderOutboxRepository;
+        this.orderOutboxBatchRepository = orderOutboxBatchRepository;
+        this.orderEventSink = orderEventSink;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.retention = retention;
+    }
+
+    /**
+     * 저장된 주문들을 outbox에 추가
+     * 주문을 저장한 트랜잭션 안에서 호출해야 함
+     */
+    public void append(List<Orders> ordersList) {
+        orderOutboxRepository.saveAll(ordersList.stream()
+                .map(e -> OrderOutbox.builder()
+                        .orderId(e.getId())
+                        .accountId(e.getAccount().getId())
+                        .sellerId(e.getProduct().getAccount().getId())
+                        .productId(e.getProduct().getId())
+                        .number(e.getNumber())
+                        .total(e.getTotal())
+                        .createdAt(e.getCreatedAt())
+                        .build())
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * 전달되지 않은 outbox를 batch-size개씩 트랜잭션마다 전달하며, 남은 outbox가 없거나 전달에 실패하면 멈춤
+     * 반환값은 이번에 전달한 이벤트의 개수
+     */
+    @Scheduled(fixedDelayString = "${lendit.outbox.relay-interval:100}")
+    public synchronized int relay() {
+        int published = 0;
+        try {
+            Integer count;
+            do {
+                count = transactionTemplate.execute(status -> {
+                    List<OrderOutbox> orderOutboxes = orderOutboxBatchRepository.findUnpublished(batchSize);
+                    if (orderOutboxes.isEmpty()) {
+                        return 0;
+                    }
+                    long offset = orderOutboxBatchRepository.findLastOffset();
+                    List<OrderEvent> events = new ArrayList<>(orderOutboxes.size());
+                    for (OrderOutbox orderOutbox : orderOutboxes) {
+                        events.add(new OrderEvent(orderOutbox, ++offset));
+                    }
+                    if (!orderOutboxBatchRepository.markPublished(events, orderOutboxes)) { // 다른 relay가 먼저 전달함
+                        status.setRollbackOnly();
+                        return 0;
+                    }
+                    orderEventSink.publish(events);
+                    return events.size();
+                });
+                published += count == null ? 0 : count;
+            } while (count != null && count == batchSize);
+        } catch (RuntimeException e) {
+            log.warn("order outbox relay failed, retry on next relay", e);
+        }
+        return published;
+    }
+
+    /**
+     * 전달된 지 retention이 지난 outbox를 삭제
+     */
+    @Scheduled(fixedDelayString = "${lendit.outbox.purge-interval:600000}")
+    public void purgePublished() {
+        int deleted = orderOutboxBatchRepository.deletePublishedBefore(LocalDateTime.now().minus(retention));
+        if (deleted > 0) {
+            log.info("purged {} published order outbox rows", deleted);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package me.mugon.lendit.api.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 상품 이름과 검색어를 색인 단위(term)로 나눔
+ * 글자나 숫자가 아닌 문자로 단어를 나누고, 한 단어 안에서도 한글과 그 외의 문자가 바뀌는 곳에서 나눔
+ *
+ * - 한글은 띄어쓰기 없이 붙여 쓰는 경우가 많아 단어로 나누지 않고 한 글자(unigram)와 두 글자(bigram)씩 나누어, 이름의 어느 부분으로 검색해도 찾을 수 있게 함
+ *   예) '스프링부트' -> 스, 프, 링, 부, 트, 스프, 프링, 링부, 부트
+ * - 영문, 숫자 등은 소문자로 바꾼 단어 하나를 그대로 사용함
+ *   예) 'Spring Boot2' -> spring, boot2
+ */
+class ProductNameTokenizer {
+
+    private ProductNameTokenizer() {
+    }
+
+    /**
+     * 상품 이름을 색인할 term으로 나눔, 같은 term이 여러 번 나오면 그 횟수만큼 담음
+     */
+    static List<String> tokenize(String name) {
+        List<String> terms = new ArrayList<>();
+        for (Run run : split(name)) {
+            if (run.hangul) {
+                for (int i = 0; i < run.text.length(); i++) {
+                    terms.add(run.text.substring(i, i + 1));
+                    if (i + 1 < run.text.length()) {
+                        terms.add(run.text.substring(i, i + 2));
+                    }
+                }
+            } else {
+                terms.add(run.text);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * 검색어를 term 묶음으로 나눔, 하나의 묶음에 속한 term은 모두 상품 이름에 있어야 함
+     * - 한글은 한 글자면 unigram, 두 글자 이상이면 bigram으로 나누어 이름에 이어서 나오는 글자를 찾음
+     * - 영문, 숫자 등의 마지막 단어는 입력 중인 단어로 보고 그 단어로 시작하는 term도 찾음 (prefix)
+     */
+    static List<QueryTerm> tokenizeQuery(String query) {
+        List<Run> runs = split(query);
+        List<QueryTerm> queryTerms = new ArrayList<>();
+        for (int i = 0; i < runs.size(); i++) {
+            Run run = runs.get(i);
+            if (!run.hangul) {
+                queryTerms.add(new QueryTerm(run.text, i == runs.size() - 1));
+            } else if (run.text.length() == 1) {
+                queryTerms.add(new QueryTerm(run.text, false));
+            } else {
+                for (int j = 0; j + 1 < run.text.length(); j++) {
+                    queryTerms.add(new QueryTerm(run.text.substring(j, j + 2), false));
+                }
+            }
+        }
+        return queryTerms;
+    }
+
+    private static List<Run> split(String text) {
+        List<Run> runs = new ArrayList<>();
+        if (text == null) {
+            return runs;
+        }
+        String lowerCase = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        boolean hangul = false;
+        for (int i = 0; i < lowerCase.length(); i++) {
+            char c = lowerCase.charAt(i);
+            boolean wordChar = Character.isLetterOrDigit(c);
+            boolean hangulChar = wordChar && isHangul(c);
+            if (start >= 0 && (!wordChar || hangulChar != hangul)) {
+                runs.add(new Run(lowerCase.substring(start, i), hangul));
+                start = -1;
+            }
+            if (wordChar && start < 0) {
+                start = i;
+                hangul = hangulChar;
+            }
+        }
+        if (start >= 0) {
+            runs.add(new Run(lowerCase.substring(start), hangul));
+        }
+        return runs;
+    }
+
+    private static boolean isHangul(char c) {
+        return Character.UnicodeScript.of(c) == Character.UnicodeScript.HANGUL;
+    }
+
+    private static class Run {
+
+        private final String text;
+
+        private final boolean hangul;
+
+        private Run(String text, boolean hangul) {
+            this.text = text;
+            this.hangul = hangul;
+        }
+    }
+
+    /**
+     * 검색어에서 나눈 term, prefix가 true면 term으로 시작하는 모든 term을 찾음
+     */
+    static class QueryTerm {
+
+        final String term;
+
+        final boolean prefix;
+
+        QueryTerm(String term, boolean prefix) {
+            this.term = term;
+            this.prefix = prefix;
+        }
+    }
+}
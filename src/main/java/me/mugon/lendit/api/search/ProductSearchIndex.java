@@ -0,0 +1,308 @@
+package me.mugon.lendit.api.search;
+
+import lombok.extern.slf4j.Slf4j;
+import me.mugon.lendit.api.search.ProductNameTokenizer.QueryTerm;
+import me.mugon.lendit.domain.product.ProductRepository;
+import me.mugon.lendit.web.dto.product.ProductCatalogResponseDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * 상품 이름 검색(GET /api/products/search)을 위한 메모리 역색인
+ * 상품 이름에 대한 LIKE '%검색어%' 조회는 인덱스를 사용하지 못하고 product 테이블 전체를 읽기 때문에 구현
+ *
+ * 동작 방식
+ * 1. 상품 이름을 ProductNameTokenizer로 나눈 term마다 그 term이 나오는 상품과 횟수(posting)를 담음
+ * 2. 검색어를 나눈 term이 모두 나오는 상품을 찾고, 마지막 영문, 숫자 단어는 그 단어로 시작하는 term도 찾음 (prefix)
+ * 3. 상품마다 (term이 나온 횟수 x 드물게 나오는 term일수록 큰 가중치(idf))를 더하고 이름의 길이로 나누어 점수가 큰 순서로 정렬함
+ *    prefix로 찾은 term은 절반만 더하며, 점수가 같으면 식별자 순서로 정렬함
+ * 4. 상품 등록, 수정, 삭제는 트랜잭션이 커밋된 뒤 색인에 반영함
+ * 5. 애플리케이션이 시작되면 상품 식별자 구간별로 나누어 여러 스레드에서 색인을 만든 뒤 합쳐서 바꿈
+ *    다시 만드는 동안 반영된 등록, 수정, 삭제는 기존 색인에 반영하고, 새 색인으로 바꾸기 전에 다시 반영함
+ *    시작하기 전에 상품 목록 스냅샷(ProductCatalogSnapshotService)으로 색인을 채웠으면 다시 만들지 않음
+ *
+ * 색인을 메모리에 두기 때문에 다른 인스턴스에서 바꾼 상품은 다시 만들기 전까지 반영되지 않음
+ */
+@Slf4j
+@Component
+public class ProductSearchIndex {
+
+    private final ProductRepository productRepository;
+
+    private final int rebuildThreads;
+
+    private final int rebuildChunkSize;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** 검색에 사용하는 색인, lock으로 보호함 */
+    private Segment segment = new Segment();
+
+    /** 색인을 다시 만드는 동안 반영된 변경, 새 색인에 다시 반영함 */
+    private final List<Consumer<Segment>> pendingChanges = new ArrayList<>();
+
+    private boolean rebuilding;
+
+    /** 상품 목록 스냅샷으로 색인을 채웠는지 여부 */
+    private volatile boolean loaded;
+
+    public ProductSearchIndex(ProductRepository productRepository,
+                              @Value("${lendit.product.search.rebuild-threads:4}") int rebuildThreads,
+                              @Value("${lendit.product.search.rebuild-chunk-size:10000}") int rebuildChunkSize) {
+        this.productRepository = productRepository;
+        this.rebuildThreads = rebuildThreads;
+        this.rebuildChunkSize = rebuildChunkSize;
+    }
+
+    /**
+     * 애플리케이션이 시작되면 스냅샷으로 채우지 않은 경우에만 db에서 색인을 만듦
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfNotLoaded() {
+        if (!loaded) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 상품 목록 스냅샷에서 읽은 상품의 이름으로 색인을 만들어 바꿈
+     */
+    public synchronized void load(List<ProductCatalogResponseDto> products) {
+        Segment snapshot = new Segment();
+        products.forEach(e -> snapshot.put(e.getId(), e.getName()));
+        lock.writeLock().lock();
+        try {
+            segment = snapshot;
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("loaded product search index with {} products from snapshot", snapshot.documents.size());
+    }
+
+    /**
+     * 모든 상품의 이름으로 색인을 다시 만듦
+     * 상품 식별자 구간별로 나누어 여러 스레드에서 이름을 읽고 색인을 만든 뒤 하나로 합침
+     */
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            rebuilding = true;
+            pendingChanges.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Segment rebuilt = new Segment();
+        int chunks = 0;
+        boolean completed = false;
+        try {
+            Optional<Long> minId = productRepository.findMinId();
+            Optional<Long> maxId = productRepository.findMaxId();
+            if (minId.isPresent() && maxId.isPresent()) {
+                ExecutorService executorService = Executors.newFixedThreadPool(rebuildThreads);
+                try {
+                    List<Future<Segment>> futures = new ArrayList<>();
+                    for (long fromId = minId.get(); fromId <= maxId.get(); fromId += rebuildChunkSize) {
+                        long from = fromId;
+                        long to = Math.min(fromId + rebuildChunkSize - 1, maxId.get());
+                        futures.add(executorService.submit(() -> {
+                            Segment chunk = new Segment();
+                            productRepository.findNamesByIdBetween(from, to).forEach(e -> chunk.put(e.getId(), e.getName()));
+                            return chunk;
+                        }));
+                    }
+                    for (Future<Segment> future : futures) {
+                        rebuilt.merge(future.get());
+                    }
+                    chunks = futures.size();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(e);
+                } catch (ExecutionException e) {
+                    throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+                } finally {
+                    executorService.shutdownNow();
+                }
+            }
+            completed = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (completed) { // 실패하면 기존 색인을 그대로 사용함
+                    pendingChanges.forEach(change -> change.accept(rebuilt));
+                    segment = rebuilt;
+                }
+                pendingChanges.clear();
+                rebuilding = false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        log.info("rebuilt product search index with {} products in {} chunks, {} ms", rebuilt.documents.size(), chunks, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 상품이 등록되거나 이름이 바뀌면 트랜잭션 커밋 이후 색인에 반영
+     */
+    public void index(Long productId, String name) {
+        afterCommit(() -> apply(e -> e.put(productId, name)));
+    }
+
+    /**
+     * 상품이 삭제되면 트랜잭션 커밋 이후 색인에서 제거
+     */
+    public void remove(Long productId) {
+        afterCommit(() -> apply(e -> e.remove(productId)));
+    }
+
+    /**
+     * 검색어와 일치하는 상품의 식별자를 점수가 큰 순서로 최대 limit개 반환
+     * 검색어에 글자나 숫자가 없으면 Optional.empty()를 반환
+     */
+    public Optional<List<Long>> search(String query, int limit) {
+        List<QueryTerm> queryTerms = ProductNameTokenizer.tokenizeQuery(query);
+        if (queryTerms.isEmpty()) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            Map<Long, Double> scores = null;
+            for (QueryTerm queryTerm : queryTerms) {
+                Map<Long, Double> termScores = segment.score(queryTerm);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    Map<Long, Double> matched = new HashMap<>();
+                    for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                        Double termScore = termScores.get(entry.getKey());
+                        if (termScore != null) {
+                            matched.put(entry.getKey(), entry.getValue() + termScore);
+                        }
+                    }
+                    scores = matched;
+                }
+                if (scores.isEmpty()) {
+                    return Optional.of(Collections.emptyList());
+                }
+            }
+            Map<Long, Double> ranked = new HashMap<>();
+            scores.forEach((id, score) -> ranked.put(id, score / Math.sqrt(segment.documents.get(id).size())));
+            return Optional.of(ranked.entrySet().stream()
+                    .sorted(Map.Entry.<Long, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                    .limit(limit)
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** 색인에 담긴 상품 수 */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return segment.documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(Consumer<Segment> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(segment);
+            if (rebuilding) {
+                pendingChanges.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void afterCommit(Runnable runnable) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    runnable.run();
+                }
+            });
+        } else {
+            runnable.run();
+        }
+    }
+
+    /**
+     * term별 posting과 상품별 term 목록을 담은 색인
+     */
+    private static class Segment {
+
+        /** term별로 그 term이 나오는 상품과 횟수, prefix로 찾기 위해 정렬하여 담음 */
+        private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+
+        /** 상품별 이름을 나눈 term 목록, 이름이 바뀌거나 삭제될 때 posting에서 지우기 위해 담음 */
+        private final Map<Long, List<String>> documents = new HashMap<>();
+
+        private void put(Long productId, String name) {
+            remove(productId);
+            List<String> terms = ProductNameTokenizer.tokenize(name);
+            documents.put(productId, terms);
+            for (String term : terms) {
+                postings.computeIfAbsent(term, k -> new HashMap<>()).merge(productId, 1, Integer::sum);
+            }
+        }
+
+        private void remove(Long productId) {
+            List<String> terms = documents.remove(productId);
+            if (terms == null) {
+                return;
+            }
+            for (String term : new HashSet<>(terms)) {
+                Map<Long, Integer> posting = postings.get(term);
+                posting.remove(productId);
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+
+        /**
+         * 식별자 구간이 겹치지 않는 다른 색인을 합침
+         */
+        private void merge(Segment other) {
+            documents.putAll(other.documents);
+            other.postings.forEach((term, posting) -> postings.computeIfAbsent(term, k -> new HashMap<>()).putAll(posting));
+        }
+
+        /**
+         * 검색어의 term이 나오는 상품별 점수, prefix인 경우 여러 term 중 가장 큰 점수를 사용함
+         */
+        private Map<Long, Double> score(QueryTerm queryTerm) {
+            Map<String, Map<Long, Integer>> matched = queryTerm.prefix
+                    ? postings.subMap(queryTerm.term, true, queryTerm.term + Character.MAX_VALUE, false)
+                    : postings.containsKey(queryTerm.term) ? Collections.singletonMap(queryTerm.term, postings.get(queryTerm.term)) : Collections.emptyMap();
+            Map<Long, Double> scores = new HashMap<>();
+            matched.forEach((term, posting) -> {
+                double idf = Math.log(1 + (double) documents.size() / posting.size());
+                double weight = term.equals(queryTerm.term) ? 1.0 : 0.5;
+                posting.forEach((productId, count) -> scores.merge(productId, count * idf * weight, Math::max));
+            });
+            return scores;
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package me.mugon.lendit.api.search;
+
+import lombok.extern.slf4j.Slf4j;
+import me.mugon.lendit.domain.product.Product;
+import me.mugon.lendit.domain.product.ProductRepository;
+import me.mugon.lendit.domain.product.ProductSortKey;
+import me.mugon.lendit.web.dto.product.ProductCatalogResponseDto;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * 상품 목록을 가격 범위로 거르고 가격, 등록 일시 순서로 정렬하기 위한 메모리 정렬 색인
+ * 상품 목록을 가격이나 등록 일시로 정렬하면 요청마다 product 테이블 전체를 정렬하기 때문에 구현
+ *
+ * 동작 방식
+ * 1. (가격, 식별자)와 (등록 일시, 식별자) 순서로 정렬한 long 배열을 각각 두고, 같은 위치에 식별자와 다른 정렬 값을 담음
+ * 2. 가격 범위는 가격 배열에서 이진 탐색으로 시작, 끝 위치를 찾고, 정렬 순서대로 page 위치만큼 건너뛰어 size개를 읽음 (O(log n + k))
+ *    가격 범위를 등록 일시 순서로 정렬하는 경우에는 범위에 속한 상품만 등록 일시로 다시 정렬함
+ * 3. 전체 개수는 범위의 시작, 끝 위치로 계산하므로 COUNT 쿼리가 필요 없음
+ * 4. 상품 등록, 수정, 삭제는 트랜잭션이 커밋된 뒤 배열을 복사하여 바꾼 새 배열로 교체함 (copy-on-write)
+ *    조회는 lock 없이 교체 전이나 후의 배열 하나만 읽음
+ * 5. 애플리케이션이 시작되면 모든 상품의 가격, 등록 일시를 읽어 다시 만듦
+ *    시작하기 전에 상품 목록 스냅샷(ProductCatalogSnapshotService)으로 색인을 채웠으면 다시 만들지 않음
+ *
+ * 정렬 값이 같으면 오름차순은 식별자 순서, 내림차순은 식별자 역순으로 정렬함
+ * 색인을 메모리에 두기 때문에 다른 인스턴스에서 바꾼 상품은 다시 만들기 전까지 반영되지 않음
+ */
+@Slf4j
+@Component
+public class ProductSortIndex {
+
+    public static final String PRICE = "price";
+
+    public static final String CREATED_AT = "createdAt";
+
+    private final ProductRepository productRepository;
+
+    /** 조회에 사용하는 배열, 바꿀 때는 새 배열로 교체함 */
+    private volatile Snapshot snapshot = new Snapshot(new SortedKeys(), new SortedKeys());
+
+    /** 상품별 가격, 등록 일시, 바꾸기 전의 위치를 찾기 위해 사용하며 lock을 잡고 바꿈 */
+    private final Map<Long, long[]> keys = new HashMap<>();
+
+    /** 상품 목록 스냅샷으로 색인을 채웠는지 여부 */
+    private volatile boolean loaded;
+
+    public ProductSortIndex(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    /**
+     * 애플리케이션이 시작되면 스냅샷으로 채우지 않은 경우에만 db에서 색인을 만듦
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfNotLoaded() {
+        if (!loaded) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 상품 목록 스냅샷에서 읽은 상품의 가격, 등록 일시로 색인을 만들어 바꿈
+     */
+    public synchronized void load(List<ProductCatalogResponseDto> products) {
+        keys.clear();
+        products.forEach(e -> keys.put(e.getId(), new long[]{e.getPrice(), epochMicros(e.getCreatedAt())}));
+        replaceAll();
+        loaded = true;
+        log.info("loaded product sort index with {} products from snapshot", keys.size());
+    }
+
+    /**
+     * 모든 상품의 가격, 등록 일시로 색인을 다시 만듦
+     */
+    public synchronized void rebuild() {
+        keys.clear();
+        for (ProductSortKey sortKey : productRepository.findAllSortKeys()) {
+            keys.put(sortKey.getId(), new long[]{sortKey.getPrice(), epochMicros(sortKey.getCreatedAt())});
+        }
+        replaceAll();
+        log.info("rebuilt product sort index with {} products", keys.size());
+    }
+
+    /**
+     * 상품이 등록되거나 가격이 바뀌면 트랜잭션 커밋 이후 색인에 반영
+     */
+    public void index(Long productId, Long price, LocalDateTime createdAt) {
+        afterCommit(() -> put(productId, price, epochMicros(createdAt)));
+    }
+
+    /**
+     * 여러 상품이 한 번에 등록되면 트랜잭션 커밋 이후 색인에 반영
+     * 상품마다 배열을 복사하지 않고 모두 담은 뒤 배열을 한 번만 다시 만듦
+     */
+    public void indexAll(List<Product> products) {
+        Map<Long, long[]> added = new LinkedHashMap<>();
+        products.forEach(e -> added.put(e.getId(), new long[]{e.getPrice(), epochMicros(e.getCreatedAt())}));
+        afterCommit(() -> putAll(added));
+    }
+
+    /**
+     * 상품이 삭제되면 트랜잭션 커밋 이후 색인에서 제거
+     */
+    public void remove(Long productId) {
+        afterCommit(() -> delete(productId));
+    }
+
+    private synchronized void putAll(Map<Long, long[]> added) {
+        keys.putAll(added);
+        replaceAll();
+    }
+
+    /**
+     * keys의 모든 상품으로 배열을 다시 만들어 교체
+     */
+    private void replaceAll() {
+        long[][] byPrice = new long[keys.size()][];
+        long[][] byCreatedAt = new long[keys.size()][];
+        int index = 0;
+        for (Map.Entry<Long, long[]> entry : keys.entrySet()) {
+            long[] value = entry.getValue();
+            byPrice[index] = new long[]{value[0], entry.getKey(), value[1]};
+            byCreatedAt[index] = new long[]{value[1], entry.getKey(), value[0]};
+            index++;
+        }
+        snapshot = new Snapshot(SortedKeys.of(byPrice), SortedKeys.of(byCreatedAt));
+    }
+
+    /**
+     * 색인으로 정렬할 수 있는 정렬 조건인지 확인, 정렬하지 않거나 price, createdAt 중 하나로만 정렬하는 경우
+     */
+    public static boolean supports(Sort sort) {
+        if (sort.isUnsorted()) {
+            return true;
+        }
+        List<Sort.Order> orders = sort.toList();
+        return orders.size() == 1 && (orders.get(0).getProperty().equals(PRICE) || orders.get(0).getProperty().equals(CREATED_AT));
+    }
+
+    /**
+     * 가격이 minPrice 이상 maxPrice 이하인 상품의 식별자를 pageable의 정렬 순서대로 page만큼 반환
+     * minPrice, maxPrice가 null이면 범위를 제한하지 않고, 정렬하지 않으면 가격 순서로 정렬함
+     * 정렬 조건은 supports()로 먼저 확인해야 함
+     */
+    public Page<Long> find(Long minPrice, Long maxPrice, Pageable pageable) {
+        Snapshot current = snapshot;
+        SortedKeys byPrice = current.byPrice;
+        int from = byPrice.lowerBound(minPrice == null ? Long.MIN_VALUE : minPrice);
+        int to = maxPrice == null ? byPrice.size() : byPrice.lowerBound(maxPrice == Long.MAX_VALUE ? maxPrice : maxPrice + 1);
+        int total = Math.max(0, to - from);
+
+        Sort.Order order = pageable.getSort().isSorted() ? pageable.getSort().toList().get(0) : Sort.Order.asc(PRICE);
+        List<Long> ids = new ArrayList<>();
+        if (pageable.getOffset() < total) {
+            int offset = (int) pageable.getOffset();
+            int size = (int) Math.min(pageable.getPageSize(), total - pageable.getOffset());
+            if (order.getProperty().equals(PRICE)) {
+                byPrice.collect(from, to, offset, size, order.isDescending(), ids);
+            } else if (from == 0 && to == byPrice.size()) {
+                current.byCreatedAt.collect(0, current.byCreatedAt.size(), offset, size, order.isDescending(), ids);
+            } else {
+                byPrice.sortedBySecondary(from, to).collect(0, total, offset, size, order.isDescending(), ids);
+            }
+        }
+        return new PageImpl<>(ids, pageable, total);
+    }
+
+    /** 색인에 담긴 상품 수 */
+    public int size() {
+        return snapshot.byPrice.size();
+    }
+
+    private synchronized void put(Long productId, Long price, long createdAt) {
+        long[] previous = keys.put(productId, new long[]{price, createdAt});
+        SortedKeys byPrice = snapshot.byPrice;
+        SortedKeys byCreatedAt = snapshot.byCreatedAt;
+        if (previous != null) { // 조회 중에 상품이 빠진 배열이 보이지 않도록 지우고 담은 배열로 한 번에 교체함
+            byPrice = byPrice.without(previous[0], productId);
+            byCreatedAt = byCreatedAt.without(previous[1], productId);
+        }
+        snapshot = new Snapshot(byPrice.with(price, productId, createdAt), byCreatedAt.with(createdAt, productId, price));
+    }
+
+    private synchronized void delete(Long productId) {
+        long[] value = keys.remove(productId);
+        if (value == null) {
+            return;
+        }
+        Snapshot current = snapshot;
+        snapshot = new Snapshot(current.byPrice.without(value[0], productId), current.byCreatedAt.without(value[1], productId));
+    }
+
+    private void afterCommit(Runnable runnable) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    runnable.run();
+                }
+            });
+        } else {
+            runnable.run();
+        }
+    }
+
+    /**
+     * 등록 일시를 정렬 가능한 long으로 바꿈, 등록 일시가 없으면 가장 오래된 상품으로 봄
+     */
+    private static long epochMicros(LocalDateTime createdAt) {
+        if (createdAt == null) {
+            return Long.MIN_VALUE;
+        }
+        return createdAt.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + createdAt.getNano() / 1_000;
+    }
+
+    private static class Snapshot {
+
+        private final SortedKeys byPrice;
+
+        private final SortedKeys byCreatedAt;
+
+        private Snapshot(SortedKeys byPrice, SortedKeys byCreatedAt) {
+            this.byPrice = byPrice;
+            this.byCreatedAt = byCreatedAt;
+        }
+    }
+
+    /**
+     * (정렬 값, 식별자) 순서로 정렬한 배열, 같은 위치의 secondaries에 다른 정렬 값을 담음
+     * 한 번 만든 배열은 바꾸지 않음
+     */
+    private static class SortedKeys {
+
+        private final long[] values;
+
+        private final long[] ids;
+
+        private final long[] secondaries;
+
+        private SortedKeys() {
+            this(new long[0], new long[0], new long[0]);
+        }
+
+        private SortedKeys(long[] values, long[] ids, long[] secondaries) {
+            this.values = values;
+            this.ids = ids;
+            this.secondaries = secondaries;
+        }
+
+        /**
+         * {정렬 값, 식별자, 다른 정렬 값} 목록으로 만듦
+         */
+        private static SortedKeys of(long[][] entries) {
+            Arrays.sort(entries, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+            long[] values = new long[entries.length];
+            long[] ids = new long[entries.length];
+            long[] secondaries = new long[entries.length];
+            for (int i = 0; i < entries.length; i++) {
+                values[i] = entries[i][0];
+                ids[i] = entries[i][1];
+                secondaries[i] = entries[i][2];
+            }
+            return new SortedKeys(values, ids, secondaries);
+        }
+
+        private int size() {
+            return ids.length;
+        }
+
+        /**
+         * 정렬 값이 value 이상인 첫 위치
+         */
+        private int lowerBound(long value) {
+            return position(value, Long.MIN_VALUE);
+        }
+
+        /**
+         * (value, id) 이상인 첫 위치
+         */
+        private int position(long value, long id) {
+            int low = 0;
+            int high = ids.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[mid] < value || (values[mid] == value && ids[mid] < id)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private SortedKeys with(long value, long id, long secondary) {
+            int position = position(value, id);
+            return new SortedKeys(insert(values, position, value), insert(ids, position, id), insert(secondaries, position, secondary));
+        }
+
+        private SortedKeys without(long value, long id) {
+            int position = position(value, id);
+            if (position == ids.length || ids[position] != id) {
+                return this;
+            }
+            return new SortedKeys(delete(values, position), delete(ids, position), delete(secondaries, position));
+        }
+
+        /**
+         * from ~ to 위치의 상품을 다른 정렬 값 순서로 정렬한 배열
+         */
+        private SortedKeys sortedBySecondary(int from, int to) {
+            long[][] entries = new long[to - from][];
+            for (int i = from; i < to; i++) {
+                entries[i - from] = new long[]{secondaries[i], ids[i], values[i]};
+            }
+            return of(entries);
+        }
+
+        /**
+         * from ~ to 위치를 오름차순 또는 내림차순으로 보았을 때 offset 위치부터 size개의 식별자를 담음
+         */
+        private void collect(int from, int to, int offset, int size, boolean descending, List<Long> result) {
+            for (int i = offset; i < offset + size; i++) {
+                result.add(descending ? ids[to - 1 - i] : ids[from + i]);
+            }
+        }
+
+        private static long[] insert(long[] array, int position, long value) {
+            long[] copy = new long[array.length + 1];
+            System.arraycopy(array, 0, copy, 0, position);
+            copy[position] = value;
+            System.arraycopy(array, position, copy, position + 1, array.length - position);
+            return copy;
+        }
+
+        private static long[] delete(long[] array, int position) {
+            long[] copy = new long[array.length - 1];
+            System.arraycopy(array, 0, copy, 0, position);
+            System.arraycopy(array, position + 1, copy, position, array.length - position - 1);
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package me.mugon.lendit.api.shard;
+
+import lombok.extern.slf4j.Slf4j;
+import me.mugon.lendit.domain.order.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+/**
+ * 주문을 구매자의 식별자로 나누어 여러 db(shard)에 저장하고, 주문 목록을 shard에서 조회
+ * lendit.order.shard.urls에 db가 지정된 경우에만 동작하며, 지정되지 않은 경우 주문 목록은 기본 db의 orders 테이블에서 조회함
+ *
+ * 동작 방식
+ * 1. 주문이 저장되면 같은 트랜잭션이 커밋되기 직전에 구매자별 shard로 나누어 저장함
+ *    기본 db에 쓸 내용을 먼저 flush하여 제약조건 위반 등을 확인한 뒤 shard에 저장하고, shard에 저장하지 못하면 주문 트랜잭션을 롤백함
+ * 2. 주문 트랜잭션이 롤백되면 shard에 먼저 저장한 주문을 지움
+ * 3. 유저의 주문 목록은 그 유저의 shard 하나에서만 조회함
+ * 4. 모든 유저의 주문 목록은 모든 shard에서 동시에 (createdAt, id) 순서로 limit개씩 조회한 뒤 합쳐서 앞의 limit개를 반환함 (scatter-gather)
+ * 5. lendit.order.shard.backfill이 true이면 시작할 때 기본 db의 주문을 식별자 순서로 읽어 shard로 옮김
+ * 6. lendit.order.shard.reconcile-interval 주기로 최근 lendit.order.shard.reconcile-window 동안의 shard의 주문 중 기본 db에 없는 주문을 지움
+ *
+ * shard에 접근하는 일은 모두 lendit.order.shard.threads개의 전용 스레드에서 실행하여,
+ * 요청 스레드에서 진행 중인 기본 db의 트랜잭션에 shard의 connection이 묶이지 않고 여러 shard를 동시에 다룸
+ *
+ * 기본 db의 orders 테이블은 상품, 유저와의 연관관계를 위해 계속 저장하며, shard는 주문 목록 조회를 나누어 맡음
+ * 커밋 직전에 shard에 저장하므로, 기본 db의 커밋이 실패한 뒤 shard의 주문을 지우기 전에 애플리케이션이 종료되면 shard에만 주문이 남을 수 있음
+ * 이렇게 남은 주문은 6.의 정리(reconcile)가 지움
+ *
+ * 일관성 규칙
+ * - 정리는 (현재 - lendit.order.shard.reconcile-margin) 이전의 주문만 확인하므로, 주문 트랜잭션은 그 시간 안에 커밋되어야 함
+ * - segment 파일로 옮겨진 주문(OrderArchive)은 기본 db에 없으므로, reconcile-window는 lendit.order.archive.retention보다 짧아야 함
+ */
+@Slf4j
+@Service
+public class OrderShardService {
+
+    private static final int BACKFILL_SIZE = 1000;
+
+    private static final int RECONCILE_SIZE = 1000;
+
+    private static final Comparator<OrderHistory> RECENT_FIRST = Comparator.comparing(OrderHistory::getCreatedAt)
+            .thenComparing(OrderHistory::getId)
+            .reversed();
+
+    private final OrdersShardRepository ordersShardRepository;
+
+    private final OrdersRepository ordersRepository;
+
+    private final boolean backfill;
+
+    private final Duration reconcileWindow;
+
+    private final Duration reconcileMargin;
+
+    private final ExecutorService executorService;
+
+    public OrderShardService(OrdersShardRepository ordersShardRepository, OrdersRepository ordersRepository,
+                             @Value("${lendit.order.shard.threads:4}") int threads,
+                             @Value("${lendit.order.shard.backfill:false}") boolean backfill,
+                             @Value("${lendit.order.shard.reconcile-window:1d}") Duration reconcileWindow,
+                             @Value("${lendit.order.shard.reconcile-margin:1m}") Duration reconcileMargin) {
+        this.ordersShardRepository = ordersShardRepository;
+        this.ordersRepository = ordersRepository;
+        this.backfill = backfill;
+        this.reconcileWindow = reconcileWindow;
+        this.reconcileMargin = reconcileMargin;
+        this.executorService = ordersShardRepository.isEnabled() ? Executors.newFixedThreadPool(threads) : null;
+    }
+
+    public boolean isEnabled() {
+        return ordersShardRepository.isEnabled();
+    }
+
+    /**
+     * 저장된 주문들을 구매자의 shard에 저장
+     * 주문을 저장한 트랜잭션 안에서 호출해야 하며, 트랜잭션이 커밋되기 직전에 저장함
+     */
+    public void append(List<Orders> ordersList) {
+        if (!isEnabled() || ordersList.isEmpty()) {
+            return;
+        }
+        Map<Integer, List<OrderHistory>> shards = groupByShard(ordersList.stream()
+                .map(OrderHistoryRow::new)
+                .collect(Collectors.toList()));
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            saveAll(shards);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+            private boolean saved;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                ordersRepository.flush();
+                saved = true;
+                saveAll(shards);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (saved && status == STATUS_ROLLED_BACK) {
+                    deleteAll(shards);
+                }
+            }
+        });
+    }
+
+    /**
+     * 유저의 주문 중 cursor 이전의 주문부터 limit개를 그 유저의 shard에서 조회, cursor가 없으면 가장 최근 주문부터 조회
+     */
+    public List<OrderHistory> findHistory(Long accountId, OrdersCursor cursor, int limit) {
+        int shard = ordersShardRepository.shardOf(accountId);
+        return await(executorService.submit(() -> ordersShardRepository.findHistoryByAccountId(shard, accountId, cursor, limit)));
+    }
+
+    /**
+     * 모든 유저의 주문 중 cursor 이전의 주문부터 limit개 조회, cursor가 없으면 가장 최근 주문부터 조회
+     * shard마다 앞의 limit개만 있으면 합친 결과의 앞의 limit개를 만들 수 있으므로 shard별로 limit개씩 조회하여 합침
+     */
+    public List<OrderHistory> findAllHistory(OrdersCursor cursor, int limit) {
+        List<Future<List<OrderHistory>>> futures = new ArrayList<>();
+        for (int shard = 0; shard < ordersShardRepository.getShardCount(); shard++) {
+            int target = shard;
+            futures.add(executorService.submit(() -> ordersShardRepository.findHistory(target, cursor, limit)));
+        }
+        List<OrderHistory> histories = new ArrayList<>();
+        for (Future<List<OrderHistory>> future : futures) {
+            histories.addAll(await(future));
+        }
+        histories.sort(RECENT_FIRST);
+        return histories.size() > limit ? histories.subList(0, limit) : histories;
+    }
+
+    /**
+     * lendit.order.shard.backfill이 true이면 시작할 때 기본 db의 주문을 shard로 옮김
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (isEnabled() && backfill) {
+            backfill();
+        }
+    }
+
+    /**
+     * 기본 db의 주문을 식별자 순서로 BACKFILL_SIZE개씩 읽어 shard로 옮기고, 옮긴 주문의 수를 반환
+     * shard에 같은 주문이 있으면 다시 저장하므로 여러 번 실행해도 결과가 같음
+     */
+    public long backfill() {
+        long lastId = 0L;
+        long count = 0L;
+        List<OrderHistory> histories;
+        do {
+            histories = ordersRepository.findHistoryAfterId(lastId, PageRequest.of(0, BACKFILL_SIZE));
+            if (histories.isEmpty()) {
+                break;
+            }
+            saveAll(groupByShard(histories));
+            lastId = histories.get(histories.size() - 1).getId();
+            count += histories.size();
+        } while (histories.size() == BACKFILL_SIZE);
+        log.info("copied {} orders to {} shards", count, ordersShardRepository.getShardCount());
+        return count;
+    }
+
+    @Scheduled(fixedDelayString = "${lendit.order.shard.reconcile-interval:600000}")
+    public void reconcile() {
+        if (!isEnabled()) {
+            return;
+        }
+        try {
+            reconcile(LocalDateTime.now());
+        } catch (RuntimeException e) {
+            log.warn("order shard reconcile failed, retry on next run", e);
+        }
+    }
+
+    /**
+     * now를 기준으로 주문 시간이 (now - reconcile-window) ~ (now - reconcile-margin)인 shard의 주문 중 기본 db에 없는 주문을 지우고, 지운 주문의 수를 반환
+     * shard마다 (createdAt, id) 순서로 RECONCILE_SIZE개씩 읽어 기본 db에 있는 식별자를 한 번에 조회함
+     */
+    public synchronized int reconcile(LocalDateTime now) {
+        LocalDateTime to = now.minus(reconcileMargin);
+        int deleted = 0;
+        for (int shard = 0; shard < ordersShardRepository.getShardCount(); shard++) {
+            int target = shard;
+            OrdersCursor after = new OrdersCursor(now.minus(reconcileWindow), 0L);
+            List<OrderHistory> histories;
+            do {
+                OrdersCursor cursor = after;
+                histories = await(executorService.submit(() -> ordersShardRepository.findHistoryAfter(target, cursor, to, RECONCILE_SIZE)));
+                if (histories.isEmpty()) {
+                    break;
+                }
+                List<Long> ids = histories.stream()
+                        .map(OrderHistory::getId)
+                        .collect(Collectors.toList());
+                Set<Long> missing = new TreeSet<>(ids);
+                missing.removeAll(ordersRepository.findIdsByIdIn(ids));
+                if (!missing.isEmpty()) {
+                    await(executorService.submit(() -> ordersShardRepository.deleteAllById(target, missing)));
+                    deleted += missing.size();
+                }
+                OrderHistory last = histories.get(histories.size() - 1);
+                after = new OrdersCursor(last.getCreatedAt(), last.getId());
+            } while (histories.size() == RECONCILE_SIZE);
+        }
+        if (deleted > 0) {
+            log.warn("deleted {} orders found only in shards", deleted);
+        }
+        return deleted;
+    }
+
+    @PreDestroy
+    public void close() {
+        if (executorService != null) {
+            executorService.shutdownNow();
+        }
+    }
+
+    private Map<Integer, List<OrderHistory>> groupByShard(List<OrderHistory> histories) {
+        return histories.stream()
+                .collect(Collectors.groupingBy(e -> ordersShardRepository.shardOf(e.getAccountId()), TreeMap::new, Collectors.toList()));
+    }
+
+    private void saveAll(Map<Integer, List<OrderHistory>> shards) {
+        List<Future<?>> futures = new ArrayList<>();
+        shards.forEach((shard, histories) -> futures.add(executorService.submit(() -> ordersShardRepository.saveAll(shard, histories))));
+        futures.forEach(this::await);
+    }
+
+    private void deleteAll(Map<Integer, List<OrderHistory>> shards) {
+        shards.forEach((shard, histories) -> {
+            try {
+                await(executorService.submit(() -> ordersShardRepository.deleteAllById(shard, histories.stream()
+                        .map(OrderHistory::getId)
+                        .collect(Collectors.toList()))));
+            } catch (RuntimeException e) {
+                log.warn("failed to delete {} rolled back orders from shard {}", histories.size(), shard, e);
+            }
+        });
+    }
+
+    private <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package me.mugon.lendit.api.snapshot;
+
+import lombok.extern.slf4j.Slf4j;
+import me.mugon.lendit.api.cache.ProductDetailCache;
+import me.mugon.lendit.api.search.ProductSearchIndex;
+import me.mugon.lendit.api.search.ProductSortIndex;
+import me.mugon.lendit.domain.product.ProductCatalogFingerprint;
+import me.mugon.lendit.domain.product.ProductCatalogSnapshot;
+import me.mugon.lendit.domain.product.ProductRepository;
+import me.mugon.lendit.domain.product.ProductVersion;
+import me.mugon.lendit.web.dto.product.ProductCatalogResponseDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 상품 목록을 주기적으로 스냅샷 파일(ProductCatalogSnapshot)로 쓰고, 애플리케이션이 시작될 때 스냅샷으로 색인과 캐시를 채움
+ * 시작할 때마다 상품 이름 검색 색인, 가격, 등록 일시 정렬 색인을 db에서 모두 읽어 다시 만들고, 개별 상품 조회 캐시가 비어 있기 때문에 구현
+ * lendit.product.snapshot.enabled가 true인 경우에만 사용함
+ *
+ * 동작 방식
+ * 1. lendit.product.snapshot.interval 주기와 애플리케이션이 종료될 때, 하나의 읽기 전용 트랜잭션에서 상품 수, 가장 큰 식별자, 버전의 합(ProductCatalogFingerprint)과
+ *    모든 상품을 식별자 구간별로 읽어 스냅샷 파일로 씀, 읽는 동안 상품 테이블이 바뀌었으면 쓰지 않고 다음 주기에 다시 씀
+ * 2. 애플리케이션이 요청을 받기 전(빈을 초기화할 때) 스냅샷 파일을 매핑하여 열고, 스냅샷의 값이 지금 상품 테이블의 값과 같은 경우에만
+ *    스냅샷의 상품으로 상품 이름 검색 색인, 정렬 색인, 개별 상품 조회 캐시를 채움, 색인은 시작할 때 db에서 다시 만들지 않음
+ *    파일이 없거나, 손상되었거나, 상품 테이블과 다르면 스냅샷을 사용하지 않고 기존처럼 db에서 색인을 만듦
+ * 3. 애플리케이션이 시작되면 별도의 스레드에서 스냅샷의 상품 식별자, 버전을 db와 식별자 구간별로 비교하고,
+ *    한쪽에만 있거나 db의 버전이 스냅샷의 버전보다 낮은 상품만 db에서 다시 읽어 색인에 반영하고(db에 없으면 색인에서 제거) 캐시에서 지움
+ *    db의 버전이 스냅샷의 버전과 같거나 높은 상품은 시작한 뒤 애플리케이션이 수정하며 색인과 캐시에 이미 반영했으므로 건너뜀
+ *    시작한 뒤 등록된 상품(스냅샷의 가장 큰 식별자보다 큰 식별자)은 비교하지 않으며, 시작한 뒤 삭제된 상품은 다른 상품으로 셈
+ *
+ * 재고 엔진(InventoryEngine)의 재고는 주문마다 바뀌고 db에 늦게 반영되므로 스냅샷으로 채우지 않고 기존처럼 db에서 읽음
+ * 상품 테이블과 같은지 확인하므로, 다시 시작할 때 db가 비어 있는 경우(ddl-auto: create인 메모리 db)에는 스냅샷을 사용하지 않음
+ * 따라서 다시 시작해도 상품이 남아 있는 db(파일이나 서버 db, ddl-auto: update 또는 none)에서만 효과가 있음
+ */
+@Slf4j
+@Service
+public class ProductCatalogSnapshotService {
+
+    private final ProductRepository productRepository;
+
+    private final ProductSearchIndex productSearchIndex;
+
+    private final ProductSortIndex productSortIndex;
+
+    private final ProductDetailCache productDetailCache;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+
+    private final Path path;
+
+    private final int chunkSize;
+
+    private final ExecutorService verifyExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "product-snapshot-verify");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** 시작할 때 색인과 캐시를 채운 스냅샷, db와 비교가 끝나면 null */
+    private volatile ProductCatalogSnapshot loaded;
+
+    public ProductCatalogSnapshotService(ProductRepository productRepository, ProductSearchIndex productSearchIndex, ProductSortIndex productSortIndex,
+                                         ProductDetailCache productDetailCache, PlatformTransactionManager transactionManager,
+                                         @Value("${lendit.product.snapshot.enabled:false}") boolean enabled,
+                                         @Value("${lendit.product.snapshot.path:snapshot/products.snap}") String path,
+                                         @Value("${lendit.product.snapshot.chunk-size:10000}") int chunkSize) {
+        this.productRepository = productRepository;
+        this.productSearchIndex = productSearchIndex;
+        this.productSortIndex = productSortIndex;
+        this.productDetailCache = productDetailCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.enabled = enabled;
+        this.path = Paths.get(path);
+        this.chunkSize = chunkSize;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            load();
+        } catch (RuntimeException e) {
+            log.warn("failed to load product catalog snapshot {}, rebuild from db", path, e);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void verifyInBackground() {
+        if (loaded == null) {
+            return;
+        }
+        verifyExecutor.execute(() -> {
+            try {
+                verify();
+            } catch (RuntimeException e) {
+                log.warn("failed to verify product catalog snapshot {}", path, e);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${lendit.product.snapshot.interval:300000}", initialDelayString = "${lendit.product.snapshot.interval:300000}")
+    public void writeOnSchedule() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            write();
+        } catch (RuntimeException e) {
+            log.warn("product catalog snapshot failed, retry on next run", e);
+        }
+    }
+
+    /**
+     * 종료하기 전에 마지막으로 스냅샷을 씀
+     */
+    @PreDestroy
+    public void stop() {
+        verifyExecutor.shutdownNow();
+        writeOnSchedule();
+    }
+
+    /**
+     * 모든 상품을 스냅샷 파일로 쓰고 쓴 상품 수를 반환, 읽는 동안 상품 테이블이 바뀌었으면 쓰지 않고 Optional.empty()를 반환
+     * 트랜잭션 격리 수준이 REPEATABLE READ여도 새로 등록된 상품이 보이는 db가 있으므로, 읽기 전과 후의 ProductCatalogFingerprint를 비교함
+     */
+    public synchronized Optional<Integer> write() {
+        long start = System.currentTimeMillis();
+        Optional<ProductCatalogSnapshot> snapshot = transactionTemplate.execute(status -> {
+            ProductCatalogFingerprint fingerprint = productRepository.findCatalogFingerprint();
+            List<ProductCatalogResponseDto> products = new ArrayList<>((int) fingerprint.getCount());
+            Optional<Long> minId = productRepository.findMinId();
+            if (minId.isPresent()) {
+                for (long fromId = minId.get(); fromId <= fingerprint.getMaxId(); fromId += chunkSize) {
+                    products.addAll(productRepository.findCatalogByIdBetween(fromId, Math.min(fromId + chunkSize - 1, fingerprint.getMaxId())));
+                }
+            }
+            if (products.size() != fingerprint.getCount() || !fingerprint.equals(productRepository.findCatalogFingerprint())) {
+                return Optional.<ProductCatalogSnapshot>empty();
+            }
+            try {
+                return Optional.of(ProductCatalogSnapshot.write(path, fingerprint, products));
+            } catch (IOException e) {
+                throw new UncheckedIOException("failed to write product catalog snapshot: " + path, e);
+            }
+        });
+        if (!snapshot.isPresent()) {
+            log.info("product catalog changed while writing snapshot, retry on next run");
+            return Optional.empty();
+        }
+        log.info("wrote product catalog snapshot {} with {} products in {} ms", path, snapshot.get().getRecordCount(), System.currentTimeMillis() - start);
+        return Optional.of(snapshot.get().getRecordCount());
+    }
+
+    /**
+     * 스냅샷 파일이 지금 상품 테이블과 같으면 스냅샷의 상품으로 색인과 캐시를 채우고 true를 반환
+     */
+    public synchronized boolean load() {
+        if (!Files.exists(path)) {
+            log.info("no product catalog snapshot {}, rebuild from db", path);
+            return false;
+        }
+        long start = System.currentTimeMillis();
+        ProductCatalogSnapshot snapshot;
+        try {
+            snapshot = ProductCatalogSnapshot.open(path);
+        } catch (IOException e) {
+            log.warn("ignore invalid product catalog snapshot {}, rebuild from db", path, e);
+            return false;
+        }
+        ProductCatalogFingerprint fingerprint = productRepository.findCatalogFingerprint();
+        if (!snapshot.getFingerprint().equals(fingerprint)) {
+            log.info("product catalog snapshot {} written at {} does not match db ({} != {}), rebuild from db",
+                    path, snapshot.getWrittenAt(), snapshot.getFingerprint(), fingerprint);
+            return false;
+        }
+        List<ProductCatalogResponseDto> products = snapshot.readAll();
+        productSearchIndex.load(products);
+        productSortIndex.load(products);
+        productDetailCache.load(products);
+        loaded = snapshot;
+        log.info("loaded {} products from product catalog snapshot {} written at {} in {} ms",
+                products.size(), path, snapshot.getWrittenAt(), System.currentTimeMillis() - start);
+        return true;
+    }
+
+    /**
+     * 시작할 때 읽은 스냅샷의 상품 식별자, 버전을 db와 비교하고, 한쪽에만 있거나 db의 버전이 스냅샷의 버전보다 낮은 상품 수를 반환
+     * 그 상품들만 db에서 다시 읽어 색인에 반영하고 캐시에서 지움, 색인 전체를 다시 만들지 않음
+     */
+    public synchronized int verify() {
+        ProductCatalogSnapshot snapshot = loaded;
+        if (snapshot == null) {
+            return 0;
+        }
+        long start = System.currentTimeMillis();
+        List<Long> mismatches = new ArrayList<>();
+        int index = 0;
+        int count = snapshot.getRecordCount();
+        long maxId = snapshot.getFingerprint().getMaxId();
+        Optional<Long> minId = productRepository.findMinId();
+        long firstId = count == 0 ? minId.orElse(maxId + 1) : Math.min(snapshot.getId(0), minId.orElse(snapshot.getId(0)));
+        for (long fromId = firstId; fromId <= maxId; fromId += chunkSize) {
+            long toId = Math.min(fromId + chunkSize - 1, maxId);
+            for (ProductVersion productVersion : productRepository.findVersionsByIdBetween(fromId, toId)) {
+                while (index < count && snapshot.getId(index) < productVersion.getId()) { // 스냅샷에만 있는 상품
+                    mismatches.add(snapshot.getId(index++));
+                }
+                if (index < count && snapshot.getId(index) == productVersion.getId()) {
+                    if (isOlder(productVersion.getVersion(), snapshot.getVersion(index))) {
+                        mismatches.add(productVersion.getId());
+                    }
+                    index++;
+                } else { // db에만 있는 상품
+                    mismatches.add(productVersion.getId());
+                }
+            }
+            while (index < count && snapshot.getId(index) <= toId) {
+                mismatches.add(snapshot.getId(index++));
+            }
+        }
+        while (index < count) {
+            mismatches.add(snapshot.getId(index++));
+        }
+
+        if (!mismatches.isEmpty()) {
+            log.warn("{} products differ from product catalog snapshot {}, reindex from db", mismatches.size(), path);
+            reindex(mismatches);
+        }
+        loaded = null;
+        log.info("verified product catalog snapshot {} with {} products in {} ms", path, count, System.currentTimeMillis() - start);
+        return mismatches.size();
+    }
+
+    /**
+     * 상품들을 chunk-size개씩 db에서 읽어 검색, 정렬 색인에 반영하고, db에 없는 상품은 색인에서 제거한 뒤 캐시에서 지움
+     */
+    private void reindex(List<Long> productIds) {
+        for (int from = 0; from < productIds.size(); from += chunkSize) {
+            List<Long> chunk = productIds.subList(from, Math.min(from + chunkSize, productIds.size()));
+            Set<Long> removed = new HashSet<>(chunk);
+            for (ProductCatalogResponseDto product : productRepository.findCatalogByIdIn(chunk)) {
+                productSearchIndex.index(product.getId(), product.getName());
+                productSortIndex.index(product.getId(), product.getPrice(), product.getCreatedAt());
+                removed.remove(product.getId());
+            }
+            for (Long productId : removed) {
+                productSearchIndex.remove(productId);
+                productSortIndex.remove(productId);
+            }
+            productDetailCache.evictAll(chunk);
+        }
+    }
+
+    /**
+     * db의 버전이 스냅샷의 버전보다 낮은지 확인, 어느 한쪽이 null이면 비교할 수 없으므로 다르면 낮은 것으로 봄
+     */
+    private static boolean isOlder(Long dbVersion, Long snapshotVersion) {
+        if (dbVersion == null || snapshotVersion == null) {
+            return !Objects.equals(dbVersion, snapshotVersion);
+        }
+        return dbVersion < snapshotVersion;
+    }
+}
@@ -0,0 +1,200 @@
+package me.mugon.lendit.api.summary;
+
+import lombok.extern.slf4j.Slf4j;
+import me.mugon.lendit.domain.account.AccountPersistedEvent;
+import me.mugon.lendit.domain.archive.ArchivedOrder;
+import me.mugon.lendit.domain.common.BaseValidator;
+import me.mugon.lendit.domain.order.Orders;
+import me.mugon.lendit.domain.summary.*;
+import me.mugon.lendit.web.dto.summary.BuyerSummaryResponseDto;
+import me.mugon.lendit.web.dto.summary.SellerSummaryResponseDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.hateoas.Link;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static me.mugon.lendit.api.error.ErrorMessageConstant.USERNOTFOUND;
+
+/**
+ * 구매자별 주문 요약(BuyerSummary)과 판매자별 판매 요약(SellerSummary)을 관리
+ * Account.ordersSet이나 Product.ordersList를 모두 읽어 더하지 않고 한 번의 조회로 합계를 반환하기 위해 구현
+ *
+ * 동작 방식
+ * 1. 유저가 저장되면 같은 트랜잭션에서 0으로 초기화된 요약을 만듦
+ * 2. 주문이 등록되면 같은 트랜잭션에서 구매자, 판매자별 변동을 모아 요약에 더함 (JDBC batch)
+ *    구매자 요약, 판매자 요약 순서로, 각각 식별자 순서로 row lock을 잡아 주문끼리 deadlock이 생기지 않음
+ * 3. 유저가 삭제되면 요약도 삭제
+ * 4. rebuild()는 유저 식별자를 lendit.summary.rebuild-chunk-size 크기의 구간으로 나누어,
+ *    lendit.summary.rebuild-threads개의 스레드에서 구간별 트랜잭션으로 요약을 Orders로부터 다시 계산함
+ *    lendit.summary.rebuild-cron을 지정하면 주기적으로 실행함 (기본값은 실행하지 않음)
+ *    segment 파일로 옮겨진 주문(OrderArchiveService)은 orders 테이블에 없으므로, 옮길 때 기록해 둔 유저별 합계를 더함
+ *
+ * 다시 계산하는 구간은 먼저 요약에 row lock을 잡기 때문에, 그 구간의 유저가 주문하면 계산이 끝날 때까지 주문 트랜잭션이 기다림
+ */
+@Slf4j
+@Service
+public class SalesSummaryService {
+
+    private final BuyerSummaryRepository buyerSummaryRepository;
+
+    private final SellerSummaryRepository sellerSummaryRepository;
+
+    private final SalesSummaryBatchRepository salesSummaryBatchRepository;
+
+    private final BaseValidator baseValidator;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int rebuildThreads;
+
+    private final long rebuildChunkSize;
+
+    public SalesSummaryService(BuyerSummaryRepository buyerSummaryRepository, SellerSummaryRepository sellerSummaryRepository,
+                               SalesSummaryBatchRepository salesSummaryBatchRepository, BaseValidator baseValidator,
+                               TransactionTemplate transactionTemplate,
+                               @Value("${lendit.summary.rebuild-threads:4}") int rebuildThreads,
+                               @Value("${lendit.summary.rebuild-chunk-size:1000}") long rebuildChunkSize) {
+        this.buyerSummaryRepository = buyerSummaryRepository;
+        this.sellerSummaryRepository = sellerSummaryRepository;
+        this.salesSummaryBatchRepository = salesSummaryBatchRepository;
+        this.baseValidator = baseValidator;
+        this.transactionTemplate = transactionTemplate;
+        this.rebuildThreads = rebuildThreads;
+        this.rebuildChunkSize = rebuildChunkSize;
+    }
+
+    /**
+     * 유저가 저장되면 0으로 초기화된 구매자, 판매자 요약을 만듦
+     */
+    public void register(Long accountId) {
+        salesSummaryBatchRepository.register(accountId);
+    }
+
+    /**
+     * 요약을 미리 만들어 두기 때문에 주문 트랜잭션에서는 UPDATE만 실행되어, 같은 판매자의 첫 주문들이 동시에 요약을 만들며 충돌하지 않음
+     */
+    @EventListener
+    public void onAccountPersisted(AccountPersistedEvent event) {
+        register(event.getAccount().getId());
+    }
+
+    /**
+     * 유저가 삭제되면 요약을 삭제
+     */
+    public void remove(Long accountId) {
+        salesSummaryBatchRepository.remove(accountId);
+    }
+
+    /**
+     * 저장된 주문들을 구매자, 판매자(상품을 등록한 유저)별로 모아 요약에 더함
+     * 주문을 저장한 트랜잭션 안에서 호출해야 하며, 식별자 순서로 갱신하기 위해 TreeMap을 사용
+     */
+    public void record(List<Orders> ordersList) {
+        Map<Long, SalesDelta> buyers = new TreeMap<>();
+        Map<Long, SalesDelta> sellers = new TreeMap<>();
+        for (Orders orders : ordersList) {
+            buyers.computeIfAbsent(orders.getAccount().getId(), id -> new SalesDelta()).add(orders.getNumber(), orders.getTotal());
+            sellers.computeIfAbsent(orders.getProduct().getAccount().getId(), id -> new SalesDelta()).add(orders.getNumber(), orders.getTotal());
+        }
+        salesSummaryBatchRepository.addToBuyers(buyers);
+        salesSummaryBatchRepository.addToSellers(sellers);
+    }
+
+    /**
+     * segment 파일로 옮겨진 주문들을 구매자, 판매자별로 모아 옮겨진 주문의 합계에 더함
+     * 주문을 지우는 트랜잭션 안에서 호출해야 함
+     */
+    public void recordArchived(List<ArchivedOrder> archivedOrders) {
+        Map<Long, SalesDelta> buyers = new TreeMap<>();
+        Map<Long, SalesDelta> sellers = new TreeMap<>();
+        for (ArchivedOrder archivedOrder : archivedOrders) {
+            buyers.computeIfAbsent(archivedOrder.getAccountId(), id -> new SalesDelta()).add(archivedOrder.getNumber(), archivedOrder.getTotal());
+            sellers.computeIfAbsent(archivedOrder.getSellerId(), id -> new SalesDelta()).add(archivedOrder.getNumber(), archivedOrder.getTotal());
+        }
+        salesSummaryBatchRepository.addToArchived(buyers, sellers);
+    }
+
+    /**
+     * 구매자 요약 조회
+     * 1. url경로로 전달받은 유저의 id로 요약을 검색
+     * 2. 요약이 없다면 Body에 'message: 사용자를 찾을 수 없습니다.' 를 실어서 Bad Request와 함께 반환
+     * 3. HATEOAS를 위해 self, account 관계를 더하고, Self Descriptive Message를 위해 API Guide의 주소를 profile 관계로 명시하여 더함
+     * 4. 반환
+     */
+    public ResponseEntity<?> getBuyerSummary(Long accountId) {
+        Optional<BuyerSummary> optionalSummary = buyerSummaryRepository.findById(accountId);
+        if (!optionalSummary.isPresent()) {
+            return new ResponseEntity<>(baseValidator.returnErrorMessage(USERNOTFOUND), HttpStatus.BAD_REQUEST);
+        }
+        BuyerSummaryResource buyerSummaryResource = new BuyerSummaryResource(new BuyerSummaryResponseDto(optionalSummary.get()));
+        buyerSummaryResource.add(new Link("https://mkshin96.github.io/Coding-Task/#resources-accounts-buyer-summary").withRel("profile"));
+        return ResponseEntity.ok(buyerSummaryResource);
+    }
+
+    /**
+     * 판매자 요약 조회
+     * 구매자 요약 조회와 같은 순서로 처리함
+     */
+    public ResponseEntity<?> getSellerSummary(Long accountId) {
+        Optional<SellerSummary> optionalSummary = sellerSummaryRepository.findById(accountId);
+        if (!optionalSummary.isPresent()) {
+            return new ResponseEntity<>(baseValidator.returnErrorMessage(USERNOTFOUND), HttpStatus.BAD_REQUEST);
+        }
+        SellerSummaryResource sellerSummaryResource = new SellerSummaryResource(new SellerSummaryResponseDto(optionalSummary.get()));
+        sellerSummaryResource.add(new Link("https://mkshin96.github.io/Coding-Task/#resources-accounts-seller-summary").withRel("profile"));
+        return ResponseEntity.ok(sellerSummaryResource);
+    }
+
+    /**
+     * 모든 유저의 구매자, 판매자 요약을 Orders로부터 다시 계산
+     * 유저 식별자 구간별로 나누어 여러 스레드에서 계산하며, 구간마다 별도의 트랜잭션으로 처리하여 한 번에 잡는 lock의 범위를 줄임
+     */
+    @Scheduled(cron = "${lendit.summary.rebuild-cron:-}")
+    public void rebuild() {
+        Optional<long[]> optionalRange = salesSummaryBatchRepository.findAccountIdRange();
+        if (!optionalRange.isPresent()) {
+            return;
+        }
+        long[] range = optionalRange.get();
+        long start = System.currentTimeMillis();
+        ExecutorService executorService = Executors.newFixedThreadPool(rebuildThreads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (long fromId = range[0]; fromId <= range[1]; fromId += rebuildChunkSize) {
+                long from = fromId;
+                long to = Math.min(fromId + rebuildChunkSize - 1, range[1]);
+                futures.add(executorService.submit(() -> {
+                    transactionTemplate.execute(status -> {
+                        salesSummaryBatchRepository.rebuildBuyers(from, to);
+                        return null;
+                    });
+                    transactionTemplate.execute(status -> {
+                        salesSummaryBatchRepository.rebuildSellers(from, to);
+                        return null;
+                    });
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            log.info("rebuilt sales summaries in {} chunks, {} ms", futures.size(), System.currentTimeMillis() - start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+}
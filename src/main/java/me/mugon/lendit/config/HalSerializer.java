@@ -0,0 +1,69 @@
+package me.mugon.lendit.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * 응답 Body를 Controller가 반환할 때와 같은 HAL+JSON 바이트로 직렬화하기 위해 선언
+ * Spring HATEOAS가 RequestMappingHandlerAdapter에 등록한 HAL 전용 MessageConverter를 그대로 사용하기 때문에
+ * 저장해 둔 바이트를 다시 내려줘도 원래 응답과 같은 형식(_links, _embedded)을 유지함
+ */
+@RequiredArgsConstructor
+@Component
+public class HalSerializer {
+
+    private final ObjectProvider<RequestMappingHandlerAdapter> handlerAdapterProvider;
+
+    @SuppressWarnings("unchecked")
+    public byte[] serialize(Object body) {
+        for (HttpMessageConverter<?> converter : handlerAdapterProvider.getObject().getMessageConverters()) {
+            if (converter.canWrite(body.getClass(), MediaTypes.HAL_JSON)) {
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                try {
+                    ((HttpMessageConverter<Object>) converter).write(body, MediaTypes.HAL_JSON, new ByteArrayOutputMessage(outputStream));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return outputStream.toByteArray();
+            }
+        }
+        throw new IllegalStateException(body.getClass() + "를 " + MediaTypes.HAL_JSON + "로 직렬화할 수 있는 MessageConverter가 없습니다.");
+    }
+
+    public MediaType getContentType() {
+        return MediaTypes.HAL_JSON;
+    }
+
+    private static class ByteArrayOutputMessage implements HttpOutputMessage {
+
+        private final OutputStream body;
+
+        private final HttpHeaders headers = new HttpHeaders();
+
+        private ByteArrayOutputMessage(OutputStream body) {
+            this.body = body;
+        }
+
+        @Override
+        public OutputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonIdentityInfo;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.ObjectIdGenerators;
 import lombok.*;
+import me.mugon.lendit.domain.common.IdGenerator;
 import me.mugon.lendit.domain.order.Orders;
 import me.mugon.lendit.domain.product.Product;
 import me.mugon.lendit.web.dto.account.AccountRequestDto;
@@ -16,12 +17,13 @@ import java.util.Set;
  * @author 신무곤
  */
 @Getter @NoArgsConstructor @AllArgsConstructor @Builder @EqualsAndHashCode(of = "id")
-@Entity @JsonIdentityInfo(scope = Account.class, generator = ObjectIdGenerators.PropertyGenerator.class, property = "id")
+@Entity @EntityListeners(AccountEntityListener.class) @JsonIdentityInfo(scope = Account.class, generator = ObjectIdGenerators.PropertyGenerator.class, property = "id")
 public class Account {
 
     /** 유저 테이블의 식별자로 사용될 변수 */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = IdGenerator.NAME)
+    @SequenceGenerator(name = IdGenerator.NAME, sequenceName = IdGenerator.SEQUENCE, allocationSize = IdGenerator.ALLOCATION_SIZE)
     private Long id;
 
     /** 유저가 사용할 이름을 담을 변수 */
@@ -36,10 +38,19 @@ public class Account {
     @JsonIgnore
     private String password;
 
-    /** 유저의 예치금 */
-    @Column
+    /**
+     * 유저의 예치금
+     * db에는 유저 생성 시의 예치금만 저장되고 이후의 변동은 예치금 원장(BalanceLedger)에 기록되기 때문에 수정되지 않도록 updatable = false로 설정
+     * 조회 시 AccountLoadedEvent를 받은 예치금 원장(BalanceLedgerService)이 원장으로 계산한 현재 예치금을 담음
+     */
+    @Column(updatable = false)
     private Long balance;
 
+    /** 현재 예치금을 담기 전 db에 저장된 유저 생성 시의 예치금 */
+    @Transient
+    @JsonIgnore
+    private Long openingBalance;
+
     /** 유저 역할
      *  현재는 {Role.USER}만 설정 가능
      */
@@ -69,10 +80,17 @@ public class Account {
 
     public void update(AccountRequestDto requestDto) {
         this.username = requestDto.getUsername();
-        this.balance = requestDto.getBalance();
+        if (requestDto.getBalance() != null) { // db에는 반영되지 않고 응답에 담길 값에만 반영됨, 실제 변경은 예치금 원장에 기록
+            this.balance = requestDto.getBalance();
+        }
+    }
+
+    public Long getOpeningBalance() {
+        return openingBalance == null ? balance : openingBalance;
     }
 
-    public void reduceBalance(Long total) {
-        this.balance -= total;
+    public void loadBalance(long currentBalance) {
+        this.openingBalance = getOpeningBalance();
+        this.balance = currentBalance;
     }
 }
\ No newline at end of file
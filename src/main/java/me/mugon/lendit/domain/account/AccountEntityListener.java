@@ -0,0 +1,30 @@
+package me.mugon.lendit.domain.account;
+
+import org.springframework.context.ApplicationEventPublisher;
+
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+
+/**
+ * Account의 JPA 생명주기 이벤트를 Spring 이벤트(AccountPersistedEvent, AccountLoadedEvent)로 발행
+ * domain이 예치금 원장, 판매 요약 같은 api 계층의 서비스를 직접 알지 않도록, 서비스는 @EventListener로 이벤트를 받음
+ * Hibernate가 Spring bean으로 생성하며, 이벤트는 발행한 스레드에서 바로 처리되므로 같은 트랜잭션 안에서 실행됨
+ */
+public class AccountEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public AccountEntityListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    public void persisted(Account account) {
+        eventPublisher.publishEvent(new AccountPersistedEvent(account));
+    }
+
+    @PostLoad
+    public void loaded(Account account) {
+        eventPublisher.publishEvent(new AccountLoadedEvent(account));
+    }
+}
@@ -0,0 +1,13 @@
+package me.mugon.lendit.domain.account;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Account를 조회한 직후(@PostLoad) 발행되는 이벤트, 받는 쪽에서 db에 저장되지 않는 값(현재 예치금 등)을 담음
+ */
+@Getter @AllArgsConstructor
+public class AccountLoadedEvent {
+
+    private final Account account;
+}
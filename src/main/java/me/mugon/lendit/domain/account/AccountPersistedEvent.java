@@ -0,0 +1,13 @@
+package me.mugon.lendit.domain.account;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Account가 저장된 직후(@PostPersist) 같은 트랜잭션 안에서 발행되는 이벤트
+ */
+@Getter @AllArgsConstructor
+public class AccountPersistedEvent {
+
+    private final Account account;
+}
@@ -0,0 +1,33 @@
+package me.mugon.lendit.domain.archive;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import me.mugon.lendit.domain.order.OrderHistory;
+
+import java.time.LocalDateTime;
+
+/**
+ * orders 테이블에서 segment 파일로 옮겨진 주문
+ * 옮긴 뒤에는 상품이 수정되거나 삭제될 수 있으므로 옮길 때의 상품 이름과 가격, 판매자를 함께 보관함
+ */
+@Getter @AllArgsConstructor
+public class ArchivedOrder implements OrderHistory {
+
+    private final Long id;
+
+    private final Long accountId;
+
+    private final Long sellerId;
+
+    private final Long productId;
+
+    private final String productName;
+
+    private final Long productPrice;
+
+    private final Long number;
+
+    private final Long total;
+
+    private final LocalDateTime createdAt;
+}
@@ -0,0 +1,209 @@
+package me.mugon.lendit.domain.archive;
+
+import lombok.extern.slf4j.Slf4j;
+import me.mugon.lendit.domain.order.OrderHistory;
+import me.mugon.lendit.domain.order.OrdersCursor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 옮겨진 주문을 담은 segment 파일(OrderArchiveSegment)들을 관리하고 읽는 API
+ * 시작할 때 lendit.order.archive.directory의 segment 파일을 모두 열어 두며, 새 segment는 파일을 추가하는 방식으로만 늘어남
+ * 옮기는 기능(lendit.order.archive.enabled)을 끄더라도 이미 옮겨진 주문을 조회할 수 있도록 파일이 있으면 항상 읽음
+ *
+ * 옮길 때마다 segment가 늘어나므로, 주문이 적은 segment들은 compact()로 하나의 segment로 합침
+ * 합친 segment를 추가한 뒤 합쳐진 segment를 지우기 때문에, 그 사이에 조회하거나 지우기 전에 애플리케이션이 종료되면 같은 주문이 두 segment에 있을 수 있음
+ * 따라서 조회하고 합칠 때 식별자로 중복을 제거함
+ */
+@Slf4j
+@Component
+public class OrderArchive {
+
+    private static final Comparator<OrderHistory> RECENT_FIRST = Comparator.comparing(OrderHistory::getCreatedAt)
+            .thenComparing(OrderHistory::getId)
+            .reversed();
+
+    private final Path directory;
+
+    private final int blockSize;
+
+    private final List<OrderArchiveSegment> segments = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    public OrderArchive(@Value("${lendit.order.archive.directory:archive/orders}") String directory,
+                        @Value("${lendit.order.archive.block-size:256}") int blockSize) {
+        this.directory = Paths.get(directory);
+        this.blockSize = blockSize;
+        load();
+    }
+
+    /**
+     * 디렉토리의 segment 파일을 모두 열고, 쓰다가 남은 임시 파일은 지움
+     */
+    private void load() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory)) {
+            List<Path> sorted = new ArrayList<>();
+            paths.forEach(sorted::add);
+            Collections.sort(sorted);
+            for (Path path : sorted) {
+                if (path.getFileName().toString().endsWith(OrderArchiveSegment.EXTENSION)) {
+                    segments.add(OrderArchiveSegment.open(path));
+                } else if (path.getFileName().toString().endsWith(".tmp")) {
+                    Files.delete(path);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("failed to load order archive: " + directory, e);
+        }
+        log.info("loaded {} order archive segments from {}", segments.size(), directory);
+    }
+
+    public boolean isEmpty() {
+        return segments.isEmpty();
+    }
+
+    /**
+     * 주문들을 새 segment 파일로 씀
+     * 쓴 segment는 publish()를 호출하기 전까지 조회되지 않으며, 주문을 지우는 트랜잭션이 실패하면 discard()로 지워야 함
+     */
+    public OrderArchiveSegment write(List<ArchivedOrder> archivedOrders) {
+        try {
+            Files.createDirectories(directory);
+            String name = String.format("orders-%019d-%06d%s", System.currentTimeMillis(), sequence.incrementAndGet() % 1_000_000,
+                    OrderArchiveSegment.EXTENSION);
+            return OrderArchiveSegment.write(directory.resolve(name), archivedOrders, blockSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("failed to write order archive segment", e);
+        }
+    }
+
+    public void publish(OrderArchiveSegment segment) {
+        segments.add(segment);
+    }
+
+    public void discard(OrderArchiveSegment segment) {
+        segments.remove(segment);
+        try {
+            Files.deleteIfExists(segment.getPath());
+        } catch (IOException e) {
+            log.warn("failed to delete order archive segment {}", segment.getPath(), e);
+        }
+    }
+
+    public int size() {
+        return segments.size();
+    }
+
+    /**
+     * 유저의 옮겨진 주문 중 cursor(createdAt, id) 이전의 주문부터 최근 순으로 limit개 조회, cursor가 없으면 가장 최근 주문부터 조회
+     * 1. footer의 유저, 주문 시간 범위로 찾는 주문이 있을 수 있는 segment만 고름
+     * 2. 고른 segment를 가장 늦은 주문 시간의 역순으로 limit개씩 읽어 합침
+     * 3. limit개를 찾은 뒤 남은 segment의 주문이 모두 limit번째 주문보다 이전이면 더 읽지 않음
+     */
+    public List<OrderHistory> findHistory(Long accountId, OrdersCursor cursor, int limit) {
+        List<OrderArchiveSegment> candidates = new ArrayList<>();
+        for (OrderArchiveSegment segment : segments) {
+            if (segment.mayContain(accountId, cursor)) {
+                candidates.add(segment);
+            }
+        }
+        candidates.sort(Comparator.comparingLong(OrderArchiveSegment::getMaxTime).reversed());
+
+        Map<Long, OrderHistory> found = new HashMap<>();
+        List<OrderHistory> histories = new ArrayList<>();
+        for (OrderArchiveSegment segment : candidates) {
+            if (histories.size() >= limit && segment.isOlderThan(histories.get(limit - 1))) {
+                break;
+            }
+            segment.findHistory(accountId, cursor, limit).forEach(e -> found.putIfAbsent(e.getId(), e));
+            histories = new ArrayList<>(found.values());
+            histories.sort(RECENT_FIRST);
+        }
+        return histories.size() > limit ? histories.subList(0, limit) : histories;
+    }
+
+    /**
+     * 최근 순으로 정렬된 orders 테이블의 주문 목록에 옮겨진 주문을 합쳐 앞의 limit개를 반환
+     * segment를 쓴 뒤 주문을 지우기 전에 애플리케이션이 종료된 경우 같은 주문이 양쪽에 있을 수 있으므로 식별자로 중복을 제거함
+     */
+    public List<OrderHistory> merge(List<OrderHistory> histories, Long accountId, OrdersCursor cursor, int limit) {
+        if (segments.isEmpty()) {
+            return histories;
+        }
+        Map<Long, OrderHistory> merged = new LinkedHashMap<>();
+        histories.forEach(e -> merged.put(e.getId(), e));
+        findHistory(accountId, cursor, limit).forEach(e -> merged.putIfAbsent(e.getId(), e));
+        List<OrderHistory> result = new ArrayList<>(merged.values());
+        result.sort(RECENT_FIRST);
+        return result.size() > limit ? result.subList(0, limit) : result;
+    }
+
+    /**
+     * 주문이 minRecords개보다 적은 segment들을 합쳐 새 segment로 쓰고, 합친 segment의 수를 반환
+     * 1. 오래된 segment부터 주문이 minRecords개보다 적은 segment를 주문 수의 합이 minRecords개 이상이 될 때까지 모음
+     * 2. 두 개 이상 모았으면 모은 segment의 주문을 식별자로 중복을 제거하여 새 segment로 씀
+     * 3. 새 segment를 조회 대상에 추가한 뒤 모은 segment를 조회 대상에서 빼고 파일을 지움
+     * 4. 합칠 segment가 없을 때까지 반복함
+     * 옮기는 작업과 동시에 실행해도 새로 추가되는 segment는 이번에 모은 segment에 포함되지 않으므로 주문이 빠지지 않음
+     */
+    public synchronized int compact(int minRecords) {
+        int compacted = 0;
+        List<OrderArchiveSegment> group;
+        while ((group = findCompactionGroup(minRecords)).size() > 1) {
+            Map<Long, ArchivedOrder> archivedOrders = new LinkedHashMap<>();
+            group.forEach(segment -> segment.readAll().forEach(e -> archivedOrders.putIfAbsent(e.getId(), e)));
+            OrderArchiveSegment merged = write(new ArrayList<>(archivedOrders.values()));
+            segments.add(merged);
+            segments.removeAll(group);
+            for (OrderArchiveSegment segment : group) {
+                try {
+                    Files.deleteIfExists(segment.getPath());
+                } catch (IOException e) {
+                    log.warn("failed to delete compacted order archive segment {}", segment.getPath(), e);
+                }
+            }
+            compacted += group.size();
+            log.info("compacted {} order archive segments into {} ({} orders)", group.size(), merged.getPath(), merged.getRecordCount());
+        }
+        return compacted;
+    }
+
+    private List<OrderArchiveSegment> findCompactionGroup(int minRecords) {
+        List<OrderArchiveSegment> sorted = new ArrayList<>(segments);
+        sorted.sort(Comparator.comparing(OrderArchiveSegment::getPath));
+        List<OrderArchiveSegment> group = new ArrayList<>();
+        long total = 0;
+        for (OrderArchiveSegment segment : sorted) {
+            if (segment.getRecordCount() >= minRecords) {
+                continue;
+            }
+            group.add(segment);
+            total += segment.getRecordCount();
+            if (total >= minRecords) {
+                break;
+            }
+        }
+        return group;
+    }
+
+    /**
+     * 모든 segment 파일을 지움 (테스트에서 사용)
+     */
+    public void deleteAll() {
+        new ArrayList<>(segments).forEach(this::discard);
+    }
+}
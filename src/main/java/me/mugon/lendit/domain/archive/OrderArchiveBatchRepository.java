@@ -0,0 +1,50 @@
+package me.mugon.lendit.domain.archive;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 보관 기간이 지난 주문을 읽고 지우기 위해 선언
+ * 주기적으로 실행되는 작업이 영속성 컨텍스트를 거치지 않고, Orders를 읽을 때 상품과 유저의 EAGER 연관관계를 함께 읽지 않도록 JdbcTemplate을 사용함
+ */
+@RequiredArgsConstructor
+@Repository
+public class OrderArchiveBatchRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 주문 시간이 before 이전인 주문을 식별자 순서로 limit개 조회
+     */
+    public List<ArchivedOrder> findCreatedBefore(LocalDateTime before, int limit) {
+        return jdbcTemplate.query("select o.id, o.account_id, p.account_id as seller_id, o.product_id, p.name, p.price, o.number, o.total, o.created_at " +
+                        "from orders o join product p on p.id = o.product_id " +
+                        "where o.created_at < ? order by o.id limit ?",
+                (rs, rowNum) -> new ArchivedOrder(
+                        rs.getLong("id"),
+                        rs.getLong("account_id"),
+                        rs.getLong("seller_id"),
+                        rs.getLong("product_id"),
+                        rs.getString("name"),
+                        rs.getLong("price"),
+                        rs.getLong("number"),
+                        rs.getLong("total"),
+                        rs.getTimestamp("created_at").toLocalDateTime()),
+                Timestamp.valueOf(before), limit);
+    }
+
+    /**
+     * segment 파일로 옮긴 주문을 지움 (JDBC batch)
+     */
+    public void deleteAll(List<ArchivedOrder> archivedOrders) {
+        jdbcTemplate.batchUpdate("delete from orders where id = ?", archivedOrders.stream()
+                .map(e -> new Object[]{e.getId()})
+                .collect(Collectors.toList()));
+    }
+}
@@ -0,0 +1,319 @@
+package me.mugon.lendit.domain.archive;
+
+import me.mugon.lendit.domain.order.OrderHistory;
+import me.mugon.lendit.domain.order.OrdersCursor;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * 옮겨진 주문을 담는 읽기 전용 segment 파일
+ * 한 번 쓰면 바뀌지 않으며, 파일 전체를 메모리에 매핑(mmap)하여 읽음
+ *
+ * 파일 구조
+ * - header: MAGIC(int), VERSION(int)
+ * - block: (유저, 주문 시간, 식별자) 순서로 정렬한 주문을 block-size개씩 Deflate로 압축한 바이트
+ * - index: block마다 첫 번째와 마지막 주문의 (유저, 주문 시간, 식별자), block의 위치와 길이, 주문 수 (INDEX_ENTRY_SIZE 바이트)
+ * - footer: index의 위치(long), block 수(int), 주문 수(int), 가장 작은, 큰 유저의 식별자(long), 가장 이른, 늦은 주문 시간(long), MAGIC(int)
+ *
+ * 유저의 주문은 정렬 순서상 붙어 있으므로, index를 이분 탐색하여 그 유저의 주문이 있는 block만 압축을 풀어 읽음
+ * footer의 유저, 주문 시간 범위로 찾는 주문이 없는 segment는 index를 읽지 않고 건너뜀
+ * 범위가 없는 VERSION 1 파일은 index의 첫 번째, 마지막 유저로 유저의 범위를 정하고 주문 시간의 범위는 제한하지 않음
+ */
+public class OrderArchiveSegment {
+
+    public static final String EXTENSION = ".seg";
+
+    private static final int MAGIC = 0x4C4F4153;
+
+    private static final int VERSION = 2;
+
+    private static final int VERSION_1 = 1;
+
+    private static final int HEADER_SIZE = 8;
+
+    private static final int FOOTER_SIZE = 52;
+
+    private static final int FOOTER_SIZE_1 = 20;
+
+    private static final int INDEX_ENTRY_SIZE = 64;
+
+    private static final Comparator<ArchivedOrder> KEY_ORDER = Comparator.comparing(ArchivedOrder::getAccountId)
+            .thenComparing(ArchivedOrder::getCreatedAt)
+            .thenComparing(ArchivedOrder::getId);
+
+    private final Path path;
+
+    private final MappedByteBuffer buffer;
+
+    private final long indexOffset;
+
+    private final int blockCount;
+
+    private final int recordCount;
+
+    private final long minAccountId;
+
+    private final long maxAccountId;
+
+    private final long minTime;
+
+    private final long maxTime;
+
+    private OrderArchiveSegment(Path path, MappedByteBuffer buffer) throws IOException {
+        this.path = path;
+        this.buffer = buffer;
+        int version = buffer.capacity() < HEADER_SIZE ? -1 : buffer.getInt(4);
+        int footerSize = version == VERSION_1 ? FOOTER_SIZE_1 : FOOTER_SIZE;
+        int footer = buffer.capacity() - footerSize;
+        if (buffer.capacity() < HEADER_SIZE + footerSize || buffer.getInt(0) != MAGIC || buffer.getInt(footer + footerSize - 4) != MAGIC) {
+            throw new IOException("invalid order archive segment: " + path);
+        }
+        if (version != VERSION && version != VERSION_1) {
+            throw new IOException("unsupported order archive segment version " + version + ": " + path);
+        }
+        this.indexOffset = buffer.getLong(footer);
+        this.blockCount = buffer.getInt(footer + 8);
+        this.recordCount = buffer.getInt(footer + 12);
+        if (version == VERSION) {
+            this.minAccountId = buffer.getLong(footer + 16);
+            this.maxAccountId = buffer.getLong(footer + 24);
+            this.minTime = buffer.getLong(footer + 32);
+            this.maxTime = buffer.getLong(footer + 40);
+        } else {
+            this.minAccountId = blockCount == 0 ? Long.MAX_VALUE : indexLong(0, 0);
+            this.maxAccountId = blockCount == 0 ? Long.MIN_VALUE : indexLong(blockCount - 1, 3);
+            this.minTime = Long.MIN_VALUE;
+            this.maxTime = Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * 파일을 읽기 전용으로 매핑하여 연다
+     * 매핑은 채널을 닫은 뒤에도 유지되므로 채널은 바로 닫음
+     */
+    public static OrderArchiveSegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new OrderArchiveSegment(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * 주문들을 정렬하여 path에 segment 파일로 씀
+     * 임시 파일에 모두 쓰고 디스크에 반영(fsync)한 뒤 이름을 바꾸기 때문에, 도중에 실패해도 반쯤 쓰인 segment 파일이 남지 않음
+     */
+    public static OrderArchiveSegment write(Path path, List<ArchivedOrder> archivedOrders, int blockSize) throws IOException {
+        List<ArchivedOrder> sorted = new ArrayList<>(archivedOrders);
+        sorted.sort(KEY_ORDER);
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION);
+            header.flip();
+            writeFully(channel, header);
+
+            int blockCount = (sorted.size() + blockSize - 1) / blockSize;
+            ByteBuffer index = ByteBuffer.allocate(blockCount * INDEX_ENTRY_SIZE);
+            long offset = HEADER_SIZE;
+            long minTime = Long.MAX_VALUE;
+            long maxTime = Long.MIN_VALUE;
+            for (ArchivedOrder archivedOrder : sorted) {
+                minTime = Math.min(minTime, toTime(archivedOrder.getCreatedAt()));
+                maxTime = Math.max(maxTime, toTime(archivedOrder.getCreatedAt()));
+            }
+            for (int from = 0; from < sorted.size(); from += blockSize) {
+                List<ArchivedOrder> block = sorted.subList(from, Math.min(from + blockSize, sorted.size()));
+                byte[] compressed = compress(block);
+                writeFully(channel, ByteBuffer.wrap(compressed));
+                ArchivedOrder first = block.get(0);
+                ArchivedOrder last = block.get(block.size() - 1);
+                index.putLong(first.getAccountId()).putLong(toTime(first.getCreatedAt())).putLong(first.getId())
+                        .putLong(last.getAccountId()).putLong(toTime(last.getCreatedAt())).putLong(last.getId())
+                        .putLong(offset).putInt(compressed.length).putInt(block.size());
+                offset += compressed.length;
+            }
+            index.flip();
+            writeFully(channel, index);
+
+            ByteBuffer footer = ByteBuffer.allocate(FOOTER_SIZE).putLong(offset).putInt(blockCount).putInt(sorted.size())
+                    .putLong(sorted.isEmpty() ? Long.MAX_VALUE : sorted.get(0).getAccountId())
+                    .putLong(sorted.isEmpty() ? Long.MIN_VALUE : sorted.get(sorted.size() - 1).getAccountId())
+                    .putLong(minTime).putLong(maxTime)
+                    .putInt(MAGIC);
+            footer.flip();
+            writeFully(channel, footer);
+            channel.force(true);
+        }
+        Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE);
+        return open(path);
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * 유저의 주문 중 cursor(createdAt, id) 이전의 주문이 이 segment에 있을 수 있는지 footer의 범위로만 확인
+     */
+    public boolean mayContain(long accountId, OrdersCursor cursor) {
+        return minAccountId <= accountId && accountId <= maxAccountId
+                && (cursor == null || minTime <= toTime(cursor.getCreatedAt()));
+    }
+
+    /**
+     * 이 segment의 모든 주문이 history보다 이전에 주문되었는지 확인, 주문 시간이 같으면 식별자를 비교해야 하므로 false
+     */
+    boolean isOlderThan(OrderHistory history) {
+        return maxTime < toTime(history.getCreatedAt());
+    }
+
+    long getMaxTime() {
+        return maxTime;
+    }
+
+    /**
+     * 모든 block의 압축을 풀어 (유저, 주문 시간, 식별자) 순서로 읽음, segment를 합칠 때 사용
+     */
+    public List<ArchivedOrder> readAll() {
+        List<ArchivedOrder> archivedOrders = new ArrayList<>(recordCount);
+        for (int block = 0; block < blockCount; block++) {
+            archivedOrders.addAll(readBlock(block));
+        }
+        return archivedOrders;
+    }
+
+    /**
+     * 유저의 주문 중 cursor(createdAt, id) 이전의 주문을 최근 순으로 limit개 조회, cursor가 없으면 가장 최근 주문부터 조회
+     * 1. index를 이분 탐색하여 첫 번째 주문이 (유저, cursor)보다 앞서는 마지막 block을 찾음
+     * 2. 그 block부터 앞쪽으로, 마지막 주문의 유저가 찾는 유저보다 앞서는 block이 나올 때까지 압축을 풀어 뒤에서부터 읽음
+     */
+    public List<ArchivedOrder> findHistory(long accountId, OrdersCursor cursor, int limit) {
+        long time = cursor == null ? Long.MAX_VALUE : toTime(cursor.getCreatedAt());
+        long id = cursor == null ? Long.MAX_VALUE : cursor.getId();
+        List<ArchivedOrder> result = new ArrayList<>();
+        for (int block = findLastBlockBefore(accountId, time, id); block >= 0 && result.size() < limit; block--) {
+            if (indexLong(block, 3) < accountId) { // 이 block의 주문은 모두 찾는 유저보다 앞섬
+                break;
+            }
+            List<ArchivedOrder> archivedOrders = readBlock(block);
+            for (int i = archivedOrders.size() - 1; i >= 0 && result.size() < limit; i--) {
+                ArchivedOrder archivedOrder = archivedOrders.get(i);
+                if (archivedOrder.getAccountId() < accountId) {
+                    return result;
+                }
+                if (archivedOrder.getAccountId() == accountId && compare(archivedOrder.getAccountId(), toTime(archivedOrder.getCreatedAt()),
+                        archivedOrder.getId(), accountId, time, id) < 0) {
+                    result.add(archivedOrder);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 첫 번째 주문이 (accountId, time, id)보다 앞서는 마지막 block, 없으면 -1
+     */
+    private int findLastBlockBefore(long accountId, long time, long id) {
+        int low = 0;
+        int high = blockCount - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (compare(indexLong(mid, 0), indexLong(mid, 1), indexLong(mid, 2), accountId, time, id) < 0) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    private List<ArchivedOrder> readBlock(int block) {
+        int entry = (int) indexOffset + block * INDEX_ENTRY_SIZE;
+        int offset = (int) buffer.getLong(entry + 48);
+        byte[] compressed = new byte[buffer.getInt(entry + 56)];
+        int count = buffer.getInt(entry + 60);
+        ByteBuffer duplicate = buffer.duplicate(); // 여러 스레드가 함께 읽을 수 있도록 위치를 따로 가지는 buffer를 사용
+        duplicate.position(offset);
+        duplicate.get(compressed);
+
+        List<ArchivedOrder> archivedOrders = new ArrayList<>(count);
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(compressed)))) {
+            for (int i = 0; i < count; i++) {
+                archivedOrders.add(new ArchivedOrder(in.readLong(), in.readLong(), in.readLong(), in.readLong(), in.readUTF(),
+                        in.readLong(), in.readLong(), in.readLong(), fromTime(in.readLong())));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("failed to read order archive segment: " + path, e);
+        }
+        return archivedOrders;
+    }
+
+    private long indexLong(int block, int field) {
+        return buffer.getLong((int) indexOffset + block * INDEX_ENTRY_SIZE + field * 8);
+    }
+
+    private static byte[] compress(List<ArchivedOrder> block) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes, deflater))) {
+            for (ArchivedOrder archivedOrder : block) {
+                out.writeLong(archivedOrder.getId());
+                out.writeLong(archivedOrder.getAccountId());
+                out.writeLong(archivedOrder.getSellerId());
+                out.writeLong(archivedOrder.getProductId());
+                out.writeUTF(archivedOrder.getProductName() == null ? "" : archivedOrder.getProductName());
+                out.writeLong(archivedOrder.getProductPrice());
+                out.writeLong(archivedOrder.getNumber());
+                out.writeLong(archivedOrder.getTotal());
+                out.writeLong(toTime(archivedOrder.getCreatedAt()));
+            }
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static int compare(long accountId, long time, long id, long otherAccountId, long otherTime, long otherId) {
+        int result = Long.compare(accountId, otherAccountId);
+        if (result == 0) {
+            result = Long.compare(time, otherTime);
+        }
+        return result == 0 ? Long.compare(id, otherId) : result;
+    }
+
+    /**
+     * 주문 시간을 비교하기 쉽도록 UTC 기준 epoch nano로 바꿈
+     */
+    private static long toTime(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + dateTime.getNano();
+    }
+
+    private static LocalDateTime fromTime(long time) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(time, 1_000_000_000L), (int) Math.floorMod(time, 1_000_000_000L), ZoneOffset.UTC);
+    }
+}
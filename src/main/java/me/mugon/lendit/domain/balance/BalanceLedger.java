@@ -0,0 +1,44 @@
+package me.mugon.lendit.domain.balance;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import me.mugon.lendit.domain.common.IdGenerator;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 예치금 원장
+ * 유저의 예치금을 직접 수정하지 않고 변동이 생길 때마다 한 줄씩 추가만 하며, 추가된 줄은 수정하거나 삭제하지 않음
+ * 현재 예치금은 가장 최근의 BalanceSnapshot(없으면 유저 생성 시의 예치금)에 그 이후의 변동을 더한 값
+ */
+@Getter @NoArgsConstructor @AllArgsConstructor @Builder
+@Entity
+@Table(indexes = @Index(columnList = "accountId, createdAt"))
+public class BalanceLedger {
+
+    /** 식별자 */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = IdGenerator.NAME)
+    @SequenceGenerator(name = IdGenerator.NAME, sequenceName = IdGenerator.SEQUENCE, allocationSize = IdGenerator.ALLOCATION_SIZE)
+    private Long id;
+
+    /** 예치금이 변동된 유저의 식별자 */
+    @Column(nullable = false)
+    private Long accountId;
+
+    /** 변동의 종류 */
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private BalanceLedgerType type;
+
+    /** 변동 금액, 감소한 경우 음수 */
+    @Column(nullable = false)
+    private Long amount;
+
+    /** 기록 일시, 스냅샷에 포함되었는지 구분하는 기준 */
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,12 @@
+package me.mugon.lendit.domain.balance;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+/**
+ * 예치금 원장을 추가하기 위해 선언
+ */
+public interface BalanceLedgerRepository extends JpaRepository<BalanceLedger, Long> {
+    List<BalanceLedger> findByAccountIdOrderByCreatedAt(Long accountId);
+}
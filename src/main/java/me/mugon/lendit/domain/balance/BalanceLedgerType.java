@@ -0,0 +1,16 @@
+package me.mugon.lendit.domain.balance;
+
+/**
+ * 예치금 원장에 기록되는 변동의 종류
+ */
+public enum BalanceLedgerType {
+
+    /** 주문으로 예치금을 사용한 경우 (음수) */
+    DEBIT,
+
+    /** 예치금이 충전되거나 환불된 경우 (양수) */
+    CREDIT,
+
+    /** 유저 수정으로 예치금을 직접 지정한 경우, 지정한 값과 그 시점의 예치금의 차이 */
+    ADJUSTMENT
+}
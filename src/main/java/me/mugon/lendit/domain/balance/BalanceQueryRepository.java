@@ -0,0 +1,102 @@
+package me.mugon.lendit.domain.balance;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 스냅샷과 원장으로 예치금을 계산하기 위해 선언
+ * Account를 조회하는 도중(@PostLoad)에도 호출될 수 있기 때문에 영속성 컨텍스트를 거치지 않도록 JdbcTemplate을 사용함
+ */
+@RequiredArgsConstructor
+@Repository
+public class BalanceQueryRepository {
+
+    /** 스냅샷이 없는 유저의 원장을 처음부터 더하기 위한 기준 */
+    private static final Timestamp BEGINNING = Timestamp.valueOf(LocalDateTime.of(1970, 1, 1, 0, 0));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 가장 최근의 스냅샷(없으면 유저 생성 시의 예치금)에 그 이후의 원장을 더해 현재 예치금을 계산
+     */
+    public long calculateBalance(Long accountId, long openingBalance) {
+        Optional<BalanceSnapshot> latest = findLatestSnapshot(accountId);
+        long base = latest.map(BalanceSnapshot::getBalance).orElse(openingBalance);
+        Timestamp after = latest.map(e -> Timestamp.valueOf(e.getCutoff())).orElse(BEGINNING);
+        Long sum = jdbcTemplate.queryForObject(
+                "select coalesce(sum(amount), 0) from balance_ledger where account_id = ? and created_at > ?",
+                Long.class, accountId, after);
+        return base + (sum == null ? 0L : sum);
+    }
+
+    /**
+     * 모든 유저의 현재 예치금을 한 번의 조회로 계산
+     */
+    public Map<Long, Long> calculateAllBalances() {
+        Map<Long, Long> balances = new HashMap<>();
+        jdbcTemplate.query("select a.id, coalesce(s.balance, a.balance, 0) " +
+                        "+ coalesce((select sum(l.amount) from balance_ledger l where l.account_id = a.id and l.created_at > coalesce(s.cutoff, ?)), 0) " +
+                        "from account a left join balance_snapshot s on s.account_id = a.id " +
+                        "and s.cutoff = (select max(m.cutoff) from balance_snapshot m where m.account_id = a.id)",
+                rs -> {
+                    balances.put(rs.getLong(1), rs.getLong(2));
+                }, BEGINNING);
+        return balances;
+    }
+
+    /**
+     * 마지막 스냅샷 이후 cutoff까지 원장이 기록된 유저의 식별자를 조회
+     */
+    public List<Long> findAccountIdsToSnapshot(LocalDateTime cutoff) {
+        return jdbcTemplate.queryForList("select distinct l.account_id from balance_ledger l " +
+                        "where l.created_at <= ? " +
+                        "and l.created_at > coalesce((select max(s.cutoff) from balance_snapshot s where s.account_id = l.account_id), ?)",
+                Long.class, Timestamp.valueOf(cutoff), BEGINNING);
+    }
+
+    /**
+     * cutoff 시점의 예치금으로 새로운 스냅샷을 만듦
+     * 유저가 삭제된 경우 Optional.empty()를 반환
+     */
+    public Optional<BalanceSnapshot> calculateSnapshot(Long accountId, LocalDateTime cutoff) {
+        Optional<BalanceSnapshot> latest = findLatestSnapshot(accountId);
+        Optional<Long> base = latest.isPresent() ? latest.map(BalanceSnapshot::getBalance) : findOpeningBalance(accountId);
+        if (!base.isPresent()) {
+            return Optional.empty();
+        }
+        Timestamp after = latest.map(e -> Timestamp.valueOf(e.getCutoff())).orElse(BEGINNING);
+        Long sum = jdbcTemplate.queryForObject(
+                "select coalesce(sum(amount), 0) from balance_ledger where account_id = ? and created_at > ? and created_at <= ?",
+                Long.class, accountId, after, Timestamp.valueOf(cutoff));
+        return Optional.of(BalanceSnapshot.builder()
+                .accountId(accountId)
+                .balance(base.get() + (sum == null ? 0L : sum))
+                .cutoff(cutoff)
+                .createdAt(LocalDateTime.now())
+                .build());
+    }
+
+    private Optional<BalanceSnapshot> findLatestSnapshot(Long accountId) {
+        return jdbcTemplate.query("select balance, cutoff from balance_snapshot where account_id = ? order by cutoff desc limit 1",
+                rs -> rs.next() ? Optional.of(BalanceSnapshot.builder()
+                        .accountId(accountId)
+                        .balance(rs.getLong("balance"))
+                        .cutoff(rs.getTimestamp("cutoff").toLocalDateTime())
+                        .build()) : Optional.empty(),
+                accountId);
+    }
+
+    private Optional<Long> findOpeningBalance(Long accountId) {
+        return jdbcTemplate.query("select balance from account where id = ?",
+                rs -> rs.next() ? Optional.of(rs.getLong("balance")) : Optional.empty(),
+                accountId);
+    }
+}
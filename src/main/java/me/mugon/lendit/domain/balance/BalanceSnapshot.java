@@ -0,0 +1,41 @@
+package me.mugon.lendit.domain.balance;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import me.mugon.lendit.domain.common.IdGenerator;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 예치금 스냅샷
+ * cutoff 이전(포함)에 기록된 원장을 모두 반영한 예치금으로, 현재 예치금을 계산할 때 원장 전체를 더하지 않고 cutoff 이후의 변동만 더하기 위해 주기적으로 저장함
+ */
+@Getter @NoArgsConstructor @AllArgsConstructor @Builder
+@Entity
+@Table(indexes = @Index(columnList = "accountId, cutoff"))
+public class BalanceSnapshot {
+
+    /** 식별자 */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = IdGenerator.NAME)
+    @SequenceGenerator(name = IdGenerator.NAME, sequenceName = IdGenerator.SEQUENCE, allocationSize = IdGenerator.ALLOCATION_SIZE)
+    private Long id;
+
+    /** 유저의 식별자 */
+    @Column(nullable = false)
+    private Long accountId;
+
+    /** cutoff 시점의 예치금 */
+    @Column(nullable = false)
+    private Long balance;
+
+    /** 이 시점 이전(포함)에 기록된 원장까지 반영됨 */
+    @Column(nullable = false)
+    private LocalDateTime cutoff;
+
+    /** 저장 일시 */
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,12 @@
+package me.mugon.lendit.domain.balance;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+/**
+ * 예치금 스냅샷을 저장하기 위해 선언
+ */
+public interface BalanceSnapshotRepository extends JpaRepository<BalanceSnapshot, Long> {
+    List<BalanceSnapshot> findByAccountId(Long accountId);
+}
@@ -0,0 +1,20 @@
+package me.mugon.lendit.domain.common;
+
+/**
+ * Account, Product, Orders와 예치금 원장(BalanceLedger, BalanceSnapshot)이 함께 사용하는 식별자 생성기 설정
+ * IDENTITY 전략은 insert를 실행해야 식별자를 알 수 있어 Hibernate가 JDBC batch insert를 할 수 없기 때문에
+ * 하나의 시퀀스에서 ALLOCATION_SIZE만큼 식별자를 미리 할당받아 메모리에서 나눠주는 pooled 방식을 사용함
+ * 이 엔티티들이 같은 시퀀스를 사용하므로 식별자는 엔티티 사이에서도 겹치지 않음
+ */
+public final class IdGenerator {
+
+    public static final String NAME = "lendit_id_generator";
+
+    public static final String SEQUENCE = "lendit_id_seq";
+
+    /** 한 번에 할당받는 식별자의 개수, hibernate.jdbc.batch_size와 같게 설정 */
+    public static final int ALLOCATION_SIZE = 50;
+
+    private IdGenerator() {
+    }
+}
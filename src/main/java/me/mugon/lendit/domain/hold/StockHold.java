@@ -0,0 +1,61 @@
+package me.mugon.lendit.domain.hold;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import me.mugon.lendit.domain.common.IdGenerator;
+import me.mugon.lendit.web.dto.order.OrdersRequestDto;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 구매자가 주문을 확정하기 전에 정해진 시간 동안 보류해 둔 재고
+ * 보류하는 순간 상품의 재고를 감소시키고, 확정하면 재고를 다시 확인하지 않고 Orders로 바꾸며,
+ * 해제하거나 만료되면 감소시킨 재고를 되돌리고 삭제함
+ */
+@Getter @NoArgsConstructor @AllArgsConstructor @Builder
+@Entity
+@Table(indexes = @Index(columnList = "accountId, expiresAt"))
+public class StockHold {
+
+    /** 식별자 */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = IdGenerator.NAME)
+    @SequenceGenerator(name = IdGenerator.NAME, sequenceName = IdGenerator.SEQUENCE, allocationSize = IdGenerator.ALLOCATION_SIZE)
+    private Long id;
+
+    /** 재고를 보류한 유저의 식별자 */
+    @Column(nullable = false)
+    private Long accountId;
+
+    /** 보류한 상품과 수량 */
+    @ElementCollection
+    @CollectionTable(name = "stock_hold_item", joinColumns = @JoinColumn(name = "hold_id"))
+    private List<StockHoldItem> items;
+
+    /** 만료 일시, 이 시간이 지나면 확정할 수 없음 */
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    /** 생성 일시 */
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    public boolean isExpired() {
+        return !expiresAt.isAfter(LocalDateTime.now());
+    }
+
+    public List<OrdersRequestDto> toOrdersRequestDtos() {
+        return items.stream()
+                .map(e -> OrdersRequestDto.builder()
+                        .productId(e.getProductId())
+                        .number(e.getNumber())
+                        .total(e.getTotal())
+                        .build())
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,75 @@
+package me.mugon.lendit.domain.hold;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * 만료된 보류를 한 번에 해제하고, 시작할 때 남아 있는 보류와 유저별로 보류한 양을 읽기 위해 선언
+ * 타이밍 휠이 넘겨준 식별자나 유저 식별자로만 조회하여 보류 테이블을 훑지 않으며, 영속성 컨텍스트를 거치지 않도록 JdbcTemplate을 사용함
+ */
+@RequiredArgsConstructor
+@Repository
+public class StockHoldBatchRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    /**
+     * 식별자 중 아직 남아 있고 만료된 보류를 삭제하고, 보류했던 상품별 수량의 합을 numbers에 더한 뒤 삭제한 보류의 개수를 반환
+     * 확정, 해제와 겹치지 않도록 식별자 순서로 row lock을 잡은 뒤 삭제하며, 트랜잭션 안에서 호출해야 함
+     */
+    public int deleteExpired(Collection<Long> holdIds, LocalDateTime now, Map<Long, Long> numbers) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("ids", holdIds)
+                .addValue("now", Timestamp.valueOf(now));
+        List<Long> expiredIds = namedParameterJdbcTemplate.queryForList(
+                "select id from stock_hold where id in (:ids) and expires_at <= :now order by id for update", params, Long.class);
+        if (expiredIds.isEmpty()) {
+            return 0;
+        }
+        MapSqlParameterSource expired = new MapSqlParameterSource("ids", expiredIds);
+        namedParameterJdbcTemplate.query("select product_id, sum(number) as number from stock_hold_item where hold_id in (:ids) group by product_id",
+                expired, rs -> {
+                    numbers.merge(rs.getLong("product_id"), rs.getLong("number"), Long::sum);
+                });
+        namedParameterJdbcTemplate.update("delete from stock_hold_item where hold_id in (:ids)", expired);
+        namedParameterJdbcTemplate.update("delete from stock_hold where id in (:ids)", expired);
+        return expiredIds.size();
+    }
+
+    /**
+     * 같은 유저의 보류가 동시에 보류한 양을 확인하고 저장하지 않도록 유저 row에 lock을 잡음, 트랜잭션 안에서 호출해야 함
+     */
+    public void lockAccount(Long accountId) {
+        jdbcTemplate.query("select id from account where id = ? for update", rs -> {
+        }, accountId);
+    }
+
+    /**
+     * 유저의 만료되지 않은 보류의 개수, 보류한 수량의 합, 확정할 때 사용할 금액의 합을 반환
+     */
+    public long[] sumActiveByAccountId(Long accountId, LocalDateTime now) {
+        return jdbcTemplate.queryForObject("select count(distinct h.id), coalesce(sum(i.number), 0), coalesce(sum(i.total), 0) " +
+                        "from stock_hold h join stock_hold_item i on i.hold_id = h.id where h.account_id = ? and h.expires_at > ?",
+                (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2), rs.getLong(3)}, accountId, Timestamp.valueOf(now));
+    }
+
+    /**
+     * 남아 있는 모든 보류의 식별자와 만료 일시를 하나씩 넘겨줌
+     * 애플리케이션이 시작될 때 한 번만 사용하며, 결과를 모아 두지 않고 읽는 대로 넘겨줌
+     */
+    public void forEachExpiresAt(BiConsumer<Long, LocalDateTime> consumer) {
+        jdbcTemplate.query("select id, expires_at from stock_hold", rs -> {
+            consumer.accept(rs.getLong("id"), rs.getTimestamp("expires_at").toLocalDateTime());
+        });
+    }
+}
@@ -0,0 +1,25 @@
+package me.mugon.lendit.domain.hold;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+
+/**
+ * 보류한 상품 하나와 수량, 확정할 때 주문의 총 가격으로 사용할 금액
+ */
+@Getter @NoArgsConstructor @AllArgsConstructor
+@Embeddable
+public class StockHoldItem {
+
+    @Column(nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private Long number;
+
+    @Column(nullable = false)
+    private Long total;
+}
@@ -0,0 +1,19 @@
+package me.mugon.lendit.domain.hold;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.LockModeType;
+import java.util.Optional;
+
+public interface StockHoldRepository extends JpaRepository<StockHold, Long> {
+
+    /**
+     * 확정하거나 해제하는 동안 만료 처리와 겹치지 않도록 row lock을 잡고 조회
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select h from StockHold h where h.id = :id")
+    Optional<StockHold> findByIdForUpdate(@Param("id") Long id);
+}
@@ -0,0 +1,20 @@
+package me.mugon.lendit.domain.hold;
+
+import me.mugon.lendit.web.OrdersController;
+import me.mugon.lendit.web.dto.hold.StockHoldResponseDto;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+
+/**
+ * REST API의 규칙 중 하나인 HATEOAS를 만족시키기 위해 선언
+ * 보류한 재고를 조회하는 주소를 self 관계로 더함
+ */
+public class StockHoldResource extends EntityModel<StockHoldResponseDto> {
+
+    public StockHoldResource(StockHoldResponseDto responseDto, Link... links) {
+        super(responseDto, links);
+        add(linkTo(OrdersController.class).slash("holds").slash(responseDto.getId()).withSelfRel());
+    }
+}
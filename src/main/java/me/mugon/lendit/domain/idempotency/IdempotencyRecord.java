@@ -0,0 +1,52 @@
+package me.mugon.lendit.domain.idempotency;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Idempotency-Key 헤더와 함께 처리된 요청의 결과
+ * 네트워크 문제로 같은 요청을 다시 보낸 경우 주문을 다시 처리하지 않고 저장해 둔 결과를 그대로 반환하기 위해 저장함
+ * 같은 유저가 같은 키를 두 번 저장할 수 없도록 (account_id, idempotency_key)에 unique 제약조건을 설정
+ */
+@Getter @NoArgsConstructor @AllArgsConstructor @Builder
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"accountId", "idempotencyKey"}))
+public class IdempotencyRecord {
+
+    /** 식별자 */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /** 요청한 유저의 식별자 */
+    @Column(nullable = false)
+    private Long accountId;
+
+    /** 클라이언트가 보낸 Idempotency-Key */
+    @Column(nullable = false)
+    private String idempotencyKey;
+
+    /** 같은 키로 다른 요청을 보냈는지 확인하기 위한 요청 내용의 해시 */
+    @Column(nullable = false)
+    private String fingerprint;
+
+    /** 저장된 응답의 상태 코드 */
+    private int status;
+
+    /** 저장된 응답의 Body (HAL+JSON) */
+    @Lob
+    private byte[] body;
+
+    /** 저장 일시 */
+    private LocalDateTime createdAt;
+
+    public boolean isExpired(Duration ttl) {
+        return createdAt.plus(ttl).isBefore(LocalDateTime.now());
+    }
+}
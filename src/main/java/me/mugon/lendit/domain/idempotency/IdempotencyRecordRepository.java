@@ -0,0 +1,21 @@
+package me.mugon.lendit.domain.idempotency;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * IdempotencyRecord 도메인을 데이터베이스와 매핑하여 CRUD 등의 작업을 하기 위해 선언
+ */
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    Optional<IdempotencyRecord> findByAccountIdAndIdempotencyKey(Long accountId, String idempotencyKey);
+
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.createdAt < :createdAt")
+    int deleteByCreatedAtBefore(@Param("createdAt") LocalDateTime createdAt);
+}
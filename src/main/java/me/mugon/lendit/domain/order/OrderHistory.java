@@ -0,0 +1,26 @@
+package me.mugon.lendit.domain.order;
+
+import java.time.LocalDateTime;
+
+/**
+ * 주문 목록 조회에 필요한 값만 조회하기 위한 Projection
+ * Orders 엔티티를 조회하면 상품과 유저, 상품의 주문 목록까지 EAGER로 함께 조회되기 때문에 주문과 상품의 컬럼만 가져옴
+ */
+public interface OrderHistory {
+
+    Long getId();
+
+    Long getTotal();
+
+    Long getNumber();
+
+    LocalDateTime getCreatedAt();
+
+    Long getAccountId();
+
+    Long getProductId();
+
+    String getProductName();
+
+    Long getProductPrice();
+}
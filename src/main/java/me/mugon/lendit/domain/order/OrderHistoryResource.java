@@ -0,0 +1,17 @@
+package me.mugon.lendit.domain.order;
+
+import me.mugon.lendit.web.dto.order.OrderHistoryResponseDto;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
+
+/**
+ * REST API의 규칙 중 하나인 HATEOAS를 만족시키기 위해 선언
+ * OrdersResource와 같은 이유로 HAL Serializer를 사용하기 위해 CollectionModel을 상속함
+ */
+public class OrderHistoryResource extends CollectionModel<EntityModel<OrderHistoryResponseDto>> {
+
+    public OrderHistoryResource(Iterable<EntityModel<OrderHistoryResponseDto>> entityModels, Link... links) {
+        super(entityModels, links);
+    }
+}
@@ -0,0 +1,35 @@
+package me.mugon.lendit.domain.order;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 주문 shard에 저장되는 한 줄의 주문
+ * shard에는 상품 테이블이 없기 때문에 주문 시점의 상품 이름과 가격을 함께 저장하며, 주문 목록 조회에 그대로 사용함
+ */
+@Getter @AllArgsConstructor
+public class OrderHistoryRow implements OrderHistory {
+
+    private final Long id;
+
+    private final Long total;
+
+    private final Long number;
+
+    private final LocalDateTime createdAt;
+
+    private final Long accountId;
+
+    private final Long productId;
+
+    private final String productName;
+
+    private final Long productPrice;
+
+    public OrderHistoryRow(Orders orders) {
+        this(orders.getId(), orders.getTotal(), orders.getNumber(), orders.getCreatedAt(), orders.getAccount().getId(),
+                orders.getProduct().getId(), orders.getProduct().getName(), orders.getProduct().getPrice());
+    }
+}
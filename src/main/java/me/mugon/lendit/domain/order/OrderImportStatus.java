@@ -0,0 +1,13 @@
+package me.mugon.lendit.domain.order;
+
+/**
+ * 주문 가져오기(import)에서 한 줄의 처리 결과
+ * CREATED: 주문이 등록됨
+ * DUPLICATE: 같은 Idempotency-Key로 이미 등록된 주문이라 다시 처리하지 않음
+ * REJECTED: 재고나 예치금 부족 등으로 주문이 거절됨
+ * INVALID: 줄의 형식이 맞지 않거나 필수 값이 없음
+ * FAILED: 처리 도중 예상하지 못한 오류가 발생함
+ */
+public enum OrderImportStatus {
+    CREATED, DUPLICATE, REJECTED, INVALID, FAILED
+}
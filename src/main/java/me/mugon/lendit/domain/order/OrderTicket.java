@@ -0,0 +1,74 @@
+package me.mugon.lendit.domain.order;
+
+import lombok.Builder;
+import lombok.Getter;
+import me.mugon.lendit.domain.account.Account;
+import me.mugon.lendit.web.dto.order.OrdersRequestDto;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 비동기로 접수된 주문 하나
+ * 주문 요청과 처리 결과를 메모리에 보관하며, 유저는 접수 번호(id)로 처리 상태와 결과를 조회함
+ * 처리 결과는 동기 주문의 응답과 같은 HAL+JSON 바이트로 보관함
+ */
+@Getter
+public class OrderTicket {
+
+    /** 접수 번호 */
+    private final String id;
+
+    /** 주문한 유저 */
+    private final Account account;
+
+    /** 주문 요청 */
+    private final List<OrdersRequestDto> ordersRequestDtos;
+
+    /** 주문과 함께 들어온 Idempotency-Key, 없으면 null */
+    private final String idempotencyKey;
+
+    /** 처리가 끝나면 결과를 전달받을 주소, 없으면 null */
+    private final String callbackUrl;
+
+    /** 접수 시간 */
+    private final LocalDateTime createdAt;
+
+    /** 처리 상태 */
+    private volatile OrderTicketStatus status = OrderTicketStatus.PENDING;
+
+    /** 처리 결과, 처리가 끝나기 전이나 FAILED인 경우 null */
+    private volatile byte[] result;
+
+    /** 처리가 끝난 시간 */
+    private volatile LocalDateTime completedAt;
+
+    @Builder
+    public OrderTicket(String id, Account account, List<OrdersRequestDto> ordersRequestDtos, String idempotencyKey, String callbackUrl) {
+        this.id = id;
+        this.account = account;
+        this.ordersRequestDtos = ordersRequestDtos;
+        this.idempotencyKey = idempotencyKey;
+        this.callbackUrl = callbackUrl;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public void complete(OrderTicketStatus status, byte[] result) {
+        this.result = result;
+        this.completedAt = LocalDateTime.now();
+        this.status = status;
+    }
+
+    public boolean isCompleted() {
+        return status != OrderTicketStatus.PENDING;
+    }
+
+    public boolean isOwnedBy(Account currentUser) {
+        return account.getId().equals(currentUser.getId());
+    }
+
+    public boolean isExpired(Duration retention) {
+        return isCompleted() && completedAt.isBefore(LocalDateTime.now().minus(retention));
+    }
+}
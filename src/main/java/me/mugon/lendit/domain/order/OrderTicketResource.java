@@ -0,0 +1,20 @@
+package me.mugon.lendit.domain.order;
+
+import me.mugon.lendit.web.OrdersController;
+import me.mugon.lendit.web.dto.order.OrderTicketResponseDto;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+
+/**
+ * REST API의 규칙 중 하나인 HATEOAS를 만족시키기 위해 선언
+ * 접수된 주문의 상태를 조회하는 주소를 self 관계로 더함
+ */
+public class OrderTicketResource extends EntityModel<OrderTicketResponseDto> {
+
+    public OrderTicketResource(OrderTicketResponseDto responseDto, Link... links) {
+        super(responseDto, links);
+        add(linkTo(OrdersController.class).slash("tickets").slash(responseDto.getId()).withSelfRel());
+    }
+}
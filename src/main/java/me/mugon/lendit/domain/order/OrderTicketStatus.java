@@ -0,0 +1,12 @@
+package me.mugon.lendit.domain.order;
+
+/**
+ * 비동기로 접수된 주문의 처리 상태
+ * PENDING: 대기열에서 처리를 기다리는 중
+ * CREATED: 주문이 등록됨
+ * REJECTED: 재고나 예치금 부족 등으로 주문이 거절됨
+ * FAILED: 처리 도중 예상하지 못한 오류가 발생함
+ */
+public enum OrderTicketStatus {
+    PENDING, CREATED, REJECTED, FAILED
+}
@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import me.mugon.lendit.domain.account.Account;
+import me.mugon.lendit.domain.common.IdGenerator;
 import me.mugon.lendit.domain.product.Product;
 
 import javax.persistence.*;
@@ -13,14 +14,18 @@ import java.time.LocalDateTime;
 /**
  * 유저(Account)와 상품(Product)의 연결 테이블
  * 주문에는 주문 시간과 주문한 사람, 총 금액이 들어가야 하기 때문에 다음과 같이 테이블을 생성함.
+ * 유저별 주문 목록을 최근 순으로 나누어 조회하기 위해 (account_id, created_at, id) 인덱스를,
+ * 모든 유저의 주문 목록을 최근 순으로 나누어 조회하기 위해 (created_at, id) 인덱스를 생성함
  */
 @Getter @NoArgsConstructor @AllArgsConstructor @Builder
 @Entity
+@Table(indexes = {@Index(columnList = "account_id, createdAt, id"), @Index(columnList = "createdAt, id")})
 public class Orders {
 
     /** 식별자 */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = IdGenerator.NAME)
+    @SequenceGenerator(name = IdGenerator.NAME, sequenceName = IdGenerator.SEQUENCE, allocationSize = IdGenerator.ALLOCATION_SIZE)
     private Long id;
 
     /** 총 금액 */
@@ -0,0 +1,41 @@
+package me.mugon.lendit.domain.order;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * 주문 목록을 keyset 방식으로 나누어 조회하기 위한 cursor
+ * 마지막으로 받은 주문의 (createdAt, id)를 담으며, 클라이언트에는 내용을 알 수 없도록 Base64로 인코딩하여 전달함
+ */
+@Getter @AllArgsConstructor
+public class OrdersCursor {
+
+    private static final String DELIMITER = "_";
+
+    private final LocalDateTime createdAt;
+
+    private final Long id;
+
+    public String encode() {
+        String value = createdAt + DELIMITER + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 인코딩된 cursor를 읽음, 형식이 맞지 않으면 Optional.empty()를 반환
+     */
+    public static Optional<OrdersCursor> decode(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int index = value.lastIndexOf(DELIMITER);
+            return Optional.of(new OrdersCursor(LocalDateTime.parse(value.substring(0, index)), Long.parseLong(value.substring(index + 1))));
+        } catch (RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -1,9 +1,75 @@
 package me.mugon.lendit.domain.order;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Orders 도메인을 데이터베이스와 매핑하여 CRUD 등의 작업을 하기 위해 선언
  */
 public interface OrdersRepository extends JpaRepository<Orders, Long> {
+
+    /**
+     * 유저의 가장 최근 주문부터 pageable의 크기만큼 조회
+     */
+    @Query("select o.id as id, o.total as total, o.number as number, o.createdAt as createdAt, o.account.id as accountId, " +
+            "p.id as productId, p.name as productName, p.price as productPrice " +
+            "from Orders o join o.product p " +
+            "where o.account.id = :accountId " +
+            "order by o.createdAt desc, o.id desc")
+    List<OrderHistory> findHistoryByAccountId(@Param("accountId") Long accountId, Pageable pageable);
+
+    /**
+     * cursor(createdAt, id) 이전의 주문부터 pageable의 크기만큼 조회
+     * (account_id, created_at, id) 인덱스를 따라 cursor 위치에서 바로 읽기 시작하므로 앞선 주문의 개수와 관계없이 비용이 같음
+     */
+    @Query("select o.id as id, o.total as total, o.number as number, o.createdAt as createdAt, o.account.id as accountId, " +
+            "p.id as productId, p.name as productName, p.price as productPrice " +
+            "from Orders o join o.product p " +
+            "where o.account.id = :accountId " +
+            "and (o.createdAt < :createdAt or (o.createdAt = :createdAt and o.id < :id)) " +
+            "order by o.createdAt desc, o.id desc")
+    List<OrderHistory> findHistoryByAccountIdBefore(@Param("accountId") Long accountId, @Param("createdAt") LocalDateTime createdAt,
+                                                    @Param("id") Long id, Pageable pageable);
+
+    /**
+     * 모든 유저의 가장 최근 주문부터 pageable의 크기만큼 조회
+     */
+    @Query("select o.id as id, o.total as total, o.number as number, o.createdAt as createdAt, o.account.id as accountId, " +
+            "p.id as productId, p.name as productName, p.price as productPrice " +
+            "from Orders o join o.product p " +
+            "order by o.createdAt desc, o.id desc")
+    List<OrderHistory> findHistory(Pageable pageable);
+
+    /**
+     * 모든 유저의 주문 중 cursor(createdAt, id) 이전의 주문부터 pageable의 크기만큼 조회
+     * (created_at, id) 인덱스를 따라 cursor 위치에서 바로 읽기 시작함
+     */
+    @Query("select o.id as id, o.total as total, o.number as number, o.createdAt as createdAt, o.account.id as accountId, " +
+            "p.id as productId, p.name as productName, p.price as productPrice " +
+            "from Orders o join o.product p " +
+            "where o.createdAt < :createdAt or (o.createdAt = :createdAt and o.id < :id) " +
+            "order by o.createdAt desc, o.id desc")
+    List<OrderHistory> findHistoryBefore(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
+    /**
+     * 식별자가 id보다 큰 주문을 식별자 순서로 pageable의 크기만큼 조회 (기본 db의 주문을 shard로 옮길 때 사용)
+     */
+    @Query("select o.id as id, o.total as total, o.number as number, o.createdAt as createdAt, o.account.id as accountId, " +
+            "p.id as productId, p.name as productName, p.price as productPrice " +
+            "from Orders o join o.product p " +
+            "where o.id > :id " +
+            "order by o.id")
+    List<OrderHistory> findHistoryAfterId(@Param("id") Long id, Pageable pageable);
+
+    /**
+     * 식별자 중 기본 db에 저장되어 있는 주문의 식별자를 조회 (shard에만 남은 주문을 찾을 때 사용)
+     */
+    @Query("select o.id from Orders o where o.id in :ids")
+    List<Long> findIdsByIdIn(@Param("ids") Collection<Long> ids);
 }
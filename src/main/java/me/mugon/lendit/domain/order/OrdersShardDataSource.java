@@ -0,0 +1,56 @@
+package me.mugon.lendit.domain.order;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 주문 shard들을 하나의 DataSource로 묶어, 현재 스레드에 지정된 shard 번호의 DataSource로 connection을 넘겨주는 routing DataSource
+ * shard 번호를 지정하지 않고 connection을 요청하면 다른 shard에 잘못 쓰지 않도록 예외가 발생함
+ *
+ * DataSource 타입의 bean으로 등록하면 기본 DataSource의 자동 설정이 꺼지기 때문에 bean으로 등록하지 않고 OrdersShardRepository가 직접 만들어 사용함
+ */
+public class OrdersShardDataSource extends AbstractRoutingDataSource {
+
+    private final ThreadLocal<Integer> currentShard = new ThreadLocal<>();
+
+    public OrdersShardDataSource(List<DataSource> dataSources) {
+        Map<Object, Object> targetDataSources = new HashMap<>();
+        for (int i = 0; i < dataSources.size(); i++) {
+            targetDataSources.put(i, dataSources.get(i));
+        }
+        setTargetDataSources(targetDataSources);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    /**
+     * 현재 스레드에서 shard 번호를 지정한 뒤 작업을 실행
+     */
+    public <T> T execute(int shard, Supplier<T> supplier) {
+        Integer previous = currentShard.get();
+        currentShard.set(shard);
+        try {
+            return supplier.get();
+        } finally {
+            if (previous == null) {
+                currentShard.remove();
+            } else {
+                currentShard.set(previous);
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Integer shard = currentShard.get();
+        if (shard == null) {
+            throw new IllegalStateException("order shard is not selected");
+        }
+        return shard;
+    }
+}
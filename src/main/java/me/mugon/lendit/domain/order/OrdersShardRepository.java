@@ -0,0 +1,180 @@
+package me.mugon.lendit.domain.order;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 주문을 구매자의 식별자로 나누어 여러 db(shard)에 저장하고 조회하기 위해 선언
+ * lendit.order.shard.urls에 지정한 db마다 DataSource를 만들고, OrdersShardDataSource로 묶어 하나의 JdbcTemplate으로 사용함
+ * 각 shard에는 상품, 유저 테이블이 없으므로 주문 목록 조회에 필요한 컬럼만 담은 orders 테이블을 시작할 때 만듦
+ *
+ * 모든 메소드는 shard 번호를 지정하여 호출하며, 호출한 스레드에서 connection을 가져오기 때문에
+ * 다른 트랜잭션이 진행 중인 스레드에서 여러 shard를 다루지 않도록 OrderShardService의 스레드에서 호출해야 함
+ */
+@Repository
+public class OrdersShardRepository {
+
+    private static final String COLUMNS = "id, account_id, product_id, product_name, product_price, number, total, created_at";
+
+    private static final RowMapper<OrderHistory> ROW_MAPPER = (rs, rowNum) -> new OrderHistoryRow(
+            rs.getLong("id"),
+            rs.getLong("total"),
+            rs.getLong("number"),
+            rs.getTimestamp("created_at").toLocalDateTime(),
+            rs.getLong("account_id"),
+            rs.getLong("product_id"),
+            rs.getString("product_name"),
+            rs.getLong("product_price"));
+
+    private final List<HikariDataSource> dataSources = new ArrayList<>();
+
+    private final OrdersShardDataSource shardDataSource;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public OrdersShardRepository(@Value("${lendit.order.shard.urls:}") List<String> urls,
+                                 @Value("${lendit.order.shard.username:sa}") String username,
+                                 @Value("${lendit.order.shard.password:}") String password) {
+        for (String url : urls) {
+            dataSources.add(DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(url.trim())
+                    .username(username)
+                    .password(password)
+                    .build());
+        }
+        if (dataSources.isEmpty()) {
+            this.shardDataSource = null;
+            this.jdbcTemplate = null;
+            this.transactionTemplate = null;
+            return;
+        }
+        this.shardDataSource = new OrdersShardDataSource(new ArrayList<>(dataSources));
+        this.jdbcTemplate = new JdbcTemplate(shardDataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(shardDataSource));
+        for (int shard = 0; shard < dataSources.size(); shard++) {
+            createTable(shard);
+        }
+    }
+
+    /**
+     * shard가 하나도 지정되지 않으면 주문을 나누지 않고 기본 db의 orders 테이블만 사용함
+     */
+    public boolean isEnabled() {
+        return !dataSources.isEmpty();
+    }
+
+    public int getShardCount() {
+        return dataSources.size();
+    }
+
+    /**
+     * 구매자의 식별자로 주문을 저장할 shard를 정함
+     * shard의 개수를 바꾸면 기존 주문이 다른 shard로 옮겨져야 하므로, 개수를 바꾼 경우 옮기기 전까지 주문 목록이 맞지 않음
+     */
+    public int shardOf(Long accountId) {
+        return (int) Math.floorMod(accountId, (long) dataSources.size());
+    }
+
+    /**
+     * 하나의 shard에 주문들을 하나의 트랜잭션으로 저장 (JDBC batch)
+     * 같은 식별자의 주문이 이미 있으면 지우고 다시 저장하기 때문에 여러 번 저장해도 결과가 같음
+     */
+    public void saveAll(int shard, List<OrderHistory> histories) {
+        shardDataSource.execute(shard, () -> transactionTemplate.execute(status -> {
+            List<Object[]> ids = histories.stream()
+                    .map(e -> new Object[]{e.getId()})
+                    .collect(Collectors.toList());
+            jdbcTemplate.batchUpdate("delete from orders where id = ?", ids);
+            List<Object[]> args = histories.stream()
+                    .map(e -> new Object[]{e.getId(), e.getAccountId(), e.getProductId(), e.getProductName(), e.getProductPrice(),
+                            e.getNumber(), e.getTotal(), Timestamp.valueOf(e.getCreatedAt())})
+                    .collect(Collectors.toList());
+            jdbcTemplate.batchUpdate("insert into orders (" + COLUMNS + ") values (?, ?, ?, ?, ?, ?, ?, ?)", args);
+            return null;
+        }));
+    }
+
+    /**
+     * 주문을 저장한 트랜잭션이 롤백된 경우 shard에 먼저 저장한 주문을 지움
+     */
+    public void deleteAllById(int shard, Collection<Long> ids) {
+        shardDataSource.execute(shard, () -> jdbcTemplate.batchUpdate("delete from orders where id = ?", ids.stream()
+                .map(e -> new Object[]{e})
+                .collect(Collectors.toList())));
+    }
+
+    /**
+     * 유저의 주문 중 cursor(createdAt, id) 이전의 주문부터 limit개 조회, cursor가 없으면 가장 최근 주문부터 조회
+     */
+    public List<OrderHistory> findHistoryByAccountId(int shard, Long accountId, OrdersCursor cursor, int limit) {
+        return shardDataSource.execute(shard, () -> cursor == null
+                ? jdbcTemplate.query("select " + COLUMNS + " from orders where account_id = ? " +
+                        "order by created_at desc, id desc limit ?", ROW_MAPPER, accountId, limit)
+                : jdbcTemplate.query("select " + COLUMNS + " from orders where account_id = ? " +
+                        "and (created_at < ? or (created_at = ? and id < ?)) " +
+                        "order by created_at desc, id desc limit ?", ROW_MAPPER, accountId,
+                        Timestamp.valueOf(cursor.getCreatedAt()), Timestamp.valueOf(cursor.getCreatedAt()), cursor.getId(), limit));
+    }
+
+    /**
+     * 하나의 shard에서 모든 유저의 주문 중 cursor(createdAt, id) 이전의 주문부터 limit개 조회, cursor가 없으면 가장 최근 주문부터 조회
+     */
+    public List<OrderHistory> findHistory(int shard, OrdersCursor cursor, int limit) {
+        return shardDataSource.execute(shard, () -> cursor == null
+                ? jdbcTemplate.query("select " + COLUMNS + " from orders order by created_at desc, id desc limit ?", ROW_MAPPER, limit)
+                : jdbcTemplate.query("select " + COLUMNS + " from orders where created_at < ? or (created_at = ? and id < ?) " +
+                        "order by created_at desc, id desc limit ?", ROW_MAPPER,
+                        Timestamp.valueOf(cursor.getCreatedAt()), Timestamp.valueOf(cursor.getCreatedAt()), cursor.getId(), limit));
+    }
+
+    /**
+     * 하나의 shard에서 주문 시간이 after(createdAt, id) 이후이고 to 이전인 주문을 (createdAt, id) 순서로 limit개 조회
+     * shard에만 남은 주문을 찾기 위해 (created_at, id) 인덱스를 따라 구간을 나누어 읽을 때 사용
+     */
+    public List<OrderHistory> findHistoryAfter(int shard, OrdersCursor after, LocalDateTime to, int limit) {
+        return shardDataSource.execute(shard, () -> jdbcTemplate.query("select " + COLUMNS + " from orders " +
+                        "where (created_at > ? or (created_at = ? and id > ?)) and created_at < ? " +
+                        "order by created_at, id limit ?", ROW_MAPPER,
+                Timestamp.valueOf(after.getCreatedAt()), Timestamp.valueOf(after.getCreatedAt()), after.getId(), Timestamp.valueOf(to), limit));
+    }
+
+    public void deleteAll(int shard) {
+        shardDataSource.execute(shard, () -> jdbcTemplate.update("delete from orders"));
+    }
+
+    @PreDestroy
+    public void close() {
+        dataSources.forEach(HikariDataSource::close);
+    }
+
+    /**
+     * 유저별 주문 목록과 모든 유저의 주문 목록을 최근 순으로 나누어 조회하기 위해 기본 db의 orders 테이블과 같은 인덱스를 만듦
+     */
+    private void createTable(int shard) {
+        shardDataSource.execute(shard, () -> {
+            jdbcTemplate.execute("create table if not exists orders (id bigint not null primary key, account_id bigint not null, " +
+                    "product_id bigint not null, product_name varchar(255), product_price bigint, number bigint, total bigint, " +
+                    "created_at timestamp not null)");
+            jdbcTemplate.execute("create index if not exists orders_account_idx on orders (account_id, created_at, id)");
+            jdbcTemplate.execute("create index if not exists orders_created_idx on orders (created_at, id)");
+            return null;
+        });
+    }
+}
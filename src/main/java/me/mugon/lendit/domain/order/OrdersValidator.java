@@ -3,6 +3,7 @@ package me.mugon.lendit.domain.order;
 import me.mugon.lendit.domain.account.Account;
 import me.mugon.lendit.domain.common.BaseValidator;
 import me.mugon.lendit.domain.product.Product;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.validation.Errors;
 import org.springframework.validation.Validator;
@@ -10,6 +11,7 @@ import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
 
 import javax.validation.Validation;
 import java.util.Collection;
+import java.util.Set;
 
 /**
  * Collection 을 @Valid 로 유효성 검증을 하기 위해 Validator를 implement 받아 구현함
@@ -21,14 +23,22 @@ public class OrdersValidator extends BaseValidator implements Validator {
 
     private final SpringValidatorAdapter validatorAdapter;
 
-    public OrdersValidator() {
+    /** 모든 유저의 주문을 조회할 수 있는 유저의 username */
+    private final Set<String> admins;
+
+    public OrdersValidator(@Value("${lendit.order.admins:}") Set<String> admins) {
         this.validatorAdapter = new SpringValidatorAdapter(Validation.buildDefaultValidatorFactory().getValidator());
+        this.admins = admins;
     }
 
     public boolean isValidUser(Account currentUser, Product product) {
         return currentUser.getId().equals(product.getAccount().getId());
     }
 
+    public boolean isAdmin(Account currentUser) {
+        return admins.contains(currentUser.getUsername());
+    }
+
     @Override
     public boolean supports(Class<?> clazz) {
         return true;
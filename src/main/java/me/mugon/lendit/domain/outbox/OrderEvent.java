@@ -0,0 +1,47 @@
+package me.mugon.lendit.domain.outbox;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * OrderEventSink로 전달되는 주문 이벤트
+ * offset은 전달된 순서이며, 같은 주문이 두 번 이상 전달될 수 있으므로 받는 쪽은 orderId로 중복을 걸러야 함
+ */
+@Getter
+public class OrderEvent {
+
+    private final Long offset;
+
+    private final Long orderId;
+
+    private final Long accountId;
+
+    private final Long sellerId;
+
+    private final Long productId;
+
+    private final Long number;
+
+    private final Long total;
+
+    private final LocalDateTime createdAt;
+
+    public OrderEvent(OrderOutbox orderOutbox, Long offset) {
+        this.offset = offset;
+        this.orderId = orderOutbox.getOrderId();
+        this.accountId = orderOutbox.getAccountId();
+        this.sellerId = orderOutbox.getSellerId();
+        this.productId = orderOutbox.getProductId();
+        this.number = orderOutbox.getNumber();
+        this.total = orderOutbox.getTotal();
+        this.createdAt = orderOutbox.getCreatedAt();
+    }
+
+    /**
+     * 유저가 주문했거나 판매한 주문인지
+     */
+    public boolean concerns(Long accountId) {
+        return accountId.equals(this.accountId) || accountId.equals(this.sellerId);
+    }
+}
@@ -0,0 +1,61 @@
+package me.mugon.lendit.domain.outbox;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import me.mugon.lendit.domain.common.IdGenerator;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 외부 시스템(배송, 분석 등)에 전달할 주문 이벤트의 outbox
+ * 주문을 저장한 트랜잭션에서 주문마다 한 줄을 추가하고, OrderOutboxService가 모아서 OrderEventSink로 전달한 뒤 eventOffset을 기록함
+ * 연관관계 없이 식별자와 값만 복사해 두기 때문에 주문, 상품, 유저가 삭제되어도 남음
+ */
+@Getter @NoArgsConstructor @AllArgsConstructor @Builder
+@Entity
+public class OrderOutbox {
+
+    /** 식별자 */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = IdGenerator.NAME)
+    @SequenceGenerator(name = IdGenerator.NAME, sequenceName = IdGenerator.SEQUENCE, allocationSize = IdGenerator.ALLOCATION_SIZE)
+    private Long id;
+
+    /** 주문의 식별자 */
+    @Column(nullable = false)
+    private Long orderId;
+
+    /** 주문한 유저의 식별자 */
+    @Column(nullable = false)
+    private Long accountId;
+
+    /** 상품을 등록한 유저의 식별자 */
+    @Column(nullable = false)
+    private Long sellerId;
+
+    /** 상품의 식별자 */
+    @Column(nullable = false)
+    private Long productId;
+
+    /** 주문 수량 */
+    @Column(nullable = false)
+    private Long number;
+
+    /** 주문 총 가격 */
+    @Column(nullable = false)
+    private Long total;
+
+    /** 주문 일시 */
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    /** 전달된 순서, 전달되기 전에는 null이며 구독자가 이어서 받을 위치로 사용함 */
+    @Column(unique = true)
+    private Long eventOffset;
+
+    /** 전달된 일시 */
+    private LocalDateTime publishedAt;
+}
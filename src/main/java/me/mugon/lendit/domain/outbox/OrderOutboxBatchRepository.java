@@ -0,0 +1,94 @@
+package me.mugon.lendit.domain.outbox;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * outbox를 전달하고 전달된 이벤트를 다시 읽기 위해 선언
+ * 주기적으로 실행되는 relay와 구독자의 조회가 영속성 컨텍스트를 거치지 않도록 JdbcTemplate을 사용함
+ */
+@RequiredArgsConstructor
+@Repository
+public class OrderOutboxBatchRepository {
+
+    private static final String COLUMNS = "id, order_id, account_id, seller_id, product_id, number, total, created_at, event_offset";
+
+    private static final RowMapper<OrderOutbox> ROW_MAPPER = (rs, rowNum) -> {
+        long eventOffset = rs.getLong("event_offset");
+        boolean published = !rs.wasNull();
+        return OrderOutbox.builder()
+                .id(rs.getLong("id"))
+                .orderId(rs.getLong("order_id"))
+                .accountId(rs.getLong("account_id"))
+                .sellerId(rs.getLong("seller_id"))
+                .productId(rs.getLong("product_id"))
+                .number(rs.getLong("number"))
+                .total(rs.getLong("total"))
+                .createdAt(rs.getTimestamp("created_at").toLocalDateTime())
+                .eventOffset(published ? eventOffset : null)
+                .build();
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 아직 전달되지 않은 outbox를 저장된 순서로 limit개 조회
+     */
+    public List<OrderOutbox> findUnpublished(int limit) {
+        return jdbcTemplate.query("select " + COLUMNS + " from order_outbox where event_offset is null order by id limit ?", ROW_MAPPER, limit);
+    }
+
+    /**
+     * 전달된 순서가 offset 이후인 outbox를 순서대로 limit개 조회
+     */
+    public List<OrderEvent> findPublishedAfter(long offset, int limit) {
+        List<OrderEvent> events = new ArrayList<>();
+        jdbcTemplate.query("select " + COLUMNS + " from order_outbox where event_offset > ? order by event_offset limit ?",
+                rs -> {
+                    OrderOutbox orderOutbox = ROW_MAPPER.mapRow(rs, 0);
+                    events.add(new OrderEvent(orderOutbox, orderOutbox.getEventOffset()));
+                }, offset, limit);
+        return events;
+    }
+
+    /**
+     * 마지막으로 전달된 순서, 전달된 이벤트가 없으면 0
+     */
+    public long findLastOffset() {
+        Long lastOffset = jdbcTemplate.queryForObject("select max(event_offset) from order_outbox", Long.class);
+        return lastOffset == null ? 0 : lastOffset;
+    }
+
+    /**
+     * 이벤트의 순서와 전달 일시를 기록
+     * 다른 relay가 먼저 기록한 outbox가 있으면 false를 반환하며, 호출한 쪽에서 트랜잭션을 롤백해야 함
+     */
+    public boolean markPublished(List<OrderEvent> events, List<OrderOutbox> orderOutboxes) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>(events.size());
+        for (int i = 0; i < events.size(); i++) {
+            args.add(new Object[]{events.get(i).getOffset(), now, orderOutboxes.get(i).getId()});
+        }
+        int[] updated = jdbcTemplate.batchUpdate("update order_outbox set event_offset = ?, published_at = ? where id = ? and event_offset is null", args);
+        for (int count : updated) {
+            if (count == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 전달된 지 오래된 outbox를 삭제
+     */
+    public int deletePublishedBefore(LocalDateTime publishedAt) {
+        return jdbcTemplate.update("delete from order_outbox where published_at < ?", Timestamp.valueOf(publishedAt));
+    }
+}
@@ -0,0 +1,6 @@
+package me.mugon.lendit.domain.outbox;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface OrderOutboxRepository extends JpaRepository<OrderOutbox, Long> {
+}
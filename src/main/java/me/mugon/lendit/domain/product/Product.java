@@ -1,12 +1,14 @@
 package me.mugon.lendit.domain.product;
 
 import com.fasterxml.jackson.annotation.JsonIdentityInfo;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.ObjectIdGenerators;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import me.mugon.lendit.domain.account.Account;
+import me.mugon.lendit.domain.common.IdGenerator;
 import me.mugon.lendit.domain.order.Orders;
 import me.mugon.lendit.web.dto.product.ProductRequestDto;
 
@@ -24,7 +26,8 @@ public class Product implements Serializable {
 
     /** 식별자 */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = IdGenerator.NAME)
+    @SequenceGenerator(name = IdGenerator.NAME, sequenceName = IdGenerator.SEQUENCE, allocationSize = IdGenerator.ALLOCATION_SIZE)
     private Long id;
 
     /** 상품 이름 */
@@ -42,6 +45,15 @@ public class Product implements Serializable {
     /** 상품 등록 일시 */
     private LocalDateTime createdAt;
 
+    /**
+     * 낙관적 잠금(lendit.order.concurrency=optimistic)과 ETag를 위한 버전
+     * 재고를 바꾸는 UPDATE 쿼리와 상품 수정 UPDATE 쿼리가 모두 버전을 함께 올림
+     * JPA의 @Version으로 두면 주문이 재고와 함께 버전을 올린 뒤 판매자의 수정, 삭제가 충돌로 실패하므로 일반 컬럼으로 둠
+     */
+    @Column(nullable = false)
+    @JsonIgnore
+    private Long version;
+
     /** 상품의 주문리스트 */
     @OneToMany(mappedBy = "product", fetch = FetchType.EAGER)
     private List<Orders> ordersList;
@@ -50,6 +62,13 @@ public class Product implements Serializable {
     @ManyToOne
     private Account account;
 
+    @PrePersist
+    void initVersion() {
+        if (this.version == null) {
+            this.version = 0L;
+        }
+    }
+
     public void update(ProductRequestDto requestDto) {
         this.name = requestDto.getName();
         this.price = requestDto.getPrice();
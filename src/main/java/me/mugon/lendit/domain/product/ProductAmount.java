@@ -0,0 +1,12 @@
+package me.mugon.lendit.domain.product;
+
+/**
+ * 상품의 식별자와 재고 수량만 조회하기 위한 Projection
+ * Product 엔티티를 조회하면 EAGER로 설정된 주문리스트와 등록자까지 함께 조회되기 때문에 재고만 필요한 경우 사용함
+ */
+public interface ProductAmount {
+
+    Long getId();
+
+    Long getAmount();
+}
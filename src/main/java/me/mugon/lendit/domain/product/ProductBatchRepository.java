@@ -0,0 +1,46 @@
+package me.mugon.lendit.domain.product;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+
+/**
+ * 여러 상품의 재고를 한 번에 수정하거나 잠그기 위해 선언
+ * JPQL UPDATE는 JDBC batch로 묶이지 않기 때문에 JdbcTemplate의 batchUpdate를 사용하여 한 번의 왕복으로 처리함
+ */
+@RequiredArgsConstructor
+@Repository
+public class ProductBatchRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 상품 식별자별 감소시킬 수량을 받아 재고를 감소시킴
+     * 이미 판매가 확정된 수량을 반영하는 용도이기 때문에 재고 조건 없이 감소시킴
+     */
+    public void decreaseAmounts(Map<Long, Long> numbers) {
+        List<Object[]> args = new ArrayList<>(numbers.size());
+        numbers.forEach((productId, number) -> args.add(new Object[]{number, productId}));
+        jdbcTemplate.batchUpdate("update product set amount = amount - ?, version = version + 1 where id = ?", args);
+    }
+
+    /**
+     * 상품 식별자 순서로 row lock(SELECT ... FOR UPDATE)을 잡고 재고 수량을 조회
+     * 여러 주문이 같은 상품들을 서로 다른 순서로 잠가 deadlock이 생기지 않도록 항상 식별자 순서로 잠금
+     * 잠금은 트랜잭션이 끝날 때까지 유지되므로 트랜잭션 안에서 호출해야 함
+     */
+    public Map<Long, Long> findAmountsForUpdate(Collection<Long> productIds) {
+        Map<Long, Long> amounts = new LinkedHashMap<>();
+        if (productIds.isEmpty()) {
+            return amounts;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(productIds.size(), "?"));
+        jdbcTemplate.query("select id, amount from product where id in (" + placeholders + ") order by id for update",
+                rs -> {
+                    amounts.put(rs.getLong("id"), rs.getLong("amount"));
+                }, productIds.toArray());
+        return amounts;
+    }
+}
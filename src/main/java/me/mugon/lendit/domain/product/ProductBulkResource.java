@@ -0,0 +1,20 @@
+package me.mugon.lendit.domain.product;
+
+import me.mugon.lendit.web.ProductController;
+import me.mugon.lendit.web.dto.product.ProductBulkResultDto;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+
+/**
+ * REST API의 규칙 중 하나인 HATEOAS를 만족시키기 위해 선언
+ * 상품 일괄 등록의 주소를 self 관계로 더함
+ */
+public class ProductBulkResource extends EntityModel<ProductBulkResultDto> {
+
+    public ProductBulkResource(ProductBulkResultDto resultDto, Link... links) {
+        super(resultDto, links);
+        add(linkTo(ProductController.class).slash("bulk").withSelfRel());
+    }
+}
@@ -0,0 +1,26 @@
+package me.mugon.lendit.domain.product;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 상품 테이블의 상품 수, 가장 큰 식별자, 버전의 합
+ * 상품이 등록되면 가장 큰 식별자가, 삭제되면 상품 수가, 수정되거나 재고가 바뀌면 버전의 합이 바뀌므로
+ * 상품 목록 스냅샷(ProductCatalogSnapshot)을 쓴 뒤 상품 테이블이 바뀌었는지 하나의 쿼리로 확인하기 위해 사용함
+ */
+@Getter @EqualsAndHashCode @ToString
+public class ProductCatalogFingerprint {
+
+    private final long count;
+
+    private final long maxId;
+
+    private final long versionSum;
+
+    public ProductCatalogFingerprint(Long count, Long maxId, Long versionSum) {
+        this.count = count == null ? 0L : count;
+        this.maxId = maxId == null ? 0L : maxId;
+        this.versionSum = versionSum == null ? 0L : versionSum;
+    }
+}
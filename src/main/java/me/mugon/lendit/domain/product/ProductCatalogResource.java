@@ -0,0 +1,20 @@
+package me.mugon.lendit.domain.product;
+
+import me.mugon.lendit.web.ProductController;
+import me.mugon.lendit.web.dto.product.ProductCatalogResponseDto;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+
+/**
+ * REST API의 규칙 중 하나인 HATEOAS를 만족시키기 위해 선언
+ * 상품 목록, 개별 상품 조회의 응답에 ProductResource와 같이 self 관계를 더함
+ */
+public class ProductCatalogResource extends EntityModel<ProductCatalogResponseDto> {
+
+    public ProductCatalogResource(ProductCatalogResponseDto responseDto, Link... links) {
+        super(responseDto, links);
+        add(linkTo(ProductController.class).slash(responseDto.getId()).withSelfRel());
+    }
+}
@@ -0,0 +1,256 @@
+package me.mugon.lendit.domain.product;
+
+import me.mugon.lendit.web.dto.product.ProductCatalogResponseDto;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * 상품 목록(상품 조회 응답과 같은 값)을 담는 읽기 전용 스냅샷 파일
+ * 한 번 쓰면 바뀌지 않으며, 파일 전체를 메모리에 매핑(mmap)하여 읽음
+ *
+ * 파일 구조
+ * - header: MAGIC(int), VERSION(int), 쓴 시간(long), 상품 수(int), 문자열 영역의 길이(int), 쓸 때의 가장 큰 식별자(long), 버전의 합(long)
+ * - record: 식별자 순서로 정렬한 상품마다 식별자, 버전, 가격, 재고 수량, 등록 일시, 등록자의 식별자(long)와
+ *           이름, 등록자 이름의 문자열 영역 안의 위치와 길이(int) (RECORD_SIZE 바이트)
+ * - strings: 상품 이름과 등록자 이름의 UTF-8 바이트, 같은 문자열은 한 번만 담음
+ * - footer: header부터 strings까지의 CRC32(long), MAGIC(int)
+ *
+ * record의 크기가 같으므로 n번째 상품의 식별자, 버전은 문자열을 읽지 않고 바로 읽음
+ * 하나의 매핑으로 읽기 때문에 파일은 2GB보다 작아야 함
+ */
+public class ProductCatalogSnapshot {
+
+    private static final int MAGIC = 0x4C50534E;
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 40;
+
+    private static final int RECORD_SIZE = 64;
+
+    private static final int FOOTER_SIZE = 12;
+
+    /** null인 등록자의 식별자, 버전, 등록 일시 */
+    private static final long NULL = Long.MIN_VALUE;
+
+    private final Path path;
+
+    private final MappedByteBuffer buffer;
+
+    private final LocalDateTime writtenAt;
+
+    private final int recordCount;
+
+    private final int stringsOffset;
+
+    private final ProductCatalogFingerprint fingerprint;
+
+    private ProductCatalogSnapshot(Path path, MappedByteBuffer buffer) throws IOException {
+        this.path = path;
+        this.buffer = buffer;
+        int footer = buffer.capacity() - FOOTER_SIZE;
+        if (buffer.capacity() < HEADER_SIZE + FOOTER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(footer + 8) != MAGIC) {
+            throw new IOException("invalid product catalog snapshot: " + path);
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("unsupported product catalog snapshot version " + buffer.getInt(4) + ": " + path);
+        }
+        this.writtenAt = fromTime(buffer.getLong(8));
+        this.recordCount = buffer.getInt(16);
+        long strings = HEADER_SIZE + (long) recordCount * RECORD_SIZE;
+        if (recordCount < 0 || strings + buffer.getInt(20) != footer) {
+            throw new IOException("invalid product catalog snapshot length: " + path);
+        }
+        this.stringsOffset = (int) strings;
+        if (crc(buffer, footer) != buffer.getLong(footer)) {
+            throw new IOException("product catalog snapshot checksum mismatch: " + path);
+        }
+        this.fingerprint = new ProductCatalogFingerprint((long) recordCount, buffer.getLong(24), buffer.getLong(32));
+    }
+
+    /**
+     * 파일을 읽기 전용으로 매핑하여 열고, 크기와 CRC32를 확인함
+     * 매핑은 채널을 닫은 뒤에도 유지되므로 채널은 바로 닫음
+     */
+    public static ProductCatalogSnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("product catalog snapshot is too large: " + path);
+            }
+            return new ProductCatalogSnapshot(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * 식별자 순서로 정렬한 상품들을 path에 스냅샷 파일로 씀, fingerprint는 상품들을 읽을 때의 상품 테이블의 값
+     * 임시 파일에 모두 쓰고 디스크에 반영(fsync)한 뒤 이름을 바꾸기 때문에, 도중에 실패해도 이전 스냅샷 파일이 그대로 남음
+     */
+    public static ProductCatalogSnapshot write(Path path, ProductCatalogFingerprint fingerprint, List<ProductCatalogResponseDto> products) throws IOException {
+        ByteArrayOutputStream strings = new ByteArrayOutputStream();
+        Map<String, Integer> stringOffsets = new HashMap<>();
+        ByteBuffer records = ByteBuffer.allocate(products.size() * RECORD_SIZE);
+        for (ProductCatalogResponseDto product : products) {
+            records.putLong(product.getId())
+                    .putLong(toLong(product.getVersion()))
+                    .putLong(product.getPrice())
+                    .putLong(product.getAmount())
+                    .putLong(product.getCreatedAt() == null ? NULL : toTime(product.getCreatedAt()))
+                    .putLong(toLong(product.getAccount().getId()));
+            putString(records, product.getName(), strings, stringOffsets);
+            putString(records, product.getAccount().getUsername(), strings, stringOffsets);
+        }
+        records.flip();
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                .putInt(MAGIC).putInt(VERSION)
+                .putLong(toTime(LocalDateTime.now()))
+                .putInt(products.size()).putInt(strings.size())
+                .putLong(fingerprint.getMaxId()).putLong(fingerprint.getVersionSum());
+        header.flip();
+        ByteBuffer stringBuffer = ByteBuffer.wrap(strings.toByteArray());
+
+        CRC32 crc = new CRC32();
+        crc.update(header.duplicate());
+        crc.update(records.duplicate());
+        crc.update(stringBuffer.duplicate());
+        ByteBuffer footer = ByteBuffer.allocate(FOOTER_SIZE).putLong(crc.getValue()).putInt(MAGIC);
+        footer.flip();
+
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (ByteBuffer part : new ByteBuffer[]{header, records, stringBuffer, footer}) {
+                while (part.hasRemaining()) {
+                    channel.write(part);
+                }
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return open(path);
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public LocalDateTime getWrittenAt() {
+        return writtenAt;
+    }
+
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * 스냅샷을 쓸 때의 상품 수, 가장 큰 식별자, 버전의 합
+     */
+    public ProductCatalogFingerprint getFingerprint() {
+        return fingerprint;
+    }
+
+    /** index번째 상품의 식별자 */
+    public long getId(int index) {
+        return buffer.getLong(HEADER_SIZE + index * RECORD_SIZE);
+    }
+
+    /** index번째 상품의 버전 */
+    public Long getVersion(int index) {
+        return fromLong(buffer.getLong(HEADER_SIZE + index * RECORD_SIZE + 8));
+    }
+
+    /**
+     * 모든 상품을 식별자 순서로 읽음
+     */
+    public List<ProductCatalogResponseDto> readAll() {
+        ByteBuffer duplicate = buffer.duplicate(); // 여러 스레드가 함께 읽을 수 있도록 위치를 따로 가지는 buffer를 사용
+        List<ProductCatalogResponseDto> products = new ArrayList<>(recordCount);
+        for (int i = 0; i < recordCount; i++) {
+            int record = HEADER_SIZE + i * RECORD_SIZE;
+            long createdAt = buffer.getLong(record + 32);
+            products.add(new ProductCatalogResponseDto(
+                    buffer.getLong(record),
+                    getString(duplicate, buffer.getInt(record + 48), buffer.getInt(record + 52)),
+                    buffer.getLong(record + 16),
+                    buffer.getLong(record + 24),
+                    createdAt == NULL ? null : fromTime(createdAt),
+                    fromLong(buffer.getLong(record + 8)),
+                    fromLong(buffer.getLong(record + 40)),
+                    getString(duplicate, buffer.getInt(record + 56), buffer.getInt(record + 60))));
+        }
+        return products;
+    }
+
+    /**
+     * 문자열 영역에 문자열을 담고 record에 위치와 길이를 씀, null이면 길이를 -1로 씀
+     */
+    private static void putString(ByteBuffer records, String value, ByteArrayOutputStream strings, Map<String, Integer> stringOffsets) {
+        if (value == null) {
+            records.putInt(0).putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        Integer offset = stringOffsets.get(value);
+        if (offset == null) {
+            offset = strings.size();
+            strings.write(bytes, 0, bytes.length);
+            stringOffsets.put(value, offset);
+        }
+        records.putInt(offset).putInt(bytes.length);
+    }
+
+    private String getString(ByteBuffer duplicate, int offset, int length) {
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        duplicate.position(stringsOffset + offset);
+        duplicate.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long crc(MappedByteBuffer buffer, int length) {
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.limit(length);
+        CRC32 crc = new CRC32();
+        crc.update(duplicate);
+        return crc.getValue();
+    }
+
+    private static long toLong(Long value) {
+        return value == null ? NULL : value;
+    }
+
+    private static Long fromLong(long value) {
+        return value == NULL ? null : value;
+    }
+
+    /**
+     * 등록 일시를 UTC 기준 epoch nano로 바꿈
+     */
+    private static long toTime(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + dateTime.getNano();
+    }
+
+    private static LocalDateTime fromTime(long time) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(time, 1_000_000_000L), (int) Math.floorMod(time, 1_000_000_000L), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,57 @@
+package me.mugon.lendit.domain.product;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * 상품 목록을 keyset 방식으로 나누어 조회하기 위한 cursor
+ * 기준이 되는 상품의 식별자와 그 이후(next), 이전(prev) 중 어느 쪽을 조회할지를 담으며, 클라이언트에는 내용을 알 수 없도록 Base64로 인코딩하여 전달함
+ */
+@Getter @AllArgsConstructor
+public class ProductCursor {
+
+    private static final String DELIMITER = "_";
+
+    private static final String AFTER = "after";
+
+    private static final String BEFORE = "before";
+
+    /** true면 id보다 앞선 상품을, false면 id보다 뒤의 상품을 조회 */
+    private final boolean before;
+
+    private final Long id;
+
+    public static ProductCursor after(Long id) {
+        return new ProductCursor(false, id);
+    }
+
+    public static ProductCursor before(Long id) {
+        return new ProductCursor(true, id);
+    }
+
+    public String encode() {
+        String value = (before ? BEFORE : AFTER) + DELIMITER + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 인코딩된 cursor를 읽음, 형식이 맞지 않으면 Optional.empty()를 반환
+     */
+    public static Optional<ProductCursor> decode(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int index = value.indexOf(DELIMITER);
+            String direction = value.substring(0, index);
+            if (!direction.equals(AFTER) && !direction.equals(BEFORE)) {
+                return Optional.empty();
+            }
+            return Optional.of(new ProductCursor(direction.equals(BEFORE), Long.parseLong(value.substring(index + 1))));
+        } catch (RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+}
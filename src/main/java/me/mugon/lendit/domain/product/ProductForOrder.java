@@ -0,0 +1,59 @@
+package me.mugon.lendit.domain.product;
+
+import me.mugon.lendit.domain.account.Account;
+import me.mugon.lendit.domain.account.Role;
+
+import java.time.LocalDateTime;
+
+/**
+ * 주문, 재고 보류에서 검증하고 응답에 담을 상품의 컬럼과 등록자의 컬럼만 조회하기 위한 Projection
+ * Product 엔티티로 조회하면 EAGER인 주문리스트와 등록자의 주문, 상품 목록을 모두 읽기 때문에 상품에 쌓인 주문 수만큼 읽는 row가 늘어나므로 사용함
+ */
+public interface ProductForOrder {
+
+    Long getId();
+
+    String getName();
+
+    Long getPrice();
+
+    Long getAmount();
+
+    LocalDateTime getCreatedAt();
+
+    Long getVersion();
+
+    Long getAccountId();
+
+    String getAccountUsername();
+
+    Long getAccountBalance();
+
+    Role getAccountRole();
+
+    LocalDateTime getAccountCreatedAt();
+
+    /**
+     * 영속성 컨텍스트에 없는(detached) Product로 바꿈, 주문리스트는 읽지 않았으므로 null
+     * 식별자와 버전이 있으므로 주문(Orders)이 참조하여 저장하면 상품의 식별자만 외래 키로 쓰임
+     * 등록자의 예치금은 유저 생성 시의 예치금이 담기므로 현재 예치금이 필요하면 Account.loadBalance로 담아야 함
+     */
+    default Product toProduct() {
+        Account account = getAccountId() == null ? null : Account.builder()
+                .id(getAccountId())
+                .username(getAccountUsername())
+                .balance(getAccountBalance())
+                .role(getAccountRole())
+                .createdAt(getAccountCreatedAt())
+                .build();
+        return Product.builder()
+                .id(getId())
+                .name(getName())
+                .price(getPrice())
+                .amount(getAmount())
+                .createdAt(getCreatedAt())
+                .version(getVersion())
+                .account(account)
+                .build();
+    }
+}
@@ -0,0 +1,15 @@
+package me.mugon.lendit.domain.product;
+
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.Link;
+
+/**
+ * REST API의 규칙 중 하나인 HATEOAS를 만족시키기 위해 선언
+ * cursor로 나누어 조회한 상품 목록을 page 정보 없이 HAL 형식(_embedded, _links)으로 반환하기 위해 CollectionModel을 상속함
+ */
+public class ProductListResource extends CollectionModel<ProductCatalogResource> {
+
+    public ProductListResource(Iterable<ProductCatalogResource> productResources, Link... links) {
+        super(productResources, links);
+    }
+}
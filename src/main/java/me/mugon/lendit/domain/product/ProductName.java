@@ -0,0 +1,12 @@
+package me.mugon.lendit.domain.product;
+
+/**
+ * 상품의 식별자와 이름만 조회하기 위한 Projection
+ * 상품 이름 검색 색인(ProductSearchIndex)을 다시 만들 때 사용함
+ */
+public interface ProductName {
+
+    Long getId();
+
+    String getName();
+}
@@ -1,6 +1,178 @@
 package me.mugon.lendit.domain.product;
 
+import me.mugon.lendit.web.dto.product.ProductCatalogResponseDto;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
+
+    /** 상품 목록, 개별 상품 조회에 사용하는 constructor expression, 등록자는 식별자와 이름만 join하여 읽음 */
+    String CATALOG_SELECT = "select new me.mugon.lendit.web.dto.product.ProductCatalogResponseDto(p.id, p.name, p.price, p.amount, p.createdAt, p.version, a.id, a.username) " +
+            "from Product p left join p.account a";
+
+    /**
+     * 주문, 재고 보류할 여러 상품을 하나의 IN 쿼리로 조회
+     * ordersList가 EAGER이기 때문에 엔티티로 조회하면 상품의 모든 주문을 함께 읽으므로, 상품과 등록자의 컬럼만 fetch 없이 join하여 조회함
+     */
+    @Query("select p.id as id, p.name as name, p.price as price, p.amount as amount, p.createdAt as createdAt, p.version as version, " +
+            "a.id as accountId, a.username as accountUsername, a.balance as accountBalance, a.role as accountRole, a.createdAt as accountCreatedAt " +
+            "from Product p left join p.account a where p.id in :ids")
+    List<ProductForOrder> findForOrderByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 상품 목록을 상품 테이블의 컬럼과 등록자의 식별자, 이름만 조회 (page 번호 방식)
+     * Product 엔티티로 조회하면 상품마다 EAGER인 주문리스트와 등록자의 주문, 상품 목록을 읽는 쿼리가 추가로 실행되므로 DTO로 바로 조회함
+     * 조회 쿼리와 COUNT 쿼리 두 개만 실행됨
+     */
+    @Query(value = CATALOG_SELECT,
+            countQuery = "select count(p) from Product p")
+    Page<ProductCatalogResponseDto> findCatalogPage(Pageable pageable);
+
+    /**
+     * 상품 목록을 COUNT 쿼리 없이 조회 (Slice)
+     * 요청한 개수보다 하나 더 조회하여 다음 목록이 있는지만 확인함
+     */
+    @Query(CATALOG_SELECT)
+    Slice<ProductCatalogResponseDto> findCatalogSlice(Pageable pageable);
+
+    /**
+     * 식별자가 id보다 큰 상품을 조회, OFFSET 대신 기본 키 인덱스를 따라 id 다음부터 읽음 (keyset)
+     */
+    @Query(CATALOG_SELECT + " where p.id > :id")
+    Slice<ProductCatalogResponseDto> findCatalogSliceByIdGreaterThan(@Param("id") Long id, Pageable pageable);
+
+    /**
+     * 식별자가 id보다 작은 상품을 조회, 이전 목록을 조회할 때 식별자의 역순으로 정렬하여 사용
+     */
+    @Query(CATALOG_SELECT + " where p.id < :id")
+    Slice<ProductCatalogResponseDto> findCatalogSliceByIdLessThan(@Param("id") Long id, Pageable pageable);
+
+    /**
+     * 하나의 상품을 상품 테이블의 컬럼과 등록자의 식별자, 이름만 조회
+     */
+    @Query(CATALOG_SELECT + " where p.id = :id")
+    Optional<ProductCatalogResponseDto> findCatalogById(@Param("id") Long id);
+
+    /**
+     * 여러 상품을 상품 테이블의 컬럼과 등록자의 식별자, 이름만 조회, 순서는 보장하지 않음
+     */
+    @Query(CATALOG_SELECT + " where p.id in :ids")
+    List<ProductCatalogResponseDto> findCatalogByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 식별자가 from 이상 to 이하인 상품을 상품 테이블의 컬럼과 등록자의 식별자, 이름만 식별자 순서로 조회
+     */
+    @Query(CATALOG_SELECT + " where p.id between :from and :to order by p.id")
+    List<ProductCatalogResponseDto> findCatalogByIdBetween(@Param("from") Long from, @Param("to") Long to);
+
+    /**
+     * 식별자가 from 이상 to 이하인 상품의 식별자와 이름만 조회
+     */
+    @Query("select p.id as id, p.name as name from Product p where p.id between :from and :to")
+    List<ProductName> findNamesByIdBetween(@Param("from") Long from, @Param("to") Long to);
+
+    /**
+     * 모든 상품의 식별자, 가격, 등록 일시만 조회
+     */
+    @Query("select p.id as id, p.price as price, p.createdAt as createdAt from Product p")
+    List<ProductSortKey> findAllSortKeys();
+
+    /**
+     * 식별자가 from 이상 to 이하인 상품의 식별자와 버전만 식별자 순서로 조회
+     */
+    @Query("select p.id as id, p.version as version from Product p where p.id between :from and :to order by p.id")
+    List<ProductVersion> findVersionsByIdBetween(@Param("from") Long from, @Param("to") Long to);
+
+    /**
+     * 상품 수, 가장 큰 식별자, 버전의 합을 하나의 쿼리로 조회
+     */
+    @Query("select new me.mugon.lendit.domain.product.ProductCatalogFingerprint(count(p), max(p.id), sum(p.version)) from Product p")
+    ProductCatalogFingerprint findCatalogFingerprint();
+
+    @Query("select min(p.id) from Product p")
+    Optional<Long> findMinId();
+
+    @Query("select max(p.id) from Product p")
+    Optional<Long> findMaxId();
+
+    /**
+     * 모든 상품의 재고 수량만 조회
+     */
+    @Query("select p.id as id, p.amount as amount from Product p")
+    List<ProductAmount> findAllAmounts();
+
+    /**
+     * 하나의 상품의 재고 수량만 조회
+     */
+    @Query("select p.id as id, p.amount as amount from Product p where p.id = :id")
+    Optional<ProductAmount> findAmountById(@Param("id") Long id);
+
+    /**
+     * 여러 상품의 재고 수량과 버전을 조회
+     */
+    @Query("select p.id as id, p.amount as amount, p.version as version from Product p where p.id in :ids")
+    List<ProductStock> findStocksByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 재고가 주문 수량 이상인 경우에만 재고를 감소시킴
+     * 조회 후 수정(read-modify-write)하면 동시 주문 시 재고보다 많이 팔릴 수 있기 때문에 하나의 조건부 UPDATE로 처리함
+     * 반환값이 0이면 재고가 부족하거나 상품이 없는 경우
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update Product p set p.amount = p.amount - :number, p.version = p.version + 1 where p.id = :id and p.amount >= :number")
+    int decreaseAmount(@Param("id") Long id, @Param("number") Long number);
+
+    /**
+     * 조회한 이후 버전이 바뀌지 않은 경우에만 재고를 감소시킴 (낙관적 잠금)
+     * 반환값이 0이면 다른 트랜잭션이 먼저 재고를 바꾼 경우
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update Product p set p.amount = p.amount - :number, p.version = p.version + 1 where p.id = :id and p.version = :version")
+    int decreaseAmountIfVersion(@Param("id") Long id, @Param("number") Long number, @Param("version") Long version);
+
+    /**
+     * 조건 없이 재고를 감소시킴
+     * 이미 row lock을 잡고 재고를 확인한 경우(비관적 잠금)에만 사용
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update Product p set p.amount = p.amount - :number, p.version = p.version + 1 where p.id = :id")
+    int subtractAmount(@Param("id") Long id, @Param("number") Long number);
+
+    /**
+     * 조회한 재고로 계산한 값을 그대로 씀
+     * 동시 주문 시 다른 주문의 감소를 덮어쓰기 때문에 비교를 위한 lendit.order.concurrency=unsafe에서만 사용
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update Product p set p.amount = :amount, p.version = p.version + 1 where p.id = :id")
+    int updateAmount(@Param("id") Long id, @Param("amount") Long amount);
+
+    @Modifying(clearAutomatically = true)
+    @Query("update Product p set p.amount = p.amount + :number, p.version = p.version + 1 where p.id = :id")
+    int increaseAmount(@Param("id") Long id, @Param("number") Long number);
+
+    /**
+     * 판매자가 수정한 상품의 이름, 가격, 재고 수량을 쓰고 버전을 올림
+     * 조회한 엔티티를 변경 감지로 쓰면 조회한 뒤 주문이 올린 버전을 되돌리므로, 버전은 UPDATE 쿼리에서 올림
+     * 반환값이 0이면 조회한 뒤 상품이 삭제된 경우
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update Product p set p.name = :name, p.price = :price, p.amount = :amount, p.version = p.version + 1 where p.id = :id")
+    int updateDetails(@Param("id") Long id, @Param("name") String name, @Param("price") Long price, @Param("amount") Long amount);
+
+    /**
+     * 유저가 등록한 모든 상품의 버전을 올림
+     * 개별 상품 조회의 응답에 담기는 등록자의 이름이 바뀌었을 때 상품의 ETag가 바뀌도록 사용
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Product p set p.version = p.version + 1 where p.account.id = :accountId")
+    int increaseVersionByAccountId(@Param("accountId") Long accountId);
 }
@@ -0,0 +1,16 @@
+package me.mugon.lendit.domain.product;
+
+import java.time.LocalDateTime;
+
+/**
+ * 상품의 식별자, 가격, 등록 일시만 조회하기 위한 Projection
+ * 가격, 등록 일시 정렬 색인(ProductSortIndex)을 다시 만들 때 사용함
+ */
+public interface ProductSortKey {
+
+    Long getId();
+
+    Long getPrice();
+
+    LocalDateTime getCreatedAt();
+}
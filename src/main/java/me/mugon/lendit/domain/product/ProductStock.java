@@ -0,0 +1,14 @@
+package me.mugon.lendit.domain.product;
+
+/**
+ * 상품의 식별자, 재고 수량, 버전만 조회하기 위한 Projection
+ * 낙관적 잠금으로 재고를 감소시킬 때 조회한 버전이 그대로인지 확인하기 위해 사용함
+ */
+public interface ProductStock {
+
+    Long getId();
+
+    Long getAmount();
+
+    Long getVersion();
+}
@@ -0,0 +1,12 @@
+package me.mugon.lendit.domain.product;
+
+/**
+ * 상품의 식별자와 버전만 조회하기 위한 Projection
+ * 상품 목록 스냅샷으로 채운 색인이 db와 같은지 확인할 때 사용함
+ */
+public interface ProductVersion {
+
+    Long getId();
+
+    Long getVersion();
+}
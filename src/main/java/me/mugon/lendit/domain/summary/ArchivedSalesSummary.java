@@ -0,0 +1,47 @@
+package me.mugon.lendit.domain.summary;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * segment 파일로 옮겨진 주문의 유저별 합계
+ * 요약을 Orders로부터 다시 계산할 때 orders 테이블에 없는 옮겨진 주문을 더하기 위해, 주문을 옮기는 트랜잭션에서 갱신함
+ */
+@Getter @NoArgsConstructor @AllArgsConstructor @Builder
+@Entity
+public class ArchivedSalesSummary {
+
+    /** 유저(Account)의 식별자 */
+    @Id
+    private Long accountId;
+
+    /** 구매자로서 옮겨진 주문 항목(Orders)의 개수 */
+    @Column(nullable = false)
+    private Long buyerOrderCount;
+
+    /** 구매자로서 옮겨진 주문의 상품 개수의 합 */
+    @Column(nullable = false)
+    private Long buyerItemCount;
+
+    /** 구매자로서 옮겨진 주문에 사용한 금액의 합 */
+    @Column(nullable = false)
+    private Long buyerTotalSpent;
+
+    /** 판매자로서 옮겨진 주문 항목(Orders)의 개수 */
+    @Column(nullable = false)
+    private Long sellerOrderCount;
+
+    /** 판매자로서 옮겨진 주문의 상품 개수의 합 */
+    @Column(nullable = false)
+    private Long sellerItemCount;
+
+    /** 판매자로서 옮겨진 주문의 판매 금액의 합 */
+    @Column(nullable = false)
+    private Long sellerRevenue;
+}
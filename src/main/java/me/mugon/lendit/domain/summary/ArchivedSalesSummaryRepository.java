@@ -0,0 +1,10 @@
+package me.mugon.lendit.domain.summary;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+/**
+ * ArchivedSalesSummary 도메인을 데이터베이스와 매핑하여 조회하기 위해 선언
+ * 합계를 갱신하는 작업은 SalesSummaryBatchRepository에서 처리함
+ */
+public interface ArchivedSalesSummaryRepository extends JpaRepository<ArchivedSalesSummary, Long> {
+}
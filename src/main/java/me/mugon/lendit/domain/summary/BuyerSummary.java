@@ -0,0 +1,39 @@
+package me.mugon.lendit.domain.summary;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.time.LocalDateTime;
+
+/**
+ * 구매자별 주문 요약
+ * 유저가 주문한 Orders를 모두 읽어 더하지 않고 한 번의 조회로 구매 합계를 확인하기 위해, 주문이 등록될 때마다 같은 트랜잭션에서 갱신함
+ */
+@Getter @NoArgsConstructor @AllArgsConstructor @Builder
+@Entity
+public class BuyerSummary {
+
+    /** 구매자(Account)의 식별자 */
+    @Id
+    private Long accountId;
+
+    /** 주문 항목(Orders)의 개수 */
+    @Column(nullable = false)
+    private Long orderCount;
+
+    /** 주문한 상품 개수의 합 */
+    @Column(nullable = false)
+    private Long itemCount;
+
+    /** 사용한 금액의 합 */
+    @Column(nullable = false)
+    private Long totalSpent;
+
+    /** 마지막으로 갱신된 일시 */
+    private LocalDateTime updatedAt;
+}
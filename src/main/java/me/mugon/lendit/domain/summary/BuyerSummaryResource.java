@@ -0,0 +1,21 @@
+package me.mugon.lendit.domain.summary;
+
+import me.mugon.lendit.web.AccountController;
+import me.mugon.lendit.web.dto.summary.BuyerSummaryResponseDto;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+
+/**
+ * REST API의 규칙 중 하나인 HATEOAS를 만족시키기 위해 선언
+ * 요약을 조회하는 주소를 self 관계로, 요약의 유저를 조회하는 주소를 account 관계로 더함
+ */
+public class BuyerSummaryResource extends EntityModel<BuyerSummaryResponseDto> {
+
+    public BuyerSummaryResource(BuyerSummaryResponseDto responseDto, Link... links) {
+        super(responseDto, links);
+        add(linkTo(AccountController.class).slash(responseDto.getAccountId()).slash("buyer-summary").withSelfRel());
+        add(linkTo(AccountController.class).slash(responseDto.getAccountId()).withRel("account"));
+    }
+}
@@ -0,0 +1,22 @@
+package me.mugon.lendit.domain.summary;
+
+import lombok.Getter;
+
+/**
+ * 요약 하나에 더할 주문 항목 개수, 상품 개수, 금액
+ */
+@Getter
+public class SalesDelta {
+
+    private long orderCount;
+
+    private long itemCount;
+
+    private long amount;
+
+    public void add(long number, long total) {
+        this.orderCount++;
+        this.itemCount += number;
+        this.amount += total;
+    }
+}
@@ -0,0 +1,178 @@
+package me.mugon.lendit.domain.summary;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 구매자, 판매자 요약을 갱신하고 다시 계산하기 위해 선언
+ * 여러 요약을 한 번의 왕복으로 갱신하기 위해 JdbcTemplate의 batchUpdate를 사용하며,
+ * Account를 저장하는 도중(@PostPersist)에도 호출되기 때문에 영속성 컨텍스트를 거치지 않음
+ */
+@RequiredArgsConstructor
+@Repository
+public class SalesSummaryBatchRepository {
+
+    private static final String BUYER_TABLE = "buyer_summary";
+
+    private static final String SELLER_TABLE = "seller_summary";
+
+    private static final String ARCHIVED_TABLE = "archived_sales_summary";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 0으로 초기화된 구매자, 판매자 요약을 만듦
+     * 새로 저장된 유저의 식별자에 남아 있는 요약(예: 스키마를 다시 만들어 식별자가 재사용된 경우)은 지우고 새로 만듦
+     */
+    public void register(Long accountId) {
+        remove(accountId);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("insert into buyer_summary (account_id, order_count, item_count, total_spent, updated_at) values (?, 0, 0, 0, ?)", accountId, now);
+        jdbcTemplate.update("insert into seller_summary (account_id, order_count, item_count, revenue, updated_at) values (?, 0, 0, 0, ?)", accountId, now);
+    }
+
+    public void remove(Long accountId) {
+        jdbcTemplate.update("delete from buyer_summary where account_id = ?", accountId);
+        jdbcTemplate.update("delete from seller_summary where account_id = ?", accountId);
+        jdbcTemplate.update("delete from archived_sales_summary where account_id = ?", accountId);
+    }
+
+    /**
+     * 구매자 식별자별 변동을 요약에 더함
+     * 넘겨받은 순서대로 row lock을 잡으므로 식별자 순서로 정렬된 Map을 넘겨야 함
+     */
+    public void addToBuyers(Map<Long, SalesDelta> deltas) {
+        add(BUYER_TABLE, "total_spent", deltas);
+    }
+
+    /**
+     * 판매자 식별자별 변동을 요약에 더함
+     * 넘겨받은 순서대로 row lock을 잡으므로 식별자 순서로 정렬된 Map을 넘겨야 함
+     */
+    public void addToSellers(Map<Long, SalesDelta> deltas) {
+        add(SELLER_TABLE, "revenue", deltas);
+    }
+
+    /**
+     * segment 파일로 옮겨진 주문의 구매자, 판매자별 합계를 더함
+     * 옮겨진 주문은 이미 구매자, 판매자 요약에 더해져 있으므로 요약은 바꾸지 않고, 다시 계산할 때 더할 합계만 갱신함
+     * 주문을 옮기는 작업만 호출하므로 row lock의 순서는 신경 쓰지 않음
+     */
+    public void addToArchived(Map<Long, SalesDelta> buyers, Map<Long, SalesDelta> sellers) {
+        Set<Long> accountIds = new TreeSet<>(buyers.keySet());
+        accountIds.addAll(sellers.keySet());
+        SalesDelta empty = new SalesDelta();
+        List<Object[]> args = new ArrayList<>(accountIds.size());
+        for (Long accountId : accountIds) {
+            SalesDelta buyer = buyers.getOrDefault(accountId, empty);
+            SalesDelta seller = sellers.getOrDefault(accountId, empty);
+            args.add(new Object[]{buyer.getOrderCount(), buyer.getItemCount(), buyer.getAmount(),
+                    seller.getOrderCount(), seller.getItemCount(), seller.getAmount(), accountId});
+        }
+        int[] updated = jdbcTemplate.batchUpdate("update " + ARCHIVED_TABLE + " set buyer_order_count = buyer_order_count + ?, " +
+                "buyer_item_count = buyer_item_count + ?, buyer_total_spent = buyer_total_spent + ?, " +
+                "seller_order_count = seller_order_count + ?, seller_item_count = seller_item_count + ?, " +
+                "seller_revenue = seller_revenue + ? where account_id = ?", args);
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                jdbcTemplate.update("insert into " + ARCHIVED_TABLE + " (buyer_order_count, buyer_item_count, buyer_total_spent, " +
+                        "seller_order_count, seller_item_count, seller_revenue, account_id) values (?, ?, ?, ?, ?, ?, ?)", args.get(i));
+            }
+        }
+    }
+
+    /**
+     * 유저 식별자의 최솟값과 최댓값, 유저가 없으면 Optional.empty()를 반환
+     */
+    public Optional<long[]> findAccountIdRange() {
+        return jdbcTemplate.query("select min(id), max(id) from account", rs -> {
+            rs.next();
+            long min = rs.getLong(1);
+            return rs.wasNull() ? Optional.<long[]>empty() : Optional.of(new long[]{min, rs.getLong(2)});
+        });
+    }
+
+    /**
+     * 식별자가 fromId ~ toId인 유저의 구매자 요약을 Orders와 segment 파일로 옮겨진 주문의 합계(archived_sales_summary)로 다시 계산
+     * 먼저 기존 요약에 row lock을 잡기 때문에, 계산하는 동안 커밋되지 않은 주문은 계산이 끝난 뒤 요약에 더해짐
+     * 요약을 지우고 다시 만들지 않고, 요약이 없는 유저의 요약만 추가한 뒤 구간의 요약을 그 자리에서 다시 계산한 값으로 UPDATE함
+     * 트랜잭션 안에서 호출해야 함
+     */
+    public void rebuildBuyers(long fromId, long toId) {
+        lock(BUYER_TABLE, fromId, toId);
+        insertMissing(BUYER_TABLE, "total_spent", fromId, toId);
+        jdbcTemplate.update("update buyer_summary set (order_count, item_count, total_spent, updated_at) = (" +
+                        "select count(o.id) + coalesce(max(z.buyer_order_count), 0), " +
+                        "coalesce(sum(o.number), 0) + coalesce(max(z.buyer_item_count), 0), " +
+                        "coalesce(sum(o.total), 0) + coalesce(max(z.buyer_total_spent), 0), ? " +
+                        "from buyer_summary s left join orders o on o.account_id = s.account_id " +
+                        "left join archived_sales_summary z on z.account_id = s.account_id " +
+                        "where s.account_id = buyer_summary.account_id) " +
+                        "where account_id between ? and ?",
+                Timestamp.valueOf(LocalDateTime.now()), fromId, toId);
+    }
+
+    /**
+     * 식별자가 fromId ~ toId인 유저의 판매자 요약을 Orders와 Product, 옮겨진 주문의 합계로 다시 계산
+     * rebuildBuyers와 같이 기존 요약에 row lock을 잡은 뒤 그 자리에서 다시 계산하며, 트랜잭션 안에서 호출해야 함
+     */
+    public void rebuildSellers(long fromId, long toId) {
+        lock(SELLER_TABLE, fromId, toId);
+        insertMissing(SELLER_TABLE, "revenue", fromId, toId);
+        jdbcTemplate.update("update seller_summary set (order_count, item_count, revenue, updated_at) = (" +
+                        "select count(o.id) + coalesce(max(z.seller_order_count), 0), " +
+                        "coalesce(sum(o.number), 0) + coalesce(max(z.seller_item_count), 0), " +
+                        "coalesce(sum(o.total), 0) + coalesce(max(z.seller_revenue), 0), ? " +
+                        "from seller_summary s left join product p on p.account_id = s.account_id " +
+                        "left join orders o on o.product_id = p.id " +
+                        "left join archived_sales_summary z on z.account_id = s.account_id " +
+                        "where s.account_id = seller_summary.account_id) " +
+                        "where account_id between ? and ?",
+                Timestamp.valueOf(LocalDateTime.now()), fromId, toId);
+    }
+
+    /**
+     * 구간 안의 유저 중 요약이 없는 유저(요약을 만들기 전에 저장된 유저 등)의 요약을 0으로 추가함, 값은 이어지는 UPDATE가 계산함
+     */
+    private void insertMissing(String table, String amountColumn, long fromId, long toId) {
+        jdbcTemplate.update("insert into " + table + " (account_id, order_count, item_count, " + amountColumn + ", updated_at) " +
+                        "select a.id, 0, 0, 0, ? from account a where a.id between ? and ? " +
+                        "and not exists (select 1 from " + table + " t where t.account_id = a.id)",
+                Timestamp.valueOf(LocalDateTime.now()), fromId, toId);
+    }
+
+    private void add(String table, String amountColumn, Map<Long, SalesDelta> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Long> accountIds = new ArrayList<>(deltas.keySet());
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        deltas.forEach((accountId, delta) -> args.add(new Object[]{delta.getOrderCount(), delta.getItemCount(), delta.getAmount(), now, accountId}));
+        int[] updated = jdbcTemplate.batchUpdate("update " + table + " set order_count = order_count + ?, item_count = item_count + ?, " +
+                amountColumn + " = " + amountColumn + " + ?, updated_at = ? where account_id = ?", args);
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) { // 요약을 만들기 전에 저장된 유저는 변동만큼 새로 만듦
+                Object[] arg = args.get(i);
+                jdbcTemplate.update("insert into " + table + " (account_id, order_count, item_count, " + amountColumn + ", updated_at) values (?, ?, ?, ?, ?)",
+                        accountIds.get(i), arg[0], arg[1], arg[2], now);
+            }
+        }
+    }
+
+    private void lock(String table, long fromId, long toId) {
+        jdbcTemplate.query("select account_id from " + table + " where account_id between ? and ? order by account_id for update",
+                rs -> {
+                }, fromId, toId);
+    }
+}
@@ -0,0 +1,39 @@
+package me.mugon.lendit.domain.summary;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.time.LocalDateTime;
+
+/**
+ * 판매자별 판매 요약
+ * 판매자(Product.account)가 등록한 상품의 Orders를 모두 읽어 더하지 않고 한 번의 조회로 매출을 확인하기 위해, 주문이 등록될 때마다 같은 트랜잭션에서 갱신함
+ */
+@Getter @NoArgsConstructor @AllArgsConstructor @Builder
+@Entity
+public class SellerSummary {
+
+    /** 판매자(Account)의 식별자 */
+    @Id
+    private Long accountId;
+
+    /** 판매된 주문 항목(Orders)의 개수 */
+    @Column(nullable = false)
+    private Long orderCount;
+
+    /** 판매된 상품 개수의 합 */
+    @Column(nullable = false)
+    private Long itemCount;
+
+    /** 매출의 합 */
+    @Column(nullable = false)
+    private Long revenue;
+
+    /** 마지막으로 갱신된 일시 */
+    private LocalDateTime updatedAt;
+}
@@ -2,6 +2,7 @@ package me.mugon.lendit.web;
 
 import lombok.RequiredArgsConstructor;
 import me.mugon.lendit.api.AccountService;
+import me.mugon.lendit.api.summary.SalesSummaryService;
 import me.mugon.lendit.domain.common.BaseValidator;
 import me.mugon.lendit.domain.account.Account;
 import me.mugon.lendit.domain.account.CurrentUser;
@@ -20,6 +21,8 @@ public class AccountController {
 
     private final AccountService accountService;
 
+    private final SalesSummaryService salesSummaryService;
+
     private final BaseValidator baseValidator;
 
     @PostMapping
@@ -47,4 +50,14 @@ public class AccountController {
     public ResponseEntity<?> getAccount(@PathVariable Long accountId, @CurrentUser Account currentUser) {
         return accountService.getAccount(accountId);
     }
+
+    @GetMapping("/{accountId}/buyer-summary")
+    public ResponseEntity<?> getBuyerSummary(@PathVariable Long accountId, @CurrentUser Account currentUser) {
+        return salesSummaryService.getBuyerSummary(accountId);
+    }
+
+    @GetMapping("/{accountId}/seller-summary")
+    public ResponseEntity<?> getSellerSummary(@PathVariable Long accountId, @CurrentUser Account currentUser) {
+        return salesSummaryService.getSellerSummary(accountId);
+    }
 }
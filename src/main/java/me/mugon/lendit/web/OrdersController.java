@@ -1,21 +1,28 @@
 package me.mugon.lendit.web;
 
 import lombok.RequiredArgsConstructor;
+import me.mugon.lendit.api.IdempotencyService;
+import me.mugon.lendit.api.OrderImportService;
+import me.mugon.lendit.api.OrderIntakeService;
 import me.mugon.lendit.api.OrderService;
+import me.mugon.lendit.api.hold.StockHoldService;
+import me.mugon.lendit.api.outbox.OrderEventStream;
 import me.mugon.lendit.domain.account.Account;
 import me.mugon.lendit.domain.account.CurrentUser;
 import me.mugon.lendit.domain.order.OrdersValidator;
 import me.mugon.lendit.web.dto.order.OrdersRequestDto;
 import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindException;
 import org.springframework.validation.Errors;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.IOException;
 import java.util.List;
 
 @RequiredArgsConstructor
@@ -25,14 +32,88 @@ public class OrdersController {
 
     private final OrderService orderService;
 
+    private final OrderIntakeService orderIntakeService;
+
+    private final OrderImportService orderImportService;
+
+    private final OrderEventStream orderEventStream;
+
+    private final StockHoldService stockHoldService;
+
     private final OrdersValidator ordersValidator;
 
     @PostMapping
-    public ResponseEntity<?> order(@RequestBody List<@Valid OrdersRequestDto> requestDto, @CurrentUser Account currentUser, Errors errors) throws BindException {
+    public ResponseEntity<?> order(@RequestBody List<@Valid OrdersRequestDto> requestDto, @CurrentUser Account currentUser, Errors errors,
+                                   @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+                                   @RequestHeader(value = OrderIntakeService.PREFER_HEADER, required = false) String prefer,
+                                   @RequestHeader(value = OrderIntakeService.CALLBACK_HEADER, required = false) String callbackUrl) throws BindException {
         ordersValidator.validate(requestDto, errors);
         if (errors.hasErrors()) {
             return ordersValidator.returnErrors(errors);
         }
-        return orderService.order(requestDto, currentUser);
+        if (OrderIntakeService.isAsyncRequested(prefer)) {
+            return orderIntakeService.submit(requestDto, currentUser, idempotencyKey, callbackUrl);
+        }
+        return orderService.order(requestDto, currentUser, idempotencyKey);
+    }
+
+    /**
+     * 결과 보고서를 처리하는 도중에 나누어 내보내기 위해 ResponseEntity 대신 응답에 직접 씀
+     */
+    @PostMapping(value = "/import", consumes = {OrderImportService.NDJSON_VALUE, OrderImportService.CSV_VALUE}, produces = OrderImportService.NDJSON_VALUE)
+    public void importOrders(HttpServletRequest request, HttpServletResponse response, @CurrentUser Account currentUser) throws IOException {
+        response.setContentType(OrderImportService.NDJSON_VALUE + ";charset=UTF-8");
+        orderImportService.importOrders(MediaType.parseMediaType(request.getContentType()), request.getInputStream(), response.getOutputStream(), currentUser);
+    }
+
+    @GetMapping
+    public ResponseEntity<?> getOrderList(@RequestParam(required = false) String after,
+                                          @RequestParam(defaultValue = "20") int size, @CurrentUser Account currentUser) {
+        return orderService.getOrderList(after, size, currentUser);
+    }
+
+    @GetMapping("/all")
+    public ResponseEntity<?> getAllOrderList(@RequestParam(required = false) String after,
+                                             @RequestParam(defaultValue = "20") int size, @CurrentUser Account currentUser) {
+        return orderService.getAllOrderList(after, size, currentUser);
+    }
+
+    @PostMapping("/holds")
+    public ResponseEntity<?> hold(@RequestBody List<@Valid OrdersRequestDto> requestDto, @CurrentUser Account currentUser, Errors errors,
+                                  @RequestParam(defaultValue = "10") int minutes) {
+        ordersValidator.validate(requestDto, errors);
+        if (errors.hasErrors()) {
+            return ordersValidator.returnErrors(errors);
+        }
+        return stockHoldService.hold(requestDto, minutes, currentUser);
+    }
+
+    @GetMapping("/holds/{holdId}")
+    public ResponseEntity<?> getHold(@PathVariable Long holdId, @CurrentUser Account currentUser) {
+        return stockHoldService.getHold(holdId, currentUser);
+    }
+
+    @PostMapping("/holds/{holdId}/confirm")
+    public ResponseEntity<?> confirmHold(@PathVariable Long holdId, @CurrentUser Account currentUser) {
+        return orderService.confirmHold(holdId, currentUser);
+    }
+
+    @DeleteMapping("/holds/{holdId}")
+    public ResponseEntity<?> releaseHold(@PathVariable Long holdId, @CurrentUser Account currentUser) {
+        return stockHoldService.release(holdId, currentUser);
+    }
+
+    /**
+     * 이어 받을 위치는 브라우저의 EventSource가 다시 연결할 때 보내는 Last-Event-ID 헤더나 after 파라미터로 전달받음
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+                                   @RequestParam(required = false) Long after, @CurrentUser Account currentUser) {
+        return orderEventStream.subscribe(lastEventId != null ? lastEventId : after, currentUser);
+    }
+
+    @GetMapping("/tickets/{ticketId}")
+    public ResponseEntity<?> getTicket(@PathVariable String ticketId, @CurrentUser Account currentUser) {
+        return orderIntakeService.getTicket(ticketId, currentUser);
     }
 }
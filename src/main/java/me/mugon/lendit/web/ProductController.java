@@ -1,20 +1,26 @@
 package me.mugon.lendit.web;
 
 import lombok.RequiredArgsConstructor;
+import me.mugon.lendit.api.OrderImportService;
+import me.mugon.lendit.api.ProductBulkService;
 import me.mugon.lendit.api.ProductService;
 import me.mugon.lendit.domain.common.BaseValidator;
 import me.mugon.lendit.domain.account.Account;
 import me.mugon.lendit.domain.account.CurrentUser;
-import me.mugon.lendit.domain.product.Product;
+import me.mugon.lendit.web.dto.product.ProductCatalogResponseDto;
 import me.mugon.lendit.web.dto.product.ProductRequestDto;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PagedResourcesAssembler;
 import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.Errors;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.io.IOException;
 
 @RequiredArgsConstructor
 @RequestMapping(value = "/api/products", produces = MediaTypes.HAL_JSON_VALUE)
@@ -23,11 +29,32 @@ public class ProductController {
 
     private final ProductService productService;
 
+    private final ProductBulkService productBulkService;
+
     private final BaseValidator baseValidator;
 
+    /**
+     * minPrice, maxPrice가 있으면 가격 범위로 거르며, 가격 범위가 있거나 price, createdAt으로 정렬하면 메모리의 정렬 색인으로 조회함
+     * 상품 목록, 개별 상품 조회는 If-None-Match의 ETag가 바뀌지 않았으면 Not Modified를 반환하고, 같은 요청의 응답을 만든 적이 있으면 직렬화한 바이트를 그대로 반환함
+     */
     @GetMapping
-    public ResponseEntity<?> getProductList(Pageable pageable, PagedResourcesAssembler<Product> assembler) {
-        return productService.getProductList(pageable, assembler);
+    public ResponseEntity<?> getProductList(Pageable pageable, PagedResourcesAssembler<ProductCatalogResponseDto> assembler,
+                                            @RequestParam(required = false) Long minPrice, @RequestParam(required = false) Long maxPrice,
+                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch, HttpServletRequest request) {
+        return productService.getProductList(pageable, assembler, minPrice, maxPrice, ifNoneMatch, request);
+    }
+
+    /**
+     * cursor 파라미터가 있으면 전체 개수 없이 cursor로 나누어 조회함, 첫 목록은 값 없이 cursor만 보냄
+     */
+    @GetMapping(params = "cursor")
+    public ResponseEntity<?> getProductSlice(@RequestParam String cursor, @RequestParam(defaultValue = "20") int size) {
+        return productService.getProductSlice(cursor, size);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<?> searchProducts(@RequestParam("q") String query, @RequestParam(defaultValue = "20") int size) {
+        return productService.searchProducts(query, size);
     }
 
     @PostMapping
@@ -38,6 +65,14 @@ public class ProductController {
         return productService.registrationProduct(productRequestDto, currentUser);
     }
 
+    /**
+     * JSON 배열이나 NDJSON으로 받은 상품을 검사한 뒤 chunk마다 batch INSERT로 등록하고 식별자 구간을 반환함
+     */
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, OrderImportService.NDJSON_VALUE})
+    public ResponseEntity<?> registrationProducts(HttpServletRequest request, @CurrentUser Account currentUser) throws IOException {
+        return productBulkService.registrationProducts(request.getInputStream(), currentUser);
+    }
+
     @PutMapping("/{productId}")
     public ResponseEntity<?> updateProduct(@PathVariable Long productId, @Valid @RequestBody ProductRequestDto productRequestDto, Errors errors, @CurrentUser Account currentUser) {
         if (errors.hasErrors()) {
@@ -52,7 +87,8 @@ public class ProductController {
     }
 
     @GetMapping("/{productId}")
-    public ResponseEntity<?> getProduct(@PathVariable Long productId) {
-        return productService.getProduct(productId);
+    public ResponseEntity<?> getProduct(@PathVariable Long productId,
+                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch, HttpServletRequest request) {
+        return productService.getProduct(productId, ifNoneMatch, request);
     }
 }
@@ -0,0 +1,28 @@
+package me.mugon.lendit.web.dto.hold;
+
+import lombok.Getter;
+import me.mugon.lendit.domain.hold.StockHold;
+import me.mugon.lendit.domain.hold.StockHoldItem;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+public class StockHoldResponseDto {
+
+    private Long id;
+
+    private List<StockHoldItem> items;
+
+    private LocalDateTime expiresAt;
+
+    private LocalDateTime createdAt;
+
+    public StockHoldResponseDto(StockHold stockHold) {
+        this.id = stockHold.getId();
+        this.items = new ArrayList<>(stockHold.getItems());
+        this.expiresAt = stockHold.getExpiresAt();
+        this.createdAt = stockHold.getCreatedAt();
+    }
+}
@@ -0,0 +1,34 @@
+package me.mugon.lendit.web.dto.order;
+
+import lombok.Getter;
+import me.mugon.lendit.domain.order.OrderHistory;
+
+import java.time.LocalDateTime;
+
+@Getter
+public class OrderHistoryResponseDto {
+
+    private Long id;
+
+    private Long total;
+
+    private Long number;
+
+    private LocalDateTime createdAt;
+
+    private Long productId;
+
+    private String productName;
+
+    private Long productPrice;
+
+    public OrderHistoryResponseDto(OrderHistory orderHistory) {
+        this.id = orderHistory.getId();
+        this.total = orderHistory.getTotal();
+        this.number = orderHistory.getNumber();
+        this.createdAt = orderHistory.getCreatedAt();
+        this.productId = orderHistory.getProductId();
+        this.productName = orderHistory.getProductName();
+        this.productPrice = orderHistory.getProductPrice();
+    }
+}
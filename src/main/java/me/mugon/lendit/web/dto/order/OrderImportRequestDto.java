@@ -0,0 +1,28 @@
+package me.mugon.lendit.web.dto.order;
+
+import lombok.*;
+
+/**
+ * 주문 가져오기(import) 파일의 한 줄
+ * 한 줄이 하나의 상품을 주문하는 하나의 주문이 되며, idempotencyKey가 있으면 같은 파일을 다시 보내도 이미 등록된 줄은 다시 처리하지 않음
+ */
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor @Builder
+public class OrderImportRequestDto {
+
+    private Long total;
+
+    private Long number;
+
+    private Long productId;
+
+    private String idempotencyKey;
+
+    public OrdersRequestDto toOrdersRequestDto() {
+        return OrdersRequestDto.builder()
+                .total(total)
+                .number(number)
+                .productId(productId)
+                .build();
+    }
+}
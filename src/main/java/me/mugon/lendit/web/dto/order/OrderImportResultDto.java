@@ -0,0 +1,33 @@
+package me.mugon.lendit.web.dto.order;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import me.mugon.lendit.domain.order.OrderImportStatus;
+
+/**
+ * 주문 가져오기(import) 결과 보고서의 한 줄
+ */
+@Getter @AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OrderImportResultDto {
+
+    /** 파일에서의 줄 번호 (1부터 시작) */
+    private long line;
+
+    private OrderImportStatus status;
+
+    /** 등록된 주문의 식별자, CREATED인 경우에만 있음 */
+    private Long orderId;
+
+    /** 거절되거나 형식이 맞지 않은 이유 */
+    private String message;
+
+    public static OrderImportResultDto created(long line, Long orderId) {
+        return new OrderImportResultDto(line, OrderImportStatus.CREATED, orderId, null);
+    }
+
+    public static OrderImportResultDto of(long line, OrderImportStatus status, String message) {
+        return new OrderImportResultDto(line, status, null, message);
+    }
+}
@@ -0,0 +1,34 @@
+package me.mugon.lendit.web.dto.order;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.Getter;
+import me.mugon.lendit.domain.order.OrderTicket;
+import me.mugon.lendit.domain.order.OrderTicketStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+@Getter
+public class OrderTicketResponseDto {
+
+    private String id;
+
+    private OrderTicketStatus status;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime completedAt;
+
+    /** 동기 주문의 응답 Body와 같은 내용, 처리가 끝나기 전에는 null */
+    @JsonRawValue
+    private String result;
+
+    public OrderTicketResponseDto(OrderTicket orderTicket) {
+        this.id = orderTicket.getId();
+        this.status = orderTicket.getStatus();
+        this.createdAt = orderTicket.getCreatedAt();
+        this.completedAt = orderTicket.getCompletedAt();
+        byte[] result = orderTicket.getResult();
+        this.result = result == null ? null : new String(result, StandardCharsets.UTF_8);
+    }
+}
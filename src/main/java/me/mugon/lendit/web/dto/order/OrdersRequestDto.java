@@ -29,6 +29,14 @@ public class OrdersRequestDto {
         return product.getAmount() < number;
     }
 
+    public OrdersRequestDto merge(OrdersRequestDto other) {
+        return OrdersRequestDto.builder()
+                .total(total + other.getTotal())
+                .number(number + other.getNumber())
+                .productId(productId)
+                .build();
+    }
+
     public Orders toEntity(Account currentUser, Product savedProduct) {
         return Orders.builder()
                 .total(total)
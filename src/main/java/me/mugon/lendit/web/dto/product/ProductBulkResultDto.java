@@ -0,0 +1,55 @@
+package me.mugon.lendit.web.dto.product;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 상품 일괄 등록(POST /api/products/bulk)의 결과
+ * 상품마다 응답을 만들지 않고 등록된 상품의 식별자를 연속된 구간으로 묶어 담음
+ * 구간은 요청의 상품 순서대로 담기므로, 구간을 차례로 펼치면 n번째 식별자가 n번째 상품의 식별자임
+ */
+@Getter @AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProductBulkResultDto {
+
+    /** 등록된 상품 수 */
+    private int count;
+
+    /** 등록된 상품의 식별자 구간 */
+    private List<IdRange> idRanges;
+
+    /** 도중에 실패한 경우 그 이유 */
+    private String message;
+
+    /**
+     * 요청의 상품 순서대로 등록된 식별자를 연속된 구간으로 묶음
+     */
+    public static ProductBulkResultDto of(List<Long> ids, String message) {
+        List<IdRange> idRanges = new ArrayList<>();
+        IdRange last = null;
+        for (Long id : ids) {
+            if (last != null && last.to + 1 == id) {
+                last.to = id;
+            } else {
+                last = new IdRange(id, id);
+                idRanges.add(last);
+            }
+        }
+        return new ProductBulkResultDto(ids.size(), idRanges, message);
+    }
+
+    /**
+     * from부터 to까지(to 포함)의 식별자
+     */
+    @Getter @AllArgsConstructor
+    public static class IdRange {
+
+        private long from;
+
+        private long to;
+    }
+}
@@ -0,0 +1,60 @@
+package me.mugon.lendit.web.dto.product;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+import org.springframework.hateoas.server.core.Relation;
+
+import java.time.LocalDateTime;
+
+/**
+ * 상품 목록, 개별 상품 조회의 응답
+ * Product 엔티티를 조회하면 EAGER로 설정된 주문리스트와 등록자의 주문, 상품 목록까지 함께 조회되기 때문에
+ * 상품 테이블의 컬럼과 등록자의 식별자, 이름만 하나의 쿼리로 조회하여 담음 (ProductRepository의 constructor expression)
+ * 기존 응답과 같은 이름으로 목록에 담기도록 collectionRelation을 productResponseDtoList로 지정함
+ * 버전은 응답에 담지 않고 개별 상품 조회의 ETag를 만드는 데 사용함
+ */
+@Getter
+@Relation(collectionRelation = "productResponseDtoList")
+public class ProductCatalogResponseDto {
+
+    private final Long id;
+
+    private final String name;
+
+    private final Long price;
+
+    private final Long amount;
+
+    private final LocalDateTime createdAt;
+
+    @JsonIgnore
+    private final Long version;
+
+    private final Seller account;
+
+    public ProductCatalogResponseDto(Long id, String name, Long price, Long amount, LocalDateTime createdAt, Long version, Long accountId, String username) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.amount = amount;
+        this.createdAt = createdAt;
+        this.version = version;
+        this.account = new Seller(accountId, username);
+    }
+
+    /**
+     * 상품을 등록한 유저의 식별자와 이름
+     */
+    @Getter
+    public static class Seller {
+
+        private final Long id;
+
+        private final String username;
+
+        private Seller(Long id, String username) {
+            this.id = id;
+            this.username = username;
+        }
+    }
+}
@@ -27,6 +27,7 @@ public class ProductRequestDto {
                 .price(price)
                 .amount(amount)
                 .createdAt(LocalDateTime.now())
+                .account(currentUser)
                 .build();
     }
 }
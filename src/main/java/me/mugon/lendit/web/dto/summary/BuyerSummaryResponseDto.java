@@ -0,0 +1,28 @@
+package me.mugon.lendit.web.dto.summary;
+
+import lombok.Getter;
+import me.mugon.lendit.domain.summary.BuyerSummary;
+
+import java.time.LocalDateTime;
+
+@Getter
+public class BuyerSummaryResponseDto {
+
+    private Long accountId;
+
+    private Long orderCount;
+
+    private Long itemCount;
+
+    private Long totalSpent;
+
+    private LocalDateTime updatedAt;
+
+    public BuyerSummaryResponseDto(BuyerSummary buyerSummary) {
+        this.accountId = buyerSummary.getAccountId();
+        this.orderCount = buyerSummary.getOrderCount();
+        this.itemCount = buyerSummary.getItemCount();
+        this.totalSpent = buyerSummary.getTotalSpent();
+        this.updatedAt = buyerSummary.getUpdatedAt();
+    }
+}
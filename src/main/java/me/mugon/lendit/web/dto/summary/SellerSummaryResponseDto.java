@@ -0,0 +1,28 @@
+package me.mugon.lendit.web.dto.summary;
+
+import lombok.Getter;
+import me.mugon.lendit.domain.summary.SellerSummary;
+
+import java.time.LocalDateTime;
+
+@Getter
+public class SellerSummaryResponseDto {
+
+    private Long accountId;
+
+    private Long orderCount;
+
+    private Long itemCount;
+
+    private Long revenue;
+
+    private LocalDateTime updatedAt;
+
+    public SellerSummaryResponseDto(SellerSummary sellerSummary) {
+        this.accountId = sellerSummary.getAccountId();
+        this.orderCount = sellerSummary.getOrderCount();
+        this.itemCount = sellerSummary.getItemCount();
+        this.revenue = sellerSummary.getRevenue();
+        this.updatedAt = sellerSummary.getUpdatedAt();
+    }
+}
@@ -3,7 +3,7 @@ package me.mugon.lendit;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "lendit.outbox.relay-interval=86400000")
 class LenditApplicationTests {
 
     @Test
@@ -0,0 +1,139 @@
+package me.mugon.lendit.benchmark;
+
+import me.mugon.lendit.common.BaseControllerTest;
+import me.mugon.lendit.domain.account.Account;
+import me.mugon.lendit.domain.account.AccountRepository;
+import me.mugon.lendit.domain.order.OrdersRepository;
+import me.mugon.lendit.domain.outbox.OrderOutboxRepository;
+import me.mugon.lendit.domain.product.Product;
+import me.mugon.lendit.domain.product.ProductRepository;
+import me.mugon.lendit.web.dto.order.OrdersRequestDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * 여러 유저가 동시에 하나의 상품을 주문할 때 주문 한 건의 응답 시간 분포(p50, p90, p99, max)와 처리량을 측정
+ * 그룹 커밋을 켠 결과는 HotProductOrderGroupCommitBenchmark에서 같은 시나리오로 측정함
+ */
+@Tag("benchmark")
+@TestPropertySource(properties = "spring.jpa.show-sql=false")
+class HotProductOrderBenchmark extends BaseControllerTest {
+
+    private static final int THREADS = 32;
+
+    /** 주문할 때마다 상품의 주문 목록(ordersList)을 함께 읽기 때문에 주문 수를 늘리면 측정 시간이 주문 수의 제곱으로 늘어남 */
+    private static final int ORDERS_PER_THREAD = 10;
+
+    private static final int WARMUP_ORDERS_PER_THREAD = 2;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrdersRepository ordersRepository;
+
+    @Autowired
+    private OrderOutboxRepository orderOutboxRepository;
+
+    @AfterEach
+    void clean() {
+        orderOutboxRepository.deleteAllInBatch();
+        ordersRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+        accountRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("32명이 동시에 하나의 상품을 주문")
+    void 인기_상품_동시_주문() throws Exception {
+        long price = 1000L;
+        int total = THREADS * (ORDERS_PER_THREAD + WARMUP_ORDERS_PER_THREAD);
+        Account seller = accountRepository.save(generateAccount("seller", 0L));
+        Product product = productRepository.save(Product.builder()
+                .name("benchmark product")
+                .price(price)
+                .amount((long) total)
+                .account(seller)
+                .createdAt(LocalDateTime.now())
+                .build());
+        // 예치금 row가 함께 경합하지 않도록 스레드마다 다른 유저로 주문함
+        List<String> jwtList = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            jwtList.add(generateJwt(accountRepository.save(generateAccount("buyer" + i, price * total))));
+        }
+        String content = objectMapper.writeValueAsString(Arrays.asList(OrdersRequestDto.builder()
+                .productId(product.getId())
+                .number(1L)
+                .total(price)
+                .build()));
+
+        ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger created = new AtomicInteger();
+        CountDownLatch startLatch = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (String jwt : jwtList) {
+            futures.add(executorService.submit(() -> {
+                startLatch.await();
+                for (int i = 0; i < WARMUP_ORDERS_PER_THREAD + ORDERS_PER_THREAD; i++) {
+                    long start = System.nanoTime();
+                    int status = mockMvc.perform(post("/api/orders")
+                            .header(HttpHeaders.AUTHORIZATION, jwt)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(content))
+                            .andReturn().getResponse().getStatus();
+                    if (i >= WARMUP_ORDERS_PER_THREAD) {
+                        latencies.add(System.nanoTime() - start);
+                    }
+                    if (status == HttpStatus.CREATED.value()) {
+                        created.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        long start = System.nanoTime();
+        startLatch.countDown();
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.MINUTES);
+        }
+        long elapsed = System.nanoTime() - start;
+        executorService.shutdown();
+
+        assertEquals(created.get(), total);
+        report(latencies, elapsed, total);
+    }
+
+    private void report(List<Long> latencies, long elapsed, int total) {
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        System.out.printf("[benchmark] %s: %d threads, p50 %.1f ms, p90 %.1f ms, p99 %.1f ms, max %.1f ms, %.0f orders/s%n",
+                getClass().getSimpleName(), THREADS,
+                percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99), sorted[sorted.length - 1] / 1e6,
+                total / (elapsed / 1e9));
+    }
+
+    private double percentile(long[] sorted, double percentile) {
+        return sorted[(int) Math.ceil(percentile * sorted.length) - 1] / 1e6;
+    }
+}
@@ -0,0 +1,10 @@
+package me.mugon.lendit.benchmark;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * 그룹 커밋을 켜고 HotProductOrderBenchmark와 같은 시나리오를 측정
+ */
+@TestPropertySource(properties = "lendit.inventory.group-commit.enabled=true")
+class HotProductOrderGroupCommitBenchmark extends HotProductOrderBenchmark {
+}
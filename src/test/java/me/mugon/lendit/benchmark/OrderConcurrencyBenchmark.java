@@ -0,0 +1,172 @@
+package me.mugon.lendit.benchmark;
+
+import me.mugon.lendit.api.inventory.StockUpdater;
+import me.mugon.lendit.common.BaseControllerTest;
+import me.mugon.lendit.domain.account.Account;
+import me.mugon.lendit.domain.account.AccountRepository;
+import me.mugon.lendit.domain.order.OrdersRepository;
+import me.mugon.lendit.domain.outbox.OrderOutboxRepository;
+import me.mugon.lendit.domain.product.Product;
+import me.mugon.lendit.domain.product.ProductRepository;
+import me.mugon.lendit.web.dto.order.OrdersRequestDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * 재고를 감소시키는 방식(lendit.order.concurrency)별로 경합 정도에 따른 처리량과 거절, 재시도 비율을 측정
+ * 스레드마다 주문할 상품을 상품 묶음에서 돌아가며 고르며, 묶음의 상품 수가 적을수록 같은 row를 두고 경합함
+ * 재고는 모든 주문을 받을 수 있을 만큼 두기 때문에 거절된 주문은 모두 경합으로 인한 것이며,
+ * 등록된 주문 수와 실제로 감소한 재고의 차이로 유실된 감소(lost update)를 계산함
+ * 이 클래스는 conditional을 측정하고, 나머지 방식은 하위 클래스에서 같은 시나리오로 측정함
+ */
+@Tag("benchmark")
+@TestPropertySource(properties = "spring.jpa.show-sql=false")
+class OrderConcurrencyBenchmark extends BaseControllerTest {
+
+    private static final int THREADS = 16;
+
+    private static final int ORDERS_PER_THREAD = 15;
+
+    /** 경합 정도, 주문이 나뉘어 들어가는 상품의 수 */
+    private static final int[] PRODUCT_COUNTS = {1, 4, 32};
+
+    private static final long PRICE = 1000L;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrdersRepository ordersRepository;
+
+    @Autowired
+    private OrderOutboxRepository orderOutboxRepository;
+
+    @Autowired
+    private StockUpdater stockUpdater;
+
+    @AfterEach
+    void clean() {
+        orderOutboxRepository.deleteAllInBatch();
+        ordersRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+        accountRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("경합 정도에 따른 주문 처리량과 거절, 재시도 비율")
+    void 경합_정도별_동시_주문() throws Exception {
+        Account seller = accountRepository.save(generateAccount("seller", 0L));
+        List<String> jwtList = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            jwtList.add(generateJwt(accountRepository.save(generateAccount("buyer" + i, Long.MAX_VALUE / 2))));
+        }
+
+        run(seller, jwtList, 8, 2); // warmup
+        for (int productCount : PRODUCT_COUNTS) {
+            Result result = run(seller, jwtList, productCount, ORDERS_PER_THREAD);
+            int total = THREADS * ORDERS_PER_THREAD;
+            System.out.printf("[benchmark] %s: %s, %2d products, %d threads, %.0f orders/s, created %d/%d, rejected %.1f%%, retries %.2f/order, lost updates %d%n",
+                    getClass().getSimpleName(), stockUpdater.getStrategy(), productCount, THREADS,
+                    total / (result.elapsed / 1e9), result.created, total, 100.0 * (total - result.created) / total,
+                    (double) result.retries / total, result.lostUpdates);
+        }
+    }
+
+    private Result run(Account seller, List<String> jwtList, int productCount, int ordersPerThread) throws Exception {
+        int total = jwtList.size() * ordersPerThread;
+        List<Product> products = productRepository.saveAll(IntStream.range(0, productCount)
+                .mapToObj(i -> Product.builder()
+                        .name("benchmark product " + i)
+                        .price(PRICE)
+                        .amount((long) total)
+                        .account(seller)
+                        .createdAt(LocalDateTime.now())
+                        .build())
+                .collect(Collectors.toList()));
+        List<String> contents = new ArrayList<>();
+        for (Product product : products) {
+            contents.add(objectMapper.writeValueAsString(Arrays.asList(OrdersRequestDto.builder()
+                    .productId(product.getId())
+                    .number(1L)
+                    .total(PRICE)
+                    .build())));
+        }
+
+        long retriesBefore = stockUpdater.getRetryCount();
+        ExecutorService executorService = Executors.newFixedThreadPool(jwtList.size());
+        AtomicInteger created = new AtomicInteger();
+        CountDownLatch startLatch = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < jwtList.size(); t++) {
+            String jwt = jwtList.get(t);
+            int offset = t;
+            futures.add(executorService.submit(() -> {
+                startLatch.await();
+                for (int i = 0; i < ordersPerThread; i++) {
+                    int status = mockMvc.perform(post("/api/orders")
+                            .header(HttpHeaders.AUTHORIZATION, jwt)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(contents.get((offset + i) % contents.size())))
+                            .andReturn().getResponse().getStatus();
+                    if (status == HttpStatus.CREATED.value()) {
+                        created.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        long start = System.nanoTime();
+        startLatch.countDown();
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.MINUTES);
+        }
+        long elapsed = System.nanoTime() - start;
+        executorService.shutdown();
+
+        long sold = products.stream()
+                .mapToLong(e -> total - productRepository.findAmountById(e.getId()).get().getAmount())
+                .sum();
+        Result result = new Result(elapsed, created.get(), stockUpdater.getRetryCount() - retriesBefore, created.get() - sold);
+        ordersRepository.deleteAllInBatch(); // 다음 측정에서 상품마다 주문 목록(ordersList)을 읽는 비용이 쌓이지 않도록 지움
+        return result;
+    }
+
+    private static class Result {
+
+        private final long elapsed;
+
+        private final int created;
+
+        private final long retries;
+
+        private final long lostUpdates;
+
+        private Result(long elapsed, int created, long retries, long lostUpdates) {
+            this.elapsed = elapsed;
+            this.created = created;
+            this.retries = retries;
+            this.lostUpdates = lostUpdates;
+        }
+    }
+}
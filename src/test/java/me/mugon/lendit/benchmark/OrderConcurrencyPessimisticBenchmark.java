@@ -0,0 +1,10 @@
+package me.mugon.lendit.benchmark;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * lendit.order.concurrency=pessimistic로 OrderConcurrencyBenchmark와 같은 시나리오를 측정
+ */
+@TestPropertySource(properties = "lendit.order.concurrency=pessimistic")
+class OrderConcurrencyPessimisticBenchmark extends OrderConcurrencyBenchmark {
+}
@@ -0,0 +1,148 @@
+package me.mugon.lendit.benchmark;
+
+import me.mugon.lendit.common.BaseControllerTest;
+import me.mugon.lendit.common.SqlStatementCounter;
+import me.mugon.lendit.domain.account.Account;
+import me.mugon.lendit.domain.account.AccountRepository;
+import me.mugon.lendit.domain.order.Orders;
+import me.mugon.lendit.domain.order.OrdersRepository;
+import me.mugon.lendit.domain.outbox.OrderOutboxRepository;
+import me.mugon.lendit.domain.product.Product;
+import me.mugon.lendit.domain.product.ProductRepository;
+import me.mugon.lendit.web.dto.order.OrdersRequestDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 1,000개 항목의 주문을 저장하는 데 걸리는 시간과 실행되는 SQL의 개수를 측정
+ * 기본 test 태스크에서는 제외되며 './gradlew benchmark'로 실행함
+ */
+@Tag("benchmark")
+@TestPropertySource(properties = "spring.jpa.show-sql=false")
+class OrderInsertBenchmark extends BaseControllerTest {
+
+    private static final int LINES = 1000;
+
+    private static final int WARMUP = 3;
+
+    private static final int ITERATIONS = 10;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrdersRepository ordersRepository;
+
+    @Autowired
+    private OrderOutboxRepository orderOutboxRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void clean() {
+        orderOutboxRepository.deleteAllInBatch();
+        ordersRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+        accountRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Orders 1,000건을 saveAll로 저장")
+    void saveAll_1000건() {
+        Account seller = accountRepository.save(generateAccount("seller", 0L));
+        Account buyer = accountRepository.save(generateAccount("buyer", Long.MAX_VALUE / 2));
+        List<Product> products = saveProducts(seller);
+
+        long[] elapsed = new long[ITERATIONS];
+        long statements = 0;
+        for (int i = -WARMUP; i < ITERATIONS; i++) {
+            List<Orders> ordersList = products.stream()
+                    .map(e -> Orders.builder()
+                            .product(e)
+                            .account(buyer)
+                            .number(1L)
+                            .total(e.getPrice())
+                            .createdAt(LocalDateTime.now())
+                            .build())
+                    .collect(Collectors.toList());
+            SqlStatementCounter.clear();
+            long start = System.nanoTime();
+            transactionTemplate.execute(status -> ordersRepository.saveAll(ordersList));
+            if (i >= 0) {
+                elapsed[i] = System.nanoTime() - start;
+                statements = SqlStatementCounter.totalCount();
+            }
+        }
+        report("saveAll 1,000 Orders", elapsed, statements);
+    }
+
+    @Test
+    @DisplayName("1,000개 항목의 주문을 POST /api/orders로 등록")
+    void 주문_1000개_항목() throws Exception {
+        Account seller = accountRepository.save(generateAccount("seller", 0L));
+        Account buyer = accountRepository.save(generateAccount("buyer", Long.MAX_VALUE / 2));
+        String content = objectMapper.writeValueAsString(saveProducts(seller).stream()
+                .map(e -> OrdersRequestDto.builder()
+                        .productId(e.getId())
+                        .number(1L)
+                        .total(e.getPrice())
+                        .build())
+                .collect(Collectors.toList()));
+        String jwt = generateJwt(buyer);
+
+        long[] elapsed = new long[ITERATIONS];
+        long statements = 0;
+        for (int i = -WARMUP; i < ITERATIONS; i++) {
+            SqlStatementCounter.clear();
+            long start = System.nanoTime();
+            mockMvc.perform(post("/api/orders")
+                    .header(HttpHeaders.AUTHORIZATION, jwt)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(content))
+                    .andExpect(status().isCreated());
+            if (i >= 0) {
+                elapsed[i] = System.nanoTime() - start;
+                statements = SqlStatementCounter.totalCount();
+            }
+        }
+        report("POST /api/orders with 1,000 lines", elapsed, statements);
+    }
+
+    private List<Product> saveProducts(Account seller) {
+        return productRepository.saveAll(IntStream.range(0, LINES)
+                .mapToObj(i -> Product.builder()
+                        .name("benchmark product " + i)
+                        .price(1000L)
+                        .amount(1000L)
+                        .account(seller)
+                        .createdAt(LocalDateTime.now())
+                        .build())
+                .collect(Collectors.toList()));
+    }
+
+    private void report(String name, long[] elapsed, long statements) {
+        Arrays.sort(elapsed);
+        System.out.printf("[benchmark] %s: median %.1f ms, min %.1f ms, max %.1f ms, %d SQL statements%n",
+                name, elapsed[elapsed.length / 2] / 1e6, elapsed[0] / 1e6, elapsed[elapsed.length - 1] / 1e6, statements);
+    }
+}
@@ -1,9 +1,15 @@
 package me.mugon.lendit.common;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import me.mugon.lendit.api.cache.ProductResponseCache;
 import me.mugon.lendit.config.jwt.JwtConstants;
 import me.mugon.lendit.config.jwt.JwtProvider;
 import me.mugon.lendit.domain.account.Account;
+import me.mugon.lendit.domain.account.AccountRepository;
+import me.mugon.lendit.domain.account.Role;
+import me.mugon.lendit.domain.product.Product;
+import me.mugon.lendit.domain.product.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.restdocs.AutoConfigureRestDocs;
@@ -13,8 +19,17 @@ import org.springframework.context.annotation.Import;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.LocalDateTime;
+
+/**
+ * 테스트 클래스마다 만들어진 context들이 같은 db를 사용하기 때문에, 다른 context의 relay가 outbox를 먼저 전달하지 않도록
+ * 주기적인 relay를 사실상 끄고 필요한 테스트에서 OrderOutboxService.relay()를 직접 호출함
+ */
 @ExtendWith(SpringExtension.class)
-@SpringBootTest
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=me.mugon.lendit.common.SqlStatementCounter",
+        "lendit.outbox.relay-interval=86400000"
+})
 @AutoConfigureMockMvc
 @AutoConfigureRestDocs
 @Import(RestDocsConfiguration.class)
@@ -29,7 +44,48 @@ public class BaseControllerTest {
     @Autowired
     public JwtProvider jwtProvider;
 
+    @Autowired
+    public ProductResponseCache productResponseCache;
+
+    @Autowired
+    public AccountRepository accountRepository;
+
+    @Autowired
+    public ProductRepository productRepository;
+
+    /**
+     * 테스트가 repository로 직접 저장, 삭제한 상품은 상품 전체의 버전을 올리지 않으므로, 이전 테스트에서 담은 상품 목록 응답을 사용하지 않도록 비움
+     */
+    @BeforeEach
+    void clearProductResponseCache() {
+        productResponseCache.clear();
+    }
+
     public String generateJwt(Account account) {
         return JwtConstants.TOKEN_PREFIX + jwtProvider.generateToken(account);
     }
+
+    public Account generateAccount(String username, long balance) {
+        return Account.builder()
+                .username(username)
+                .password("password")
+                .balance(balance)
+                .role(Role.ROLE_USER)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    public Account saveAccount(String username, long balance) {
+        return accountRepository.save(generateAccount(username, balance));
+    }
+
+    public Product saveProduct(String name, long price, long amount, Account account) {
+        return productRepository.save(Product.builder()
+                .name(name)
+                .price(price)
+                .amount(amount)
+                .account(account)
+                .createdAt(LocalDateTime.now())
+                .build());
+    }
 }
@@ -0,0 +1,39 @@
+package me.mugon.lendit.common;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 하나의 요청에서 실행되는 SQL의 개수를 검증하기 위해 Hibernate가 실행하는 모든 SQL을 종류별로 셈
+ * BaseControllerTest에서 hibernate.session_factory.statement_inspector 속성으로 등록함
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final AtomicLong SELECT = new AtomicLong();
+
+    private static final AtomicLong OTHER = new AtomicLong();
+
+    public static void clear() {
+        SELECT.set(0);
+        OTHER.set(0);
+    }
+
+    public static long selectCount() {
+        return SELECT.get();
+    }
+
+    public static long totalCount() {
+        return SELECT.get() + OTHER.get();
+    }
+
+    @Override
+    public String inspect(String sql) {
+        if (sql.trim().toLowerCase().startsWith("select")) {
+            SELECT.incrementAndGet();
+        } else {
+            OTHER.incrementAndGet();
+        }
+        return sql;
+    }
+}
@@ -1,9 +1,11 @@
 package me.mugon.lendit.web;
 
+import me.mugon.lendit.api.balance.BalanceLedgerService;
 import me.mugon.lendit.common.BaseControllerTest;
 import me.mugon.lendit.domain.account.Account;
-import me.mugon.lendit.domain.account.AccountRepository;
-import me.mugon.lendit.domain.account.Role;
+import me.mugon.lendit.domain.balance.BalanceLedger;
+import me.mugon.lendit.domain.balance.BalanceLedgerRepository;
+import me.mugon.lendit.domain.balance.BalanceLedgerType;
 import me.mugon.lendit.web.dto.account.AccountRequestDto;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.DisplayName;
@@ -14,11 +16,18 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.hateoas.MediaTypes;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static me.mugon.lendit.api.error.ErrorMessageConstant.KEY;
+import static me.mugon.lendit.api.error.ErrorMessageConstant.USERNOTFOUND;
 import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -34,13 +43,20 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 class AccountControllerTest extends BaseControllerTest {
 
     @Autowired
-    private AccountRepository accountRepository;
+    private BalanceLedgerRepository balanceLedgerRepository;
+
+    @Autowired
+    private BalanceLedgerService balanceLedgerService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
 
     private final String accountUrl = "/api/accounts";
 
     @AfterEach
     void clean() {
         accountRepository.deleteAll();
+        balanceLedgerRepository.deleteAll();
     }
 
     @Test
@@ -182,7 +198,7 @@ class AccountControllerTest extends BaseControllerTest {
     @Test
     @DisplayName("정상적으로 유저가 수정되는지 테스트")
     void 유저_수정_테스트() throws Exception {
-        Account savedAccount = saveAccount();
+        Account savedAccount = saveAccount("username", 500000L);
         String updatedUsername = "updatedUser";
         long balance = 500000L;
 
@@ -238,11 +254,84 @@ class AccountControllerTest extends BaseControllerTest {
         assertTrue(findAll.get(0).getCreatedAt().isBefore(LocalDateTime.now()));
     }
 
+    @Test
+    @DisplayName("유저 수정으로 예치금을 지정하면 account.balance는 그대로 두고 현재 예치금과의 차이가 예치금 원장에 추가되는지 테스트")
+    void 유저_수정_예치금_원장_테스트() throws Exception {
+        Account savedAccount = saveAccount("username", 500000L);
+        long balance = 800000L;
+
+        AccountRequestDto updateAccount = AccountRequestDto.builder()
+                .username(savedAccount.getUsername())
+                .password(savedAccount.getPassword())
+                .balance(balance)
+                .build();
+
+        mockMvc.perform(put(accountUrl + "/{accountId}", savedAccount.getId())
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(savedAccount))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(updateAccount)))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("balance", is(800000)));
+
+        List<BalanceLedger> ledgers = balanceLedgerRepository.findByAccountIdOrderByCreatedAt(savedAccount.getId());
+        assertEquals(ledgers.size(), 1);
+        assertEquals(ledgers.get(0).getType(), BalanceLedgerType.ADJUSTMENT);
+        assertEquals(ledgers.get(0).getAmount(), balance - savedAccount.getBalance());
+        Account findAccount = accountRepository.findById(savedAccount.getId()).get();
+        assertEquals(findAccount.getOpeningBalance(), savedAccount.getBalance());
+        assertEquals(findAccount.getBalance(), balance);
+    }
+
+    @Test
+    @DisplayName("커밋되지 않은 주문이 예치금을 사용하는 동안 예치금을 지정하고 그 주문이 롤백되어도 지정한 예치금이 되는지 테스트")
+    void 유저_수정_예치금_롤백되는_주문_테스트() throws Exception {
+        Account savedAccount = saveAccount("username", 500000L);
+        long balance = 800000L;
+        CountDownLatch withdrawn = new CountDownLatch(1);
+        CountDownLatch adjusted = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> order = executor.submit(() -> transactionTemplate.execute(status -> {
+                assertTrue(balanceLedgerService.withdraw(savedAccount, 100000L));
+                withdrawn.countDown();
+                try {
+                    adjusted.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                status.setRollbackOnly();
+                return null;
+            }));
+            assertTrue(withdrawn.await(10, TimeUnit.SECONDS));
+
+            AccountRequestDto updateAccount = AccountRequestDto.builder()
+                    .username(savedAccount.getUsername())
+                    .password(savedAccount.getPassword())
+                    .balance(balance)
+                    .build();
+            mockMvc.perform(put(accountUrl + "/{accountId}", savedAccount.getId())
+                    .header(HttpHeaders.AUTHORIZATION, generateJwt(savedAccount))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(updateAccount)))
+                    .andExpect(status().isOk());
+            adjusted.countDown();
+            order.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<BalanceLedger> ledgers = balanceLedgerRepository.findByAccountIdOrderByCreatedAt(savedAccount.getId());
+        assertEquals(ledgers.size(), 1);
+        assertEquals(ledgers.get(0).getAmount(), balance - savedAccount.getBalance());
+        assertEquals(accountRepository.findById(savedAccount.getId()).get().getBalance(), balance);
+    }
+
     @ParameterizedTest
     @ValueSource(strings = {"", "       "})
     @DisplayName("유저 수정 시 유저이름이 공백일 경우 Bad Request 반환")
     void 유저수정_유저이름_공백테스트(String emptyName) throws Exception {
-        Account account = saveAccount();
+        Account account = saveAccount("username", 500000L);
         long balance = 500000L;
 
         AccountRequestDto updateAccount = AccountRequestDto.builder()
@@ -262,7 +351,7 @@ class AccountControllerTest extends BaseControllerTest {
     @Test
     @DisplayName("유저 수정 시 유저이름이 null이 들어올 경우 BadRequest 반환")
     void 유저_수정_null_테스트() throws Exception {
-        Account account = saveAccount();
+        Account account = saveAccount("username", 500000L);
         long balance = 500000L;
 
         AccountRequestDto updateAccount = AccountRequestDto.builder()
@@ -282,7 +371,7 @@ class AccountControllerTest extends BaseControllerTest {
     @Test
     @DisplayName("유저 수정 시 수정하려는 유저가 데이터베이스에 저장되어 있지 않을 경우 Bad Request 반환")
     void 유저_수정_저장안돼있을경우_테스트() throws Exception {
-        Account account = saveAccount();
+        Account account = saveAccount("username", 500000L);
         long balance = 500000L;
 
         AccountRequestDto updateAccount = AccountRequestDto.builder()
@@ -302,7 +391,7 @@ class AccountControllerTest extends BaseControllerTest {
     @Test
     @DisplayName("정상적으로 유저가 삭제되는지 테스트")
     void 유저_삭제_테스트() throws Exception{
-        Account account = saveAccount();
+        Account account = saveAccount("username", 500000L);
 
         mockMvc.perform(delete(accountUrl + "/{accountId}", account.getId())
                 .header(HttpHeaders.AUTHORIZATION, generateJwt(account)))
@@ -338,7 +427,7 @@ class AccountControllerTest extends BaseControllerTest {
     @Test
     @DisplayName("유저 삭제 시 삭제하려는 유저가 데이터베이스에 저장되어있지 않은 경우 Bad Request 반환")
     void 유저_삭제_저장안돼있을경우_테스트() throws Exception {
-        Account account = saveAccount();
+        Account account = saveAccount("username", 500000L);
 
         mockMvc.perform(delete(accountUrl + "/{accountId}", -1)
                 .header(HttpHeaders.AUTHORIZATION, generateJwt(account)))
@@ -350,7 +439,7 @@ class AccountControllerTest extends BaseControllerTest {
     @Test
     @DisplayName("정상적으로 유저가 조회되는지 테스트")
     void 유저_조회_테스트() throws Exception {
-        Account savedAccount = saveAccount();
+        Account savedAccount = saveAccount("username", 500000L);
 
         mockMvc.perform(get(accountUrl + "/{accountId}", savedAccount.getId())
                 .header(HttpHeaders.ACCEPT, MediaTypes.HAL_JSON_VALUE)
@@ -395,7 +484,7 @@ class AccountControllerTest extends BaseControllerTest {
     @Test
     @DisplayName("조회하려는 유저가 데이터베이스에 저장되어 있지 않은 경우 Bad Request 반환")
     void 유저_조회_저장안돼있을경우_테스트() throws Exception {
-        Account account = saveAccount();
+        Account account = saveAccount("username", 500000L);
 
         mockMvc.perform(get(accountUrl + "/{accountId}", -1)
                 .header(HttpHeaders.AUTHORIZATION, generateJwt(account)))
@@ -404,13 +493,34 @@ class AccountControllerTest extends BaseControllerTest {
                 .andExpect(jsonPath(KEY).exists());
     }
 
-    private Account saveAccount() {
-        return accountRepository.save(Account.builder()
-                .username("username")
-                .password("password")
-                .balance(500000L)
-                .createdAt(LocalDateTime.now())
-                .role(Role.ROLE_USER)
-                .build());
+    @ParameterizedTest
+    @ValueSource(strings = {"buyer-summary", "seller-summary"})
+    @DisplayName("요약을 조회하려는 유저가 데이터베이스에 저장되어 있지 않은 경우 Bad Request 반환")
+    void 유저_요약_조회_저장안돼있을경우_테스트(String summary) throws Exception {
+        Account account = saveAccount("username", 500000L);
+
+        mockMvc.perform(get(accountUrl + "/{accountId}/" + summary, -1)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(account)))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath(KEY).value(USERNOTFOUND));
+    }
+
+    @Test
+    @DisplayName("유저가 저장되면 0으로 초기화된 구매자, 판매자 요약이 만들어지는지 테스트")
+    void 유저_요약_초기화_테스트() throws Exception {
+        Account account = saveAccount("username", 500000L);
+
+        mockMvc.perform(get(accountUrl + "/{accountId}/buyer-summary", account.getId())
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(account)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("orderCount").value(0))
+                .andExpect(jsonPath("totalSpent").value(0))
+                .andExpect(jsonPath("_links.account.href").exists());
+        mockMvc.perform(get(accountUrl + "/{accountId}/seller-summary", account.getId())
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(account)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("orderCount").value(0))
+                .andExpect(jsonPath("revenue").value(0));
     }
 }
\ No newline at end of file
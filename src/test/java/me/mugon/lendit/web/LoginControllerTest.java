@@ -3,7 +3,6 @@ package me.mugon.lendit.web;
 import me.mugon.lendit.api.error.ErrorMessageConstant;
 import me.mugon.lendit.common.BaseControllerTest;
 import me.mugon.lendit.domain.account.Account;
-import me.mugon.lendit.domain.account.AccountRepository;
 import me.mugon.lendit.domain.account.Role;
 import me.mugon.lendit.web.dto.LoginDto;
 import org.junit.jupiter.api.AfterEach;
@@ -32,9 +31,6 @@ class LoginControllerTest extends BaseControllerTest {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
-    @Autowired
-    private AccountRepository accountRepository;
-
     private final String loginUrl = "/api/login";
     private final String username = "username";
     private final String password = "password";
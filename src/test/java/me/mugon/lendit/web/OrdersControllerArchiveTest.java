@@ -0,0 +1,281 @@
+package me.mugon.lendit.web;
+
+import me.mugon.lendit.api.archive.OrderArchiveService;
+import me.mugon.lendit.api.summary.SalesSummaryService;
+import me.mugon.lendit.common.BaseControllerTest;
+import me.mugon.lendit.domain.account.Account;
+import me.mugon.lendit.domain.archive.OrderArchive;
+import me.mugon.lendit.domain.archive.OrderArchiveSegment;
+import me.mugon.lendit.domain.balance.BalanceLedgerRepository;
+import me.mugon.lendit.domain.order.OrderHistory;
+import me.mugon.lendit.domain.order.Orders;
+import me.mugon.lendit.domain.order.OrdersCursor;
+import me.mugon.lendit.domain.order.OrdersRepository;
+import me.mugon.lendit.domain.outbox.OrderOutboxRepository;
+import me.mugon.lendit.domain.product.Product;
+import me.mugon.lendit.domain.summary.ArchivedSalesSummaryRepository;
+import me.mugon.lendit.web.dto.order.OrdersRequestDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 보관 기간이 지난 주문을 segment 파일로 옮기는 기능을 켜고 테스트
+ * 여러 block을 읽는 경우를 확인하기 위해 block-size를 작게 설정함
+ */
+@TestPropertySource(properties = {
+        "lendit.order.archive.enabled=true",
+        "lendit.order.archive.directory=" + OrdersControllerArchiveTest.DIRECTORY,
+        "lendit.order.archive.interval=86400000",
+        "lendit.order.archive.retention=30d",
+        "lendit.order.archive.block-size=4"
+})
+class OrdersControllerArchiveTest extends BaseControllerTest {
+
+    static final String DIRECTORY = "build/order-archive-test";
+
+    @Autowired
+    private OrdersRepository ordersRepository;
+
+    @Autowired
+    private BalanceLedgerRepository balanceLedgerRepository;
+
+    @Autowired
+    private OrderOutboxRepository orderOutboxRepository;
+
+    @Autowired
+    private ArchivedSalesSummaryRepository archivedSalesSummaryRepository;
+
+    @Autowired
+    private OrderArchive orderArchive;
+
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+
+    @Autowired
+    private SalesSummaryService salesSummaryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final String ordersUrl = "/api/orders";
+    private final String productName = "열혈 자바 프로그래밍";
+    private final long price = 1000L;
+
+    @AfterEach
+    void clean() {
+        orderArchive.deleteAll();
+        archivedSalesSummaryRepository.deleteAll();
+        orderOutboxRepository.deleteAll();
+        ordersRepository.deleteAll();
+        productRepository.deleteAll();
+        accountRepository.deleteAll();
+        balanceLedgerRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("보관 기간이 지난 주문을 segment 파일로 옮기고, 주문 목록에서 orders 테이블의 주문에 이어서 조회하는지 테스트")
+    void 오래된_주문_옮기기_조회_테스트() throws Exception {
+        Account seller = saveAccount("seller", 0L);
+        Account buyer = saveAccount("buyer", 100000L);
+        Account anotherBuyer = saveAccount("anotherBuyer", 100000L);
+        Product product = saveProduct(productName, price, 100L, seller);
+        LocalDateTime now = LocalDateTime.now();
+
+        // 두 구매자의 오래된 주문이 여러 block에 걸쳐 놓이도록 저장
+        List<Orders> oldOrders = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            oldOrders.add(saveOrders(buyer, product, now.minusDays(60 + i)));
+            saveOrders(anotherBuyer, product, now.minusDays(60 + i));
+        }
+        order(buyer, product);
+        order(buyer, product);
+        List<Long> recentIds = new ArrayList<>();
+        ordersRepository.findAll().stream()
+                .filter(e -> e.getCreatedAt().isAfter(now.minusDays(1)))
+                .map(Orders::getId)
+                .sorted((a, b) -> Long.compare(b, a))
+                .forEach(recentIds::add);
+
+        assertEquals(orderArchiveService.archive(now), 10);
+        assertEquals(orderArchiveService.archive(now), 0); // 다시 실행해도 옮길 주문이 없음
+        assertEquals(ordersRepository.count(), 2L);
+        assertEquals(productRepository.findById(product.getId()).get().getOrdersList().size(), 2); // 상품을 읽을 때 옮겨진 주문은 함께 읽지 않음
+
+        // 최근 주문 2개, 옮겨진 주문 5개를 3개씩 조회
+        List<Long> ids = new ArrayList<>();
+        String url = ordersUrl + "?size=3";
+        for (int page = 0; page < 3; page++) {
+            String response = mockMvc.perform(get(url)
+                    .header(HttpHeaders.AUTHORIZATION, generateJwt(buyer)))
+                    .andDo(print())
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("_embedded.orderHistoryResponseDtoList[*].productName").value(everyProductName(page == 2 ? 1 : 3)))
+                    .andReturn().getResponse().getContentAsString();
+            objectMapper.readTree(response).at("/_embedded/orderHistoryResponseDtoList").forEach(e -> ids.add(e.get("id").asLong()));
+            url = objectMapper.readTree(response).at("/_links/next/href").asText();
+        }
+        assertTrue(url.isEmpty()); // 마지막 목록에는 next 관계가 없음
+
+        List<Long> expected = new ArrayList<>(recentIds);
+        oldOrders.forEach(e -> expected.add(e.getId())); // 하루씩 이전에 주문했으므로 저장한 순서가 최근 순
+        assertEquals(ids, expected);
+    }
+
+    @Test
+    @DisplayName("애플리케이션을 다시 시작해도 segment 파일의 주문을 읽고, 요약을 다시 계산해도 옮겨진 주문이 포함되는지 테스트")
+    void segment_다시_열기_요약_다시_계산_테스트() throws Exception {
+        Account seller = saveAccount("seller", 0L);
+        Account buyer = saveAccount("buyer", 100000L);
+        Product product = saveProduct(productName, price, 100L, seller);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 6; i++) {
+            saveOrders(buyer, product, now.minusDays(40 + i));
+        }
+        order(buyer, product);
+
+        assertEquals(orderArchiveService.archive(now), 6);
+
+        List<OrderHistory> histories = new OrderArchive(DIRECTORY, 4).findHistory(buyer.getId(), null, 100);
+        assertEquals(histories.size(), 6);
+        assertTrue(histories.stream().allMatch(e -> e.getAccountId().equals(buyer.getId()) && e.getProductName().equals(productName)));
+
+        // 상품 이름이 바뀌어도 옮길 때의 이름을 보여줌
+        jdbcTemplate.update("update product set name = ? where id = ?", "바뀐 이름", product.getId());
+        mockMvc.perform(get(ordersUrl)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(buyer)))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("_embedded.orderHistoryResponseDtoList.length()").value(7))
+                .andExpect(jsonPath("_embedded.orderHistoryResponseDtoList[6].productName").value(productName));
+
+        salesSummaryService.rebuild();
+
+        mockMvc.perform(get("/api/accounts/{accountId}/buyer-summary", buyer.getId())
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(buyer)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("orderCount").value(7))
+                .andExpect(jsonPath("totalSpent").value(7 * price));
+        mockMvc.perform(get("/api/accounts/{accountId}/seller-summary", seller.getId())
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(seller)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("orderCount").value(7))
+                .andExpect(jsonPath("revenue").value(7 * price));
+    }
+
+    @Test
+    @DisplayName("유저, 주문 시간 범위로 찾는 주문이 없는 segment를 건너뛰고, 주문이 적은 segment들을 합쳐도 같은 주문을 조회하는지 테스트")
+    void segment_건너뛰기_합치기_테스트() throws Exception {
+        Account seller = saveAccount("seller", 0L);
+        Account buyer = saveAccount("buyer", 100000L);
+        Account anotherBuyer = saveAccount("anotherBuyer", 100000L);
+        Product product = saveProduct(productName, price, 100L, seller);
+        LocalDateTime now = LocalDateTime.now();
+
+        // 옮길 때마다 segment가 하나씩 생김
+        for (int i = 0; i < 3; i++) {
+            saveOrders(buyer, product, now.minusDays(90 - i * 10));
+        }
+        assertEquals(orderArchiveService.archive(now), 3);
+        for (int i = 0; i < 3; i++) {
+            saveOrders(anotherBuyer, product, now.minusDays(90 - i * 10));
+        }
+        assertEquals(orderArchiveService.archive(now), 3);
+        for (int i = 0; i < 3; i++) {
+            saveOrders(buyer, product, now.minusDays(50 - i));
+        }
+        assertEquals(orderArchiveService.archive(now), 3);
+        assertEquals(orderArchive.size(), 3);
+
+        List<Long> ids = ids(orderArchive.findHistory(buyer.getId(), null, 100));
+        assertEquals(ids.size(), 6);
+
+        // 다른 구매자의 segment와, cursor보다 이후에 주문한 segment는 건너뜀
+        OrdersCursor cursor = new OrdersCursor(now.minusDays(60), Long.MAX_VALUE);
+        assertEquals(new OrderArchive(DIRECTORY, 4).size(), 3);
+        assertEquals(countMayContain(anotherBuyer.getId(), null), 1);
+        assertEquals(countMayContain(buyer.getId(), null), 2);
+        assertEquals(countMayContain(buyer.getId(), cursor), 1);
+        assertEquals(orderArchive.findHistory(buyer.getId(), cursor, 100).size(), 3);
+        assertEquals(ids(orderArchive.findHistory(buyer.getId(), null, 2)), ids.subList(0, 2));
+
+        // 주문이 10개보다 적은 segment들을 하나로 합침
+        assertEquals(orderArchive.compact(10), 3);
+        assertEquals(orderArchive.size(), 1);
+        assertEquals(orderArchive.compact(10), 0);
+        assertEquals(new OrderArchive(DIRECTORY, 4).size(), 1); // 합쳐진 segment 파일은 지워짐
+        assertEquals(ids(orderArchive.findHistory(buyer.getId(), null, 100)), ids);
+        assertEquals(orderArchive.findHistory(anotherBuyer.getId(), null, 100).size(), 3);
+    }
+
+    private List<Long> ids(List<OrderHistory> histories) {
+        return histories.stream().map(OrderHistory::getId).collect(Collectors.toList());
+    }
+
+    private long countMayContain(Long accountId, OrdersCursor cursor) throws Exception {
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(Paths.get(DIRECTORY), "*" + OrderArchiveSegment.EXTENSION)) {
+            long count = 0;
+            for (Path path : paths) {
+                if (OrderArchiveSegment.open(path).mayContain(accountId, cursor)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    private List<String> everyProductName(int count) {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            names.add(productName);
+        }
+        return names;
+    }
+
+    private Orders saveOrders(Account buyer, Product product, LocalDateTime createdAt) {
+        return ordersRepository.save(Orders.builder()
+                .account(buyer)
+                .product(product)
+                .number(1L)
+                .total(price)
+                .createdAt(createdAt)
+                .build());
+    }
+
+    private void order(Account buyer, Product product) throws Exception {
+        List<OrdersRequestDto> ordersRequestDtos = new ArrayList<>();
+        ordersRequestDtos.add(OrdersRequestDto.builder()
+                .productId(product.getId())
+                .number(1L)
+                .total(price)
+                .build());
+        mockMvc.perform(post(ordersUrl)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(buyer))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(ordersRequestDtos)))
+                .andDo(print())
+                .andExpect(status().isCreated());
+    }
+}
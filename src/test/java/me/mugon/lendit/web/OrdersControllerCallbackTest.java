@@ -0,0 +1,135 @@
+package me.mugon.lendit.web;
+
+import com.sun.net.httpserver.HttpServer;
+import me.mugon.lendit.api.OrderIntakeService;
+import me.mugon.lendit.common.BaseControllerTest;
+import me.mugon.lendit.domain.account.Account;
+import me.mugon.lendit.domain.order.OrdersRepository;
+import me.mugon.lendit.domain.outbox.OrderOutboxRepository;
+import me.mugon.lendit.domain.product.Product;
+import me.mugon.lendit.web.dto.order.OrdersRequestDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static me.mugon.lendit.api.error.ErrorMessageConstant.INVALIDCALLBACKURL;
+import static me.mugon.lendit.api.error.ErrorMessageConstant.KEY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Callback-Url로 허용하는 host에 loopback 주소로 조회되는 localhost를 등록하고 테스트
+ */
+@TestPropertySource(properties = "lendit.order.intake.callback-hosts=localhost,callback.example")
+class OrdersControllerCallbackTest extends BaseControllerTest {
+
+    @Autowired
+    private OrdersRepository ordersRepository;
+
+    @Autowired
+    private OrderOutboxRepository orderOutboxRepository;
+
+    private final String ordersUrl = "/api/orders";
+
+    private HttpServer callbackServer;
+
+    private final AtomicInteger callbackCount = new AtomicInteger();
+
+    @BeforeEach
+    void startCallbackServer() throws Exception {
+        callbackServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        callbackServer.createContext("/", exchange -> {
+            callbackCount.incrementAndGet();
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        callbackServer.start();
+    }
+
+    @AfterEach
+    void clean() {
+        callbackServer.stop(0);
+        orderOutboxRepository.deleteAll();
+        ordersRepository.deleteAll();
+        productRepository.deleteAll();
+        accountRepository.deleteAll();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"http://internal.example/callback", "http://127.0.0.1/callback", "http://user@callback.example/callback", "ftp://callback.example/callback"})
+    @DisplayName("Callback-Url이 허용하지 않는 host이거나 http, https 주소가 아닌 경우 Bad Request 반환")
+    void 허용하지_않는_Callback_Url_테스트(String callbackUrl) throws Exception {
+        Account buyer = saveAccount("buyer", 100000L);
+        Product product = saveProduct("열혈 자바 프로그래밍", 1000L, 10L, saveAccount("seller", 0L));
+
+        mockMvc.perform(post(ordersUrl)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(buyer))
+                .header(OrderIntakeService.PREFER_HEADER, "respond-async")
+                .header(OrderIntakeService.CALLBACK_HEADER, callbackUrl)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(content(product)))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath(KEY).value(INVALIDCALLBACKURL));
+        assertEquals(ordersRepository.count(), 0);
+    }
+
+    @Test
+    @DisplayName("허용한 host라도 DNS로 조회한 주소가 loopback 주소이면 주문은 처리하고 Callback-Url로 보내지 않는지 테스트")
+    void 공인_주소가_아닌_Callback_Url_테스트() throws Exception {
+        Account buyer = saveAccount("buyer", 100000L);
+        Product product = saveProduct("열혈 자바 프로그래밍", 1000L, 10L, saveAccount("seller", 0L));
+        String callbackUrl = "http://localhost:" + callbackServer.getAddress().getPort() + "/callback";
+
+        String ticketUrl = mockMvc.perform(post(ordersUrl)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(buyer))
+                .header(OrderIntakeService.PREFER_HEADER, "respond-async")
+                .header(OrderIntakeService.CALLBACK_HEADER, callbackUrl)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(content(product)))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getHeader(HttpHeaders.LOCATION);
+
+        assertEquals(awaitTicketStatus(buyer, ticketUrl), "CREATED");
+        Thread.sleep(500); // 처리가 끝난 뒤 Callback-Url로 보내는 작업이 실행될 시간
+        assertEquals(callbackCount.get(), 0);
+        assertEquals(ordersRepository.count(), 1);
+    }
+
+    private String content(Product product) throws Exception {
+        return objectMapper.writeValueAsString(Arrays.asList(OrdersRequestDto.builder()
+                .number(1L)
+                .total(product.getPrice())
+                .productId(product.getId())
+                .build()));
+    }
+
+    private String awaitTicketStatus(Account account, String ticketUrl) throws Exception {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (true) {
+            String status = objectMapper.readTree(mockMvc.perform(get(ticketUrl)
+                    .header(HttpHeaders.AUTHORIZATION, generateJwt(account)))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString())
+                    .get("status").asText();
+            if (!"PENDING".equals(status) || System.currentTimeMillis() > deadline) {
+                return status;
+            }
+            Thread.sleep(20);
+        }
+    }
+}
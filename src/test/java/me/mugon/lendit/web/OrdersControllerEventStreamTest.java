@@ -0,0 +1,208 @@
+package me.mugon.lendit.web;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import me.mugon.lendit.api.outbox.OrderOutboxService;
+import me.mugon.lendit.common.BaseControllerTest;
+import me.mugon.lendit.domain.account.Account;
+import me.mugon.lendit.domain.balance.BalanceLedgerRepository;
+import me.mugon.lendit.domain.order.OrdersRepository;
+import me.mugon.lendit.domain.outbox.OrderOutbox;
+import me.mugon.lendit.domain.outbox.OrderOutboxRepository;
+import me.mugon.lendit.domain.product.Product;
+import me.mugon.lendit.web.dto.order.OrdersRequestDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = "lendit.outbox.stream.consumers=fulfilment")
+class OrdersControllerEventStreamTest extends BaseControllerTest {
+
+    @Autowired
+    private OrdersRepository ordersRepository;
+
+    @Autowired
+    private BalanceLedgerRepository balanceLedgerRepository;
+
+    @Autowired
+    private OrderOutboxRepository orderOutboxRepository;
+
+    @Autowired
+    private OrderOutboxService orderOutboxService;
+
+    private final String ordersUrl = "/api/orders";
+    private final String eventsUrl = "/api/orders/events";
+    private final String productName = "열혈 자바 프로그래밍";
+    private final long price = 1000L;
+
+    @AfterEach
+    void clean() {
+        orderOutboxRepository.deleteAll();
+        ordersRepository.deleteAll();
+        productRepository.deleteAll();
+        accountRepository.deleteAll();
+        balanceLedgerRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("주문과 같은 트랜잭션에서 outbox가 추가되고, relay가 순서를 매겨 전달하는지 테스트")
+    void 주문_outbox_전달_테스트() throws Exception {
+        Account seller = saveAccount("seller", 0L);
+        Account buyer = saveAccount("buyer", 100000L);
+        Product product = saveProduct(productName, price, 10L, seller);
+        Product otherProduct = saveProduct(productName, price, 10L, seller);
+
+        order(buyer, product, otherProduct);
+
+        List<OrderOutbox> orderOutboxes = orderOutboxRepository.findAll();
+        assertEquals(orderOutboxes.size(), 2);
+        orderOutboxes.forEach(e -> {
+            assertNull(e.getEventOffset());
+            assertEquals(e.getAccountId(), buyer.getId());
+            assertEquals(e.getSellerId(), seller.getId());
+            assertTrue(ordersRepository.existsById(e.getOrderId()));
+        });
+
+        assertEquals(orderOutboxService.relay(), 2);
+        assertEquals(orderOutboxService.relay(), 0);
+
+        List<Long> offsets = orderOutboxRepository.findAll().stream()
+                .map(OrderOutbox::getEventOffset)
+                .sorted()
+                .collect(Collectors.toList());
+        assertNotNull(offsets.get(0));
+        assertEquals(offsets.get(1), offsets.get(0) + 1);
+    }
+
+    @Test
+    @DisplayName("구독한 이후에 전달된 주문 이벤트를 Server-Sent Events로 받는지 테스트")
+    void 주문_이벤트_구독_테스트() throws Exception {
+        Account seller = saveAccount("seller", 0L);
+        Account buyer = saveAccount("buyer", 100000L);
+        Account stranger = saveAccount("stranger", 0L);
+        Account fulfilment = saveAccount("fulfilment", 0L);
+        Product product = saveProduct(productName, price, 10L, seller);
+
+        MvcResult buyerStream = subscribe(buyer, null);
+        MvcResult sellerStream = subscribe(seller, null);
+        MvcResult strangerStream = subscribe(stranger, null);
+        MvcResult fulfilmentStream = subscribe(fulfilment, null);
+
+        order(buyer, product);
+        Long orderId = orderOutboxRepository.findAll().get(0).getOrderId();
+        orderOutboxService.relay();
+
+        for (MvcResult stream : new MvcResult[]{buyerStream, sellerStream, fulfilmentStream}) {
+            List<JsonNode> events = awaitEvents(stream.getResponse(), e -> e.size() == 1);
+            assertEquals(events.get(0).get("orderId").asLong(), orderId.longValue());
+            assertEquals(events.get(0).get("accountId").asLong(), buyer.getId().longValue());
+            assertEquals(events.get(0).get("sellerId").asLong(), seller.getId().longValue());
+            assertEquals(events.get(0).get("number").asLong(), 1L);
+            assertEquals(events.get(0).get("total").asLong(), price);
+            assertTrue(stream.getResponse().getContentAsString().contains("event:order"));
+        }
+        assertTrue(readEvents(strangerStream.getResponse()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Last-Event-ID로 다시 구독하면 그 이후의 이벤트부터 이어 받는지 테스트")
+    void 주문_이벤트_이어_받기_테스트() throws Exception {
+        Account seller = saveAccount("seller", 0L);
+        Account buyer = saveAccount("buyer", 100000L);
+        Product product = saveProduct(productName, price, 10L, seller);
+
+        order(buyer, product);
+        order(buyer, product);
+        order(buyer, product);
+        orderOutboxService.relay();
+
+        List<OrderOutbox> orderOutboxes = new ArrayList<>(orderOutboxRepository.findAll());
+        orderOutboxes.sort((a, b) -> Long.compare(a.getEventOffset(), b.getEventOffset()));
+        Long firstOffset = orderOutboxes.get(0).getEventOffset();
+
+        MvcResult stream = mockMvc.perform(get(eventsUrl)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(buyer))
+                .header("Last-Event-ID", firstOffset))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        List<JsonNode> events = awaitEvents(stream.getResponse(), e -> e.size() == 2);
+        assertEquals(events.get(0).get("offset").asLong(), firstOffset + 1);
+        assertEquals(events.get(0).get("orderId").asLong(), orderOutboxes.get(1).getOrderId().longValue());
+        assertEquals(events.get(1).get("offset").asLong(), firstOffset + 2);
+        assertTrue(stream.getResponse().getContentAsString().contains("id:" + (firstOffset + 2)));
+    }
+
+    private MvcResult subscribe(Account account, Long after) throws Exception {
+        return mockMvc.perform(get(eventsUrl)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(account))
+                .param("after", after == null ? null : String.valueOf(after)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    private void order(Account buyer, Product... products) throws Exception {
+        List<OrdersRequestDto> ordersRequestDtos = new ArrayList<>();
+        for (Product product : products) {
+            ordersRequestDtos.add(OrdersRequestDto.builder()
+                    .productId(product.getId())
+                    .number(1L)
+                    .total(price)
+                    .build());
+        }
+        mockMvc.perform(post(ordersUrl)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(buyer))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(ordersRequestDtos)))
+                .andExpect(status().isCreated());
+    }
+
+    /**
+     * 구독자에게 보내는 스레드가 따로 있기 때문에 조건을 만족할 때까지 최대 5초 동안 응답을 다시 읽음
+     */
+    private List<JsonNode> awaitEvents(MockHttpServletResponse response, Predicate<List<JsonNode>> condition) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        List<JsonNode> events = readEvents(response);
+        while (!condition.test(events) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            events = readEvents(response);
+        }
+        assertTrue(condition.test(events), response.getContentAsString());
+        return events;
+    }
+
+    /**
+     * 빈 줄로 끝난 이벤트만 읽음, SseEmitter는 data:와 본문을 나누어 쓰기 때문에 아직 본문이 쓰이지 않은 이벤트는 건너뜀
+     */
+    private List<JsonNode> readEvents(MockHttpServletResponse response) throws Exception {
+        String content = response.getContentAsString();
+        int end = content.lastIndexOf("\n\n");
+        if (end < 0) {
+            return Collections.emptyList();
+        }
+        List<JsonNode> events = new ArrayList<>();
+        for (String line : content.substring(0, end).split("\n")) {
+            if (line.startsWith("data:")) {
+                events.add(objectMapper.readTree(line.substring("data:".length())));
+            }
+        }
+        return events;
+    }
+}
@@ -0,0 +1,233 @@
+package me.mugon.lendit.web;
+
+import me.mugon.lendit.api.inventory.StockCombiner;
+import me.mugon.lendit.common.BaseControllerTest;
+import me.mugon.lendit.domain.account.Account;
+import me.mugon.lendit.domain.hold.StockHoldRepository;
+import me.mugon.lendit.domain.order.OrdersRepository;
+import me.mugon.lendit.domain.outbox.OrderOutboxRepository;
+import me.mugon.lendit.domain.product.Product;
+import me.mugon.lendit.web.dto.order.OrdersRequestDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.stream.IntStream;
+
+import static me.mugon.lendit.api.error.ErrorMessageConstant.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = "lendit.inventory.group-commit.enabled=true")
+class OrdersControllerGroupCommitTest extends BaseControllerTest {
+
+    @Autowired
+    private OrdersRepository ordersRepository;
+
+    @Autowired
+    private OrderOutboxRepository orderOutboxRepository;
+
+    @Autowired
+    private StockHoldRepository stockHoldRepository;
+
+    @Autowired
+    private StockCombiner stockCombiner;
+
+    private final String ordersUrl = "/api/orders";
+    private final String holdsUrl = "/api/orders/holds";
+    private final String productName = "열혈 자바 프로그래밍";
+
+    @AfterEach
+    void clean() {
+        stockHoldRepository.deleteAll();
+        orderOutboxRepository.deleteAll();
+        ordersRepository.deleteAll();
+        productRepository.deleteAll();
+        accountRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("그룹 커밋이 켜져 있을 때 동시 주문이 재고보다 많이 팔리지 않는지 테스트")
+    void 그룹_커밋_동시_주문_테스트() throws Exception {
+        long balance = 300000L;
+        long price = 1000L;
+        long amount = 100L;
+        int buyers = 300;
+
+        Account seller = saveAccount("seller", balance);
+        Product savedProduct = saveProduct(productName, price, amount, seller);
+
+        List<String> jwtList = new LinkedList<>();
+        IntStream.rangeClosed(1, buyers).forEach(i -> jwtList.add(generateJwt(saveAccount("buyer" + i, balance))));
+
+        String content = objectMapper.writeValueAsString(Arrays.asList(OrdersRequestDto.builder()
+                .number(1L)
+                .total(price)
+                .productId(savedProduct.getId())
+                .build()));
+
+        ExecutorService executorService = Executors.newFixedThreadPool(32);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        List<Future<Integer>> futures = new LinkedList<>();
+        for (String jwt : jwtList) {
+            futures.add(executorService.submit(() -> {
+                startLatch.await();
+                return mockMvc.perform(post(ordersUrl)
+                        .header(HttpHeaders.AUTHORIZATION, jwt)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(content))
+                        .andReturn().getResponse().getStatus();
+            }));
+        }
+        startLatch.countDown();
+
+        int created = 0;
+        for (Future<Integer> future : futures) {
+            if (future.get(60, TimeUnit.SECONDS) == HttpStatus.CREATED.value()) {
+                created++;
+            }
+        }
+        executorService.shutdown();
+
+        assertEquals(created, amount);
+        assertEquals(ordersRepository.count(), amount);
+        assertEquals(productRepository.findById(savedProduct.getId()).get().getAmount(), 0L);
+        assertEquals(stockCombiner.getGroupCount(), 0); // 처리가 끝난 상품의 대기열은 남지 않음
+    }
+
+    @Test
+    @DisplayName("그룹 커밋이 켜져 있을 때 재고 보류와 동시에 주문해도 재고가 충분하면 재고 부족으로 실패하지 않는지 테스트")
+    void 그룹_커밋_재고_보류_동시_주문_테스트() throws Exception {
+        long balance = 100000L;
+        long price = 1000L;
+        int buyers = 100;
+        long amount = 2L * buyers; // 주문과 같은 수의 보류까지 모두 받아들일 수 있는 재고
+
+        Account seller = saveAccount("seller", 0L);
+        Product savedProduct = saveProduct(productName, price, amount, seller);
+
+        String content = objectMapper.writeValueAsString(Arrays.asList(OrdersRequestDto.builder()
+                .number(1L)
+                .total(price)
+                .productId(savedProduct.getId())
+                .build()));
+
+        ExecutorService executorService = Executors.newFixedThreadPool(32);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        List<Future<MockHttpServletResponse>> orderFutures = new LinkedList<>();
+        List<Future<MockHttpServletResponse>> holdFutures = new LinkedList<>();
+        for (int i = 1; i <= buyers; i++) { // 주문과 보류가 번갈아 시작되도록 넣음
+            String orderJwt = generateJwt(saveAccount("buyer" + i, balance));
+            String holdJwt = generateJwt(saveAccount("holder" + i, balance)); // 유저별 보류 개수 제한에 걸리지 않도록 보류마다 다른 유저를 사용
+            orderFutures.add(executorService.submit(() -> {
+                startLatch.await();
+                return mockMvc.perform(post(ordersUrl)
+                        .header(HttpHeaders.AUTHORIZATION, orderJwt)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(content))
+                        .andReturn().getResponse();
+            }));
+            holdFutures.add(executorService.submit(() -> {
+                startLatch.await();
+                return mockMvc.perform(post(holdsUrl)
+                        .header(HttpHeaders.AUTHORIZATION, holdJwt)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaTypes.HAL_JSON)
+                        .content(content))
+                        .andReturn().getResponse();
+            }));
+        }
+        startLatch.countDown();
+
+        int created = 0;
+        for (Future<MockHttpServletResponse> future : orderFutures) {
+            MockHttpServletResponse response = future.get(60, TimeUnit.SECONDS);
+            if (response.getStatus() == HttpStatus.CREATED.value()) {
+                created++;
+            } else { // 재고가 충분하므로 실패하더라도 충돌로 실패해야 함
+                assertEquals(response.getStatus(), HttpStatus.BAD_REQUEST.value());
+                assertEquals(objectMapper.readTree(response.getContentAsString()).get(KEY).asText(), ORDERCONFLICT);
+            }
+        }
+        int held = 0;
+        for (Future<MockHttpServletResponse> future : holdFutures) {
+            if (future.get(60, TimeUnit.SECONDS).getStatus() == HttpStatus.CREATED.value()) {
+                held++;
+            }
+        }
+        executorService.shutdown();
+
+        assertEquals(held, buyers);
+        assertEquals(ordersRepository.count(), created);
+        assertEquals(stockHoldRepository.count(), buyers);
+        assertEquals(productRepository.findById(savedProduct.getId()).get().getAmount(), amount - created - held);
+        assertEquals(stockCombiner.getGroupCount(), 0);
+    }
+
+    @Test
+    @DisplayName("그룹 커밋이 켜져 있을 때 주문이 실패하면 감소시킨 재고가 되돌려지는지 테스트")
+    void 그룹_커밋_주문_실패_시_재고_복구_테스트() throws Exception {
+        long price = 1000L;
+        long amount = 30L;
+        long number = 5L;
+
+        Account seller = saveAccount("seller", 0L);
+        Account buyer = saveAccount("buyer", price);
+        Product savedProduct = saveProduct(productName, price, amount, seller);
+
+        OrdersRequestDto ordersRequestDto = OrdersRequestDto.builder()
+                .number(number)
+                .total(number * price)
+                .productId(savedProduct.getId())
+                .build();
+
+        mockMvc.perform(post(ordersUrl)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(buyer))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Arrays.asList(ordersRequestDto))))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath(KEY).exists());
+
+        assertEquals(productRepository.findById(savedProduct.getId()).get().getAmount(), amount);
+    }
+
+    @Test
+    @DisplayName("그룹 커밋이 켜져 있을 때 한 상품의 재고가 부족하면 다른 상품에서 감소시킨 재고가 되돌려지는지 테스트")
+    void 그룹_커밋_일부_상품_재고_부족_테스트() throws Exception {
+        long price = 1000L;
+        Account seller = saveAccount("seller", 0L);
+        Account buyer = saveAccount("buyer", 100000L);
+        Product enoughProduct = saveProduct(productName, price, 10L, seller);
+        Product shortProduct = saveProduct(productName, price, 1L, seller);
+
+        mockMvc.perform(post(ordersUrl)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(buyer))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Arrays.asList(
+                        OrdersRequestDto.builder().number(5L).total(5 * price).productId(enoughProduct.getId()).build(),
+                        OrdersRequestDto.builder().number(2L).total(2 * price).productId(shortProduct.getId()).build()))))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath(KEY).value(SHORTAGEOFGOODS));
+
+        assertEquals(productRepository.findById(enoughProduct.getId()).get().getAmount(), 10L);
+        assertEquals(productRepository.findById(shortProduct.getId()).get().getAmount(), 1L);
+        assertEquals(ordersRepository.count(), 0);
+        assertEquals(stockCombiner.getGroupCount(), 0);
+    }
+}
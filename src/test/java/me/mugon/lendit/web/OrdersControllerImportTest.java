@@ -0,0 +1,212 @@
+package me.mugon.lendit.web;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import me.mugon.lendit.api.OrderImportService;
+import me.mugon.lendit.common.BaseControllerTest;
+import me.mugon.lendit.domain.account.Account;
+import me.mugon.lendit.domain.balance.BalanceLedgerRepository;
+import me.mugon.lendit.domain.idempotency.IdempotencyRecordRepository;
+import me.mugon.lendit.domain.order.OrdersRepository;
+import me.mugon.lendit.domain.outbox.OrderOutboxRepository;
+import me.mugon.lendit.domain.product.Product;
+import me.mugon.lendit.web.dto.order.OrderImportRequestDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static me.mugon.lendit.api.error.ErrorMessageConstant.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.restdocs.headers.HeaderDocumentation.headerWithName;
+import static org.springframework.restdocs.headers.HeaderDocumentation.requestHeaders;
+import static org.springframework.restdocs.mockmvc.MockMvcRestDocumentation.document;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = "lendit.order.import.chunk-size=2")
+class OrdersControllerImportTest extends BaseControllerTest {
+
+    @Autowired
+    private OrdersRepository ordersRepository;
+
+    @Autowired
+    private OrderOutboxRepository orderOutboxRepository;
+
+    @Autowired
+    private BalanceLedgerRepository balanceLedgerRepository;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    private final String importUrl = "/api/orders/import";
+    private final String productName = "열혈 자바 프로그래밍";
+    private final long price = 1000L;
+
+    @AfterEach
+    void clean() {
+        idempotencyRecordRepository.deleteAll();
+        orderOutboxRepository.deleteAll();
+        ordersRepository.deleteAll();
+        productRepository.deleteAll();
+        accountRepository.deleteAll();
+        balanceLedgerRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("NDJSON 파일의 줄마다 주문을 등록하거나 거절하고, 줄별 결과를 반환하는지 테스트")
+    void NDJSON_주문_가져오기_테스트() throws Exception {
+        Account seller = saveAccount("seller", 0L);
+        Account buyer = saveAccount("buyer", 100000L);
+        Product savedProduct = saveProduct(productName, price, 10L, seller);
+        Long productId = savedProduct.getId();
+
+        String body = line(productId, 1L, price, null) + "\n" +
+                "not json\n" +
+                "\n" +
+                "{\"productId\":" + productId + ",\"number\":2}\n" +
+                line(productId, 1L, price, "nightly-1") + "\n" +
+                line(productId, 100L, 100 * price, null) + "\n" +
+                line(productId, 1L, price, "nightly-1") + "\n";
+
+        String response = mockMvc.perform(post(importUrl)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(buyer))
+                .contentType(OrderImportService.NDJSON_VALUE)
+                .content(body))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(OrderImportService.NDJSON_VALUE))
+                .andDo(document("import-orders",
+                        requestHeaders(
+                                headerWithName(HttpHeaders.AUTHORIZATION).description("Authorization Header"),
+                                headerWithName(HttpHeaders.CONTENT_TYPE).description("application/x-ndjson 또는 text/csv")
+                        )))
+                .andReturn().getResponse().getContentAsString();
+
+        List<JsonNode> results = readResults(response);
+        assertEquals(results.size(), 6);
+        assertResult(results.get(0), 1, "CREATED", null);
+        assertTrue(results.get(0).has("orderId"));
+        assertResult(results.get(1), 2, "INVALID", INVALIDIMPORTLINE);
+        assertResult(results.get(2), 4, "INVALID", "total 가 유효하지 않습니다.");
+        assertResult(results.get(3), 5, "CREATED", null);
+        assertResult(results.get(4), 6, "REJECTED", SHORTAGEOFGOODS);
+        assertResult(results.get(5), 7, "DUPLICATE", null);
+
+        assertEquals(ordersRepository.count(), 2);
+        assertEquals(productRepository.findById(productId).get().getAmount(), 8L);
+        assertEquals(accountRepository.findById(buyer.getId()).get().getBalance(), 100000L - 2 * price);
+    }
+
+    @Test
+    @DisplayName("CSV 파일을 첫 줄의 열 이름에 따라 읽어 주문을 등록하는지 테스트")
+    void CSV_주문_가져오기_테스트() throws Exception {
+        Account seller = saveAccount("seller", 0L);
+        Account buyer = saveAccount("buyer", 100000L);
+        Long productId = saveProduct(productName, price, 10L, seller).getId();
+
+        String body = "idempotencyKey,productId,number,total\n" +
+                "," + productId + ",2," + 2 * price + "\n" +
+                ",abc,1," + price + "\n" +
+                "csv-1," + productId + ",3," + 3 * price + "\n";
+
+        String response = mockMvc.perform(post(importUrl)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(buyer))
+                .contentType(OrderImportService.CSV_VALUE)
+                .content(body))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        List<JsonNode> results = readResults(response);
+        assertEquals(results.size(), 3);
+        assertResult(results.get(0), 2, "CREATED", null);
+        assertResult(results.get(1), 3, "INVALID", INVALIDIMPORTLINE);
+        assertResult(results.get(2), 4, "CREATED", null);
+        assertEquals(productRepository.findById(productId).get().getAmount(), 5L);
+    }
+
+    @Test
+    @DisplayName("CSV의 첫 줄에 필수 열이 없으면 첫 줄을 INVALID로 반환하고 처리하지 않는지 테스트")
+    void CSV_열_이름_없음_테스트() throws Exception {
+        Account seller = saveAccount("seller", 0L);
+        Account buyer = saveAccount("buyer", 100000L);
+        Long productId = saveProduct(productName, price, 10L, seller).getId();
+
+        String response = mockMvc.perform(post(importUrl)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(buyer))
+                .contentType(OrderImportService.CSV_VALUE)
+                .content(productId + ",1," + price + "\n"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        List<JsonNode> results = readResults(response);
+        assertEquals(results.size(), 1);
+        assertResult(results.get(0), 1, "INVALID", INVALIDIMPORTHEADER);
+        assertEquals(ordersRepository.count(), 0);
+    }
+
+    @Test
+    @DisplayName("chunk의 트랜잭션이 실패하면 줄마다 다시 처리하여 나머지 줄은 등록되는지 테스트")
+    void chunk_실패_테스트() throws Exception {
+        Account seller = saveAccount("seller", 0L);
+        Account buyer = saveAccount("buyer", 100000L);
+        Long productId = saveProduct(productName, price, 10L, seller).getId();
+
+        // 같은 chunk의 두 줄이 같은 Idempotency-Key를 저장하려 하여 chunk의 트랜잭션이 unique 제약조건 위반으로 롤백됨
+        String body = line(productId, 1L, price, "same-key") + "\n" +
+                line(productId, 1L, price, "same-key") + "\n" +
+                line(productId, 1L, price, null) + "\n";
+
+        String response = mockMvc.perform(post(importUrl)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(buyer))
+                .contentType(OrderImportService.NDJSON_VALUE)
+                .content(body))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        List<JsonNode> results = readResults(response);
+        assertEquals(results.size(), 3);
+        assertResult(results.get(0), 1, "CREATED", null);
+        assertResult(results.get(1), 2, "DUPLICATE", null);
+        assertResult(results.get(2), 3, "CREATED", null);
+        assertEquals(ordersRepository.count(), 2);
+        assertEquals(productRepository.findById(productId).get().getAmount(), 8L);
+    }
+
+    private String line(Long productId, long number, long total, String idempotencyKey) throws Exception {
+        return objectMapper.writeValueAsString(OrderImportRequestDto.builder()
+                .productId(productId)
+                .number(number)
+                .total(total)
+                .idempotencyKey(idempotencyKey)
+                .build());
+    }
+
+    private List<JsonNode> readResults(String response) throws Exception {
+        List<JsonNode> results = new ArrayList<>();
+        for (String line : response.split("\n")) {
+            if (!line.isEmpty()) {
+                results.add(objectMapper.readTree(line));
+            }
+        }
+        return results;
+    }
+
+    private void assertResult(JsonNode result, long line, String status, String message) {
+        assertEquals(result.get("line").asLong(), line);
+        assertEquals(result.get("status").asText(), status);
+        if (message != null) {
+            assertEquals(result.get("message").asText(), message);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package me.mugon.lendit.web;
+
+import me.mugon.lendit.api.OrderIntakeService;
+import me.mugon.lendit.common.BaseControllerTest;
+import me.mugon.lendit.domain.account.Account;
+import me.mugon.lendit.domain.order.OrdersRepository;
+import me.mugon.lendit.domain.outbox.OrderOutboxRepository;
+import me.mugon.lendit.domain.product.Product;
+import me.mugon.lendit.web.dto.order.OrdersRequestDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static me.mugon.lendit.api.error.ErrorMessageConstant.KEY;
+import static me.mugon.lendit.api.error.ErrorMessageConstant.ORDERQUEUEFULL;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * 작업 스레드 없이 대기열 크기를 1로 설정하여 대기열이 가득 찬 상황을 만듦
+ */
+@TestPropertySource(properties = {"lendit.order.intake.workers=0", "lendit.order.intake.queue-capacity=1"})
+class OrdersControllerIntakeQueueTest extends BaseControllerTest {
+
+    @Autowired
+    private OrdersRepository ordersRepository;
+
+    @Autowired
+    private OrderOutboxRepository orderOutboxRepository;
+
+    private final String ordersUrl = "/api/orders";
+
+    @AfterEach
+    void clean() {
+        orderOutboxRepository.deleteAll();
+        ordersRepository.deleteAll();
+        productRepository.deleteAll();
+        accountRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("대기열이 가득 찬 경우 Too Many Requests 반환")
+    void 대기열이_가득_찬_경우() throws Exception {
+        Account seller = accountRepository.save(generateAccount("seller", 0L));
+        Account buyer = accountRepository.save(generateAccount("buyer", 100000L));
+        Product savedProduct = productRepository.save(Product.builder()
+                .name("열혈 자바 프로그래밍")
+                .price(1000L)
+                .amount(10L)
+                .account(seller)
+                .createdAt(LocalDateTime.now())
+                .build());
+        String content = objectMapper.writeValueAsString(Arrays.asList(OrdersRequestDto.builder()
+                .number(1L)
+                .total(1000L)
+                .productId(savedProduct.getId())
+                .build()));
+
+        mockMvc.perform(post(ordersUrl)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(buyer))
+                .header(OrderIntakeService.PREFER_HEADER, "respond-async")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(content))
+                .andDo(print())
+                .andExpect(status().isAccepted());
+
+        mockMvc.perform(post(ordersUrl)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(buyer))
+                .header(OrderIntakeService.PREFER_HEADER, "respond-async")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(content))
+                .andDo(print())
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER))
+                .andExpect(jsonPath(KEY).value(ORDERQUEUEFULL));
+
+        assertEquals(ordersRepository.count(), 0);
+    }
+}
@@ -0,0 +1,202 @@
+package me.mugon.lendit.web;
+
+import me.mugon.lendit.api.inventory.InventoryEngine;
+import me.mugon.lendit.common.BaseControllerTest;
+import me.mugon.lendit.domain.account.Account;
+import me.mugon.lendit.domain.order.OrdersRepository;
+import me.mugon.lendit.domain.outbox.OrderOutboxRepository;
+import me.mugon.lendit.domain.product.Product;
+import me.mugon.lendit.web.dto.order.OrdersRequestDto;
+import me.mugon.lendit.web.dto.product.ProductRequestDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.stream.IntStream;
+
+import static me.mugon.lendit.api.error.ErrorMessageConstant.KEY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 재고 엔진을 켜고 테스트
+ * 주기적인 반영이 테스트 도중 상품의 버전을 올리지 않도록 반영 주기를 길게 설정하고, 테스트에서 직접 반영(flush)함
+ */
+@TestPropertySource(properties = {
+        "lendit.inventory.enabled=true",
+        "lendit.inventory.flush-interval=86400000"
+})
+class OrdersControllerInventoryEngineTest extends BaseControllerTest {
+
+    @Autowired
+    private OrdersRepository ordersRepository;
+
+    @Autowired
+    private OrderOutboxRepository orderOutboxRepository;
+
+    @Autowired
+    private InventoryEngine inventoryEngine;
+
+    private final String ordersUrl = "/api/orders";
+    private final String productName = "열혈 자바 프로그래밍";
+
+    @AfterEach
+    void clean() {
+        inventoryEngine.flush();
+        orderOutboxRepository.deleteAll();
+        ordersRepository.deleteAll();
+        productRepository.deleteAll();
+        accountRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("재고 엔진이 켜져 있을 때 동시 주문이 재고보다 많이 팔리지 않고 db에 반영되는지 테스트")
+    void 재고_엔진_동시_주문_테스트() throws Exception {
+        long balance = 300000L;
+        long price = 1000L;
+        long amount = 100L;
+        int buyers = 300;
+
+        Account seller = saveAccount("seller", balance);
+        Product savedProduct = saveProduct(productName, price, amount, seller);
+
+        List<String> jwtList = new LinkedList<>();
+        IntStream.rangeClosed(1, buyers).forEach(i -> jwtList.add(generateJwt(saveAccount("buyer" + i, balance))));
+
+        String content = objectMapper.writeValueAsString(Arrays.asList(OrdersRequestDto.builder()
+                .number(1L)
+                .total(price)
+                .productId(savedProduct.getId())
+                .build()));
+
+        ExecutorService executorService = Executors.newFixedThreadPool(32);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        List<Future<Integer>> futures = new LinkedList<>();
+        for (String jwt : jwtList) {
+            futures.add(executorService.submit(() -> {
+                startLatch.await();
+                return mockMvc.perform(post(ordersUrl)
+                        .header(HttpHeaders.AUTHORIZATION, jwt)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(content))
+                        .andReturn().getResponse().getStatus();
+            }));
+        }
+        startLatch.countDown();
+
+        int created = 0;
+        for (Future<Integer> future : futures) {
+            if (future.get(60, TimeUnit.SECONDS) == HttpStatus.CREATED.value()) {
+                created++;
+            }
+        }
+        executorService.shutdown();
+
+        assertEquals(created, amount);
+        assertEquals(inventoryEngine.getStock(savedProduct.getId()), 0L);
+        assertEquals(ordersRepository.count(), amount);
+
+        inventoryEngine.flush();
+        assertEquals(productRepository.findById(savedProduct.getId()).get().getAmount(), 0L);
+    }
+
+    @Test
+    @DisplayName("재고 엔진이 켜져 있을 때 주문이 실패하면 예약한 재고가 되돌려지는지 테스트")
+    void 재고_엔진_주문_실패_시_예약_취소_테스트() throws Exception {
+        long price = 1000L;
+        long amount = 30L;
+        long number = 5L;
+
+        Account seller = saveAccount("seller", 0L);
+        Account buyer = saveAccount("buyer", price);
+        Product savedProduct = saveProduct(productName, price, amount, seller);
+
+        OrdersRequestDto ordersRequestDto = OrdersRequestDto.builder()
+                .number(number)
+                .total(number * price)
+                .productId(savedProduct.getId())
+                .build();
+
+        mockMvc.perform(post(ordersUrl)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(buyer))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Arrays.asList(ordersRequestDto))))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath(KEY).exists());
+
+        assertEquals(inventoryEngine.getStock(savedProduct.getId()), amount);
+        inventoryEngine.flush();
+        assertEquals(productRepository.findById(savedProduct.getId()).get().getAmount(), amount);
+    }
+
+    @Test
+    @DisplayName("재고 엔진이 켜져 있을 때 한 스레드의 칸이 부족하면 다른 칸에서 빌려와 재고를 모두 팔 수 있는지 테스트")
+    void 재고_엔진_다른_칸에서_빌려오기_테스트() {
+        long amount = 10L;
+        Account seller = saveAccount("seller", 0L);
+        Product savedProduct = saveProduct(productName, 1000L, amount, seller);
+        Map<Long, Long> numbers = Collections.singletonMap(savedProduct.getId(), 1L);
+
+        for (int i = 0; i < amount; i++) {
+            assertTrue(inventoryEngine.reserve(numbers).isPresent());
+        }
+        assertFalse(inventoryEngine.reserve(numbers).isPresent());
+        assertEquals(inventoryEngine.getStock(savedProduct.getId()), 0L);
+    }
+
+    @Test
+    @DisplayName("재고 엔진이 켜져 있을 때 상품을 수정하면 반영되지 않은 수량과 수정 이전의 예약을 버리고 db와 같은 재고가 되는지 테스트")
+    void 재고_엔진_상품_수정_테스트() throws Exception {
+        long price = 1000L;
+        Account seller = saveAccount("seller", 0L);
+        Account buyer = saveAccount("buyer", 100000L);
+        Product savedProduct = saveProduct(productName, price, 30L, seller);
+
+        mockMvc.perform(post(ordersUrl)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(buyer))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Arrays.asList(OrdersRequestDto.builder()
+                        .number(5L)
+                        .total(5 * price)
+                        .productId(savedProduct.getId())
+                        .build()))))
+                .andExpect(status().isCreated());
+        Optional<InventoryEngine.Reservation> reservation = inventoryEngine.reserve(Collections.singletonMap(savedProduct.getId(), 3L));
+        assertTrue(reservation.isPresent());
+
+        mockMvc.perform(put("/api/products/{productId}", savedProduct.getId())
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(seller))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(ProductRequestDto.builder()
+                        .name("수정한 상품")
+                        .price(price)
+                        .amount(50L)
+                        .build())))
+                .andExpect(status().isOk());
+        reservation.get().commit(); // 수정 이전의 예약은 교체된 재고에 확정되므로 반영되지 않음
+        inventoryEngine.flush();
+
+        long amount = productRepository.findById(savedProduct.getId()).get().getAmount();
+        assertEquals(inventoryEngine.getStock(savedProduct.getId()), amount);
+        assertEquals(amount, 50L);
+    }
+}
@@ -0,0 +1,125 @@
+package me.mugon.lendit.web;
+
+import me.mugon.lendit.common.BaseControllerTest;
+import me.mugon.lendit.domain.account.Account;
+import me.mugon.lendit.domain.balance.BalanceLedgerRepository;
+import me.mugon.lendit.domain.order.OrdersRepository;
+import me.mugon.lendit.domain.outbox.OrderOutboxRepository;
+import me.mugon.lendit.domain.product.Product;
+import me.mugon.lendit.web.dto.order.OrdersRequestDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = "lendit.order.concurrency=optimistic")
+class OrdersControllerOptimisticLockTest extends BaseControllerTest {
+
+    @Autowired
+    private OrdersRepository ordersRepository;
+
+    @Autowired
+    private OrderOutboxRepository orderOutboxRepository;
+
+    @Autowired
+    private BalanceLedgerRepository balanceLedgerRepository;
+
+    private final String ordersUrl = "/api/orders";
+    private final String productName = "열혈 자바 프로그래밍";
+
+    @AfterEach
+    void clean() {
+        orderOutboxRepository.deleteAll();
+        ordersRepository.deleteAll();
+        productRepository.deleteAll();
+        accountRepository.deleteAll();
+        balanceLedgerRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("낙관적 잠금일 때 동시 주문이 재고보다 많이 팔리지 않고, 등록된 주문만큼만 재고가 감소하는지 테스트")
+    void 낙관적_잠금_동시_주문_테스트() throws Exception {
+        long balance = 300000L;
+        long price = 1000L;
+        long amount = 30L;
+        int buyers = 60;
+
+        Account seller = saveAccount("seller", balance);
+        Product savedProduct = saveProduct(productName, price, amount, seller);
+        String content = objectMapper.writeValueAsString(Arrays.asList(OrdersRequestDto.builder()
+                .number(1L)
+                .total(price)
+                .productId(savedProduct.getId())
+                .build()));
+
+        ExecutorService executorService = Executors.newFixedThreadPool(16);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        List<Future<Integer>> futures = new LinkedList<>();
+        for (int i = 0; i < buyers; i++) {
+            String jwt = generateJwt(saveAccount("buyer" + i, balance));
+            futures.add(executorService.submit(() -> {
+                startLatch.await();
+                return mockMvc.perform(post(ordersUrl)
+                        .header(HttpHeaders.AUTHORIZATION, jwt)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(content))
+                        .andReturn().getResponse().getStatus();
+            }));
+        }
+        startLatch.countDown();
+
+        int created = 0;
+        for (Future<Integer> future : futures) {
+            if (future.get(60, TimeUnit.SECONDS) == HttpStatus.CREATED.value()) {
+                created++;
+            }
+        }
+        executorService.shutdown();
+
+        // 재시도 후에도 충돌한 주문은 거절되므로 재고가 남을 수 있음
+        assertTrue(created <= amount);
+        assertEquals(ordersRepository.count(), created);
+        assertEquals(productRepository.findById(savedProduct.getId()).get().getAmount(), amount - created);
+    }
+
+    @Test
+    @DisplayName("낙관적 잠금일 때 주문한 만큼 재고와 버전이 바뀌는지 테스트")
+    void 낙관적_잠금_주문_테스트() throws Exception {
+        long price = 1000L;
+        long amount = 10L;
+        long number = 3L;
+        Account seller = saveAccount("seller", 0L);
+        Account buyer = saveAccount("buyer", 100000L);
+        Product savedProduct = saveProduct(productName, price, amount, seller);
+
+        mockMvc.perform(post(ordersUrl)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(buyer))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Arrays.asList(OrdersRequestDto.builder()
+                        .number(number)
+                        .total(number * price)
+                        .productId(savedProduct.getId())
+                        .build()))))
+                .andDo(print())
+                .andExpect(status().isCreated());
+
+        Product findProduct = productRepository.findById(savedProduct.getId()).get();
+        assertEquals(findProduct.getAmount(), amount - number);
+        assertEquals(findProduct.getVersion(), savedProduct.getVersion() + 1);
+    }
+}
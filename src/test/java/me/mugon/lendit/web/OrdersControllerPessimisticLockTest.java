@@ -0,0 +1,124 @@
+package me.mugon.lendit.web;
+
+import me.mugon.lendit.common.BaseControllerTest;
+import me.mugon.lendit.domain.account.Account;
+import me.mugon.lendit.domain.balance.BalanceLedgerRepository;
+import me.mugon.lendit.domain.order.OrdersRepository;
+import me.mugon.lendit.domain.outbox.OrderOutboxRepository;
+import me.mugon.lendit.domain.product.Product;
+import me.mugon.lendit.web.dto.order.OrdersRequestDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static me.mugon.lendit.api.error.ErrorMessageConstant.KEY;
+import static me.mugon.lendit.api.error.ErrorMessageConstant.SHORTAGEOFGOODS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = "lendit.order.concurrency=pessimistic")
+class OrdersControllerPessimisticLockTest extends BaseControllerTest {
+
+    @Autowired
+    private OrdersRepository ordersRepository;
+
+    @Autowired
+    private OrderOutboxRepository orderOutboxRepository;
+
+    @Autowired
+    private BalanceLedgerRepository balanceLedgerRepository;
+
+    private final String ordersUrl = "/api/orders";
+    private final String productName = "열혈 자바 프로그래밍";
+
+    @AfterEach
+    void clean() {
+        orderOutboxRepository.deleteAll();
+        ordersRepository.deleteAll();
+        productRepository.deleteAll();
+        accountRepository.deleteAll();
+        balanceLedgerRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("비관적 잠금일 때 두 상품을 서로 다른 순서로 동시에 주문해도 deadlock 없이 재고보다 많이 팔리지 않는지 테스트")
+    void 비관적_잠금_동시_주문_테스트() throws Exception {
+        long balance = 300000L;
+        long price = 1000L;
+        long amount = 30L;
+        int buyers = 60;
+
+        Account seller = saveAccount("seller", balance);
+        Product firstProduct = saveProduct(productName, price, amount, seller);
+        Product secondProduct = saveProduct(productName, price, amount, seller);
+        OrdersRequestDto firstDto = OrdersRequestDto.builder().number(1L).total(price).productId(firstProduct.getId()).build();
+        OrdersRequestDto secondDto = OrdersRequestDto.builder().number(1L).total(price).productId(secondProduct.getId()).build();
+
+        ExecutorService executorService = Executors.newFixedThreadPool(16);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        List<Future<Integer>> futures = new LinkedList<>();
+        for (int i = 0; i < buyers; i++) {
+            String jwt = generateJwt(saveAccount("buyer" + i, balance));
+            String content = objectMapper.writeValueAsString(i % 2 == 0 ? Arrays.asList(firstDto, secondDto) : Arrays.asList(secondDto, firstDto));
+            futures.add(executorService.submit(() -> {
+                startLatch.await();
+                return mockMvc.perform(post(ordersUrl)
+                        .header(HttpHeaders.AUTHORIZATION, jwt)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(content))
+                        .andReturn().getResponse().getStatus();
+            }));
+        }
+        startLatch.countDown();
+
+        int created = 0;
+        for (Future<Integer> future : futures) {
+            if (future.get(60, TimeUnit.SECONDS) == HttpStatus.CREATED.value()) {
+                created++;
+            }
+        }
+        executorService.shutdown();
+
+        assertEquals(created, amount);
+        assertEquals(ordersRepository.count(), 2 * amount);
+        assertEquals(productRepository.findById(firstProduct.getId()).get().getAmount(), 0L);
+        assertEquals(productRepository.findById(secondProduct.getId()).get().getAmount(), 0L);
+    }
+
+    @Test
+    @DisplayName("비관적 잠금일 때 한 상품의 재고가 부족하면 어떤 상품의 재고도 감소시키지 않는지 테스트")
+    void 비관적_잠금_일부_상품_재고_부족_테스트() throws Exception {
+        long price = 1000L;
+        Account seller = saveAccount("seller", 0L);
+        Account buyer = saveAccount("buyer", 100000L);
+        Product enoughProduct = saveProduct(productName, price, 10L, seller);
+        Product shortProduct = saveProduct(productName, price, 1L, seller);
+
+        mockMvc.perform(post(ordersUrl)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(buyer))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Arrays.asList(
+                        OrdersRequestDto.builder().number(5L).total(5 * price).productId(enoughProduct.getId()).build(),
+                        OrdersRequestDto.builder().number(2L).total(2 * price).productId(shortProduct.getId()).build()))))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath(KEY).value(SHORTAGEOFGOODS));
+
+        assertEquals(productRepository.findById(enoughProduct.getId()).get().getAmount(), 10L);
+        assertEquals(productRepository.findById(shortProduct.getId()).get().getAmount(), 1L);
+        assertEquals(ordersRepository.count(), 0);
+    }
+}
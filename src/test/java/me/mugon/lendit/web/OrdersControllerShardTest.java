@@ -0,0 +1,295 @@
+package me.mugon.lendit.web;
+
+import me.mugon.lendit.api.shard.OrderShardService;
+import me.mugon.lendit.common.BaseControllerTest;
+import me.mugon.lendit.domain.account.Account;
+import me.mugon.lendit.domain.balance.BalanceLedgerRepository;
+import me.mugon.lendit.domain.order.OrderHistory;
+import me.mugon.lendit.domain.order.OrderHistoryRow;
+import me.mugon.lendit.domain.order.Orders;
+import me.mugon.lendit.domain.order.OrdersRepository;
+import me.mugon.lendit.domain.order.OrdersShardRepository;
+import me.mugon.lendit.domain.outbox.OrderOutboxRepository;
+import me.mugon.lendit.domain.product.Product;
+import me.mugon.lendit.web.dto.order.OrdersRequestDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static me.mugon.lendit.api.error.ErrorMessageConstant.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.restdocs.headers.HeaderDocumentation.headerWithName;
+import static org.springframework.restdocs.headers.HeaderDocumentation.requestHeaders;
+import static org.springframework.restdocs.hypermedia.HypermediaDocumentation.linkWithRel;
+import static org.springframework.restdocs.hypermedia.HypermediaDocumentation.links;
+import static org.springframework.restdocs.mockmvc.MockMvcRestDocumentation.document;
+import static org.springframework.restdocs.payload.PayloadDocumentation.fieldWithPath;
+import static org.springframework.restdocs.payload.PayloadDocumentation.responseFields;
+import static org.springframework.restdocs.request.RequestDocumentation.parameterWithName;
+import static org.springframework.restdocs.request.RequestDocumentation.requestParameters;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 두 개의 내장 H2 db를 주문 shard로 사용하여 테스트
+ */
+@TestPropertySource(properties = {
+        "lendit.order.shard.urls=jdbc:h2:mem:orders-shard-0;DB_CLOSE_DELAY=-1,jdbc:h2:mem:orders-shard-1;DB_CLOSE_DELAY=-1",
+        "lendit.order.admins=admin"
+})
+class OrdersControllerShardTest extends BaseControllerTest {
+
+    @Autowired
+    private OrdersRepository ordersRepository;
+
+    @Autowired
+    private BalanceLedgerRepository balanceLedgerRepository;
+
+    @Autowired
+    private OrderOutboxRepository orderOutboxRepository;
+
+    @Autowired
+    private OrdersShardRepository ordersShardRepository;
+
+    @Autowired
+    private OrderShardService orderShardService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final String ordersUrl = "/api/orders";
+    private final String allOrdersUrl = "/api/orders/all";
+    private final String productName = "열혈 자바 프로그래밍";
+    private final long price = 1000L;
+
+    @AfterEach
+    void clean() {
+        for (int shard = 0; shard < ordersShardRepository.getShardCount(); shard++) {
+            ordersShardRepository.deleteAll(shard);
+        }
+        orderOutboxRepository.deleteAll();
+        ordersRepository.deleteAll();
+        productRepository.deleteAll();
+        accountRepository.deleteAll();
+        balanceLedgerRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("주문이 구매자의 shard에 저장되고, 주문 목록을 그 shard에서 조회하는지 테스트")
+    void 구매자별_shard_저장_조회_테스트() throws Exception {
+        Account seller = saveAccount("seller", 0L);
+        List<Account> buyers = saveBuyersOnEachShard();
+        Account buyer = buyers.get(0);
+        Account anotherBuyer = buyers.get(1);
+        Product product = saveProduct(productName, price, 10L, seller);
+        Product anotherProduct = saveProduct(productName, price, 10L, seller);
+
+        order(buyer, product, anotherProduct).andExpect(status().isCreated());
+        order(anotherBuyer, product).andExpect(status().isCreated());
+
+        List<OrderHistory> histories = findShard(ordersShardRepository.shardOf(buyer.getId()));
+        List<OrderHistory> anotherHistories = findShard(ordersShardRepository.shardOf(anotherBuyer.getId()));
+        assertEquals(histories.size(), 2);
+        assertTrue(histories.stream().allMatch(e -> e.getAccountId().equals(buyer.getId())));
+        assertEquals(anotherHistories.size(), 1);
+        assertEquals(anotherHistories.get(0).getAccountId(), anotherBuyer.getId());
+        assertEquals(ordersRepository.count(), 3L); // 기본 db에도 그대로 저장됨
+
+        // shard에는 주문 시점의 상품 이름이 저장되어 있으므로, 기본 db의 상품 이름을 바꿔도 주문 목록은 shard의 값을 보여줌
+        jdbcTemplate.update("update product set name = ? where id = ?", "바뀐 이름", product.getId());
+
+        mockMvc.perform(get(ordersUrl)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(buyer)))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("_embedded.orderHistoryResponseDtoList.length()").value(2))
+                .andExpect(jsonPath("_embedded.orderHistoryResponseDtoList[0].productId").value(anotherProduct.getId()))
+                .andExpect(jsonPath("_embedded.orderHistoryResponseDtoList[1].productId").value(product.getId()))
+                .andExpect(jsonPath("_embedded.orderHistoryResponseDtoList[1].productName").value(productName));
+    }
+
+    @Test
+    @DisplayName("거절된 주문은 shard에 저장되지 않는지 테스트")
+    void 거절된_주문_shard_테스트() throws Exception {
+        Account seller = saveAccount("seller", 0L);
+        Account buyer = saveAccount("buyer", price - 1);
+        Product product = saveProduct(productName, price, 10L, seller);
+
+        order(buyer, product)
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath(KEY).value(OVERTHELIMIT));
+
+        for (int shard = 0; shard < ordersShardRepository.getShardCount(); shard++) {
+            assertTrue(findShard(shard).isEmpty());
+        }
+    }
+
+    @Test
+    @DisplayName("모든 유저의 주문 목록을 모든 shard에서 모아 최근 순으로 조회하는지 테스트")
+    void 모든_주문_목록_조회_테스트() throws Exception {
+        Account seller = saveAccount("seller", 0L);
+        Account admin = saveAccount("admin", 0L);
+        List<Account> buyers = saveBuyersOnEachShard();
+        Product product = saveProduct(productName, price, 10L, seller);
+
+        order(buyers.get(0), product).andExpect(status().isCreated());
+        order(buyers.get(1), product).andExpect(status().isCreated());
+        order(buyers.get(0), product).andExpect(status().isCreated());
+        List<Long> orderIds = ordersRepository.findAll().stream()
+                .map(Orders::getId)
+                .sorted()
+                .collect(Collectors.toList());
+
+        String response = mockMvc.perform(get(allOrdersUrl)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(admin))
+                .param("size", "2"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("_embedded.orderHistoryResponseDtoList.length()").value(2))
+                .andExpect(jsonPath("_embedded.orderHistoryResponseDtoList[0].id").value(orderIds.get(2)))
+                .andExpect(jsonPath("_embedded.orderHistoryResponseDtoList[1].id").value(orderIds.get(1)))
+                .andExpect(jsonPath("_embedded.orderHistoryResponseDtoList[1]._links.account.href").exists())
+                .andExpect(jsonPath("_links.next.href").exists())
+                .andDo(document("query-all-orders",
+                        links(
+                                linkWithRel("self").description("link to self"),
+                                linkWithRel("next").description("다음 목록을 조회하는 주소, 마지막 목록인 경우 없음"),
+                                linkWithRel("profile").description("link to profile")
+                        ), requestHeaders(
+                                headerWithName(HttpHeaders.AUTHORIZATION).description("Authorization Header")
+                        ), requestParameters(
+                                parameterWithName("after").description("이전 응답의 next 주소에 담긴 cursor, 없으면 가장 최근 주문부터 조회").optional(),
+                                parameterWithName("size").description("한 번에 조회할 주문의 개수 (기본 20, 최대 100)")
+                        ), responseFields(
+                                fieldWithPath("_embedded.orderHistoryResponseDtoList[].id").description("주문 식별자"),
+                                fieldWithPath("_embedded.orderHistoryResponseDtoList[].total").description("총 금액"),
+                                fieldWithPath("_embedded.orderHistoryResponseDtoList[].number").description("주문한 상품 개수"),
+                                fieldWithPath("_embedded.orderHistoryResponseDtoList[].createdAt").description("주문 시간"),
+                                fieldWithPath("_embedded.orderHistoryResponseDtoList[].productId").description("주문한 상품의 식별자"),
+                                fieldWithPath("_embedded.orderHistoryResponseDtoList[].productName").description("주문한 상품의 이름"),
+                                fieldWithPath("_embedded.orderHistoryResponseDtoList[].productPrice").description("주문한 상품의 가격"),
+                                fieldWithPath("_embedded.orderHistoryResponseDtoList[]._links.*.*").ignored(),
+                                fieldWithPath("_links.*.*").ignored()
+                        )))
+                .andReturn().getResponse().getContentAsString();
+
+        mockMvc.perform(get(objectMapper.readTree(response).at("/_links/next/href").asText())
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(admin)))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("_embedded.orderHistoryResponseDtoList.length()").value(1))
+                .andExpect(jsonPath("_embedded.orderHistoryResponseDtoList[0].id").value(orderIds.get(0)))
+                .andExpect(jsonPath("_links.next").doesNotExist());
+
+        mockMvc.perform(get(allOrdersUrl)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(buyers.get(0))))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath(KEY).value(NOTORDERADMIN));
+    }
+
+    @Test
+    @DisplayName("기본 db에만 있는 주문을 shard로 옮기는지 테스트")
+    void 기본_db_주문_shard_옮기기_테스트() {
+        Account seller = saveAccount("seller", 0L);
+        Account buyer = saveAccount("buyer", 0L);
+        Product product = saveProduct(productName, price, 10L, seller);
+        for (int i = 0; i < 3; i++) {
+            ordersRepository.save(Orders.builder()
+                    .account(buyer)
+                    .product(product)
+                    .number(1L)
+                    .total(price)
+                    .createdAt(LocalDateTime.now())
+                    .build());
+        }
+        int shard = ordersShardRepository.shardOf(buyer.getId());
+        assertTrue(findShard(shard).isEmpty());
+
+        orderShardService.backfill();
+        orderShardService.backfill(); // 여러 번 옮겨도 결과가 같아야 함
+
+        List<OrderHistory> histories = findShard(shard);
+        assertEquals(histories.size(), 3);
+        assertTrue(histories.stream().allMatch(e -> e.getAccountId().equals(buyer.getId()) && e.getProductName().equals(productName)));
+    }
+
+    @Test
+    @DisplayName("shard에만 남은 주문을 기본 db와 비교하여 지우고, 커밋 중일 수 있는 최근 주문은 남겨두는지 테스트")
+    void shard_주문_정리_테스트() throws Exception {
+        Account seller = saveAccount("seller", 0L);
+        Account buyer = saveAccount("buyer", 100000L);
+        Product product = saveProduct(productName, price, 10L, seller);
+        order(buyer, product).andExpect(status().isCreated());
+        int shard = ordersShardRepository.shardOf(buyer.getId());
+        Long orderId = findShard(shard).get(0).getId();
+
+        LocalDateTime now = LocalDateTime.now();
+        long missingId = orderId + 1000L;
+        long recentId = orderId + 1001L;
+        ordersShardRepository.saveAll(shard, Arrays.asList(
+                new OrderHistoryRow(missingId, price, 1L, now.minusMinutes(5), buyer.getId(), product.getId(), productName, price),
+                new OrderHistoryRow(recentId, price, 1L, now.plusMinutes(1), buyer.getId(), product.getId(), productName, price)));
+
+        assertEquals(orderShardService.reconcile(now.plusMinutes(1)), 1);
+        assertEquals(orderShardService.reconcile(now.plusMinutes(1)), 0);
+
+        List<Long> ids = findShard(shard).stream()
+                .map(OrderHistory::getId)
+                .sorted()
+                .collect(Collectors.toList());
+        assertEquals(ids, Arrays.asList(orderId, recentId));
+    }
+
+    /**
+     * 두 shard에 하나씩 놓이는 구매자를 저장
+     */
+    private List<Account> saveBuyersOnEachShard() {
+        List<Account> buyers = new ArrayList<>();
+        buyers.add(saveAccount("buyer", 100000L));
+        int index = 0;
+        while (buyers.size() < 2) {
+            Account account = saveAccount("anotherBuyer" + index++, 100000L);
+            if (ordersShardRepository.shardOf(account.getId()) != ordersShardRepository.shardOf(buyers.get(0).getId())) {
+                buyers.add(account);
+            }
+        }
+        return buyers;
+    }
+
+    private List<OrderHistory> findShard(int shard) {
+        return ordersShardRepository.findHistory(shard, null, 100);
+    }
+
+    private ResultActions order(Account buyer, Product... products) throws Exception {
+        List<OrdersRequestDto> ordersRequestDtos = new ArrayList<>();
+        for (Product product : products) {
+            ordersRequestDtos.add(OrdersRequestDto.builder()
+                    .productId(product.getId())
+                    .number(1L)
+                    .total(price)
+                    .build());
+        }
+        return mockMvc.perform(post(ordersUrl)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(buyer))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(ordersRequestDtos)))
+                .andDo(print());
+    }
+}
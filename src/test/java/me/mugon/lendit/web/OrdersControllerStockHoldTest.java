@@ -0,0 +1,283 @@
+package me.mugon.lendit.web;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import me.mugon.lendit.api.balance.BalanceLedgerService;
+import me.mugon.lendit.api.hold.StockHoldService;
+import me.mugon.lendit.common.BaseControllerTest;
+import me.mugon.lendit.domain.account.Account;
+import me.mugon.lendit.domain.balance.BalanceLedgerRepository;
+import me.mugon.lendit.domain.hold.StockHoldRepository;
+import me.mugon.lendit.domain.order.OrdersRepository;
+import me.mugon.lendit.domain.outbox.OrderOutboxRepository;
+import me.mugon.lendit.domain.product.Product;
+import me.mugon.lendit.web.dto.order.OrdersRequestDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.Arrays;
+
+import static me.mugon.lendit.api.error.ErrorMessageConstant.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.restdocs.hypermedia.HypermediaDocumentation.linkWithRel;
+import static org.springframework.restdocs.hypermedia.HypermediaDocumentation.links;
+import static org.springframework.restdocs.mockmvc.MockMvcRestDocumentation.document;
+import static org.springframework.restdocs.payload.PayloadDocumentation.fieldWithPath;
+import static org.springframework.restdocs.payload.PayloadDocumentation.responseFields;
+import static org.springframework.restdocs.request.RequestDocumentation.parameterWithName;
+import static org.springframework.restdocs.request.RequestDocumentation.requestParameters;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class OrdersControllerStockHoldTest extends BaseControllerTest {
+
+    @Autowired
+    private OrdersRepository ordersRepository;
+
+    @Autowired
+    private BalanceLedgerRepository balanceLedgerRepository;
+
+    @Autowired
+    private OrderOutboxRepository orderOutboxRepository;
+
+    @Autowired
+    private StockHoldRepository stockHoldRepository;
+
+    @Autowired
+    private StockHoldService stockHoldService;
+
+    @Autowired
+    private BalanceLedgerService balanceLedgerService;
+
+    private final String holdsUrl = "/api/orders/holds";
+    private final String productName = "열혈 자바 프로그래밍";
+    private final long price = 1000L;
+
+    @AfterEach
+    void clean() {
+        stockHoldRepository.deleteAll();
+        orderOutboxRepository.deleteAll();
+        ordersRepository.deleteAll();
+        productRepository.deleteAll();
+        accountRepository.deleteAll();
+        balanceLedgerRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("재고를 보류하면 재고가 감소하고, 확정하면 재고를 다시 감소시키지 않고 주문으로 바뀌는지 테스트")
+    void 재고_보류_확정_테스트() throws Exception {
+        Account seller = saveAccount("seller", 0L);
+        Account buyer = saveAccount("buyer", 100000L);
+        Product product = saveProduct(productName, price, 10L, seller);
+        Product otherProduct = saveProduct(productName, price, 1L, seller);
+
+        JsonNode hold = readBody(hold(buyer, 10, item(product, 3L), item(otherProduct, 1L))
+                .andDo(print())
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("items.length()").value(2))
+                .andDo(document("create-hold",
+                        links(
+                                linkWithRel("self").description("link to self"),
+                                linkWithRel("confirm").description("link to confirm the hold"),
+                                linkWithRel("release").description("link to release the hold"),
+                                linkWithRel("profile").description("link to profile")
+                        ), requestParameters(
+                                parameterWithName("minutes").description("재고를 보류할 시간 (분), 기본값은 10")
+                        ), responseFields(
+                                fieldWithPath("id").description("보류 번호"),
+                                fieldWithPath("items[].productId").description("상품 식별자"),
+                                fieldWithPath("items[].number").description("보류한 수량"),
+                                fieldWithPath("items[].total").description("확정할 때 주문의 총 가격"),
+                                fieldWithPath("expiresAt").description("만료 일시, 이후에는 확정할 수 없고 재고가 되돌려짐"),
+                                fieldWithPath("createdAt").description("보류 일시"),
+                                fieldWithPath("_links.*.*").ignored()
+                        ))));
+        assertEquals(productRepository.findById(product.getId()).get().getAmount(), 7L);
+        assertEquals(productRepository.findById(otherProduct.getId()).get().getAmount(), 0L);
+
+        mockMvc.perform(post(holdsUrl + "/{holdId}/confirm", hold.get("id").asLong())
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(buyer)))
+                .andDo(print())
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("_embedded.ordersResponseDtoList.length()").value(2))
+                .andDo(document("confirm-hold"));
+
+        assertEquals(ordersRepository.count(), 2);
+        assertEquals(stockHoldRepository.count(), 0);
+        assertEquals(productRepository.findById(product.getId()).get().getAmount(), 7L);
+        assertEquals(productRepository.findById(otherProduct.getId()).get().getAmount(), 0L);
+        assertEquals(accountRepository.findById(buyer.getId()).get().getBalance(), 100000L - 4 * price);
+
+        mockMvc.perform(post(holdsUrl + "/{holdId}/confirm", hold.get("id").asLong())
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(buyer)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath(KEY).value(HOLDNOTFOUND));
+        assertEquals(stockHoldService.expire(System.currentTimeMillis() + 11 * 60 * 1000), 0);
+        assertEquals(productRepository.findById(product.getId()).get().getAmount(), 7L);
+    }
+
+    @Test
+    @DisplayName("보류를 해제하면 재고가 되돌아가고 더 이상 확정할 수 없는지 테스트")
+    void 재고_보류_해제_테스트() throws Exception {
+        Account seller = saveAccount("seller", 0L);
+        Account buyer = saveAccount("buyer", 100000L);
+        Account anotherBuyer = saveAccount("another", 100000L);
+        Product product = saveProduct(productName, price, 10L, seller);
+
+        long holdId = readBody(hold(buyer, 10, item(product, 4L))).get("id").asLong();
+        assertEquals(productRepository.findById(product.getId()).get().getAmount(), 6L);
+
+        mockMvc.perform(delete(holdsUrl + "/{holdId}", holdId)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(anotherBuyer)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath(KEY).value(HOLDNOTFOUND));
+
+        mockMvc.perform(delete(holdsUrl + "/{holdId}", holdId)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(buyer)))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("id").value(holdId))
+                .andDo(document("release-hold"));
+        assertEquals(productRepository.findById(product.getId()).get().getAmount(), 10L);
+
+        mockMvc.perform(post(holdsUrl + "/{holdId}/confirm", holdId)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(buyer)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath(KEY).value(HOLDNOTFOUND));
+        assertEquals(ordersRepository.count(), 0);
+    }
+
+    @Test
+    @DisplayName("만료 시각이 지나면 타이밍 휠이 보류를 해제하고 재고를 되돌리는지 테스트")
+    void 재고_보류_만료_테스트() throws Exception {
+        Account seller = saveAccount("seller", 0L);
+        Account buyer = saveAccount("buyer", 100000L);
+        Product product = saveProduct(productName, price, 10L, seller);
+
+        long shortHoldId = readBody(hold(buyer, 1, item(product, 2L))).get("id").asLong();
+        long longHoldId = readBody(hold(buyer, 30, item(product, 3L))).get("id").asLong();
+        assertEquals(productRepository.findById(product.getId()).get().getAmount(), 5L);
+
+        mockMvc.perform(get(holdsUrl + "/{holdId}", shortHoldId)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(buyer)))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("_links.confirm").exists())
+                .andDo(document("get-hold"));
+
+        long now = System.currentTimeMillis();
+        assertEquals(stockHoldService.expire(now + 2 * 60 * 1000), 1);
+        assertEquals(productRepository.findById(product.getId()).get().getAmount(), 7L);
+        mockMvc.perform(get(holdsUrl + "/{holdId}", shortHoldId)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(buyer)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath(KEY).value(HOLDNOTFOUND));
+
+        assertEquals(stockHoldService.expire(now + 31 * 60 * 1000), 1);
+        assertEquals(productRepository.findById(product.getId()).get().getAmount(), 10L);
+        assertEquals(stockHoldRepository.existsById(longHoldId), false);
+    }
+
+    @Test
+    @DisplayName("보류한 뒤 예치금이 줄어 확정이 거절되면 보류가 그대로 남는지 테스트")
+    void 재고_보류_확정_실패_테스트() throws Exception {
+        Account seller = saveAccount("seller", 0L);
+        Account buyer = saveAccount("buyer", 2000L);
+        Product product = saveProduct(productName, price, 10L, seller);
+
+        long holdId = readBody(hold(buyer, 10, item(product, 2L))).get("id").asLong();
+        balanceLedgerService.adjust(buyer, 1000L);
+
+        mockMvc.perform(post(holdsUrl + "/{holdId}/confirm", holdId)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(buyer)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath(KEY).value(OVERTHELIMIT));
+
+        assertEquals(stockHoldRepository.existsById(holdId), true);
+        assertEquals(ordersRepository.count(), 0);
+        assertEquals(productRepository.findById(product.getId()).get().getAmount(), 8L);
+    }
+
+    @Test
+    @DisplayName("재고가 부족하거나, 보류 시간이 유효하지 않거나, 자신이 등록한 상품인 경우 Bad Request 반환")
+    void 재고_보류_실패_테스트() throws Exception {
+        Account seller = saveAccount("seller", 0L);
+        Account buyer = saveAccount("buyer", 100000L);
+        Product product = saveProduct(productName, price, 2L, seller);
+
+        hold(buyer, 10, item(product, 3L))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath(KEY).value(SHORTAGEOFGOODS));
+        hold(buyer, 0, item(product, 1L))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath(KEY).value(INVALIDHOLDMINUTES));
+        hold(buyer, 61, item(product, 1L))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath(KEY).value(INVALIDHOLDMINUTES));
+        hold(seller, 10, item(product, 1L))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath(KEY).value(REGISTEREDBYONESELF));
+
+        assertEquals(stockHoldRepository.count(), 0);
+        assertEquals(productRepository.findById(product.getId()).get().getAmount(), 2L);
+    }
+
+    @Test
+    @DisplayName("만료되지 않은 보류의 개수, 수량의 합이 제한을 넘거나 금액의 합이 예치금보다 많으면 Bad Request 반환")
+    void 재고_보류_제한_테스트() throws Exception {
+        Account seller = saveAccount("seller", 0L);
+        Account buyer = saveAccount("buyer", 100000L);
+        Account anotherBuyer = saveAccount("another", 100000L);
+        Account poorBuyer = saveAccount("poor", 3000L);
+        Product product = saveProduct(productName, price, 200L, seller);
+
+        for (int i = 0; i < 5; i++) {
+            hold(buyer, 10, item(product, 1L)).andExpect(status().isCreated());
+        }
+        hold(buyer, 10, item(product, 1L))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath(KEY).value(TOOMANYHOLDS));
+
+        hold(anotherBuyer, 10, item(product, 60L)).andExpect(status().isCreated());
+        hold(anotherBuyer, 10, item(product, 41L))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath(KEY).value(TOOMANYHELDITEMS));
+
+        hold(poorBuyer, 10, item(product, 2L)).andExpect(status().isCreated());
+        hold(poorBuyer, 10, item(product, 2L))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath(KEY).value(OVERTHELIMIT));
+        hold(poorBuyer, 10, item(product, 1L)).andExpect(status().isCreated());
+
+        assertEquals(stockHoldRepository.count(), 8);
+        assertEquals(productRepository.findById(product.getId()).get().getAmount(), 200L - 5L - 60L - 3L);
+    }
+
+    private ResultActions hold(Account account, int minutes, OrdersRequestDto... items) throws Exception {
+        return mockMvc.perform(post(holdsUrl)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(account))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaTypes.HAL_JSON)
+                .param("minutes", String.valueOf(minutes))
+                .content(objectMapper.writeValueAsString(Arrays.asList(items))));
+    }
+
+    private JsonNode readBody(ResultActions resultActions) throws Exception {
+        return objectMapper.readTree(resultActions.andReturn().getResponse().getContentAsString());
+    }
+
+    private OrdersRequestDto item(Product product, long number) {
+        return OrdersRequestDto.builder()
+                .productId(product.getId())
+                .number(number)
+                .total(number * price)
+                .build();
+    }
+}
@@ -1,48 +1,77 @@
 package me.mugon.lendit.web;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import me.mugon.lendit.api.IdempotencyService;
+import me.mugon.lendit.api.OrderIntakeService;
+import me.mugon.lendit.api.summary.SalesSummaryService;
 import me.mugon.lendit.common.BaseControllerTest;
+import me.mugon.lendit.common.SqlStatementCounter;
 import me.mugon.lendit.domain.account.Account;
-import me.mugon.lendit.domain.account.AccountRepository;
 import me.mugon.lendit.domain.account.Role;
+import me.mugon.lendit.domain.balance.*;
 import me.mugon.lendit.domain.order.Orders;
+import me.mugon.lendit.domain.order.OrdersCursor;
 import me.mugon.lendit.domain.order.OrdersRepository;
+import me.mugon.lendit.domain.outbox.OrderOutboxRepository;
 import me.mugon.lendit.domain.product.Product;
-import me.mugon.lendit.domain.product.ProductRepository;
+import me.mugon.lendit.domain.summary.BuyerSummaryRepository;
 import me.mugon.lendit.web.dto.order.OrdersRequestDto;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
+import static me.mugon.lendit.api.error.ErrorMessageConstant.INVALIDCURSOR;
 import static me.mugon.lendit.api.error.ErrorMessageConstant.KEY;
+import static me.mugon.lendit.api.error.ErrorMessageConstant.TICKETNOTFOUND;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.restdocs.headers.HeaderDocumentation.*;
 import static org.springframework.restdocs.hypermedia.HypermediaDocumentation.linkWithRel;
 import static org.springframework.restdocs.hypermedia.HypermediaDocumentation.links;
 import static org.springframework.restdocs.mockmvc.MockMvcRestDocumentation.document;
 import static org.springframework.restdocs.payload.PayloadDocumentation.*;
+import static org.springframework.restdocs.request.RequestDocumentation.parameterWithName;
+import static org.springframework.restdocs.request.RequestDocumentation.requestParameters;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 class OrdersControllerTest extends BaseControllerTest {
 
     @Autowired
-    private AccountRepository accountRepository;
+    private OrdersRepository ordersRepository;
 
     @Autowired
-    private ProductRepository productRepository;
+    private OrderOutboxRepository orderOutboxRepository;
 
     @Autowired
-    private OrdersRepository ordersRepository;
+    private BalanceLedgerRepository balanceLedgerRepository;
+
+    @Autowired
+    private BalanceSnapshotRepository balanceSnapshotRepository;
+
+    @Autowired
+    private BalanceQueryRepository balanceQueryRepository;
+
+    @Autowired
+    private SalesSummaryService salesSummaryService;
+
+    @Autowired
+    private BuyerSummaryRepository buyerSummaryRepository;
 
     private final String ordersUrl = "/api/orders";
     private final String username = "username";
@@ -51,9 +80,12 @@ class OrdersControllerTest extends BaseControllerTest {
 
     @AfterEach
     void clean() {
+        orderOutboxRepository.deleteAll();
         ordersRepository.deleteAll();
         productRepository.deleteAll();
         accountRepository.deleteAll();
+        balanceLedgerRepository.deleteAll();
+        balanceSnapshotRepository.deleteAll();
     }
 
     @Test
@@ -122,7 +154,7 @@ class OrdersControllerTest extends BaseControllerTest {
                                 fieldWithPath("_embedded.ordersResponseDtoList[*].product.price").description("상품 가격"),
                                 fieldWithPath("_embedded.ordersResponseDtoList[*].product.createdAt").description("상품 등록 일시"),
                                 fieldWithPath("_embedded.ordersResponseDtoList[*].product.amount").description("상품 재고 수량"),
-                                fieldWithPath("_embedded.ordersResponseDtoList[*].product.ordersList").description("상품 주문 리스트"),
+                                fieldWithPath("_embedded.ordersResponseDtoList[*].product.ordersList").description("상품 주문 리스트, 주문할 때 읽지 않으므로 null"),
                                 fieldWithPath("_embedded.ordersResponseDtoList[*].product.account").description("상품 등록자 식별자"),
                                 fieldWithPath("_embedded.ordersResponseDtoList[*].product.account.id").description("상품 등록자 식별자"),
                                 fieldWithPath("_embedded.ordersResponseDtoList[*].product.account.username").description("상품 등록자 이름"),
@@ -365,6 +397,641 @@ class OrdersControllerTest extends BaseControllerTest {
                 .andExpect(jsonPath(KEY).exists());
     }
 
+    @Test
+    @DisplayName("여러 유저가 동시에 하나의 상품을 주문해도 재고보다 많이 팔리지 않는지 테스트")
+    void 동시_주문_재고_초과_판매_테스트() throws Exception {
+        long balance = 300000L;
+        long price = 1000L;
+        long amount = 100L;
+        int buyers = 300;
+
+        Account seller = saveAccount(generateAccount(username, password, balance));
+        Product savedProduct = saveProduct(generateProduct(price, amount, seller));
+
+        List<String> jwtList = new LinkedList<>();
+        IntStream.rangeClosed(1, buyers).forEach(i -> jwtList.add(generateJwt(saveAccount(generateAccount(anotherUsername + i, password, balance)))));
+
+        String content = objectMapper.writeValueAsString(Arrays.asList(OrdersRequestDto.builder()
+                .number(1L)
+                .total(price)
+                .productId(savedProduct.getId())
+                .build()));
+
+        ExecutorService executorService = Executors.newFixedThreadPool(32);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        List<Future<Integer>> futures = new LinkedList<>();
+        for (String jwt : jwtList) {
+            futures.add(executorService.submit(() -> {
+                startLatch.await();
+                return mockMvc.perform(post(ordersUrl)
+                        .header(HttpHeaders.AUTHORIZATION, jwt)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(content))
+                        .andReturn().getResponse().getStatus();
+            }));
+        }
+        startLatch.countDown();
+
+        int created = 0;
+        int rejected = 0;
+        for (Future<Integer> future : futures) {
+            int status = future.get(60, TimeUnit.SECONDS);
+            if (status == HttpStatus.CREATED.value()) {
+                created++;
+            } else if (status == HttpStatus.BAD_REQUEST.value()) {
+                rejected++;
+            }
+        }
+        executorService.shutdown();
+
+        assertEquals(created, amount);
+        assertEquals(rejected, buyers - amount);
+        assertEquals(productRepository.findById(savedProduct.getId()).get().getAmount(), 0L);
+        assertEquals(ordersRepository.count(), amount);
+    }
+
+    @Test
+    @DisplayName("주문 항목의 개수와 상관없이 조회 쿼리의 개수가 일정한지 테스트")
+    void 주문_항목_개수와_상관없는_조회_쿼리_개수_테스트() throws Exception {
+        int catalogSize = 60;
+        Account seller = saveAccount(generateAccount(username, password, 1000L));
+        Account anotherSeller = saveAccount(generateAccount(username + 2, password, 1000L));
+        Account buyer = saveAccount(generateAccount(anotherUsername, password, 500000000000L));
+        Account anotherBuyer = saveAccount(generateAccount(anotherUsername + 2, password, 500000000000L));
+        List<OrdersRequestDto> catalog = generateOrdersRequestDtos(seller, catalogSize);
+        List<OrdersRequestDto> anotherCatalog = generateOrdersRequestDtos(anotherSeller, catalogSize);
+
+        long fewLinesSelectCount = countSelectsForOrder(generateJwt(buyer), catalog.subList(0, 2));
+        long manyLinesSelectCount = countSelectsForOrder(generateJwt(anotherBuyer), anotherCatalog.subList(0, 50));
+
+        assertEquals(manyLinesSelectCount, fewLinesSelectCount);
+        assertEquals(ordersRepository.count(), 52);
+    }
+
+    @Test
+    @DisplayName("주문할 때 상품에 쌓인 주문리스트를 읽지 않고, 응답에 상품 등록자의 현재 예치금을 담는지 테스트")
+    void 주문_상품_주문리스트_읽지_않기_테스트() throws Exception {
+        Account seller = saveAccount(generateAccount(username, password, 1000L));
+        Account buyer = saveAccount(generateAccount(anotherUsername, password, 500000L));
+        Product savedProduct = saveProduct(generateProduct(1000L, 10L, seller));
+        saveOrdersList(buyer, savedProduct, LocalDateTime.of(2020, 2, 1, 12, 0), 30);
+
+        mockMvc.perform(post(ordersUrl)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(buyer))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Collections.singletonList(new OrdersRequestDto(2000L, 2L, savedProduct.getId())))))
+                .andDo(print())
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("_embedded.ordersResponseDtoList[0].product.id").value(savedProduct.getId()))
+                .andExpect(jsonPath("_embedded.ordersResponseDtoList[0].product.amount").value(8))
+                .andExpect(jsonPath("_embedded.ordersResponseDtoList[0].product.ordersList").value(nullValue()))
+                .andExpect(jsonPath("_embedded.ordersResponseDtoList[0].product.account.username").value(username))
+                .andExpect(jsonPath("_embedded.ordersResponseDtoList[0].product.account.balance").value(1000));
+        assertEquals(ordersRepository.count(), 31);
+        assertEquals(productRepository.findById(savedProduct.getId()).get().getAmount(), 8L);
+    }
+
+    @Test
+    @DisplayName("같은 상품을 여러 번 주문한 경우 하나의 주문으로 합쳐지는지 테스트")
+    void 같은_상품_주문_합치기_테스트() throws Exception {
+        long price = 1000L;
+        long amount = 10L;
+        Account account = saveAccount(generateAccount(username, password, 1000L));
+        Account anotherAccount = saveAccount(generateAccount(anotherUsername, password, 500000L));
+        Product savedProduct = saveProduct(generateProduct(price, amount, account));
+
+        OrdersRequestDto ordersRequestDto = OrdersRequestDto.builder()
+                .number(3L)
+                .total(3 * price)
+                .productId(savedProduct.getId())
+                .build();
+
+        mockMvc.perform(post(ordersUrl)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(anotherAccount))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Arrays.asList(ordersRequestDto, ordersRequestDto, ordersRequestDto))))
+                .andDo(print())
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("_embedded.ordersResponseDtoList.length()").value(1))
+                .andExpect(jsonPath("_embedded.ordersResponseDtoList[0].number").value(9))
+                .andExpect(jsonPath("_embedded.ordersResponseDtoList[0].total").value(9 * price));
+
+        assertEquals(productRepository.findById(savedProduct.getId()).get().getAmount(), 1L);
+        assertEquals(accountRepository.findById(anotherAccount.getId()).get().getBalance(), 500000L - 9 * price);
+    }
+
+    @Test
+    @DisplayName("주문은 account.balance를 수정하지 않고 예치금 원장에 사용 금액만 추가하며, 스냅샷 이후에도 예치금이 같은지 테스트")
+    void 주문_예치금_원장_테스트() throws Exception {
+        long balance = 100000L;
+        long price = 1000L;
+        long number = 3L;
+        Account account = saveAccount(generateAccount(username, password, balance));
+        Account anotherAccount = saveAccount(generateAccount(anotherUsername, password, balance));
+        Product savedProduct = saveProduct(generateProduct(price, 10L, account));
+
+        IntStream.rangeClosed(1, 2).forEach(i -> {
+            try {
+                mockMvc.perform(post(ordersUrl)
+                        .header(HttpHeaders.AUTHORIZATION, generateJwt(anotherAccount))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Arrays.asList(OrdersRequestDto.builder()
+                                .number(number)
+                                .total(number * price)
+                                .productId(savedProduct.getId())
+                                .build()))))
+                        .andDo(print())
+                        .andExpect(status().isCreated());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        List<BalanceLedger> ledgers = balanceLedgerRepository.findByAccountIdOrderByCreatedAt(anotherAccount.getId());
+        assertEquals(ledgers.size(), 2);
+        ledgers.forEach(e -> {
+            assertEquals(e.getType(), BalanceLedgerType.DEBIT);
+            assertEquals(e.getAmount(), -number * price);
+        });
+        Account savedAnotherAccount = accountRepository.findById(anotherAccount.getId()).get();
+        assertEquals(savedAnotherAccount.getOpeningBalance(), balance);
+        assertEquals(savedAnotherAccount.getBalance(), balance - 2 * number * price);
+
+        balanceSnapshotRepository.save(balanceQueryRepository.calculateSnapshot(anotherAccount.getId(), LocalDateTime.now()).get());
+        assertEquals(balanceQueryRepository.calculateBalance(anotherAccount.getId(), balance), balance - 2 * number * price);
+    }
+
+    @Test
+    @DisplayName("같은 Idempotency-Key로 다시 주문하면 주문이 다시 처리되지 않고 처음 결과가 반환되는지 테스트")
+    void 멱등키_재요청_테스트() throws Exception {
+        long balance = 100000L;
+        long price = 1000L;
+        long amount = 10L;
+        long number = 3L;
+        Account account = saveAccount(generateAccount(username, password, balance));
+        Account anotherAccount = saveAccount(generateAccount(anotherUsername, password, balance));
+        Product savedProduct = saveProduct(generateProduct(price, amount, account));
+
+        String content = objectMapper.writeValueAsString(Arrays.asList(OrdersRequestDto.builder()
+                .number(number)
+                .total(number * price)
+                .productId(savedProduct.getId())
+                .build()));
+        String idempotencyKey = UUID.randomUUID().toString();
+
+        byte[] firstResponse = mockMvc.perform(post(ordersUrl)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(anotherAccount))
+                .header(IdempotencyService.HEADER, idempotencyKey)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(content))
+                .andDo(print())
+                .andExpect(status().isCreated())
+                .andDo(document("create-orders-idempotent",
+                        requestHeaders(
+                                headerWithName(HttpHeaders.CONTENT_TYPE).description("Content Type header"),
+                                headerWithName(HttpHeaders.AUTHORIZATION).description("Authorization Header"),
+                                headerWithName(IdempotencyService.HEADER).description("재요청 시 주문이 다시 처리되지 않도록 클라이언트가 만든 고유한 키")
+                        )))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        mockMvc.perform(post(ordersUrl)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(anotherAccount))
+                .header(IdempotencyService.HEADER, idempotencyKey)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(content))
+                .andDo(print())
+                .andExpect(status().isCreated())
+                .andExpect(header().string(IdempotencyService.REPLAYED_HEADER, "true"))
+                .andExpect(content().bytes(firstResponse));
+
+        assertEquals(ordersRepository.count(), 1);
+        assertEquals(productRepository.findById(savedProduct.getId()).get().getAmount(), amount - number);
+        assertEquals(accountRepository.findById(anotherAccount.getId()).get().getBalance(), balance - number * price);
+    }
+
+    @Test
+    @DisplayName("같은 Idempotency-Key로 다른 주문을 보내면 Bad Request 반환")
+    void 멱등키_다른_요청_테스트() throws Exception {
+        long balance = 100000L;
+        long price = 1000L;
+        Account account = saveAccount(generateAccount(username, password, balance));
+        Account anotherAccount = saveAccount(generateAccount(anotherUsername, password, balance));
+        Product savedProduct = saveProduct(generateProduct(price, 10L, account));
+        String idempotencyKey = UUID.randomUUID().toString();
+
+        IntStream.rangeClosed(1, 2).forEach(number -> {
+            try {
+                mockMvc.perform(post(ordersUrl)
+                        .header(HttpHeaders.AUTHORIZATION, generateJwt(anotherAccount))
+                        .header(IdempotencyService.HEADER, idempotencyKey)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Arrays.asList(OrdersRequestDto.builder()
+                                .number((long) number)
+                                .total(number * price)
+                                .productId(savedProduct.getId())
+                                .build()))))
+                        .andDo(print())
+                        .andExpect(number == 1 ? status().isCreated() : status().isBadRequest());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertEquals(ordersRepository.count(), 1);
+    }
+
+    @Test
+    @DisplayName("'Prefer: respond-async' 주문은 접수 후 대기열에서 처리되고, 재고보다 많이 팔리지 않는지 테스트")
+    void 비동기_주문_접수_테스트() throws Exception {
+        long price = 1000L;
+        long amount = 10L;
+        int requests = 20;
+        Account account = saveAccount(generateAccount(username, password, 1000L));
+        Account anotherAccount = saveAccount(generateAccount(anotherUsername, password, 500000L));
+        Product savedProduct = saveProduct(generateProduct(price, amount, account));
+        String content = objectMapper.writeValueAsString(Arrays.asList(OrdersRequestDto.builder()
+                .number(1L)
+                .total(price)
+                .productId(savedProduct.getId())
+                .build()));
+
+        List<String> ticketIds = new LinkedList<>();
+        for (int i = 0; i < requests; i++) {
+            String response = mockMvc.perform(post(ordersUrl)
+                    .header(HttpHeaders.AUTHORIZATION, generateJwt(anotherAccount))
+                    .header(OrderIntakeService.PREFER_HEADER, "respond-async")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(content))
+                    .andExpect(status().isAccepted())
+                    .andExpect(header().exists(HttpHeaders.LOCATION))
+                    .andExpect(jsonPath("id").exists())
+                    .andExpect(jsonPath("_links.self").exists())
+                    .andDo(i == 0 ? document("create-orders-async",
+                            links(
+                                    linkWithRel("self").description("link to self"),
+                                    linkWithRel("profile").description("link to profile")
+                            ), requestHeaders(
+                                    headerWithName(HttpHeaders.CONTENT_TYPE).description("Content Type header"),
+                                    headerWithName(HttpHeaders.AUTHORIZATION).description("Authorization Header"),
+                                    headerWithName(OrderIntakeService.PREFER_HEADER).description("respond-async인 경우 주문을 대기열에 접수하고 바로 응답")
+                            ), responseHeaders(
+                                    headerWithName(HttpHeaders.LOCATION).description("접수된 주문을 조회할 수 있는 주소")
+                            ), responseFields(
+                                    fieldWithPath("id").description("접수 번호"),
+                                    fieldWithPath("status").description("처리 상태 (PENDING, CREATED, REJECTED, FAILED)"),
+                                    fieldWithPath("createdAt").description("접수 일시"),
+                                    fieldWithPath("completedAt").description("처리가 끝난 일시").optional(),
+                                    fieldWithPath("result").description("처리가 끝난 경우 주문 등록 응답과 같은 Body").optional(),
+                                    fieldWithPath("_links.*.*").ignored()
+                            )) : print())
+                    .andReturn().getResponse().getContentAsString();
+            ticketIds.add(objectMapper.readTree(response).get("id").asText());
+        }
+
+        List<String> statuses = new LinkedList<>();
+        for (String ticketId : ticketIds) {
+            statuses.add(awaitTicket(anotherAccount, ticketId).get("status").asText());
+        }
+
+        mockMvc.perform(get(ordersUrl + "/tickets/{ticketId}", ticketIds.get(0))
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(anotherAccount)))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("status").value("CREATED"))
+                .andExpect(jsonPath("result._embedded.ordersResponseDtoList[0].number").value(1))
+                .andDo(document("query-order-ticket",
+                        links(
+                                linkWithRel("self").description("link to self"),
+                                linkWithRel("profile").description("link to profile")
+                        ), responseFields(
+                                fieldWithPath("id").description("접수 번호"),
+                                fieldWithPath("status").description("처리 상태 (PENDING, CREATED, REJECTED, FAILED)"),
+                                fieldWithPath("createdAt").description("접수 일시"),
+                                fieldWithPath("completedAt").description("처리가 끝난 일시"),
+                                subsectionWithPath("result").description("주문 등록 응답과 같은 Body"),
+                                fieldWithPath("_links.*.*").ignored()
+                        )));
+
+        assertEquals(statuses.stream().filter("CREATED"::equals).count(), amount);
+        assertEquals(statuses.stream().filter("REJECTED"::equals).count(), requests - amount);
+        assertEquals(ordersRepository.count(), amount);
+        assertEquals(productRepository.findById(savedProduct.getId()).get().getAmount(), 0L);
+        assertEquals(accountRepository.findById(anotherAccount.getId()).get().getBalance(), 500000L - amount * price);
+    }
+
+    @Test
+    @DisplayName("다른 유저의 접수 번호로 조회하면 Bad Request 반환")
+    void 다른_유저의_접수_번호_조회() throws Exception {
+        Account account = saveAccount(generateAccount(username, password, 1000L));
+        Account anotherAccount = saveAccount(generateAccount(anotherUsername, password, 500000L));
+        Product savedProduct = saveProduct(generateProduct(1000L, 10L, account));
+
+        String response = mockMvc.perform(post(ordersUrl)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(anotherAccount))
+                .header(OrderIntakeService.PREFER_HEADER, "respond-async")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Arrays.asList(OrdersRequestDto.builder()
+                        .number(1L)
+                        .total(1000L)
+                        .productId(savedProduct.getId())
+                        .build()))))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getContentAsString();
+        String ticketId = objectMapper.readTree(response).get("id").asText();
+        awaitTicket(anotherAccount, ticketId);
+
+        mockMvc.perform(get(ordersUrl + "/tickets/{ticketId}", ticketId)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(account)))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath(KEY).value(TICKETNOTFOUND));
+    }
+
+    @Test
+    @DisplayName("주문 목록을 최근 순으로 cursor를 따라 나누어 조회하는지 테스트")
+    void 주문_목록_조회_테스트() throws Exception {
+        Account account = saveAccount(generateAccount(username, password, 1000L));
+        Account anotherAccount = saveAccount(generateAccount(anotherUsername, password, 500000L));
+        Product savedProduct = saveProduct(generateProduct(1000L, 10L, account));
+        LocalDateTime createdAt = LocalDateTime.of(2020, 2, 1, 12, 0);
+        List<Orders> ordersList = saveOrdersList(anotherAccount, savedProduct, createdAt, 5);
+        ordersList.add(ordersRepository.save(Orders.builder() // 같은 시간에 등록된 주문은 id로 순서를 정함
+                .account(anotherAccount)
+                .product(savedProduct)
+                .number(1L)
+                .total(1000L)
+                .createdAt(createdAt.plusMinutes(4))
+                .build()));
+        saveOrdersList(account, savedProduct, createdAt, 3); // 다른 유저의 주문은 조회되지 않아야 함
+
+        String response = mockMvc.perform(get(ordersUrl)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(anotherAccount))
+                .param("size", "4"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("_embedded.orderHistoryResponseDtoList.length()").value(4))
+                .andExpect(jsonPath("_embedded.orderHistoryResponseDtoList[0].id").value(ordersList.get(5).getId()))
+                .andExpect(jsonPath("_embedded.orderHistoryResponseDtoList[1].id").value(ordersList.get(4).getId()))
+                .andExpect(jsonPath("_embedded.orderHistoryResponseDtoList[0].productName").value(savedProduct.getName()))
+                .andExpect(jsonPath("_links.next.href").exists())
+                .andDo(document("query-orders",
+                        links(
+                                linkWithRel("self").description("link to self"),
+                                linkWithRel("next").description("다음 목록을 조회하는 주소, 마지막 목록인 경우 없음"),
+                                linkWithRel("profile").description("link to profile")
+                        ), requestHeaders(
+                                headerWithName(HttpHeaders.AUTHORIZATION).description("Authorization Header")
+                        ), requestParameters(
+                                parameterWithName("after").description("이전 응답의 next 주소에 담긴 cursor, 없으면 가장 최근 주문부터 조회").optional(),
+                                parameterWithName("size").description("한 번에 조회할 주문의 개수 (기본 20, 최대 100)")
+                        ), responseFields(
+                                fieldWithPath("_embedded.orderHistoryResponseDtoList[].id").description("주문 식별자"),
+                                fieldWithPath("_embedded.orderHistoryResponseDtoList[].total").description("총 금액"),
+                                fieldWithPath("_embedded.orderHistoryResponseDtoList[].number").description("주문한 상품 개수"),
+                                fieldWithPath("_embedded.orderHistoryResponseDtoList[].createdAt").description("주문 시간"),
+                                fieldWithPath("_embedded.orderHistoryResponseDtoList[].productId").description("주문한 상품의 식별자"),
+                                fieldWithPath("_embedded.orderHistoryResponseDtoList[].productName").description("주문한 상품의 이름"),
+                                fieldWithPath("_embedded.orderHistoryResponseDtoList[].productPrice").description("주문한 상품의 가격"),
+                                fieldWithPath("_embedded.orderHistoryResponseDtoList[]._links.*.*").ignored(),
+                                fieldWithPath("_links.*.*").ignored()
+                        )))
+                .andReturn().getResponse().getContentAsString();
+
+        mockMvc.perform(get(objectMapper.readTree(response).at("/_links/next/href").asText())
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(anotherAccount)))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("_embedded.orderHistoryResponseDtoList.length()").value(2))
+                .andExpect(jsonPath("_embedded.orderHistoryResponseDtoList[0].id").value(ordersList.get(1).getId()))
+                .andExpect(jsonPath("_embedded.orderHistoryResponseDtoList[1].id").value(ordersList.get(0).getId()))
+                .andExpect(jsonPath("_links.next").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("주문이 많아도 뒤쪽 목록을 조회할 때 실행되는 SQL의 개수가 같은지 테스트")
+    void 주문_목록_조회_SQL_개수_테스트() throws Exception {
+        Account account = saveAccount(generateAccount(username, password, 1000L));
+        Account anotherAccount = saveAccount(generateAccount(anotherUsername, password, 500000L));
+        Product savedProduct = saveProduct(generateProduct(1000L, 10L, account));
+        List<Orders> ordersList = saveOrdersList(anotherAccount, savedProduct, LocalDateTime.of(2020, 2, 1, 12, 0), 200);
+        String jwt = generateJwt(anotherAccount);
+
+        SqlStatementCounter.clear();
+        mockMvc.perform(get(ordersUrl)
+                .header(HttpHeaders.AUTHORIZATION, jwt)
+                .param("size", "10"))
+                .andExpect(status().isOk());
+        long firstPage = SqlStatementCounter.selectCount();
+
+        Orders cursorOrders = ordersList.get(20);
+        SqlStatementCounter.clear();
+        mockMvc.perform(get(ordersUrl)
+                .header(HttpHeaders.AUTHORIZATION, jwt)
+                .param("size", "10")
+                .param("after", new OrdersCursor(cursorOrders.getCreatedAt(), cursorOrders.getId()).encode()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("_embedded.orderHistoryResponseDtoList[0].id").value(ordersList.get(19).getId()));
+        long deepPage = SqlStatementCounter.selectCount();
+
+        assertEquals(firstPage, deepPage);
+    }
+
+    @Test
+    @DisplayName("형식이 맞지 않는 cursor로 주문 목록을 조회하면 Bad Request 반환")
+    void 주문_목록_잘못된_cursor() throws Exception {
+        Account account = saveAccount(generateAccount(username, password, 1000L));
+
+        mockMvc.perform(get(ordersUrl)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(account))
+                .param("after", "not-a-cursor"))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath(KEY).value(INVALIDCURSOR));
+    }
+
+    @Test
+    @DisplayName("주문이 등록되면 같은 트랜잭션에서 구매자와 판매자의 요약에 더해지는지 테스트")
+    void 주문_판매_요약_테스트() throws Exception {
+        long price = 1000L;
+        Account account = saveAccount(generateAccount(username, password, 1000L));
+        Account anotherAccount = saveAccount(generateAccount(anotherUsername, password, 500000L));
+        Product firstProduct = saveProduct(generateProduct_need_index(0, price, 10L, account));
+        Product secondProduct = saveProduct(generateProduct_need_index(1, price, 10L, account));
+
+        mockMvc.perform(post(ordersUrl)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(anotherAccount))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Arrays.asList(
+                        OrdersRequestDto.builder().productId(firstProduct.getId()).number(2L).total(2 * price).build(),
+                        OrdersRequestDto.builder().productId(secondProduct.getId()).number(3L).total(3 * price).build()))))
+                .andExpect(status().isCreated());
+        mockMvc.perform(post(ordersUrl) // 재고가 부족하여 거절된 주문은 요약에 더해지지 않음
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(anotherAccount))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Arrays.asList(
+                        OrdersRequestDto.builder().productId(firstProduct.getId()).number(100L).total(100 * price).build()))))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/api/accounts/{accountId}/buyer-summary", anotherAccount.getId())
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(anotherAccount)))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("accountId").value(anotherAccount.getId()))
+                .andExpect(jsonPath("orderCount").value(2))
+                .andExpect(jsonPath("itemCount").value(5))
+                .andExpect(jsonPath("totalSpent").value(5 * price))
+                .andDo(document("get-buyer-summary",
+                        links(
+                                linkWithRel("self").description("link to self"),
+                                linkWithRel("account").description("link to account"),
+                                linkWithRel("profile").description("link to profile")
+                        ), requestHeaders(
+                                headerWithName(HttpHeaders.AUTHORIZATION).description("Authorization Header")
+                        ), responseFields(
+                                fieldWithPath("accountId").description("구매자 식별자"),
+                                fieldWithPath("orderCount").description("주문한 항목의 개수"),
+                                fieldWithPath("itemCount").description("주문한 상품 개수의 합"),
+                                fieldWithPath("totalSpent").description("사용한 금액의 합"),
+                                fieldWithPath("updatedAt").description("마지막으로 갱신된 일시"),
+                                fieldWithPath("_links.*.*").ignored()
+                        )));
+
+        mockMvc.perform(get("/api/accounts/{accountId}/seller-summary", account.getId())
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(account)))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("accountId").value(account.getId()))
+                .andExpect(jsonPath("orderCount").value(2))
+                .andExpect(jsonPath("itemCount").value(5))
+                .andExpect(jsonPath("revenue").value(5 * price))
+                .andDo(document("get-seller-summary",
+                        links(
+                                linkWithRel("self").description("link to self"),
+                                linkWithRel("account").description("link to account"),
+                                linkWithRel("profile").description("link to profile")
+                        ), requestHeaders(
+                                headerWithName(HttpHeaders.AUTHORIZATION).description("Authorization Header")
+                        ), responseFields(
+                                fieldWithPath("accountId").description("판매자 식별자"),
+                                fieldWithPath("orderCount").description("판매된 항목의 개수"),
+                                fieldWithPath("itemCount").description("판매된 상품 개수의 합"),
+                                fieldWithPath("revenue").description("매출의 합"),
+                                fieldWithPath("updatedAt").description("마지막으로 갱신된 일시"),
+                                fieldWithPath("_links.*.*").ignored()
+                        )));
+    }
+
+    @Test
+    @DisplayName("요약을 거치지 않고 저장된 주문과 요약이 없는 유저가 요약을 다시 계산하면 반영되는지 테스트")
+    void 판매_요약_재계산_테스트() throws Exception {
+        Account account = saveAccount(generateAccount(username, password, 1000L));
+        Account anotherAccount = saveAccount(generateAccount(anotherUsername, password, 500000L));
+        Product savedProduct = saveProduct(generateProduct(1000L, 10L, account));
+        saveOrdersList(anotherAccount, savedProduct, LocalDateTime.now(), 3);
+
+        mockMvc.perform(get("/api/accounts/{accountId}/seller-summary", account.getId())
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(account)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("orderCount").value(0));
+        buyerSummaryRepository.deleteById(anotherAccount.getId());
+
+        salesSummaryService.rebuild();
+
+        mockMvc.perform(get("/api/accounts/{accountId}/seller-summary", account.getId())
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(account)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("orderCount").value(3))
+                .andExpect(jsonPath("itemCount").value(3))
+                .andExpect(jsonPath("revenue").value(3000L));
+        mockMvc.perform(get("/api/accounts/{accountId}/buyer-summary", anotherAccount.getId())
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(anotherAccount)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("orderCount").value(3))
+                .andExpect(jsonPath("totalSpent").value(3000L));
+        mockMvc.perform(get("/api/accounts/{accountId}/buyer-summary", account.getId())
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(account)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("orderCount").value(0))
+                .andExpect(jsonPath("totalSpent").value(0L));
+    }
+
+    @Test
+    @DisplayName("주문으로 재고가 감소하면 개별 상품 조회 캐시에서 지워지는지 테스트")
+    void 주문_상품_조회_캐시_테스트() throws Exception {
+        Account account = saveAccount(generateAccount(username, password, 1000L));
+        Account anotherAccount = saveAccount(generateAccount(anotherUsername, password, 500000L));
+        Product savedProduct = saveProduct(generateProduct(1000L, 10L, account));
+
+        mockMvc.perform(get("/api/products/{productId}", savedProduct.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("amount").value(10));
+
+        List<OrdersRequestDto> ordersRequestDtos = Arrays.asList(OrdersRequestDto.builder()
+                .productId(savedProduct.getId())
+                .number(3L)
+                .total(3000L)
+                .build());
+        mockMvc.perform(post(ordersUrl)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(anotherAccount))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(ordersRequestDtos)))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/api/products/{productId}", savedProduct.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("amount").value(7));
+    }
+
+    private List<Orders> saveOrdersList(Account account, Product product, LocalDateTime createdAt, int size) {
+        return new LinkedList<>(ordersRepository.saveAll(IntStream.range(0, size)
+                .mapToObj(i -> Orders.builder()
+                        .account(account)
+                        .product(product)
+                        .number(1L)
+                        .total(1000L)
+                        .createdAt(createdAt.plusMinutes(i))
+                        .build())
+                .collect(Collectors.toList())));
+    }
+
+    private JsonNode awaitTicket(Account account, String ticketId) throws Exception {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (true) {
+            JsonNode ticket = objectMapper.readTree(mockMvc.perform(get(ordersUrl + "/tickets/{ticketId}", ticketId)
+                    .header(HttpHeaders.AUTHORIZATION, generateJwt(account)))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+            if (!"PENDING".equals(ticket.get("status").asText()) || System.currentTimeMillis() > deadline) {
+                return ticket;
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private long countSelectsForOrder(String jwt, List<OrdersRequestDto> ordersRequestDtos) throws Exception {
+        String content = objectMapper.writeValueAsString(ordersRequestDtos);
+        SqlStatementCounter.clear();
+        mockMvc.perform(post(ordersUrl)
+                .header(HttpHeaders.AUTHORIZATION, jwt)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(content))
+                .andExpect(status().isCreated());
+        return SqlStatementCounter.selectCount();
+    }
+
+    private List<OrdersRequestDto> generateOrdersRequestDtos(Account account, int size) {
+        List<OrdersRequestDto> list = new LinkedList<>();
+        IntStream.range(0, size).forEach(i -> {
+            Product saveProduct = saveProduct(generateProduct_need_index(i, 1000L, 10L, account));
+            list.add(OrdersRequestDto.builder()
+                    .number(1L)
+                    .total(1000L)
+                    .productId(saveProduct.getId())
+                    .build());
+        });
+        return list;
+    }
+
     private Product saveProduct(Product product) {
         return productRepository.save(product);
     }
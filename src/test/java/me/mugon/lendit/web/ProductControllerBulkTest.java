@@ -0,0 +1,237 @@
+package me.mugon.lendit.web;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import me.mugon.lendit.api.OrderImportService;
+import me.mugon.lendit.api.search.ProductSearchIndex;
+import me.mugon.lendit.api.search.ProductSortIndex;
+import me.mugon.lendit.common.BaseControllerTest;
+import me.mugon.lendit.common.SqlStatementCounter;
+import me.mugon.lendit.domain.account.Account;
+import me.mugon.lendit.domain.product.Product;
+import me.mugon.lendit.web.dto.product.ProductRequestDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static me.mugon.lendit.api.error.ErrorMessageConstant.*;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.restdocs.headers.HeaderDocumentation.*;
+import static org.springframework.restdocs.hypermedia.HypermediaDocumentation.linkWithRel;
+import static org.springframework.restdocs.hypermedia.HypermediaDocumentation.links;
+import static org.springframework.restdocs.mockmvc.MockMvcRestDocumentation.document;
+import static org.springframework.restdocs.payload.PayloadDocumentation.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = {"lendit.product.bulk.chunk-size=50", "lendit.product.bulk.max-size=200"})
+class ProductControllerBulkTest extends BaseControllerTest {
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private ProductSortIndex productSortIndex;
+
+    private final String bulkUrl = "/api/products/bulk";
+
+    @AfterEach
+    void clean() {
+        productRepository.deleteAll();
+        accountRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("JSON 배열의 상품을 chunk마다 batch INSERT로 등록하고 식별자 구간을 반환하는지 테스트")
+    void 상품_일괄_등록_테스트() throws Exception {
+        Account account = saveAccount("seller", 10000L);
+        List<ProductRequestDto> requestDtos = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            requestDtos.add(new ProductRequestDto("일괄 등록 상품 bulk" + i, 1000L + i, 10L));
+        }
+        int sortIndexSize = productSortIndex.size();
+
+        SqlStatementCounter.clear();
+        String response = mockMvc.perform(post(bulkUrl)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(account))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaTypes.HAL_JSON)
+                .content(objectMapper.writeValueAsString(requestDtos)))
+                .andDo(print())
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("count", is(120)))
+                .andExpect(jsonPath("idRanges").isArray())
+                .andExpect(jsonPath("message").doesNotExist())
+                .andExpect(jsonPath("_links.self").exists())
+                .andExpect(jsonPath("_links.query-products").exists())
+                .andExpect(jsonPath("_links.profile").exists())
+                .andDo(document("create-products-bulk",
+                        links(
+                                linkWithRel("self").description("link to self"),
+                                linkWithRel("query-products").description("link to query products"),
+                                linkWithRel("profile").description("link to profile")
+                        ), requestHeaders(
+                                headerWithName(HttpHeaders.CONTENT_TYPE).description("application/json 또는 application/x-ndjson"),
+                                headerWithName(HttpHeaders.AUTHORIZATION).description("Authorization Header")
+                        ), requestFields(
+                                fieldWithPath("[].name").description("상품 이름"),
+                                fieldWithPath("[].price").description("상품 가격"),
+                                fieldWithPath("[].amount").description("상품 재고 수량")
+                        ), responseHeaders(
+                                headerWithName(HttpHeaders.CONTENT_TYPE).description("Content Type header")
+                        ), responseFields(
+                                fieldWithPath("count").description("등록된 상품 수"),
+                                fieldWithPath("idRanges[].from").description("등록된 상품의 식별자 구간의 시작"),
+                                fieldWithPath("idRanges[].to").description("등록된 상품의 식별자 구간의 끝 (포함)"),
+                                fieldWithPath("_links.*.*").ignored()
+                        )))
+                .andReturn().getResponse().getContentAsString();
+        long statementCount = SqlStatementCounter.totalCount();
+
+        List<Long> ids = expand(objectMapper.readTree(response).get("idRanges"));
+        assertEquals(ids.size(), 120);
+        for (int i = 0; i < ids.size(); i++) {
+            Optional<Product> product = productRepository.findById(ids.get(i));
+            assertTrue(product.isPresent());
+            assertEquals(product.get().getName(), "일괄 등록 상품 bulk" + i);
+            assertEquals(product.get().getPrice(), 1000L + i);
+            assertEquals(product.get().getAccount().getId(), account.getId());
+        }
+        assertTrue(statementCount < 20, "statements: " + statementCount); // 상품마다 INSERT, sequence 조회를 하지 않음
+
+        assertEquals(productSearchIndex.search("bulk119", 10).get(), Collections.singletonList(ids.get(119)));
+        assertEquals(productSortIndex.size(), sortIndexSize + 120);
+
+        mockMvc.perform(get("/api/products")
+                .param("minPrice", "1118").param("maxPrice", "1119"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("_embedded.productResponseDtoList[*].id", contains(ids.get(118).intValue(), ids.get(119).intValue())));
+    }
+
+    @Test
+    @DisplayName("NDJSON의 줄마다 상품을 등록하는지 테스트")
+    void NDJSON_상품_일괄_등록_테스트() throws Exception {
+        Account account = saveAccount("seller", 10000L);
+        String body = objectMapper.writeValueAsString(new ProductRequestDto("첫번째 상품", 1000L, 1L)) + "\n" +
+                "\n" +
+                objectMapper.writeValueAsString(new ProductRequestDto("두번째 상품", 2000L, 2L)) + "\n";
+
+        String response = mockMvc.perform(post(bulkUrl)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(account))
+                .contentType(OrderImportService.NDJSON_VALUE)
+                .accept(MediaTypes.HAL_JSON)
+                .content(body))
+                .andDo(print())
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("count", is(2)))
+                .andReturn().getResponse().getContentAsString();
+
+        List<Long> ids = expand(objectMapper.readTree(response).get("idRanges"));
+        assertEquals(productRepository.findById(ids.get(0)).get().getName(), "첫번째 상품");
+        assertEquals(productRepository.findById(ids.get(1)).get().getName(), "두번째 상품");
+    }
+
+    @Test
+    @DisplayName("유효하지 않은 상품이 하나라도 있으면 모든 오류를 반환하고 아무것도 등록하지 않는지 테스트")
+    void 유효하지_않은_상품_일괄_등록_테스트() throws Exception {
+        Account account = saveAccount("seller", 10000L);
+        List<ProductRequestDto> requestDtos = new ArrayList<>();
+        requestDtos.add(new ProductRequestDto("상품", 1000L, 1L));
+        requestDtos.add(new ProductRequestDto("상품", null, 1L));
+        requestDtos.add(new ProductRequestDto(" ", 1000L, null));
+
+        mockMvc.perform(post(bulkUrl)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(account))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaTypes.HAL_JSON)
+                .content(objectMapper.writeValueAsString(requestDtos)))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("message", contains(
+                        "products[1].price 가 유효하지 않습니다.",
+                        "products[2].amount 가 유효하지 않습니다.",
+                        "products[2].name 가 유효하지 않습니다.")));
+        assertEquals(productRepository.count(), 0);
+    }
+
+    @Test
+    @DisplayName("읽을 수 없거나 비어 있거나 최대 수보다 많은 상품 목록을 거절하는지 테스트")
+    void 상품_목록_형식_테스트() throws Exception {
+        Account account = saveAccount("seller", 10000L);
+        List<ProductRequestDto> requestDtos = new ArrayList<>();
+        for (int i = 0; i < 201; i++) {
+            requestDtos.add(new ProductRequestDto("상품" + i, 1000L, 1L));
+        }
+
+        assertRejected(account, MediaType.APPLICATION_JSON_VALUE, objectMapper.writeValueAsString(requestDtos), TOOMANYBULKPRODUCTS);
+        assertRejected(account, MediaType.APPLICATION_JSON_VALUE, "[{\"name\": ", INVALIDBULKPRODUCTS);
+        assertRejected(account, MediaType.APPLICATION_JSON_VALUE, "[]", INVALIDBULKPRODUCTS);
+        assertRejected(account, OrderImportService.NDJSON_VALUE, "not json\n", INVALIDBULKPRODUCTS);
+        assertEquals(productRepository.count(), 0);
+    }
+
+    @Test
+    @DisplayName("도중에 chunk가 실패하면 앞선 chunk까지 등록된 결과를 반환하는지 테스트")
+    void 상품_일괄_등록_실패_테스트() throws Exception {
+        Account account = saveAccount("seller", 10000L);
+        List<ProductRequestDto> requestDtos = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            requestDtos.add(new ProductRequestDto("상품" + i, 1000L, 1L));
+        }
+        // 컬럼의 길이보다 긴 이름은 검사를 통과하지만 INSERT에서 실패하여 세번째 chunk가 롤백됨
+        requestDtos.get(110).setName(String.join("", Collections.nCopies(300, "a")));
+        int sortIndexSize = productSortIndex.size();
+
+        String response = mockMvc.perform(post(bulkUrl)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(account))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaTypes.HAL_JSON)
+                .content(objectMapper.writeValueAsString(requestDtos)))
+                .andDo(print())
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("count", is(100)))
+                .andExpect(jsonPath("message", is(BULKPRODUCTSFAILED)))
+                .andReturn().getResponse().getContentAsString();
+
+        List<Long> ids = expand(objectMapper.readTree(response).get("idRanges"));
+        assertEquals(ids.size(), 100);
+        assertEquals(productRepository.count(), 100);
+        assertEquals(productSortIndex.size(), sortIndexSize + 100);
+    }
+
+    private void assertRejected(Account account, String contentType, String body, String message) throws Exception {
+        mockMvc.perform(post(bulkUrl)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(account))
+                .contentType(contentType)
+                .accept(MediaTypes.HAL_JSON)
+                .content(body))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("message[0]", is(message)));
+    }
+
+    private List<Long> expand(JsonNode idRanges) {
+        List<Long> ids = new ArrayList<>();
+        for (JsonNode idRange : idRanges) {
+            for (long id = idRange.get("from").asLong(); id <= idRange.get("to").asLong(); id++) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,240 @@
+package me.mugon.lendit.web;
+
+import me.mugon.lendit.api.cache.ProductDetailCache;
+import me.mugon.lendit.api.search.ProductSearchIndex;
+import me.mugon.lendit.api.search.ProductSortIndex;
+import me.mugon.lendit.api.snapshot.ProductCatalogSnapshotService;
+import me.mugon.lendit.common.BaseControllerTest;
+import me.mugon.lendit.common.SqlStatementCounter;
+import me.mugon.lendit.domain.account.Account;
+import me.mugon.lendit.domain.product.Product;
+import me.mugon.lendit.domain.product.ProductCatalogSnapshot;
+import me.mugon.lendit.web.dto.product.ProductCatalogResponseDto;
+import me.mugon.lendit.web.dto.product.ProductRequestDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 상품 목록 스냅샷을 켜고 테스트
+ * 한 번에 여러 식별자 구간을 읽는 경우를 확인하기 위해 chunk-size를 작게 설정함
+ */
+@TestPropertySource(properties = {
+        "lendit.product.snapshot.enabled=true",
+        "lendit.product.snapshot.path=" + ProductControllerSnapshotTest.PATH,
+        "lendit.product.snapshot.interval=86400000",
+        "lendit.product.snapshot.chunk-size=2"
+})
+class ProductControllerSnapshotTest extends BaseControllerTest {
+
+    static final String PATH = "build/product-snapshot-test/products.snap";
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private ProductSortIndex productSortIndex;
+
+    @Autowired
+    private ProductDetailCache productDetailCache;
+
+    @Autowired
+    private ProductCatalogSnapshotService productCatalogSnapshotService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final String productUrl = "/api/products";
+
+    /**
+     * 이전 테스트 실행이 종료될 때 쓴 스냅샷으로 context가 시작되지 않도록 지움
+     */
+    @BeforeAll
+    static void deleteSnapshot() throws Exception {
+        Files.deleteIfExists(Paths.get(PATH));
+    }
+
+    @AfterEach
+    void clean() throws Exception {
+        Files.deleteIfExists(Paths.get(PATH));
+        productDetailCache.clear();
+        productRepository.deleteAll();
+        accountRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("상품 목록을 스냅샷 파일로 쓰고, 스냅샷으로 검색, 정렬 색인과 개별 상품 조회 캐시를 채우는지 테스트")
+    void 상품_목록_스냅샷_쓰기_불러오기_테스트() throws Exception {
+        Account seller = saveAccount("seller", 10000L);
+        Account anotherSeller = saveAccount("anotherSeller", 10000L);
+        Product first = saveProduct("스냅샷 상품 alpha", 1000L, 30L, seller);
+        Product second = saveProduct("스냅샷 상품 beta", 3000L, 30L, seller);
+        Product third = saveProduct("다른 판매자 상품 gamma", 2000L, 30L, anotherSeller);
+
+        assertEquals(productCatalogSnapshotService.write(), Optional.of(3));
+        ProductCatalogSnapshot snapshot = ProductCatalogSnapshot.open(Paths.get(PATH));
+        assertEquals(snapshot.getFingerprint(), productRepository.findCatalogFingerprint());
+        List<ProductCatalogResponseDto> products = snapshot.readAll();
+        assertEquals(products.size(), 3);
+        ProductCatalogResponseDto read = products.get(2);
+        assertEquals(read.getId(), third.getId());
+        assertEquals(read.getName(), "다른 판매자 상품 gamma");
+        assertEquals(read.getPrice(), 2000L);
+        assertEquals(read.getAmount(), 30L);
+        assertEquals(read.getCreatedAt(), productRepository.findCatalogById(third.getId()).get().getCreatedAt());
+        assertEquals(read.getVersion(), third.getVersion());
+        assertEquals(read.getAccount().getId(), anotherSeller.getId());
+        assertEquals(read.getAccount().getUsername(), "anotherSeller");
+
+        productDetailCache.clear();
+        assertTrue(productCatalogSnapshotService.load());
+        assertEquals(productSearchIndex.size(), 3);
+        assertEquals(productSortIndex.size(), 3);
+        assertEquals(productSearchIndex.search("beta", 10), Optional.of(Collections.singletonList(second.getId())));
+
+        SqlStatementCounter.clear();
+        mockMvc.perform(get(productUrl + "/{productId}", first.getId()))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("name", is("스냅샷 상품 alpha")))
+                .andExpect(jsonPath("account.username", is("seller")));
+        assertEquals(SqlStatementCounter.totalCount(), 0L);
+
+        mockMvc.perform(get(productUrl).param("sort", "price,desc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("_embedded.productResponseDtoList[0].id", is(second.getId().intValue())))
+                .andExpect(jsonPath("_embedded.productResponseDtoList[1].id", is(third.getId().intValue())));
+
+        assertEquals(productCatalogSnapshotService.verify(), 0);
+    }
+
+    @Test
+    @DisplayName("스냅샷 파일이 없거나, 손상되었거나, 쓴 뒤에 상품이 바뀌었으면 스냅샷을 사용하지 않는지 테스트")
+    void 상품_목록_스냅샷_사용하지_않는_경우_테스트() throws Exception {
+        Account seller = saveAccount("seller", 10000L);
+        Product product = saveProduct("스냅샷 상품", 1000L, 30L, seller);
+        Path path = Paths.get(PATH);
+
+        assertFalse(productCatalogSnapshotService.load());
+
+        productCatalogSnapshotService.write();
+        byte[] bytes = Files.readAllBytes(path);
+        byte[] corrupted = Arrays.copyOf(bytes, bytes.length);
+        corrupted[bytes.length / 2] ^= 1;
+        Files.write(path, corrupted);
+        assertFalse(productCatalogSnapshotService.load());
+
+        Files.write(path, bytes);
+        assertTrue(productCatalogSnapshotService.load());
+        assertEquals(productCatalogSnapshotService.verify(), 0);
+
+        jdbcTemplate.update("update product set price = ?, version = version + 1 where id = ?", 2000L, product.getId());
+        assertFalse(productCatalogSnapshotService.load());
+
+        productCatalogSnapshotService.write();
+        saveProduct("새 상품", 1000L, 30L, seller);
+        assertFalse(productCatalogSnapshotService.load());
+    }
+
+    @Test
+    @DisplayName("스냅샷으로 채운 뒤 db에 없는 상품만 색인에서 제거하고 캐시에서 지우며, 시작한 뒤 버전이 올라간 상품은 건너뛰는지 테스트")
+    void 상품_목록_스냅샷_db_비교_테스트() throws Exception {
+        Account seller = saveAccount("seller", 10000L);
+        Product changed = saveProduct("스냅샷 상품 alpha", 1000L, 30L, seller);
+        Product deleted = saveProduct("스냅샷 상품 beta", 2000L, 30L, seller);
+        saveProduct("스냅샷 상품 gamma", 3000L, 30L, seller);
+
+        productCatalogSnapshotService.write();
+        assertTrue(productCatalogSnapshotService.load());
+
+        // 시작한 뒤 애플리케이션이 수정, 등록한 상품은 버전이 올라가거나 스냅샷에 없으며 색인과 캐시에 이미 반영됨
+        mockMvc.perform(put(productUrl + "/{productId}", changed.getId())
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(seller))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(productContent("바뀐 상품 delta", 1000L)))
+                .andExpect(status().isOk());
+        jdbcTemplate.update("delete from product where id = ?", deleted.getId());
+        String response = mockMvc.perform(post(productUrl)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(seller))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(productContent("새 상품 epsilon", 4000L)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        Long addedId = objectMapper.readTree(response).get("id").asLong();
+
+        assertEquals(productCatalogSnapshotService.verify(), 1); // db에 없는 상품만 셈
+        assertEquals(productSearchIndex.search("delta", 10), Optional.of(Collections.singletonList(changed.getId())));
+        assertEquals(productSearchIndex.search("beta", 10), Optional.of(Collections.emptyList()));
+        assertEquals(productSearchIndex.search("epsilon", 10), Optional.of(Collections.singletonList(addedId)));
+        assertEquals(productSearchIndex.size(), 3);
+        assertEquals(productSortIndex.size(), 3);
+        mockMvc.perform(get(productUrl + "/{productId}", changed.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("name", is("바뀐 상품 delta")));
+        mockMvc.perform(get(productUrl + "/{productId}", deleted.getId()))
+                .andExpect(status().isBadRequest());
+
+        assertEquals(productCatalogSnapshotService.verify(), 0); // 이미 비교한 스냅샷은 다시 비교하지 않음
+    }
+
+    @Test
+    @DisplayName("스냅샷으로 채운 뒤 db의 버전이 스냅샷보다 낮은 상품만 db에서 다시 읽어 색인에 반영하고 캐시에서 지우는지 테스트")
+    void 상품_목록_스냅샷_이전_버전_다시_색인_테스트() throws Exception {
+        Account seller = saveAccount("seller", 10000L);
+        Product older = saveProduct("스냅샷 상품 alpha", 1000L, 30L, seller);
+        Product unchanged = saveProduct("스냅샷 상품 beta", 2000L, 30L, seller);
+
+        jdbcTemplate.update("update product set version = version + 1 where id = ?", older.getId());
+        productCatalogSnapshotService.write();
+        assertTrue(productCatalogSnapshotService.load());
+
+        // 스냅샷을 쓴 뒤 db를 이전 상태로 되돌린 경우
+        jdbcTemplate.update("update product set name = ?, price = ?, version = version - 1 where id = ?", "되돌린 상품 zeta", 5000L, older.getId());
+
+        assertEquals(productCatalogSnapshotService.verify(), 1);
+        assertEquals(productSearchIndex.search("zeta", 10), Optional.of(Collections.singletonList(older.getId())));
+        assertEquals(productSearchIndex.search("alpha", 10), Optional.of(Collections.emptyList()));
+        assertEquals(productSearchIndex.size(), 2);
+        assertEquals(productSortIndex.size(), 2);
+        mockMvc.perform(get(productUrl).param("sort", "price,desc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("_embedded.productResponseDtoList[0].id", is(older.getId().intValue())))
+                .andExpect(jsonPath("_embedded.productResponseDtoList[1].id", is(unchanged.getId().intValue())));
+        mockMvc.perform(get(productUrl + "/{productId}", older.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("name", is("되돌린 상품 zeta")));
+    }
+
+    private String productContent(String name, Long price) throws Exception {
+        return objectMapper.writeValueAsString(ProductRequestDto.builder()
+                .name(name)
+                .price(price)
+                .amount(30L)
+                .build());
+    }
+}
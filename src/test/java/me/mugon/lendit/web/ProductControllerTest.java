@@ -1,31 +1,66 @@
 package me.mugon.lendit.web;
 
+import me.mugon.lendit.api.cache.ProductDetailCache;
+import me.mugon.lendit.api.inventory.StockUpdater;
+import me.mugon.lendit.api.search.ProductSearchIndex;
+import me.mugon.lendit.api.search.ProductSortIndex;
 import me.mugon.lendit.common.BaseControllerTest;
+import me.mugon.lendit.common.SqlStatementCounter;
 import me.mugon.lendit.domain.account.Account;
-import me.mugon.lendit.domain.account.AccountRepository;
 import me.mugon.lendit.domain.account.Role;
+import me.mugon.lendit.domain.order.Orders;
+import me.mugon.lendit.domain.order.OrdersRepository;
 import me.mugon.lendit.domain.product.Product;
 import me.mugon.lendit.domain.product.ProductRepository;
+import me.mugon.lendit.web.dto.account.AccountRequestDto;
+import me.mugon.lendit.web.dto.order.OrdersRequestDto;
 import me.mugon.lendit.web.dto.product.ProductRequestDto;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.hateoas.MediaTypes;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StreamUtils;
 
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
 
+import static me.mugon.lendit.api.error.ErrorMessageConstant.INVALIDPRICERANGE;
+import static me.mugon.lendit.api.error.ErrorMessageConstant.INVALIDPRODUCTCURSOR;
+import static me.mugon.lendit.api.error.ErrorMessageConstant.INVALIDPRODUCTSORT;
+import static me.mugon.lendit.api.error.ErrorMessageConstant.INVALIDSEARCHQUERY;
 import static me.mugon.lendit.api.error.ErrorMessageConstant.KEY;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.restdocs.headers.HeaderDocumentation.*;
 import static org.springframework.restdocs.hypermedia.HypermediaDocumentation.linkWithRel;
 import static org.springframework.restdocs.hypermedia.HypermediaDocumentation.links;
 import static org.springframework.restdocs.mockmvc.MockMvcRestDocumentation.document;
 import static org.springframework.restdocs.payload.PayloadDocumentation.*;
+import static org.springframework.restdocs.request.RequestDocumentation.parameterWithName;
+import static org.springframework.restdocs.request.RequestDocumentation.requestParameters;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -33,15 +68,28 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 class ProductControllerTest extends BaseControllerTest {
 
     @Autowired
-    private ProductRepository productRepository;
+    private ProductDetailCache productDetailCache;
 
     @Autowired
-    private AccountRepository accountRepository;
+    private OrdersRepository ordersRepository;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private ProductSortIndex productSortIndex;
+
+    @Autowired
+    private StockUpdater stockUpdater;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
 
     private final String productUrl = "/api/products";
 
     @AfterEach
     void clean() {
+        ordersRepository.deleteAll();
         productRepository.deleteAll();
         accountRepository.deleteAll();
     }
@@ -347,6 +395,74 @@ class ProductControllerTest extends BaseControllerTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath(KEY).exists());
     }
+
+    @Test
+    @DisplayName("상품 수정, 삭제가 상품을 조회한 뒤 같은 상품의 주문이나 재고 변경이 커밋되어도 성공하는지 테스트")
+    void 상품_수정_삭제_재고_변경과_경합_테스트() throws Exception {
+        Account account = createAccount();
+        Account buyer = saveAccount("buyer", 100000L);
+        Product product = saveProduct(15000L, 30L, account);
+        Product deleted = saveProduct(15000L, 30L, account);
+        ProductRequestDto updateProduct = ProductRequestDto.builder()
+                .name("모던 자바 인 액션")
+                .price(20000L)
+                .amount(5L)
+                .build();
+
+        // 수정 요청과 같은 트랜잭션에서 상품을 먼저 조회하여, 조회한 뒤 수정하기 전에 다른 스레드의 주문이 커밋되도록 함
+        MvcResult result = transactionTemplate.execute(status -> {
+            productRepository.findById(product.getId());
+            try {
+                CompletableFuture.runAsync(() -> {
+                    try {
+                        mockMvc.perform(post("/api/orders")
+                                .header(HttpHeaders.AUTHORIZATION, generateJwt(buyer))
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(Collections.singletonList(OrdersRequestDto.builder()
+                                        .productId(product.getId())
+                                        .number(1L)
+                                        .total(15000L)
+                                        .build()))))
+                                .andExpect(status().isCreated());
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    }
+                }).get(10, TimeUnit.SECONDS);
+                return mockMvc.perform(put(productUrl + "/{productId}", product.getId())
+                        .header(HttpHeaders.AUTHORIZATION, generateJwt(account))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updateProduct)))
+                        .andDo(print())
+                        .andReturn();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertEquals(result.getResponse().getStatus(), 200);
+        Product updated = productRepository.findById(product.getId()).get();
+        assertEquals(updated.getName(), "모던 자바 인 액션");
+        assertEquals(updated.getAmount(), 5L);
+        assertEquals(updated.getVersion(), 2L); // 주문과 수정이 한 번씩 올림
+
+        // 삭제도 조회한 뒤 보류 해제 등으로 재고가 바뀌어도 성공함
+        result = transactionTemplate.execute(status -> {
+            productRepository.findById(deleted.getId());
+            try {
+                CompletableFuture.runAsync(() -> transactionTemplate.execute(inner -> {
+                    stockUpdater.increase(Collections.singletonMap(deleted.getId(), 1L));
+                    return null;
+                })).get(10, TimeUnit.SECONDS);
+                return mockMvc.perform(delete(productUrl + "/{productId}", deleted.getId())
+                        .header(HttpHeaders.AUTHORIZATION, generateJwt(account)))
+                        .andReturn();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertEquals(result.getResponse().getStatus(), 200);
+        assertTrue(!productRepository.findById(deleted.getId()).isPresent());
+    }
+
     @Test
     @DisplayName("정상적으로 상품이 삭제되는지 테스트")
     void 상품_삭제_테스트() throws Exception{
@@ -443,9 +559,9 @@ class ProductControllerTest extends BaseControllerTest {
                 .andExpect(jsonPath("_embedded.productResponseDtoList[*].createdAt").exists())
                 .andExpect(jsonPath("_embedded.productResponseDtoList[*].account.id").exists())
                 .andExpect(jsonPath("_embedded.productResponseDtoList[*].account.username").exists())
-                .andExpect(jsonPath("_embedded.productResponseDtoList[*].account.balance").exists())
-                .andExpect(jsonPath("_embedded.productResponseDtoList[*].account.role").exists())
-                .andExpect(jsonPath("_embedded.productResponseDtoList[*].account.createdAt").exists())
+                .andExpect(jsonPath("_embedded.productResponseDtoList[*].account.balance").doesNotExist())
+                .andExpect(jsonPath("_embedded.productResponseDtoList[*].account.role").doesNotExist())
+                .andExpect(jsonPath("_embedded.productResponseDtoList[*].account.createdAt").doesNotExist())
                 .andExpect(jsonPath("_embedded.productResponseDtoList[*]._links.self.href").exists())
                 .andExpect(jsonPath("_links.first").exists())
                 .andExpect(jsonPath("_links.self").exists())
@@ -470,9 +586,6 @@ class ProductControllerTest extends BaseControllerTest {
                                 fieldWithPath("_embedded.productResponseDtoList[*].account").description("상품 등록자 식별자"),
                                 fieldWithPath("_embedded.productResponseDtoList[*].account.id").description("상품 등록자 식별자"),
                                 fieldWithPath("_embedded.productResponseDtoList[*].account.username").description("상품 등록자 이름"),
-                                fieldWithPath("_embedded.productResponseDtoList[*].account.balance").description("상품 등록자 예치금"),
-                                fieldWithPath("_embedded.productResponseDtoList[*].account.role").description("상품 등록자 역할"),
-                                fieldWithPath("_embedded.productResponseDtoList[*].account.createdAt").description("상품 등록자 생성 일시"),
                                 fieldWithPath("_embedded.productResponseDtoList[*]._links.self.href").description("link to self"),
                                 fieldWithPath("_links.*.*").ignored(),
                                 fieldWithPath("page.size").description("한 페이지의 항목 개수"),
@@ -483,6 +596,86 @@ class ProductControllerTest extends BaseControllerTest {
                 ));
     }
 
+    @Test
+    @DisplayName("상품 리스트를 cursor로 나누어 앞뒤로 조회하는지 테스트")
+    void 상품_리스트_cursor_조회_테스트() throws Exception {
+        Account account = createAccount();
+        List<Integer> ids = new ArrayList<>(); // JSON의 숫자와 비교하기 위해 Integer로 담음
+        IntStream.rangeClosed(1, 7).forEach(index -> ids.add(saveProduct_need_index(index, 15000L, 30L, account).getId().intValue()));
+
+        String first = mockMvc.perform(get(productUrl)
+                .param("cursor", "")
+                .param("size", "3"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("_embedded.productResponseDtoList[*].id").value(new ArrayList<>(ids.subList(0, 3))))
+                .andExpect(jsonPath("page").doesNotExist())
+                .andExpect(jsonPath("_links.next").exists())
+                .andExpect(jsonPath("_links.prev").doesNotExist())
+                .andReturn().getResponse().getContentAsString();
+
+        String second = mockMvc.perform(get(linkOf(first, "next")))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("_embedded.productResponseDtoList[*].id").value(new ArrayList<>(ids.subList(3, 6))))
+                .andExpect(jsonPath("_links.next").exists())
+                .andExpect(jsonPath("_links.prev").exists())
+                .andDo(document("query-products-cursor",
+                        links(
+                                linkWithRel("self").description("link to self"),
+                                linkWithRel("next").description("다음 목록을 조회하는 주소, 마지막 목록인 경우 없음"),
+                                linkWithRel("prev").description("이전 목록을 조회하는 주소, 첫 목록인 경우 없음"),
+                                linkWithRel("profile").description("link to profile")
+                        ), requestParameters(
+                                parameterWithName("cursor").description("이전 응답의 next, prev 주소에 담긴 cursor, 첫 목록은 값 없이 보냄"),
+                                parameterWithName("size").description("한 번에 조회할 상품의 개수 (기본 20, 최대 100)")
+                        ), responseHeaders(
+                                headerWithName(HttpHeaders.CONTENT_TYPE).description("Content Type header")
+                        ), responseFields(
+                                fieldWithPath("_embedded.productResponseDtoList[*].id").description("상품 식별자"),
+                                fieldWithPath("_embedded.productResponseDtoList[*].name").description("상품 이름"),
+                                fieldWithPath("_embedded.productResponseDtoList[*].price").description("상품 가격"),
+                                fieldWithPath("_embedded.productResponseDtoList[*].amount").description("상품 재고 수량"),
+                                fieldWithPath("_embedded.productResponseDtoList[*].createdAt").description("상품 등록 일시"),
+                                fieldWithPath("_embedded.productResponseDtoList[*].account").description("상품 등록자 식별자"),
+                                fieldWithPath("_embedded.productResponseDtoList[*].account.id").description("상품 등록자 식별자"),
+                                fieldWithPath("_embedded.productResponseDtoList[*].account.username").description("상품 등록자 이름"),
+                                fieldWithPath("_embedded.productResponseDtoList[*]._links.self.href").description("link to self"),
+                                fieldWithPath("_links.*.*").ignored()
+                        )
+                ))
+                .andReturn().getResponse().getContentAsString();
+
+        String last = mockMvc.perform(get(linkOf(second, "next")))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("_embedded.productResponseDtoList[*].id").value(new ArrayList<>(ids.subList(6, 7))))
+                .andExpect(jsonPath("_links.next").doesNotExist())
+                .andExpect(jsonPath("_links.prev").exists())
+                .andReturn().getResponse().getContentAsString();
+
+        String previous = mockMvc.perform(get(linkOf(last, "prev")))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("_embedded.productResponseDtoList[*].id").value(new ArrayList<>(ids.subList(3, 6))))
+                .andExpect(jsonPath("_links.next").exists())
+                .andExpect(jsonPath("_links.prev").exists())
+                .andReturn().getResponse().getContentAsString();
+
+        mockMvc.perform(get(linkOf(previous, "prev")))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("_embedded.productResponseDtoList[*].id").value(new ArrayList<>(ids.subList(0, 3))))
+                .andExpect(jsonPath("_links.next").exists())
+                .andExpect(jsonPath("_links.prev").doesNotExist());
+
+        mockMvc.perform(get(productUrl)
+                .param("cursor", "invalid"))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath(KEY).value(INVALIDPRODUCTCURSOR));
+    }
+
     @Test
     @DisplayName("개별 상품 조회 테스트")
     void 개별_상품_조회() throws Exception {
@@ -521,9 +714,6 @@ class ProductControllerTest extends BaseControllerTest {
                                 fieldWithPath("createdAt").description("상품 등록 일시"),
                                 fieldWithPath("account.id").description("상품 등록자 식별자"),
                                 fieldWithPath("account.username").description("상품 등록자 이름"),
-                                fieldWithPath("account.balance").description("상품 등록자 예치금"),
-                                fieldWithPath("account.role").description("상품 등록자 역할"),
-                                fieldWithPath("account.createdAt").description("상품 등록자 생성 일시"),
                                 fieldWithPath("_links.*.*").ignored()
                         )
                 ));
@@ -532,6 +722,610 @@ class ProductControllerTest extends BaseControllerTest {
         assertEquals(all.size(), 10);
     }
 
+    @Test
+    @DisplayName("개별 상품 조회가 캐시에 담기고, 상품을 수정, 삭제하면 캐시에서 지워지는지 테스트")
+    void 개별_상품_조회_캐시_테스트() throws Exception {
+        Account account = createAccount();
+        Product savedProduct = saveProduct(15000L, 30L, account);
+        String updatedName = "모던 자바 인 액션";
+
+        mockMvc.perform(get(productUrl + "/{productId}", savedProduct.getId()))
+                .andExpect(status().isOk());
+        long hits = productDetailCache.getHitCount();
+        mockMvc.perform(get(productUrl + "/{productId}", savedProduct.getId()))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("name", is("스타트 스프링 부트")))
+                .andExpect(jsonPath("account.username", is(account.getUsername())))
+                .andExpect(jsonPath("_links.self").exists());
+        assertEquals(productDetailCache.getHitCount(), hits + 1);
+
+        mockMvc.perform(put(productUrl + "/{productId}", savedProduct.getId())
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(account))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(ProductRequestDto.builder()
+                        .name(updatedName)
+                        .price(20000L)
+                        .amount(5L)
+                        .build())))
+                .andExpect(status().isOk());
+        mockMvc.perform(get(productUrl + "/{productId}", savedProduct.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("name", is(updatedName)))
+                .andExpect(jsonPath("price", is(20000)))
+                .andExpect(jsonPath("amount", is(5)));
+
+        mockMvc.perform(delete(productUrl + "/{productId}", savedProduct.getId())
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(account)))
+                .andExpect(status().isOk());
+        mockMvc.perform(get(productUrl + "/{productId}", savedProduct.getId()))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath(KEY).exists());
+    }
+
+    @Test
+    @DisplayName("캐시가 최대 개수를 넘거나 만료된 상품을 제거하는지 테스트")
+    void 상품_캐시_크기_만료_테스트() {
+        Account account = createAccount();
+        List<Product> products = new ArrayList<>();
+        IntStream.rangeClosed(1, 3).forEach(index -> products.add(saveProduct_need_index(index, 15000L, 30L, account)));
+
+        ProductDetailCache cache = new ProductDetailCache(productRepository, 2, Duration.ofMinutes(1));
+        products.forEach(e -> cache.find(e.getId()));
+        assertEquals(cache.size(), 2);
+        assertEquals(cache.getEvictionCount(), 1L);
+        cache.find(products.get(2).getId());
+        assertEquals(cache.getHitCount(), 1L);
+        cache.find(products.get(0).getId()); // 가장 오래 사용되지 않아 제거된 상품
+        assertEquals(cache.getMissCount(), 4L);
+
+        ProductDetailCache expiringCache = new ProductDetailCache(productRepository, 2, Duration.ZERO);
+        expiringCache.find(products.get(0).getId());
+        expiringCache.find(products.get(0).getId());
+        assertEquals(expiringCache.getHitCount(), 0L);
+        assertEquals(expiringCache.getMissCount(), 2L);
+        assertEquals(expiringCache.getEvictionCount(), 1L);
+    }
+
+    @Test
+    @DisplayName("같은 상품을 동시에 조회하면 db에서 한 번만 읽는지 테스트")
+    void 상품_캐시_동시_조회_테스트() throws Exception {
+        Account account = createAccount();
+        Product savedProduct = saveProduct(15000L, 30L, account);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        ProductRepository slowRepository = (ProductRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{ProductRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("findCatalogById")) {
+                        loads.incrementAndGet();
+                        loading.countDown();
+                        Thread.sleep(200); // 다른 요청이 읽는 중에 도착하도록 늦춤
+                    }
+                    try {
+                        return method.invoke(productRepository, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        ProductDetailCache cache = new ProductDetailCache(slowRepository, 10, Duration.ofMinutes(1));
+
+        int threads = 8;
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try {
+            Future<Optional<?>> first = executorService.submit(() -> cache.find(savedProduct.getId()));
+            loading.await(5, TimeUnit.SECONDS);
+            List<Future<Optional<?>>> futures = new ArrayList<>();
+            for (int i = 1; i < threads; i++) {
+                futures.add(executorService.submit(() -> cache.find(savedProduct.getId())));
+            }
+            Object responseDto = first.get(5, TimeUnit.SECONDS).get();
+            for (Future<Optional<?>> future : futures) {
+                assertSame(future.get(5, TimeUnit.SECONDS).get(), responseDto);
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        assertEquals(loads.get(), 1);
+        assertTrue(cache.find(savedProduct.getId()).isPresent());
+        assertEquals(loads.get(), 1);
+    }
+
+    @Test
+    @DisplayName("상품 목록, 개별 상품 조회가 상품과 등록자의 주문 수와 관계없이 정해진 개수의 SQL만 실행하는지 테스트")
+    void 상품_조회_SQL_개수_테스트() throws Exception {
+        List<Account> accounts = new ArrayList<>();
+        IntStream.rangeClosed(1, 3).forEach(index -> accounts.add(createAccount_need_account(generateAccount_need_username("username" + index))));
+        List<Product> products = new ArrayList<>();
+        IntStream.rangeClosed(1, 25).forEach(index -> products.add(saveProduct_need_index(index, 15000L, 30L, accounts.get(index % 3))));
+        products.forEach(product -> accounts.forEach(account -> ordersRepository.save(Orders.builder()
+                .account(account)
+                .product(product)
+                .number(1L)
+                .total(15000L)
+                .createdAt(LocalDateTime.now())
+                .build())));
+        productDetailCache.clear();
+
+        // 조회 쿼리와 COUNT 쿼리
+        SqlStatementCounter.clear();
+        mockMvc.perform(get(productUrl).param("size", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("_embedded.productResponseDtoList.length()").value(20))
+                .andExpect(jsonPath("_embedded.productResponseDtoList[0].account.username").exists());
+        assertEquals(SqlStatementCounter.totalCount(), 2L);
+
+        // 조회 쿼리만 실행 (Slice)
+        SqlStatementCounter.clear();
+        mockMvc.perform(get(productUrl).param("cursor", "").param("size", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("_embedded.productResponseDtoList.length()").value(20));
+        assertEquals(SqlStatementCounter.totalCount(), 1L);
+
+        SqlStatementCounter.clear();
+        mockMvc.perform(get(productUrl + "/{productId}", products.get(0).getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("account.id").value(accounts.get(1).getId()))
+                .andExpect(jsonPath("account.username", is("username2")));
+        assertEquals(SqlStatementCounter.totalCount(), 1L);
+    }
+
+    @Test
+    @DisplayName("상품 이름을 한글, 영문으로 검색하고 점수 순서로 반환하는지 테스트")
+    void 상품_검색_테스트() throws Exception {
+        productSearchIndex.rebuild();
+        Account account = createAccount();
+        Long springBoot = registerProduct("스프링 부트 실전 활용", account);
+        Long startSpringBoot = registerProduct("스타트 스프링 부트", account);
+        Long bootInAction = registerProduct("Spring Boot in Action", account);
+        registerProduct("모던 자바 인 액션", account);
+        Long springSecurity = registerProduct("Spring Security", account);
+
+        mockMvc.perform(get(productUrl + "/search")
+                .param("q", "스프링")
+                .param("size", "10"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("_embedded.productResponseDtoList[*].id").value(contains(startSpringBoot.intValue(), springBoot.intValue()))) // 이름이 짧을수록 앞에 옴
+                .andExpect(jsonPath("_links.self").exists())
+                .andExpect(jsonPath("_links.profile").exists())
+                .andDo(document("search-products",
+                        links(
+                                linkWithRel("self").description("link to self"),
+                                linkWithRel("profile").description("link to profile")
+                        ), requestParameters(
+                                parameterWithName("q").description("검색어, 한글은 이어서 나오는 글자로 찾고 영문, 숫자의 마지막 단어는 그 단어로 시작하는 단어도 찾음"),
+                                parameterWithName("size").description("조회할 최대 상품 개수 (기본 20, 최대 100)")
+                        ), responseHeaders(
+                                headerWithName(HttpHeaders.CONTENT_TYPE).description("Content Type header")
+                        ), responseFields(
+                                fieldWithPath("_embedded.productResponseDtoList[*].id").description("상품 식별자"),
+                                fieldWithPath("_embedded.productResponseDtoList[*].name").description("상품 이름"),
+                                fieldWithPath("_embedded.productResponseDtoList[*].price").description("상품 가격"),
+                                fieldWithPath("_embedded.productResponseDtoList[*].amount").description("상품 재고 수량"),
+                                fieldWithPath("_embedded.productResponseDtoList[*].createdAt").description("상품 등록 일시"),
+                                fieldWithPath("_embedded.productResponseDtoList[*].account").description("상품 등록자 식별자"),
+                                fieldWithPath("_embedded.productResponseDtoList[*].account.id").description("상품 등록자 식별자"),
+                                fieldWithPath("_embedded.productResponseDtoList[*].account.username").description("상품 등록자 이름"),
+                                fieldWithPath("_embedded.productResponseDtoList[*]._links.self.href").description("link to self"),
+                                fieldWithPath("_links.*.*").ignored()
+                        )
+                ));
+
+        assertEquals(searchIds("spr"), Arrays.asList(springSecurity, bootInAction)); // 입력 중인 단어로 시작하는 이름
+        assertEquals(searchIds("SPRING act"), Collections.singletonList(bootInAction));
+        assertEquals(searchIds("링 부"), Arrays.asList(startSpringBoot, springBoot));
+        assertEquals(searchIds("프링부"), Collections.emptyList()); // 한글은 이어서 나오는 글자만 찾음
+        assertEquals(searchIds("자바 액션"), searchIds("액션"));
+        assertEquals(searchIds("파이썬"), Collections.emptyList());
+
+        mockMvc.perform(get(productUrl + "/search").param("q", " !? "))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath(KEY).value(INVALIDSEARCHQUERY));
+    }
+
+    @Test
+    @DisplayName("상품을 수정, 삭제하면 검색 색인에 바로 반영되는지 테스트")
+    void 상품_검색_수정_삭제_테스트() throws Exception {
+        productSearchIndex.rebuild();
+        Account account = createAccount();
+        Long productId = registerProduct("스타트 스프링 부트", account);
+        assertEquals(searchIds("부트"), Collections.singletonList(productId));
+
+        mockMvc.perform(put(productUrl + "/{productId}", productId)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(account))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(ProductRequestDto.builder()
+                        .name("모던 자바 인 액션")
+                        .price(20000L)
+                        .amount(5L)
+                        .build())))
+                .andExpect(status().isOk());
+        assertEquals(searchIds("부트"), Collections.emptyList());
+        assertEquals(searchIds("모던"), Collections.singletonList(productId));
+
+        mockMvc.perform(delete(productUrl + "/{productId}", productId)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(account)))
+                .andExpect(status().isOk());
+        assertEquals(searchIds("모던"), Collections.emptyList());
+        assertEquals(productSearchIndex.size(), 0);
+    }
+
+    @Test
+    @DisplayName("db의 상품으로 검색 색인을 여러 구간으로 나누어 다시 만드는지 테스트")
+    void 상품_검색_색인_다시_만들기_테스트() {
+        Account account = createAccount();
+        List<Product> products = new ArrayList<>();
+        IntStream.rangeClosed(1, 7).forEach(index -> products.add(saveProduct_need_index(index, 15000L, 30L, account)));
+
+        ProductSearchIndex index = new ProductSearchIndex(productRepository, 3, 2);
+        assertEquals(index.search("스프링", 10).get(), Collections.emptyList());
+        index.rebuild();
+        assertEquals(index.size(), 7);
+        assertEquals(index.search("스프링", 10).get().size(), 7);
+        assertEquals(index.search("스타트 부트7", 10).get(), Collections.singletonList(products.get(6).getId()));
+        assertEquals(index.search("부트1", 10).get(), Collections.singletonList(products.get(0).getId())); // 한글에 붙은 숫자는 따로 나누어 찾음
+        assertEquals(index.search("스프링", 3).get().size(), 3);
+    }
+
+    @Test
+    @DisplayName("상품 목록을 가격 범위로 거르고 가격, 등록 일시 순서로 정렬된 색인으로 조회하는지 테스트")
+    void 상품_리스트_가격_범위_조회_테스트() throws Exception {
+        Account account = createAccount();
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = new ArrayList<>(); // 가격이 1000원씩 비싸고 1분씩 늦게 등록된 상품
+        IntStream.rangeClosed(1, 10).forEach(index -> ids.add(productRepository.save(Product.builder()
+                .name("스타트 스프링 부트" + index)
+                .price(index * 1000L)
+                .amount(30L)
+                .createdAt(now.plusMinutes(index))
+                .account(account)
+                .build()).getId()));
+        productSortIndex.rebuild();
+
+        SqlStatementCounter.clear();
+        mockMvc.perform(get(productUrl)
+                .param("minPrice", "3000")
+                .param("maxPrice", "8000")
+                .param("sort", "price,desc")
+                .param("size", "4"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("_embedded.productResponseDtoList[*].price").value(contains(8000, 7000, 6000, 5000)))
+                .andExpect(jsonPath("page.totalElements").value(6))
+                .andExpect(jsonPath("page.totalPages").value(2))
+                .andExpect(jsonPath("_links.next").exists())
+                .andDo(document("query-products-price",
+                        links(
+                                linkWithRel("first").description("link to first page"),
+                                linkWithRel("self").description("link to self"),
+                                linkWithRel("next").description("link to next page"),
+                                linkWithRel("last").description("link to last page"),
+                                linkWithRel("profile").description("link to profile")
+                        ), requestParameters(
+                                parameterWithName("minPrice").description("최소 가격 (포함), 없으면 제한하지 않음"),
+                                parameterWithName("maxPrice").description("최대 가격 (포함), 없으면 제한하지 않음"),
+                                parameterWithName("sort").description("price 또는 createdAt과 정렬 방향(asc, desc), 없으면 가격 순서"),
+                                parameterWithName("size").description("한 페이지의 항목 개수")
+                        ), responseHeaders(
+                                headerWithName(HttpHeaders.CONTENT_TYPE).description("Content Type header")
+                        ), responseFields(
+                                fieldWithPath("_embedded.productResponseDtoList[*].id").description("상품 식별자"),
+                                fieldWithPath("_embedded.productResponseDtoList[*].name").description("상품 이름"),
+                                fieldWithPath("_embedded.productResponseDtoList[*].price").description("상품 가격"),
+                                fieldWithPath("_embedded.productResponseDtoList[*].amount").description("상품 재고 수량"),
+                                fieldWithPath("_embedded.productResponseDtoList[*].createdAt").description("상품 등록 일시"),
+                                fieldWithPath("_embedded.productResponseDtoList[*].account").description("상품 등록자 식별자"),
+                                fieldWithPath("_embedded.productResponseDtoList[*].account.id").description("상품 등록자 식별자"),
+                                fieldWithPath("_embedded.productResponseDtoList[*].account.username").description("상품 등록자 이름"),
+                                fieldWithPath("_embedded.productResponseDtoList[*]._links.self.href").description("link to self"),
+                                fieldWithPath("_links.*.*").ignored(),
+                                fieldWithPath("page.size").description("한 페이지의 항목 개수"),
+                                fieldWithPath("page.totalElements").description("가격 범위에 속한 항목 개수"),
+                                fieldWithPath("page.totalPages").description("총 페이지 개수"),
+                                fieldWithPath("page.number").description("현재 페이지 번호(0부터 시작)")
+                        )
+                ));
+        assertEquals(SqlStatementCounter.totalCount(), 1L); // 정렬, COUNT 없이 page에 담길 상품만 조회
+
+        mockMvc.perform(get(productUrl)
+                .param("minPrice", "3000")
+                .param("maxPrice", "8000")
+                .param("sort", "price,desc")
+                .param("size", "4")
+                .param("page", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("_embedded.productResponseDtoList[*].price").value(contains(4000, 3000)));
+        mockMvc.perform(get(productUrl)
+                .param("sort", "createdAt,desc")
+                .param("size", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("_embedded.productResponseDtoList[*].id").value(contains(ids.get(9).intValue(), ids.get(8).intValue(), ids.get(7).intValue())))
+                .andExpect(jsonPath("page.totalElements").value(10));
+        mockMvc.perform(get(productUrl)
+                .param("minPrice", "2000")
+                .param("maxPrice", "5000")
+                .param("sort", "createdAt,asc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("_embedded.productResponseDtoList[*].id").value(contains(ids.get(1).intValue(), ids.get(2).intValue(), ids.get(3).intValue(), ids.get(4).intValue())));
+        mockMvc.perform(get(productUrl)
+                .param("maxPrice", "2500"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("_embedded.productResponseDtoList[*].price").value(contains(1000, 2000)));
+        mockMvc.perform(get(productUrl)
+                .param("minPrice", "20000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("_embedded").doesNotExist())
+                .andExpect(jsonPath("page.totalElements").value(0));
+
+        mockMvc.perform(get(productUrl)
+                .param("minPrice", "5000")
+                .param("maxPrice", "3000"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath(KEY).value(INVALIDPRICERANGE));
+        mockMvc.perform(get(productUrl)
+                .param("minPrice", "3000")
+                .param("sort", "name,asc"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath(KEY).value(INVALIDPRODUCTSORT));
+    }
+
+    @Test
+    @DisplayName("상품을 등록, 수정, 삭제하면 가격, 등록 일시 정렬 색인에 바로 반영되는지 테스트")
+    void 상품_정렬_색인_등록_수정_삭제_테스트() throws Exception {
+        productSortIndex.rebuild();
+        Account account = createAccount();
+        Long firstId = registerProduct("스타트 스프링 부트", account);
+        Long productId = registerProduct("모던 자바 인 액션", account); // 가격 15000원
+        assertEquals(priceRangeIds(10000L, 20000L, "createdAt,desc"), Arrays.asList(productId, firstId));
+
+        mockMvc.perform(put(productUrl + "/{productId}", productId)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(account))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(ProductRequestDto.builder()
+                        .name("모던 자바 인 액션")
+                        .price(30000L)
+                        .amount(5L)
+                        .build())))
+                .andExpect(status().isOk());
+        assertEquals(priceRangeIds(10000L, 20000L, "price,asc"), Collections.singletonList(firstId));
+        assertEquals(priceRangeIds(20000L, null, "price,asc"), Collections.singletonList(productId));
+        assertEquals(productSortIndex.size(), 2);
+
+        mockMvc.perform(delete(productUrl + "/{productId}", productId)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(account)))
+                .andExpect(status().isOk());
+        assertEquals(priceRangeIds(20000L, null, "price,asc"), Collections.emptyList());
+        assertEquals(productSortIndex.size(), 1);
+    }
+
+    @Test
+    @DisplayName("개별 상품 조회가 ETag를 반환하고, 상품이 바뀌지 않았으면 If-None-Match에 Not Modified를 반환하는지 테스트")
+    void 개별_상품_조회_ETag_테스트() throws Exception {
+        Account account = createAccount();
+        Product savedProduct = saveProduct(15000L, 30L, account);
+
+        String etag = mockMvc.perform(get(productUrl + "/{productId}", savedProduct.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        SqlStatementCounter.clear();
+        mockMvc.perform(get(productUrl + "/{productId}", savedProduct.getId())
+                .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andDo(print())
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""))
+                .andDo(document("get-product-not-modified",
+                        requestHeaders(
+                                headerWithName(HttpHeaders.IF_NONE_MATCH).description("이전 응답의 ETag")
+                        ), responseHeaders(
+                                headerWithName(HttpHeaders.ETAG).description("상품의 ETag")
+                        )));
+        assertEquals(SqlStatementCounter.totalCount(), 0L); // 캐시에 담긴 상품의 버전으로 확인함
+
+        mockMvc.perform(put(productUrl + "/{productId}", savedProduct.getId())
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(account))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(ProductRequestDto.builder()
+                        .name("모던 자바 인 액션")
+                        .price(20000L)
+                        .amount(5L)
+                        .build())))
+                .andExpect(status().isOk());
+        String updatedEtag = mockMvc.perform(get(productUrl + "/{productId}", savedProduct.getId())
+                .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("name", is("모던 자바 인 액션")))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertTrue(!etag.equals(updatedEtag));
+
+        transactionTemplate.execute(status -> stockUpdater.decrease(Collections.singletonMap(savedProduct.getId(), 1L)));
+        String decreasedEtag = mockMvc.perform(get(productUrl + "/{productId}", savedProduct.getId())
+                .header(HttpHeaders.IF_NONE_MATCH, updatedEtag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("amount", is(4)))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(put("/api/accounts/{accountId}", account.getId())
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(account))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(AccountRequestDto.builder()
+                        .username("renamedUser")
+                        .password("password")
+                        .build())))
+                .andExpect(status().isOk());
+        mockMvc.perform(get(productUrl + "/{productId}", savedProduct.getId())
+                .header(HttpHeaders.IF_NONE_MATCH, decreasedEtag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("account.username", is("renamedUser")));
+    }
+
+    @Test
+    @DisplayName("상품 목록 조회가 ETag를 반환하고, 상품이 바뀌지 않았으면 조회하지 않고 Not Modified를 반환하는지 테스트")
+    void 상품_리스트_조회_ETag_테스트() throws Exception {
+        Account account = createAccount();
+        Product savedProduct = saveProduct(15000L, 30L, account);
+
+        String etag = mockMvc.perform(get(productUrl))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        SqlStatementCounter.clear();
+        mockMvc.perform(get(productUrl).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andDo(print())
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+        mockMvc.perform(get(productUrl).header(HttpHeaders.IF_NONE_MATCH, "\"other\", W/" + etag))
+                .andExpect(status().isNotModified());
+        assertEquals(SqlStatementCounter.totalCount(), 0L);
+
+        transactionTemplate.execute(status -> stockUpdater.decrease(Collections.singletonMap(savedProduct.getId(), 1L)));
+        String decreasedEtag = mockMvc.perform(get(productUrl).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("_embedded.productResponseDtoList[0].amount", is(29)))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        registerProduct("모던 자바 인 액션", account);
+        mockMvc.perform(get(productUrl).header(HttpHeaders.IF_NONE_MATCH, decreasedEtag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("page.totalElements", is(2)));
+    }
+
+    @Test
+    @DisplayName("개별 상품, 상품 목록 조회의 직렬화한 응답이 담기고, gzip으로 압축되며, 상품이 바뀌면 다시 만들어지는지 테스트")
+    void 상품_응답_캐시_테스트() throws Exception {
+        Account account = createAccount();
+        Product savedProduct = saveProduct(15000L, 30L, account);
+
+        MvcResult result = mockMvc.perform(get(productUrl + "/{productId}", savedProduct.getId()))
+                .andExpect(status().isOk())
+                .andReturn();
+        byte[] body = result.getResponse().getContentAsByteArray();
+        String etag = result.getResponse().getHeader(HttpHeaders.ETAG);
+        String gzipEtag = etag.substring(0, etag.length() - 1) + "-gzip\"";
+        long hits = productResponseCache.getHitCount();
+        long misses = productResponseCache.getMissCount();
+        SqlStatementCounter.clear();
+        MvcResult gzipResult = mockMvc.perform(get(productUrl + "/{productId}", savedProduct.getId())
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andExpect(header().string(HttpHeaders.ETAG, gzipEtag))
+                .andExpect(content().contentType(MediaTypes.HAL_JSON_VALUE))
+                .andReturn();
+        assertArrayEquals(gunzip(gzipResult.getResponse().getContentAsByteArray()), body);
+        mockMvc.perform(get(productUrl + "/{productId}", savedProduct.getId())
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().bytes(body));
+        // 압축한 응답과 압축하지 않은 응답의 ETag는 서로의 If-None-Match와 맞지 않음
+        mockMvc.perform(get(productUrl + "/{productId}", savedProduct.getId())
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .header(HttpHeaders.IF_NONE_MATCH, gzipEtag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, gzipEtag));
+        mockMvc.perform(get(productUrl + "/{productId}", savedProduct.getId())
+                .header(HttpHeaders.IF_NONE_MATCH, gzipEtag))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(body));
+        mockMvc.perform(get(productUrl + "/{productId}", savedProduct.getId())
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"));
+        assertEquals(SqlStatementCounter.totalCount(), 0L);
+        assertEquals(productResponseCache.getHitCount(), hits + 4);
+        assertEquals(productResponseCache.getMissCount(), misses);
+
+        mockMvc.perform(put(productUrl + "/{productId}", savedProduct.getId())
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(account))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(ProductRequestDto.builder()
+                        .name("모던 자바 인 액션")
+                        .price(20000L)
+                        .amount(5L)
+                        .build())))
+                .andExpect(status().isOk());
+        mockMvc.perform(get(productUrl + "/{productId}", savedProduct.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("name", is("모던 자바 인 액션")));
+        assertEquals(productResponseCache.getMissCount(), misses + 1);
+
+        mockMvc.perform(get(productUrl).param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("page.totalElements", is(1)));
+        mockMvc.perform(get(productUrl).param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("page.totalElements", is(1)));
+        assertEquals(productResponseCache.getMissCount(), misses + 2);
+        mockMvc.perform(get(productUrl).param("size", "1").with(request -> {
+                    request.setServerName("other.example");
+                    return request;
+                }))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("_links.self.href", startsWith("http://other.example")));
+        assertEquals(productResponseCache.getMissCount(), misses + 3);
+
+        registerProduct("이펙티브 자바", account);
+        mockMvc.perform(get(productUrl).param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("page.totalElements", is(2)));
+        assertEquals(productResponseCache.getMissCount(), misses + 4);
+    }
+
+    private List<Long> priceRangeIds(Long minPrice, Long maxPrice, String sort) throws Exception {
+        MockHttpServletRequestBuilder request = get(productUrl).param("minPrice", String.valueOf(minPrice)).param("sort", sort);
+        if (maxPrice != null) {
+            request.param("maxPrice", String.valueOf(maxPrice));
+        }
+        String response = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<Long> ids = new ArrayList<>();
+        objectMapper.readTree(response).at("/_embedded/productResponseDtoList").forEach(e -> ids.add(e.get("id").asLong()));
+        return ids;
+    }
+
+    private Long registerProduct(String name, Account account) throws Exception {
+        String response = mockMvc.perform(post(productUrl)
+                .header(HttpHeaders.AUTHORIZATION, generateJwt(account))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(ProductRequestDto.builder()
+                        .name(name)
+                        .price(15000L)
+                        .amount(30L)
+                        .build())))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response).get("id").asLong();
+    }
+
+    private List<Long> searchIds(String query) throws Exception {
+        String response = mockMvc.perform(get(productUrl + "/search").param("q", query))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<Long> ids = new ArrayList<>();
+        objectMapper.readTree(response).at("/_embedded/productResponseDtoList").forEach(e -> ids.add(e.get("id").asLong()));
+        return ids;
+    }
+
+    private byte[] gunzip(byte[] body) throws Exception {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return StreamUtils.copyToByteArray(in);
+        }
+    }
+
+    private String linkOf(String response, String rel) throws Exception {
+        return objectMapper.readTree(response).at("/_links/" + rel + "/href").asText();
+    }
+
     private Product saveProduct(long price, long amount, Account account) {
         return productRepository.save(Product.builder()
                 .name("스타트 스프링 부트")